@@ -0,0 +1,25 @@
+package dora.crypto.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic input data, so that runs are comparable with each other.
+ */
+final class BenchmarkData {
+
+    private static final long SEED = 0x5eed_da7aL;
+
+    private BenchmarkData() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    static byte[] bytes(int length) {
+        return bytes(length, new Random(SEED));
+    }
+
+    static byte[] bytes(int length, Random random) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,72 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.block.BlockCipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw block throughput of every block cipher, without a mode of operation.
+ * A single invocation processes {@link #DATA_SIZE} bytes in place.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockCipherBenchmark {
+
+    private static final int DATA_SIZE = 64 * 1024;
+
+    @Param
+    public BlockCipherType cipherType;
+
+    private BlockCipher cipher;
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        cipher = cipherType.create();
+        cipher.init(cipherType.key());
+        data = BenchmarkData.bytes(DATA_SIZE);
+    }
+
+    @Benchmark
+    public byte[] encryptBlocks() {
+        int blockSize = cipher.blockSize();
+
+        for (int offset = 0; offset + blockSize <= data.length; offset += blockSize) {
+            cipher.encryptBlock(data, offset, data, offset);
+        }
+
+        return data;
+    }
+
+    @Benchmark
+    public byte[] decryptBlocks() {
+        int blockSize = cipher.blockSize();
+
+        for (int offset = 0; offset + blockSize <= data.length; offset += blockSize) {
+            cipher.decryptBlock(data, offset, data, offset);
+        }
+
+        return data;
+    }
+
+    @Benchmark
+    public byte[] keySchedule() {
+        cipher.init(cipherType.key());
+        return data;
+    }
+}
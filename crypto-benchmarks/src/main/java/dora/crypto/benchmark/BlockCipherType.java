@@ -0,0 +1,57 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.block.BlockCipher;
+import dora.crypto.block.deal.DealBlockCipher;
+import dora.crypto.block.des.DesBlockCipher;
+import dora.crypto.block.des.TableDesBlockCipher;
+import dora.crypto.block.rc5.Rc5BlockCipher;
+import dora.crypto.block.rc5.Rc5Parameters;
+import dora.crypto.block.rc6.Rc6BlockCipher;
+import dora.crypto.block.rc6.Rc6Parameters;
+import dora.crypto.block.rijndael.RijndaelBlockCipher;
+import dora.crypto.block.rijndael.RijndaelParameters;
+import dora.crypto.block.rijndael.TableRijndaelBlockCipher;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Block ciphers under benchmark, along with the key size each one is keyed
+ * with.
+ */
+public enum BlockCipherType {
+
+    DES(DesBlockCipher::new, 8),
+    TABLE_DES(TableDesBlockCipher::new, 8),
+    DEAL(() -> new DealBlockCipher(BenchmarkData.bytes(8)), 16),
+    RC5(() -> new Rc5BlockCipher(new Rc5Parameters(Rc5Parameters.WordSize.WORD_SIZE_32, 20, 16)), 16),
+    RC6(() -> new Rc6BlockCipher(Rc6Parameters.aesCandidate()), 16),
+    RIJNDAEL_128(() -> new RijndaelBlockCipher(RijndaelParameters.aes128()), 16),
+    RIJNDAEL_192(() -> new RijndaelBlockCipher(RijndaelParameters.aes192()), 24),
+    RIJNDAEL_256(() -> new RijndaelBlockCipher(RijndaelParameters.aes256()), 32),
+    TABLE_RIJNDAEL_128(() -> new TableRijndaelBlockCipher(RijndaelParameters.aes128()), 16),
+    TABLE_RIJNDAEL_192(() -> new TableRijndaelBlockCipher(RijndaelParameters.aes192()), 24),
+    TABLE_RIJNDAEL_256(() -> new TableRijndaelBlockCipher(RijndaelParameters.aes256()), 32);
+
+    private final Supplier<BlockCipher> creator;
+    private final int keySize;
+
+    BlockCipherType(Supplier<BlockCipher> creator, int keySize) {
+        this.creator = creator;
+        this.keySize = keySize;
+    }
+
+    /** Creates an uninitialized instance of the cipher. */
+    public BlockCipher create() {
+        return creator.get();
+    }
+
+    /** Returns a deterministic key of the right size for the cipher. */
+    public byte[] key() {
+        return BenchmarkData.bytes(keySize, new Random(ordinal()));
+    }
+
+    public int keySize() {
+        return keySize;
+    }
+}
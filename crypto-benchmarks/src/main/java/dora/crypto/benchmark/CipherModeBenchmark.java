@@ -0,0 +1,60 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.SymmetricCipher;
+import dora.crypto.SymmetricCipher.CipherModeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-message encryption and decryption through {@link SymmetricCipher} for
+ * every mode of operation, on the common pool.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CipherModeBenchmark {
+
+    @Param
+    public CipherModeType modeType;
+
+    @Param({"TABLE_RIJNDAEL_128", "RC6"})
+    public BlockCipherType cipherType;
+
+    @Param({"4096", "1048576"})
+    public int dataSize;
+
+    private SymmetricCipher cipher;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        cipher = SymmetricCiphers.create(cipherType, modeType, null);
+        plaintext = BenchmarkData.bytes(dataSize);
+        ciphertext = cipher.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws InterruptedException {
+        return cipher.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws InterruptedException {
+        return cipher.decrypt(ciphertext);
+    }
+}
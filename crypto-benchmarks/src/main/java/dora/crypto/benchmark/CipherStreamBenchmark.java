@@ -0,0 +1,109 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.SymmetricCipher;
+import dora.crypto.SymmetricCipher.CipherModeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypting and decrypting streams, read from and written to by the caller
+ * in chunks of {@link #bufferSize} bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CipherStreamBenchmark {
+
+    private static final int DATA_SIZE = 4 * 1024 * 1024;
+
+    @Param({"CBC", "CTR"})
+    public CipherModeType modeType;
+
+    @Param({"512", "8192", "65536", "1048576"})
+    public int bufferSize;
+
+    private SymmetricCipher cipher;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+    private byte[] buffer;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        cipher = SymmetricCiphers.create(BlockCipherType.TABLE_RIJNDAEL_128, modeType, null);
+        plaintext = BenchmarkData.bytes(DATA_SIZE);
+        ciphertext = cipher.encrypt(plaintext);
+        buffer = new byte[bufferSize];
+    }
+
+    @Benchmark
+    public long encryptingOutputStream() throws IOException {
+        try (OutputStream stream = cipher.encryptingOutputStream(OutputStream.nullOutputStream())) {
+            for (int offset = 0; offset < plaintext.length; offset += bufferSize) {
+                stream.write(plaintext, offset, Math.min(bufferSize, plaintext.length - offset));
+            }
+        }
+
+        return plaintext.length;
+    }
+
+    @Benchmark
+    public long decryptingOutputStream() throws IOException {
+        try (OutputStream stream = cipher.decryptingOutputStream(OutputStream.nullOutputStream())) {
+            for (int offset = 0; offset < ciphertext.length; offset += bufferSize) {
+                stream.write(ciphertext, offset, Math.min(bufferSize, ciphertext.length - offset));
+            }
+        }
+
+        return ciphertext.length;
+    }
+
+    @Benchmark
+    public long encryptingInputStream() throws IOException {
+        try (InputStream stream = cipher.encryptingInputStream(new ByteArrayInputStream(plaintext))) {
+            return drain(stream);
+        }
+    }
+
+    @Benchmark
+    public long decryptingInputStream() throws IOException {
+        try (InputStream stream = cipher.decryptingInputStream(new ByteArrayInputStream(ciphertext))) {
+            return drain(stream);
+        }
+    }
+
+    @Benchmark
+    public long encryptingInputStreamTransfer() throws IOException {
+        try (InputStream stream = cipher.encryptingInputStream(new ByteArrayInputStream(plaintext))) {
+            return stream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private long drain(InputStream stream) throws IOException {
+        long total = 0;
+        int read;
+
+        while ((read = stream.read(buffer)) >= 0) {
+            total += read;
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,63 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.dh.DiffieHellman;
+import dora.crypto.dh.DiffieHellmanGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Both halves of a Diffie-Hellman key exchange for every predefined group.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DiffieHellmanBenchmark {
+
+    @Param({"FFDHE2048", "FFDHE3072", "FFDHE4096", "FFDHE6144", "FFDHE8192"})
+    public String groupName;
+
+    private DiffieHellman exchange;
+    private BigInteger peerPublicKey;
+
+    @Setup
+    public void setUp() {
+        DiffieHellmanGroup group = switch (groupName) {
+            case "FFDHE2048" -> DiffieHellmanGroup.FFDHE2048;
+            case "FFDHE3072" -> DiffieHellmanGroup.FFDHE3072;
+            case "FFDHE4096" -> DiffieHellmanGroup.FFDHE4096;
+            case "FFDHE6144" -> DiffieHellmanGroup.FFDHE6144;
+            case "FFDHE8192" -> DiffieHellmanGroup.FFDHE8192;
+            default -> throw new IllegalArgumentException("Unknown group: " + groupName);
+        };
+
+        exchange = DiffieHellman.of(group);
+        peerPublicKey = DiffieHellman.of(group).initiate();
+        exchange.initiate();
+    }
+
+    @Benchmark
+    public BigInteger initiate() {
+        return exchange.initiate();
+    }
+
+    @Benchmark
+    public BigInteger complete() {
+        exchange.complete(peerPublicKey);
+        return exchange.sharedSecret();
+    }
+}
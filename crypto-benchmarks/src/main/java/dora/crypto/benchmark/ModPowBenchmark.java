@@ -0,0 +1,59 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.rsa.RsaMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modular exponentiation with a full-size exponent, as in RSA decryption.
+ * {@link BigInteger#modPow} is the baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ModPowBenchmark {
+
+    @Param({"1024", "2048", "4096"})
+    public int modulusSize;
+
+    private final RsaMath math = new RsaMath();
+
+    private BigInteger x;
+    private BigInteger exp;
+    private BigInteger mod;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+
+        mod = new BigInteger(modulusSize, random).setBit(modulusSize - 1).setBit(0);
+        x = new BigInteger(modulusSize - 1, random);
+        exp = new BigInteger(modulusSize, random);
+    }
+
+    @Benchmark
+    public BigInteger rsaMath() {
+        return math.modPow(x, exp, mod);
+    }
+
+    @Benchmark
+    public BigInteger bigInteger() {
+        return x.modPow(exp, mod);
+    }
+}
@@ -0,0 +1,75 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.SymmetricCipher.PaddingType;
+import dora.crypto.block.padding.Padding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Padding and unpadding of a message whose last block is partially filled,
+ * through both the array and the buffer API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PaddingBenchmark {
+
+    private static final int BLOCK_SIZE = 16;
+
+    @Param
+    public PaddingType paddingType;
+
+    @Param({"13", "4093"})
+    public int dataSize;
+
+    private Padding padding;
+    private byte[] data;
+    private byte[] padded;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        padding = paddingType.createPadding();
+        data = BenchmarkData.bytes(dataSize);
+        padded = padding.pad(data, BLOCK_SIZE);
+        buffer = ByteBuffer.allocate(padded.length);
+    }
+
+    @Benchmark
+    public byte[] pad() {
+        return padding.pad(data, BLOCK_SIZE);
+    }
+
+    @Benchmark
+    public byte[] unpad() {
+        return padding.unpad(padded, BLOCK_SIZE);
+    }
+
+    @Benchmark
+    public int padBuffer() {
+        buffer.clear().position(dataSize);
+        return padding.pad(buffer, dataSize, BLOCK_SIZE);
+    }
+
+    @Benchmark
+    public int unpadBuffer() {
+        buffer.clear();
+        buffer.put(padded).flip();
+        return padding.unpad(buffer, BLOCK_SIZE);
+    }
+}
@@ -0,0 +1,68 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.SymmetricCipher;
+import dora.crypto.SymmetricCipher.CipherModeType;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the parallel block processor with the size of the pool the
+ * cipher runs on. Only modes that process blocks in parallel are measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelScalingBenchmark {
+
+    private static final int DATA_SIZE = 16 * 1024 * 1024;
+
+    @Param({"ECB", "CTR", "RANDOM_DELTA"})
+    public CipherModeType modeType;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private SymmetricCipher cipher;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        pool = new ForkJoinPool(parallelism);
+        cipher = SymmetricCiphers.create(BlockCipherType.TABLE_RIJNDAEL_128, modeType, pool);
+        plaintext = BenchmarkData.bytes(DATA_SIZE);
+        ciphertext = cipher.encrypt(plaintext);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws InterruptedException {
+        return cipher.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws InterruptedException {
+        return cipher.decrypt(ciphertext);
+    }
+}
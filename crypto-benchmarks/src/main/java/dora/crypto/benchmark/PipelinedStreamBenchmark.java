@@ -0,0 +1,79 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.SymmetricCipher;
+import dora.crypto.SymmetricCipher.CipherModeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipelined streams compared to the sequential ones, both drained with
+ * {@link InputStream#transferTo}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PipelinedStreamBenchmark {
+
+    private static final int DATA_SIZE = 16 * 1024 * 1024;
+
+    /** Modes that can be pipelined in both directions. */
+    @Param({"CTR", "ECB", "RANDOM_DELTA"})
+    public CipherModeType modeType;
+
+    private SymmetricCipher cipher;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        cipher = SymmetricCiphers.create(BlockCipherType.TABLE_RIJNDAEL_128, modeType, null);
+        plaintext = BenchmarkData.bytes(DATA_SIZE);
+        ciphertext = cipher.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public long encryptingInputStream() throws IOException {
+        try (InputStream stream = cipher.encryptingInputStream(new ByteArrayInputStream(plaintext))) {
+            return stream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public long pipelinedEncryptingInputStream() throws IOException {
+        try (InputStream stream = cipher.pipelinedEncryptingInputStream(new ByteArrayInputStream(plaintext))) {
+            return stream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public long decryptingInputStream() throws IOException {
+        try (InputStream stream = cipher.decryptingInputStream(new ByteArrayInputStream(ciphertext))) {
+            return stream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public long pipelinedDecryptingInputStream() throws IOException {
+        try (InputStream stream = cipher.pipelinedDecryptingInputStream(new ByteArrayInputStream(ciphertext))) {
+            return stream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.rsa.Rsa;
+import dora.crypto.rsa.Rsa.KeyPairGenerator;
+import dora.crypto.rsa.Rsa.KeyPairGenerator.KeyPair;
+import dora.crypto.rsa.Rsa.PrimalityTestType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RSA private-key operation with and without the CRT key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class RsaDecryptionBenchmark {
+
+    @Param({"2048"})
+    public int modulusSize;
+
+    @Param({"2", "3"})
+    public int primeCount;
+
+    private Rsa crt;
+    private Rsa plain;
+    private BigInteger ciphertext;
+
+    @Setup
+    public void setUp() {
+        KeyPair keyPair = KeyPairGenerator.ofModulusSize(PrimalityTestType.MILLER_RABIN, 0.999, modulusSize, primeCount, null)
+            .generate();
+
+        crt = new Rsa(keyPair, null);
+        plain = new Rsa(keyPair.withCrt(null), null);
+        ciphertext = new BigInteger(keyPair.n().bitLength() - 1, new Random(42));
+    }
+
+    @Benchmark
+    public BigInteger crt() {
+        return crt.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public BigInteger plain() {
+        return plain.decrypt(ciphertext);
+    }
+}
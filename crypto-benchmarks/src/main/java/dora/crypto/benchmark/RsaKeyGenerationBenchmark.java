@@ -0,0 +1,52 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.rsa.Rsa.KeyPairGenerator;
+import dora.crypto.rsa.Rsa.KeyPairGenerator.KeyPair;
+import dora.crypto.rsa.Rsa.PrimalityTestType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RSA key pair generation for every primality test. Generation time varies a
+ * lot between invocations, so every invocation is measured on its own.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 30)
+@Fork(1)
+@State(Scope.Thread)
+public class RsaKeyGenerationBenchmark {
+
+    @Param
+    public PrimalityTestType primalityTest;
+
+    @Param({"512", "1024"})
+    public int primeSize;
+
+    @Param({"0.99"})
+    public double certainty;
+
+    private KeyPairGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new KeyPairGenerator(primalityTest, certainty, primeSize);
+    }
+
+    @Benchmark
+    public KeyPair generate() {
+        return generator.generate();
+    }
+}
@@ -0,0 +1,39 @@
+package dora.crypto.benchmark;
+
+import dora.crypto.SymmetricCipher;
+import dora.crypto.SymmetricCipher.CipherModeType;
+import dora.crypto.SymmetricCipher.PaddingType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ForkJoinPool;
+
+final class SymmetricCiphers {
+
+    /** Fixed seed, so that RANDOM_DELTA ciphertexts can be decrypted again. */
+    private static final long RANDOM_DELTA_SEED = 42;
+
+    private SymmetricCiphers() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    static SymmetricCipher create(
+        BlockCipherType cipherType,
+        CipherModeType modeType,
+        @Nullable ForkJoinPool pool
+    ) {
+        var blockCipher = cipherType.create();
+        var builder = SymmetricCipher.builder()
+            .cipher(blockCipher)
+            .mode(modeType)
+            .padding(PaddingType.PKCS7)
+            .key(cipherType.key())
+            .iv(BenchmarkData.bytes(modeType.initSize(blockCipher.blockSize())))
+            .pool(pool);
+
+        if (modeType == CipherModeType.RANDOM_DELTA) {
+            builder.arguments(0, RANDOM_DELTA_SEED);
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,234 @@
+package dora.crypto;
+
+import dora.crypto.block.mode.CipherMode;
+import dora.crypto.block.padding.Padding;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encrypts or decrypts a file through {@link AsynchronousFileChannel}s.
+ * <p>
+ * The file is processed in chunks, alternating between two buffers: while a
+ * processed chunk is being written, the next one is read. Chunks are
+ * processed in order, in place, on the threads that complete the reads.
+ */
+final class AsyncFileCipher {
+
+    private final CipherMode cipherMode;
+    private final Padding padding;
+    private final int blockSize;
+
+    /** Whether data should be encrypted or decrypted. */
+    private final boolean encrypt;
+
+    private final int chunkSize;
+
+    AsyncFileCipher(
+        @NotNull CipherMode cipherMode,
+        @NotNull Padding padding,
+        boolean encrypt,
+        int chunkSize
+    ) {
+        this.cipherMode = requireNonNull(cipherMode, "cipher mode");
+        this.padding = requireNonNull(padding, "padding");
+        this.encrypt = encrypt;
+
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Invalid buffer size");
+
+        this.blockSize = cipherMode.blockSize();
+        this.chunkSize = Math.max(chunkSize / blockSize, 1) * blockSize;
+    }
+
+    /**
+     * Processes the contents of <code>input</code> into <code>output</code>,
+     * starting at position zero in both. The output is truncated to the
+     * length of the result.
+     *
+     * @return future completed with the number of bytes written
+     */
+    CompletableFuture<Long> process(
+        @NotNull AsynchronousFileChannel input,
+        @NotNull AsynchronousFileChannel output
+    ) {
+        requireNonNull(input, "input");
+        requireNonNull(output, "output");
+
+        long size;
+
+        try {
+            size = input.size();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // Everything but the last (partial) block is processed in chunks.
+        long leadingLength;
+
+        if (encrypt) {
+            leadingLength = size - size % blockSize;
+        } else {
+            if (size < blockSize || size % blockSize != 0) {
+                return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Ciphertext not multiple of block size"));
+            }
+
+            leadingLength = size - blockSize;
+        }
+
+        CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+
+        return processChunks(
+            input, output, 0, leadingLength,
+            ByteBuffer.allocate(chunkSize), done,
+            ByteBuffer.allocate(chunkSize), done
+        ).thenCompose((nothing) -> processLast(input, output, leadingLength, size));
+    }
+
+    private CompletableFuture<Void> processChunks(
+        AsynchronousFileChannel input,
+        AsynchronousFileChannel output,
+        long position,
+        long length,
+        ByteBuffer buffer,
+        CompletableFuture<Void> bufferWritten,
+        ByteBuffer nextBuffer,
+        CompletableFuture<Void> nextBufferWritten
+    ) {
+        if (position >= length) {
+            return CompletableFuture.allOf(bufferWritten, nextBufferWritten);
+        }
+
+        int size = (int) Math.min(chunkSize, length - position);
+
+        return bufferWritten
+            .thenCompose((nothing) -> readFully(input, buffer.clear().limit(size), position))
+            .thenCompose((nothing) -> {
+                process(buffer.array(), size);
+
+                CompletableFuture<Void> written = writeFully(output, buffer.flip(), position);
+
+                return processChunks(
+                    input, output, position + size, length,
+                    nextBuffer, nextBufferWritten,
+                    buffer, written
+                );
+            });
+    }
+
+    private CompletableFuture<Long> processLast(
+        AsynchronousFileChannel input,
+        AsynchronousFileChannel output,
+        long position,
+        long size
+    ) {
+        ByteBuffer last = ByteBuffer.allocate(2 * blockSize).limit((int) (size - position));
+
+        return readFully(input, last, position).thenCompose((nothing) -> {
+            int length = last.position();
+
+            if (encrypt) {
+                last.limit(last.capacity());
+                length += padding.pad(last, length, blockSize);
+
+                process(last.array(), length);
+                last.flip();
+            } else {
+                process(last.array(), length);
+                padding.unpad(last.flip(), blockSize);
+            }
+
+            long written = position + last.remaining();
+
+            return writeFully(output, last, position).thenApply((nothing2) -> {
+                // Drop whatever the output held past the result.
+                try {
+                    output.truncate(written);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+
+                return written;
+            });
+        });
+    }
+
+    private void process(byte[] data, int length) {
+        try {
+            if (encrypt) {
+                cipherMode.encrypt(data, 0, length, data, 0);
+            } else {
+                cipherMode.decrypt(data, 0, length, data, 0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(new IOException("Cipher operation interrupted", e));
+        }
+    }
+
+    private static CompletableFuture<Void> readFully(
+        AsynchronousFileChannel channel,
+        ByteBuffer buffer,
+        long position
+    ) {
+        if (!buffer.hasRemaining()) return CompletableFuture.completedFuture(null);
+
+        return transfer(channel, buffer, position, true).thenCompose((read) -> {
+            if (read < 0) throw new CompletionException(new IOException("Unexpected end of file"));
+            return readFully(channel, buffer, position + read);
+        });
+    }
+
+    private static CompletableFuture<Void> writeFully(
+        AsynchronousFileChannel channel,
+        ByteBuffer buffer,
+        long position
+    ) {
+        if (!buffer.hasRemaining()) return CompletableFuture.completedFuture(null);
+
+        return transfer(channel, buffer, position, false)
+            .thenCompose((written) -> writeFully(channel, buffer, position + written));
+    }
+
+    private static CompletableFuture<Integer> transfer(
+        AsynchronousFileChannel channel,
+        ByteBuffer buffer,
+        long position,
+        boolean read
+    ) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        CompletionHandler<Integer, Void> handler = new CompletionHandler<>() {
+
+            @Override
+            public void completed(Integer result, Void attachment) {
+                future.complete(result);
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                future.completeExceptionally(exc);
+            }
+        };
+
+        try {
+            if (read) {
+                channel.read(buffer, position, null, handler);
+            } else {
+                channel.write(buffer, position, null, handler);
+            }
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+}
@@ -0,0 +1,236 @@
+package dora.crypto;
+
+import dora.crypto.block.BlockCipher;
+import dora.crypto.block.mode.GcmCipherMode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.Objects.requireNonNullElseGet;
+
+/**
+ * Authenticated cipher that splits messages into chunks, each encrypted with
+ * {@link GcmCipherMode} and followed by its own tag.
+ * <p>
+ * The nonce of a chunk is derived from the message nonce, the index of the
+ * chunk and whether it's the last one, so reordered, dropped or truncated
+ * chunks fail authentication. Decryption verifies every chunk in the same pass
+ * that decrypts it, which rejects damaged data at the first bad chunk instead
+ * of after the whole message has been decrypted (as with padding errors).
+ * Chunks are independent and are processed in parallel.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class AuthenticatedCipher {
+
+    /** Default size of a plaintext chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /** Size of the message nonce. */
+    public static final int NONCE_SIZE = GcmCipherMode.NONCE_SIZE;
+    /** Size of the tag that follows every chunk. */
+    public static final int TAG_SIZE = GcmCipherMode.TAG_SIZE;
+
+    private final GcmCipherMode gcm;
+    private final byte[] nonce;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param cipher    block cipher with a 128-bit block; it's initialized
+     *                  with <code>key</code>
+     * @param nonce     {@link #NONCE_SIZE}-byte nonce, unique for every
+     *                  message encrypted with the key
+     * @param chunkSize size of a plaintext chunk
+     */
+    public AuthenticatedCipher(
+        @NotNull BlockCipher cipher,
+        byte @NotNull [] key,
+        byte @NotNull [] nonce,
+        int chunkSize,
+        @Nullable ForkJoinPool pool
+    ) {
+        this(initialize(cipher, key), nonce, chunkSize, pool);
+    }
+
+    private AuthenticatedCipher(
+        @NotNull GcmCipherMode gcm,
+        byte @NotNull [] nonce,
+        int chunkSize,
+        @Nullable ForkJoinPool pool
+    ) {
+        requireNonNull(nonce, "nonce");
+
+        if (nonce.length != NONCE_SIZE)
+            throw new IllegalArgumentException("expected %d-byte nonce".formatted(NONCE_SIZE));
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Invalid chunk size");
+
+        this.gcm = gcm;
+        this.nonce = nonce.clone();
+        this.chunkSize = chunkSize;
+        this.pool = requireNonNullElseGet(pool, ForkJoinPool::commonPool);
+    }
+
+    private static GcmCipherMode initialize(BlockCipher cipher, byte[] key) {
+        requireNonNull(cipher, "cipher");
+        cipher.init(requireNonNull(key, "key"));
+        return new GcmCipherMode(cipher);
+    }
+
+    /**
+     * Returns a cipher with the same key and chunk size but a different nonce.
+     * The key schedule and the hash tables are shared.
+     */
+    public @NotNull AuthenticatedCipher withNonce(byte @NotNull [] nonce) {
+        return new AuthenticatedCipher(gcm, nonce, chunkSize, pool);
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the size of the ciphertext of a <code>length</code>-byte
+     * plaintext.
+     */
+    public long encryptedSize(long length) {
+        return length + chunkCount(length) * TAG_SIZE;
+    }
+
+    public byte[] encrypt(byte @NotNull [] plaintext) throws InterruptedException {
+        requireNonNull(plaintext, "plaintext");
+
+        int chunks = chunkCount(plaintext.length);
+        byte[] ciphertext = new byte[Math.toIntExact(encryptedSize(plaintext.length))];
+
+        processChunks(chunks, (chunk) -> {
+            int offset = chunk * chunkSize;
+            int length = Math.min(chunkSize, plaintext.length - offset);
+
+            gcm.encrypt(
+                chunkNonce(chunk, chunk == chunks - 1), new byte[0],
+                plaintext, offset, length,
+                ciphertext, offset + chunk * TAG_SIZE
+            );
+        });
+
+        return ciphertext;
+    }
+
+    /**
+     * Decrypts and verifies <code>ciphertext</code>.
+     *
+     * @throws IllegalArgumentException if any chunk fails authentication
+     */
+    public byte[] decrypt(byte @NotNull [] ciphertext) throws InterruptedException {
+        requireNonNull(ciphertext, "ciphertext");
+
+        int encryptedChunkSize = chunkSize + TAG_SIZE;
+        int chunks = Math.max(1, Math.ceilDiv(ciphertext.length, encryptedChunkSize));
+
+        if (ciphertext.length - (chunks - 1) * encryptedChunkSize < TAG_SIZE)
+            throw new IllegalArgumentException("Ciphertext too short");
+
+        byte[] plaintext = new byte[ciphertext.length - chunks * TAG_SIZE];
+
+        processChunks(chunks, (chunk) -> {
+            int offset = chunk * encryptedChunkSize;
+            int length = Math.min(encryptedChunkSize, ciphertext.length - offset);
+
+            gcm.decrypt(
+                chunkNonce(chunk, chunk == chunks - 1), new byte[0],
+                ciphertext, offset, length,
+                plaintext, chunk * chunkSize
+            );
+        });
+
+        return plaintext;
+    }
+
+    /**
+     * Returns a stream that encrypts the data read from <code>stream</code>
+     * chunk by chunk.
+     */
+    public @NotNull InputStream encryptingInputStream(@NotNull InputStream stream) {
+        return new AuthenticatedInputStream(this, requireNonNull(stream, "stream"), true);
+    }
+
+    /**
+     * Returns a stream that decrypts the data read from <code>stream</code>
+     * chunk by chunk. Plaintext of a chunk is only returned once the chunk
+     * has been verified; reading a damaged chunk throws an
+     * {@link java.io.IOException}.
+     */
+    public @NotNull InputStream decryptingInputStream(@NotNull InputStream stream) {
+        return new AuthenticatedInputStream(this, requireNonNull(stream, "stream"), false);
+    }
+
+    GcmCipherMode gcm() {
+        return gcm;
+    }
+
+    /**
+     * Returns the nonce of a chunk: the message nonce with the chunk index
+     * and the last chunk flag XOR-ed into its last five bytes.
+     */
+    byte[] chunkNonce(long chunk, boolean last) {
+        if (chunk > 0xffffffffL)
+            throw new IllegalArgumentException("Message too long");
+
+        byte[] chunkNonce = nonce.clone();
+
+        for (int i = 0; i < Integer.BYTES; i++) {
+            chunkNonce[NONCE_SIZE - 2 - i] ^= (byte) (chunk >>> (i * Byte.SIZE));
+        }
+
+        if (last) chunkNonce[NONCE_SIZE - 1] ^= 1;
+        return chunkNonce;
+    }
+
+    /**
+     * Returns the number of chunks of a <code>length</code>-byte plaintext.
+     * An empty plaintext still has a (empty) chunk, so that it's
+     * authenticated.
+     */
+    private int chunkCount(long length) {
+        return (int) Math.max(1, Math.ceilDiv(length, chunkSize));
+    }
+
+    private void processChunks(int chunks, ChunkFunction function) throws InterruptedException {
+        if (chunks == 1 || pool.getParallelism() == 1) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                function.apply(chunk);
+            }
+
+            return;
+        }
+
+        Future<?> task = pool.submit(() ->
+            IntStream.range(0, chunks).parallel().forEach(function::apply)
+        );
+
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkFunction {
+
+        void apply(int chunk);
+    }
+}
@@ -0,0 +1,166 @@
+package dora.crypto;
+
+import dora.crypto.block.mode.GcmCipherMode;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Input stream that encrypts or decrypts the data read from another stream
+ * with an {@link AuthenticatedCipher}, one chunk at a time.
+ * <p>
+ * One chunk is read ahead, so that it's known whether the current chunk is
+ * the last one. When decrypting, a chunk is only returned after its tag has
+ * been verified.
+ */
+final class AuthenticatedInputStream extends FilterInputStream {
+
+    private final AuthenticatedCipher cipher;
+    private final GcmCipherMode gcm;
+    private final boolean encrypt;
+
+    /** Size of a chunk read from the underlying stream. */
+    private final int inputChunkSize;
+
+    /** Chunk that is being returned. */
+    private byte[] output;
+    private int position;
+    private int limit;
+
+    /** Chunk that has been read ahead, not processed yet. */
+    private byte[] next;
+    private int nextLength;
+
+    /** Index of the next chunk to be processed. */
+    private long chunk;
+
+    /** Whether the last chunk has been processed. */
+    private boolean eof;
+    /** Whether the stream is closed. */
+    private boolean closed;
+
+    AuthenticatedInputStream(@NotNull AuthenticatedCipher cipher, @NotNull InputStream stream, boolean encrypt) {
+        super(stream);
+
+        this.cipher = requireNonNull(cipher, "cipher");
+        this.gcm = cipher.gcm();
+        this.encrypt = encrypt;
+
+        int tagSize = AuthenticatedCipher.TAG_SIZE;
+        inputChunkSize = encrypt ? cipher.chunkSize() : cipher.chunkSize() + tagSize;
+
+        output = new byte[cipher.chunkSize() + tagSize];
+        next = new byte[cipher.chunkSize() + tagSize];
+        nextLength = -1;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        if (position >= limit && !nextChunk()) return -1;
+
+        return output[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte @NotNull [] buffer, int offset, int length) throws IOException {
+        requireNonNull(buffer, "buffer");
+
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        if (length == 0) return 0;
+        if (closed) throw new IOException("Stream closed");
+
+        int totalRead = 0;
+
+        while (length > 0) {
+            if (position >= limit && !nextChunk()) {
+                // No more data to be read.
+                return totalRead == 0 ? -1 : totalRead;
+            }
+
+            int toCopy = Math.min(length, limit - position);
+            System.arraycopy(output, position, buffer, offset, toCopy);
+
+            position += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+            totalRead += toCopy;
+        }
+
+        return totalRead;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            in.close();
+        }
+    }
+
+    /**
+     * Processes the next chunk into the output buffer.
+     *
+     * @return whether there is more data to be returned
+     */
+    private boolean nextChunk() throws IOException {
+        while (!eof) {
+            if (nextLength < 0) {
+                nextLength = in.readNBytes(next, 0, inputChunkSize);
+            }
+
+            // Swap the buffers and read the chunk after this one.
+            byte[] current = next;
+            int length = nextLength;
+
+            next = output;
+            nextLength = length < inputChunkSize ? 0 : in.readNBytes(next, 0, inputChunkSize);
+
+            boolean last = nextLength == 0;
+            output = current;
+
+            limit = process(current, length, last);
+            position = 0;
+
+            chunk++;
+            eof = last;
+
+            if (limit > 0) return true;
+        }
+
+        return false;
+    }
+
+    private int process(byte[] data, int length, boolean last) throws IOException {
+        byte[] nonce = cipher.chunkNonce(chunk, last);
+
+        if (encrypt) {
+            return gcm.encrypt(nonce, new byte[0], data, 0, length, data, 0);
+        }
+
+        if (length < AuthenticatedCipher.TAG_SIZE)
+            throw new IOException("Truncated ciphertext");
+
+        try {
+            return gcm.decrypt(nonce, new byte[0], data, 0, length, data, 0);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Chunk %d failed authentication".formatted(chunk), e);
+        }
+    }
+}
@@ -7,11 +7,20 @@ import org.jetbrains.annotations.NotNull;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Input stream that encrypts or decrypts the data read from another stream.
+ * <p>
+ * Data is read into a single buffer and processed there in place. The buffer
+ * holds, in order, processed bytes that haven't been returned yet and read
+ * bytes that don't make up a block yet (or, when decrypting, the last block,
+ * which is held back until the end of the stream to remove the padding).
+ */
 final class CipherInputStream extends FilterInputStream {
 
     private final CipherMode cipherMode;
@@ -21,17 +30,18 @@ final class CipherInputStream extends FilterInputStream {
     /** Whether data should be encrypted or decrypted. */
     private final boolean encrypt;
 
-    /** Input buffer. Data is read from this buffer. */
-    private final byte[] inputBuffer = new byte[524288];
+    /**
+     * Buffer for both read and processed data. The last block is reserved for
+     * the padding.
+     */
+    private final byte[] buffer;
 
-    /** Output buffer. Data is written to this buffer. */
-    private byte[] outputBuffer = new byte[0];
-    /** How much of the output buffer has been consumed. */
-    private int outputOffset;
-
-    /** Remaining blocks to be processed. */
-    private final byte[] remainder;
-    private int remainderLen;
+    /** Start of the processed data that hasn't been returned yet. */
+    private int position;
+    /** End of the processed data. */
+    private int limit;
+    /** End of the read data. Bytes between the limit and the end are pending. */
+    private int end;
 
     /** Whether there's no more data to be read. */
     private boolean eof;
@@ -42,7 +52,8 @@ final class CipherInputStream extends FilterInputStream {
         @NotNull CipherMode cipherMode,
         @NotNull Padding padding,
         @NotNull InputStream stream,
-        boolean encrypt
+        boolean encrypt,
+        int bufferSize
     ) {
         super(stream);
 
@@ -50,18 +61,20 @@ final class CipherInputStream extends FilterInputStream {
         this.padding = requireNonNull(padding, "padding");
         this.encrypt = encrypt;
 
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Invalid buffer size");
+
         blockSize = cipherMode.blockSize();
-        remainder = new byte[blockSize * 2];
+        // At least two pending blocks and a block of padding must fit.
+        buffer = new byte[Math.max(bufferSize / blockSize, 4) * blockSize];
     }
 
     @Override
     public int read() throws IOException {
-        byte[] oneByte = new byte[1];
-
-        int read = read(oneByte, 0, 1);
-        if (read == -1) return -1;
+        if (closed) throw new IOException("Stream closed");
+        if (position >= limit && !fillBuffer()) return -1;
 
-        return oneByte[0] & 0xff;
+        return buffer[position++] & 0xff;
     }
 
     @Override
@@ -75,18 +88,18 @@ final class CipherInputStream extends FilterInputStream {
         int totalRead = 0;
 
         while (length > 0) {
-            if (outputOffset >= outputBuffer.length) {
+            if (position >= limit) {
                 if (!fillBuffer()) {
                     // No more data to be read.
                     return totalRead == 0 ? -1 : totalRead;
                 }
             }
 
-            // Copy `length` bytes (or what's been read) into the buffer.
-            int toCopy = Math.min(length, outputBuffer.length - outputOffset);
-            System.arraycopy(outputBuffer, outputOffset, buffer, offset, toCopy);
+            // Copy `length` bytes (or what's been processed) into the buffer.
+            int toCopy = Math.min(length, limit - position);
+            System.arraycopy(this.buffer, position, buffer, offset, toCopy);
 
-            outputOffset += toCopy;
+            position += toCopy;
             offset += toCopy;
             length -= toCopy;
             totalRead += toCopy;
@@ -95,6 +108,39 @@ final class CipherInputStream extends FilterInputStream {
         return totalRead;
     }
 
+    @Override
+    public int available() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        return limit - position;
+    }
+
+    /**
+     * Writes processed data to <code>out</code> straight from the internal
+     * buffer, without copying it into an intermediate array.
+     */
+    @Override
+    public long transferTo(@NotNull OutputStream out) throws IOException {
+        requireNonNull(out, "output stream");
+        if (closed) throw new IOException("Stream closed");
+
+        long transferred = 0;
+
+        while (position < limit || fillBuffer()) {
+            int length = limit - position;
+            out.write(buffer, position, length);
+
+            position = limit;
+            transferred += length;
+        }
+
+        return transferred;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
     @Override
     public void close() throws IOException {
         if (!closed) {
@@ -104,72 +150,74 @@ final class CipherInputStream extends FilterInputStream {
     }
 
     private boolean fillBuffer() throws IOException {
-        outputBuffer = new byte[0];
-        outputOffset = 0;
-
         if (eof) {
             return false;
         }
 
+        // Move pending bytes to the start of the buffer.
+        int pending = end - limit;
+        System.arraycopy(buffer, limit, buffer, 0, pending);
+
+        position = 0;
+        limit = 0;
+        end = pending;
+
         while (true) {
-            int bytesRead = in.read(inputBuffer);
+            int bytesRead = in.read(buffer, end, buffer.length - blockSize - end);
 
             if (bytesRead == -1) {
-                // No data to be read. Process the remainder.
-                byte[] result = Arrays.copyOf(remainder, remainderLen);
-
-                try {
-                    if (encrypt) {
-                        result = padding.pad(result, blockSize);
-                        result = cipherMode.encrypt(result);
-                    } else {
-                        result = cipherMode.decrypt(result);
-                        result = padding.unpad(result, blockSize);
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException("Cipher operation interrupted", e);
-                }
-
-                outputBuffer = result;
+                // No data to be read. Process the pending bytes.
+                finish();
                 eof = true;
 
-                return outputBuffer.length > 0;
+                return limit > 0;
             }
 
-            if (bytesRead == 0) {
-                continue;
-            }
-
-            // Combine remainder with the read data.
-            byte[] combined = new byte[remainderLen + bytesRead];
-            System.arraycopy(remainder, 0, combined, 0, remainderLen);
-            System.arraycopy(inputBuffer, 0, combined, remainderLen, bytesRead);
+            end += bytesRead;
 
             // For encryption, process all complete blocks.
             // For decryption, hold back one block to handle padding at EOF.
-            int blocks = combined.length / blockSize;
+            int blocks = end / blockSize;
             int processBlocks = encrypt ? blocks : Math.max(0, blocks - 1);
             int processLen = processBlocks * blockSize;
 
             if (processLen > 0) {
-                byte[] chunk = Arrays.copyOf(combined, processLen);
-
-                try {
-                    outputBuffer = encrypt ? cipherMode.encrypt(chunk) : cipherMode.decrypt(chunk);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException("Cipher operation interrupted", e);
-                }
-
-                remainderLen = combined.length - processLen;
-                System.arraycopy(combined, processLen, remainder, 0, remainderLen);
+                process(processLen);
+                limit = processLen;
 
                 return true;
             }
+        }
+    }
+
+    private void finish() throws IOException {
+        if (encrypt) {
+            int paddingLen = padding.pad(ByteBuffer.wrap(buffer, end, buffer.length - end), end, blockSize);
+            end += paddingLen;
+
+            process(end);
+            limit = end;
+        } else {
+            process(end);
+
+            ByteBuffer plaintext = ByteBuffer.wrap(buffer, 0, end);
+            padding.unpad(plaintext, blockSize);
 
-            remainderLen = combined.length;
-            System.arraycopy(combined, 0, remainder, 0, remainderLen);
+            limit = plaintext.limit();
+            end = limit;
+        }
+    }
+
+    private void process(int length) throws IOException {
+        try {
+            if (encrypt) {
+                cipherMode.encrypt(buffer, 0, length, buffer, 0);
+            } else {
+                cipherMode.decrypt(buffer, 0, length, buffer, 0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cipher operation interrupted", e);
         }
     }
 }
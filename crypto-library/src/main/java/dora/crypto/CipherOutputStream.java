@@ -7,11 +7,19 @@ import org.jetbrains.annotations.NotNull;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Output stream that encrypts or decrypts the data written to it and writes
+ * the result to another stream.
+ * <p>
+ * Written data is collected in a single buffer and processed there in place
+ * once the buffer is full or the stream is flushed. When decrypting, the last
+ * block is held back until the stream is closed to remove the padding.
+ */
 final class CipherOutputStream extends FilterOutputStream {
 
     private final CipherMode cipherMode;
@@ -21,9 +29,14 @@ final class CipherOutputStream extends FilterOutputStream {
     /** Whether data should be encrypted or decrypted. */
     private final boolean encrypt;
 
-    /** Remaining blocks to be processed. */
-    private final byte[] remainder;
-    private int remainderLen;
+    /**
+     * Buffer for written data. The last block is reserved for the padding.
+     */
+    private final byte[] buffer;
+    /** Number of bytes that can be written before the buffer is processed. */
+    private final int capacity;
+    /** Number of buffered bytes. */
+    private int end;
 
     /** Whether the stream is closed. */
     private boolean closed;
@@ -32,7 +45,8 @@ final class CipherOutputStream extends FilterOutputStream {
         @NotNull CipherMode cipherMode,
         @NotNull Padding padding,
         @NotNull OutputStream stream,
-        boolean encrypt
+        boolean encrypt,
+        int bufferSize
     ) {
         super(stream);
 
@@ -40,14 +54,21 @@ final class CipherOutputStream extends FilterOutputStream {
         this.padding = requireNonNull(padding, "padding");
         this.encrypt = encrypt;
 
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Invalid buffer size");
+
         blockSize = cipherMode.blockSize();
-        remainder = new byte[blockSize * 2];
+        // At least two pending blocks and a block of padding must fit.
+        buffer = new byte[Math.max(bufferSize / blockSize, 4) * blockSize];
+        capacity = buffer.length - blockSize;
     }
 
     @Override
     public void write(int b) throws IOException {
-        byte[] oneByte = { (byte) b };
-        write(oneByte, 0, 1);
+        if (closed) throw new IOException("Stream closed");
+
+        buffer[end++] = (byte) b;
+        if (end == capacity) processBlocks();
     }
 
     @Override
@@ -58,34 +79,28 @@ final class CipherOutputStream extends FilterOutputStream {
         if (length == 0) return;
         if (closed) throw new IOException("Stream closed");
 
-        // Combine remainder with the read data.
-        byte[] combined = new byte[remainderLen + length];
-        System.arraycopy(remainder, 0, combined, 0, remainderLen);
-        System.arraycopy(buffer, offset, combined, remainderLen, length);
-
-        // For encryption, process all complete blocks.
-        // For decryption, hold back one block to handle padding at EOF.
-        int blocks = combined.length / blockSize;
-        int processBlocks = encrypt ? blocks : Math.max(0, blocks - 1);
-        int processLen = processBlocks * blockSize;
-
-        if (processLen > 0) {
-            byte[] chunk = Arrays.copyOf(combined, processLen);
-            byte[] processed;
+        while (length > 0) {
+            int toCopy = Math.min(length, capacity - end);
+            System.arraycopy(buffer, offset, this.buffer, end, toCopy);
 
-            try {
-                processed = encrypt ? cipherMode.encrypt(chunk) : cipherMode.decrypt(chunk);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new IOException("Cipher operation interrupted", e);
-            }
+            end += toCopy;
+            offset += toCopy;
+            length -= toCopy;
 
-            out.write(processed);
+            if (end == capacity) processBlocks();
         }
+    }
 
-        // Process the rest later.
-        remainderLen = combined.length - processLen;
-        System.arraycopy(combined, processLen, remainder, 0, remainderLen);
+    /**
+     * Processes the complete blocks written so far and flushes the underlying
+     * stream. When decrypting, the last complete block is still held back.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+
+        processBlocks();
+        out.flush();
     }
 
     @Override
@@ -97,22 +112,54 @@ final class CipherOutputStream extends FilterOutputStream {
         closed = true;
 
         // Process the remainder
-        byte[] result = Arrays.copyOf(remainder, remainderLen);
+        int length;
+
+        if (encrypt) {
+            end += padding.pad(ByteBuffer.wrap(buffer, end, buffer.length - end), end, blockSize);
+
+            process(end);
+            length = end;
+        } else {
+            process(end);
+
+            ByteBuffer plaintext = ByteBuffer.wrap(buffer, 0, end);
+            padding.unpad(plaintext, blockSize);
+
+            length = plaintext.limit();
+        }
+
+        out.write(buffer, 0, length);
+        out.flush();
+        out.close();
+    }
+
+    private void processBlocks() throws IOException {
+        // For encryption, process all complete blocks.
+        // For decryption, hold back one block to handle padding at EOF.
+        int blocks = end / blockSize;
+        int processBlocks = encrypt ? blocks : Math.max(0, blocks - 1);
+        int processLen = processBlocks * blockSize;
+
+        if (processLen == 0) return;
+
+        process(processLen);
+        out.write(buffer, 0, processLen);
+
+        // Process the rest later.
+        end -= processLen;
+        System.arraycopy(buffer, processLen, buffer, 0, end);
+    }
+
+    private void process(int length) throws IOException {
         try {
             if (encrypt) {
-                result = padding.pad(result, blockSize);
-                result = cipherMode.encrypt(result);
+                cipherMode.encrypt(buffer, 0, length, buffer, 0);
             } else {
-                result = cipherMode.decrypt(result);
-                result = padding.unpad(result, blockSize);
+                cipherMode.decrypt(buffer, 0, length, buffer, 0);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new IOException("Cipher operation interrupted", e);
         }
-
-        out.write(result);
-        out.flush();
-        out.close();
     }
 }
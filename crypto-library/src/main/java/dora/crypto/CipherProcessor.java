@@ -0,0 +1,494 @@
+package dora.crypto;
+
+import dora.crypto.PipelinedCipherInputStream.ChunkTransform;
+import dora.crypto.block.mode.CipherMode;
+import dora.crypto.block.padding.Padding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Processor that encrypts or decrypts a stream of buffers.
+ * <p>
+ * The complete blocks of every received buffer are published as a new buffer,
+ * the rest is kept until the next one (when decrypting, the last block is held
+ * back to remove the padding). Buffers are requested from upstream only while
+ * the subscriber has outstanding demand, so a slow subscriber slows down the
+ * publisher.
+ * <p>
+ * A sequential processor processes every buffer on the thread that delivers
+ * it and requests the next one once it has been published. A pipelined
+ * processor processes up to <code>depth</code> buffers concurrently on a
+ * {@link ForkJoinPool} (see {@link ChunkTransform}) and publishes them in
+ * order, so that receiving the next buffers overlaps with processing.
+ * <p>
+ * The processor accepts a single subscriber and a single subscription.
+ */
+final class CipherProcessor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+    private final Padding padding;
+    private final int blockSize;
+
+    /** Whether data should be encrypted or decrypted. */
+    private final boolean encrypt;
+
+    private final ChunkTransform transform;
+    /** Pool that processes chunks, or <code>null</code> to process them on the receiving thread. */
+    private final @Nullable ForkJoinPool pool;
+    /** Maximum number of chunks that are processed or waiting to be published. */
+    private final int depth;
+
+    //region Accessed by the upstream thread
+    /** Received bytes that don't make up a block yet. */
+    private final byte[] pending;
+    private int pendingLength;
+
+    /** Index of the first block of the next chunk. */
+    private long nextBlock;
+    /** Last input block of the previous chunk, or the IV. */
+    private byte @Nullable [] previousBlock;
+    //endregion
+
+    /** Last output block of the previously published chunk. Accessed by the draining thread. */
+    private byte @Nullable [] previousOutput;
+
+    //region Guarded by this
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super ByteBuffer> downstream;
+
+    /** Chunks that haven't been published yet, in order. */
+    private final ArrayDeque<Chunk> queue = new ArrayDeque<>();
+    private long demand;
+
+    /** Whether a buffer has been requested from upstream and not received yet. */
+    private boolean requested;
+    /** Whether upstream has completed and the last chunk is queued. */
+    private boolean completed;
+    private Throwable error;
+
+    /** Whether the subscriber has been completed, failed or has cancelled. */
+    private boolean terminated;
+    /** Whether a thread is publishing buffers. */
+    private boolean draining;
+    //endregion
+
+    /**
+     * Creates a sequential processor.
+     */
+    CipherProcessor(@NotNull CipherMode cipherMode, @NotNull Padding padding, boolean encrypt) {
+        this(
+            padding,
+            requireNonNull(cipherMode, "cipher mode").blockSize(),
+            encrypt,
+            // The mode carries its state from one chunk to the next.
+            (data, length, firstBlock, previousBlock) -> {
+                if (encrypt) {
+                    cipherMode.encrypt(data, 0, length, data, 0);
+                } else {
+                    cipherMode.decrypt(data, 0, length, data, 0);
+                }
+            },
+            null,
+            null,
+            1
+        );
+    }
+
+    /**
+     * Creates a pipelined processor.
+     *
+     * @param iv    initial chaining block passed to the first chunk, if the
+     *              mode uses one
+     * @param depth maximum number of chunks in flight
+     */
+    CipherProcessor(
+        @NotNull Padding padding,
+        int blockSize,
+        boolean encrypt,
+        @NotNull ChunkTransform transform,
+        @Nullable ForkJoinPool pool,
+        byte @Nullable [] iv,
+        int depth
+    ) {
+        this.padding = requireNonNull(padding, "padding");
+        this.blockSize = blockSize;
+        this.encrypt = encrypt;
+        this.transform = requireNonNull(transform, "transform");
+        this.pool = pool;
+        this.previousBlock = iv != null ? iv.clone() : null;
+
+        if (depth < 1)
+            throw new IllegalArgumentException("depth must be positive");
+
+        this.depth = depth;
+        pending = new byte[blockSize * 2];
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        requireNonNull(subscriber, "subscriber");
+
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Processor already has a subscriber"));
+                return;
+            }
+
+            downstream = subscriber;
+        }
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Non-positive request: " + n));
+                    return;
+                }
+
+                synchronized (CipherProcessor.this) {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                Flow.Subscription subscription;
+
+                synchronized (CipherProcessor.this) {
+                    terminated = true;
+                    queue.clear();
+                    subscription = upstream;
+                }
+
+                if (subscription != null) subscription.cancel();
+            }
+        });
+
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        requireNonNull(subscription, "subscription");
+
+        boolean cancel;
+
+        synchronized (this) {
+            cancel = upstream != null || terminated;
+            if (upstream == null) upstream = subscription;
+        }
+
+        if (cancel) {
+            subscription.cancel();
+            return;
+        }
+
+        drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        requireNonNull(item, "item");
+
+        Chunk chunk = nextChunk(item);
+        boolean queued;
+
+        synchronized (this) {
+            requested = false;
+            queued = chunk != null && !terminated;
+            if (queued) queue.add(chunk);
+        }
+
+        if (queued) {
+            start(chunk);
+        } else {
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(requireNonNull(throwable, "throwable"));
+    }
+
+    @Override
+    public void onComplete() {
+        Chunk chunk;
+
+        try {
+            chunk = lastChunk();
+        } catch (RuntimeException e) {
+            fail(e);
+            return;
+        }
+
+        boolean queued;
+
+        synchronized (this) {
+            queued = !terminated;
+            if (queued) queue.add(chunk);
+            completed = true;
+        }
+
+        if (queued) start(chunk);
+    }
+
+    private void fail(Throwable throwable) {
+        Flow.Subscription subscription;
+
+        synchronized (this) {
+            if (error == null) error = throwable;
+            subscription = upstream;
+        }
+
+        if (subscription != null) subscription.cancel();
+        drain();
+    }
+
+    /**
+     * Processes a queued chunk, on the pool if there is one, and drains the
+     * queue once it's done.
+     */
+    private void start(Chunk chunk) {
+        chunk.task.whenComplete((nothing, throwable) -> {
+            if (throwable != null) {
+                fail(throwable);
+            } else {
+                drain();
+            }
+        });
+
+        Runnable work = () -> {
+            try {
+                transform.apply(chunk.data, chunk.length, chunk.firstBlock, chunk.previousBlock);
+                chunk.task.complete(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                chunk.task.completeExceptionally(new IOException("Cipher operation interrupted", e));
+            } catch (RuntimeException e) {
+                chunk.task.completeExceptionally(e);
+            }
+        };
+
+        if (pool == null) {
+            work.run();
+            return;
+        }
+
+        try {
+            pool.execute(work);
+        } catch (RejectedExecutionException e) {
+            chunk.task.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Publishes processed chunks in order while there's demand and requests
+     * more buffers from upstream while fewer than <code>depth</code> chunks
+     * are queued. Only one thread drains at a time; calls made while draining
+     * (e.g. from the subscriber or a finished chunk) are picked up by the
+     * draining thread.
+     */
+    private void drain() {
+        synchronized (this) {
+            if (draining) return;
+            draining = true;
+        }
+
+        while (true) {
+            Flow.Subscriber<? super ByteBuffer> subscriber;
+            Flow.Subscription subscription = null;
+            Chunk next = null;
+            Throwable failure = null;
+            boolean complete = false;
+
+            synchronized (this) {
+                subscriber = downstream;
+
+                if (subscriber == null || terminated) {
+                    draining = false;
+                    return;
+                }
+
+                if (error != null) {
+                    failure = error;
+                    terminated = true;
+                } else if (demand > 0 && !queue.isEmpty() && queue.peek().task.isDone()) {
+                    next = queue.poll();
+                } else if (queue.isEmpty() && completed) {
+                    complete = true;
+                    terminated = true;
+                } else if (!requested && !completed && upstream != null
+                    && queue.size() < Math.min(depth, demand)) {
+                    subscription = upstream;
+                    requested = true;
+                } else {
+                    draining = false;
+                    return;
+                }
+            }
+
+            if (failure != null) {
+                subscriber.onError(failure);
+            } else if (next != null) {
+                ByteBuffer output;
+
+                try {
+                    output = finishChunk(next);
+                } catch (CompletionException e) {
+                    fail(e.getCause());
+                    continue;
+                } catch (RuntimeException e) {
+                    fail(e);
+                    continue;
+                }
+
+                if (output.hasRemaining()) {
+                    synchronized (this) {
+                        demand--;
+                    }
+
+                    subscriber.onNext(output);
+                }
+            } else if (complete) {
+                subscriber.onComplete();
+            } else {
+                subscription.request(1);
+            }
+        }
+    }
+
+    /**
+     * Takes the complete blocks of the pending bytes and <code>item</code>.
+     *
+     * @return chunk to be processed, or <code>null</code> if there are no
+     * complete blocks
+     */
+    private Chunk nextChunk(ByteBuffer item) {
+        int length = pendingLength + item.remaining();
+
+        // For encryption, process all complete blocks.
+        // For decryption, hold back one block to handle padding at the end.
+        int blocks = length / blockSize;
+        int processBlocks = encrypt ? blocks : Math.max(0, blocks - 1);
+        int processLen = processBlocks * blockSize;
+
+        if (processLen == 0) {
+            int remaining = item.remaining();
+            item.get(pending, pendingLength, remaining);
+            pendingLength += remaining;
+
+            return null;
+        }
+
+        byte[] data = new byte[processLen];
+
+        int fromPending = Math.min(pendingLength, processLen);
+        System.arraycopy(pending, 0, data, 0, fromPending);
+        item.get(data, fromPending, processLen - fromPending);
+
+        // Keep the rest for later.
+        int leftover = pendingLength - fromPending;
+        System.arraycopy(pending, fromPending, pending, 0, leftover);
+
+        int remaining = item.remaining();
+        item.get(pending, leftover, remaining);
+        pendingLength = leftover + remaining;
+
+        return chunk(data, processLen, false);
+    }
+
+    /**
+     * Takes the pending bytes at the end of the data, padded when
+     * encrypting.
+     */
+    private Chunk lastChunk() {
+        // Fail before the chunk is handed to the pool.
+        if (!encrypt && pendingLength % blockSize != 0)
+            throw new IllegalArgumentException("Ciphertext not multiple of block size");
+
+        byte[] data = new byte[pendingLength + blockSize];
+        System.arraycopy(pending, 0, data, 0, pendingLength);
+
+        int length = pendingLength;
+
+        if (encrypt) {
+            length += padding.pad(ByteBuffer.wrap(data, pendingLength, blockSize), pendingLength, blockSize);
+        }
+
+        return chunk(data, length, true);
+    }
+
+    private Chunk chunk(byte[] data, int length, boolean last) {
+        Chunk chunk = new Chunk(data, length, nextBlock, previousBlock, last);
+
+        if (length >= blockSize) {
+            previousBlock = Arrays.copyOfRange(data, length - blockSize, length);
+        }
+
+        nextBlock += length / blockSize;
+        return chunk;
+    }
+
+    /**
+     * Finishes a processed chunk, in order, and removes the padding from the
+     * last one when decrypting.
+     */
+    private ByteBuffer finishChunk(Chunk chunk) {
+        chunk.task.join();
+        transform.complete(chunk.data, chunk.length, previousOutput);
+
+        if (chunk.length >= blockSize) {
+            previousOutput = Arrays.copyOfRange(chunk.data, chunk.length - blockSize, chunk.length);
+        }
+
+        ByteBuffer output = ByteBuffer.wrap(chunk.data, 0, chunk.length);
+        if (!encrypt && chunk.last) padding.unpad(output, blockSize);
+
+        return output;
+    }
+
+    private static final class Chunk {
+
+        final byte[] data;
+        final int length;
+        final long firstBlock;
+        final byte @Nullable [] previousBlock;
+
+        /** Whether the chunk ends the data. */
+        final boolean last;
+        final CompletableFuture<Void> task = new CompletableFuture<>();
+
+        Chunk(byte[] data, int length, long firstBlock, byte @Nullable [] previousBlock, boolean last) {
+            this.data = data;
+            this.length = length;
+            this.firstBlock = firstBlock;
+            this.previousBlock = previousBlock;
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package dora.crypto;
+
+import dora.crypto.block.mode.CipherMode;
+import dora.crypto.block.padding.Padding;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Channel that encrypts or decrypts the data read from another channel.
+ * <p>
+ * Data is read from the channel straight into a single buffer, processed
+ * there in place and copied once into the caller's buffer. The buffer is laid
+ * out like the one of {@link CipherInputStream}. A non-blocking channel that
+ * has no data available makes {@link #read} return 0.
+ */
+final class CipherReadableChannel implements ReadableByteChannel {
+
+    private final CipherMode cipherMode;
+    private final Padding padding;
+    private final ReadableByteChannel channel;
+    private final int blockSize;
+
+    /** Whether data should be encrypted or decrypted. */
+    private final boolean encrypt;
+
+    /**
+     * Buffer for both read and processed data. The last block is reserved for
+     * the padding.
+     */
+    private final byte[] buffer;
+
+    /** Start of the processed data that hasn't been returned yet. */
+    private int position;
+    /** End of the processed data. */
+    private int limit;
+    /** End of the read data. Bytes between the limit and the end are pending. */
+    private int end;
+
+    /** Whether there's no more data to be read. */
+    private boolean eof;
+    private boolean open = true;
+
+    CipherReadableChannel(
+        @NotNull CipherMode cipherMode,
+        @NotNull Padding padding,
+        @NotNull ReadableByteChannel channel,
+        boolean encrypt,
+        int bufferSize
+    ) {
+        this.cipherMode = requireNonNull(cipherMode, "cipher mode");
+        this.padding = requireNonNull(padding, "padding");
+        this.channel = requireNonNull(channel, "channel");
+        this.encrypt = encrypt;
+
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Invalid buffer size");
+
+        blockSize = cipherMode.blockSize();
+        // At least two pending blocks and a block of padding must fit.
+        buffer = new byte[Math.max(bufferSize / blockSize, 4) * blockSize];
+    }
+
+    @Override
+    public synchronized int read(@NotNull ByteBuffer dst) throws IOException {
+        requireNonNull(dst, "buffer");
+        if (!open) throw new ClosedChannelException();
+        if (!dst.hasRemaining()) return 0;
+
+        while (position >= limit) {
+            if (eof) return -1;
+            if (fillBuffer() == 0) return 0;
+        }
+
+        int toCopy = Math.min(dst.remaining(), limit - position);
+        dst.put(buffer, position, toCopy);
+        position += toCopy;
+
+        return toCopy;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open && channel.isOpen();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (open) {
+            open = false;
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads from the channel once and processes the complete blocks.
+     *
+     * @return number of bytes read from the channel, or -1 at its end
+     */
+    private int fillBuffer() throws IOException {
+        // Move pending bytes to the start of the buffer.
+        int pending = end - limit;
+        System.arraycopy(buffer, limit, buffer, 0, pending);
+
+        position = 0;
+        limit = 0;
+        end = pending;
+
+        int bytesRead = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - blockSize - end));
+
+        if (bytesRead == -1) {
+            // No data to be read. Process the pending bytes.
+            finish();
+            eof = true;
+
+            return -1;
+        }
+
+        end += bytesRead;
+
+        // For encryption, process all complete blocks.
+        // For decryption, hold back one block to handle padding at EOF.
+        int blocks = end / blockSize;
+        int processBlocks = encrypt ? blocks : Math.max(0, blocks - 1);
+        int processLen = processBlocks * blockSize;
+
+        if (processLen > 0) {
+            process(processLen);
+            limit = processLen;
+        }
+
+        return bytesRead;
+    }
+
+    private void finish() throws IOException {
+        if (encrypt) {
+            int paddingLen = padding.pad(ByteBuffer.wrap(buffer, end, buffer.length - end), end, blockSize);
+            end += paddingLen;
+
+            process(end);
+            limit = end;
+        } else {
+            process(end);
+
+            ByteBuffer plaintext = ByteBuffer.wrap(buffer, 0, end);
+            padding.unpad(plaintext, blockSize);
+
+            limit = plaintext.limit();
+            end = limit;
+        }
+    }
+
+    private void process(int length) throws IOException {
+        try {
+            if (encrypt) {
+                cipherMode.encrypt(buffer, 0, length, buffer, 0);
+            } else {
+                cipherMode.decrypt(buffer, 0, length, buffer, 0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cipher operation interrupted", e);
+        }
+    }
+}
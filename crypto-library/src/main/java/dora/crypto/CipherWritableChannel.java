@@ -0,0 +1,156 @@
+package dora.crypto;
+
+import dora.crypto.block.mode.CipherMode;
+import dora.crypto.block.padding.Padding;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Channel that encrypts or decrypts the data written to it and writes the
+ * result to another channel.
+ * <p>
+ * Written data is copied once into a single buffer, processed there in place
+ * once the buffer is full and written from it straight to the channel. When
+ * decrypting, the last block is held back until the channel is closed to
+ * remove the padding. Closing the channel writes the final block.
+ */
+final class CipherWritableChannel implements WritableByteChannel {
+
+    private final CipherMode cipherMode;
+    private final Padding padding;
+    private final WritableByteChannel channel;
+    private final int blockSize;
+
+    /** Whether data should be encrypted or decrypted. */
+    private final boolean encrypt;
+
+    /**
+     * Buffer for written data. The last block is reserved for the padding.
+     */
+    private final byte[] buffer;
+    /** Number of bytes that can be written before the buffer is processed. */
+    private final int capacity;
+    /** Number of buffered bytes. */
+    private int end;
+
+    private boolean open = true;
+
+    CipherWritableChannel(
+        @NotNull CipherMode cipherMode,
+        @NotNull Padding padding,
+        @NotNull WritableByteChannel channel,
+        boolean encrypt,
+        int bufferSize
+    ) {
+        this.cipherMode = requireNonNull(cipherMode, "cipher mode");
+        this.padding = requireNonNull(padding, "padding");
+        this.channel = requireNonNull(channel, "channel");
+        this.encrypt = encrypt;
+
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Invalid buffer size");
+
+        blockSize = cipherMode.blockSize();
+        // At least two pending blocks and a block of padding must fit.
+        buffer = new byte[Math.max(bufferSize / blockSize, 4) * blockSize];
+        capacity = buffer.length - blockSize;
+    }
+
+    @Override
+    public synchronized int write(@NotNull ByteBuffer src) throws IOException {
+        requireNonNull(src, "buffer");
+        if (!open) throw new ClosedChannelException();
+
+        int length = src.remaining();
+
+        while (src.hasRemaining()) {
+            int toCopy = Math.min(src.remaining(), capacity - end);
+            src.get(buffer, end, toCopy);
+
+            end += toCopy;
+
+            if (end == capacity) processBlocks();
+        }
+
+        return length;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open && channel.isOpen();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open) {
+            return;
+        }
+
+        open = false;
+
+        try (channel) {
+            // Process the remainder
+            int length;
+
+            if (encrypt) {
+                end += padding.pad(ByteBuffer.wrap(buffer, end, buffer.length - end), end, blockSize);
+
+                process(end);
+                length = end;
+            } else {
+                process(end);
+
+                ByteBuffer plaintext = ByteBuffer.wrap(buffer, 0, end);
+                padding.unpad(plaintext, blockSize);
+
+                length = plaintext.limit();
+            }
+
+            writeFully(length);
+        }
+    }
+
+    private void processBlocks() throws IOException {
+        // For encryption, process all complete blocks.
+        // For decryption, hold back one block to handle padding at EOF.
+        int blocks = end / blockSize;
+        int processBlocks = encrypt ? blocks : Math.max(0, blocks - 1);
+        int processLen = processBlocks * blockSize;
+
+        if (processLen == 0) return;
+
+        process(processLen);
+        writeFully(processLen);
+
+        // Process the rest later.
+        end -= processLen;
+        System.arraycopy(buffer, processLen, buffer, 0, end);
+    }
+
+    private void writeFully(int length) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(buffer, 0, length);
+
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    private void process(int length) throws IOException {
+        try {
+            if (encrypt) {
+                cipherMode.encrypt(buffer, 0, length, buffer, 0);
+            } else {
+                cipherMode.decrypt(buffer, 0, length, buffer, 0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cipher operation interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package dora.crypto;
+
+import dora.crypto.block.mode.SeekableCipherMode;
+import dora.crypto.block.padding.Padding;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read-only channel over the plaintext of a ciphertext channel.
+ * <p>
+ * Only the blocks covering the requested range are read and decrypted, so
+ * reads can start at any position.
+ */
+final class DecryptingSeekableChannel implements SeekableByteChannel {
+
+    /** Maximum amount of ciphertext decrypted by a single read. */
+    private static final int BUFFER_SIZE = 65536;
+
+    private final SeekableCipherMode cipherMode;
+    private final SeekableByteChannel channel;
+    private final int blockSize;
+
+    /** Ciphertext buffer, decrypted in place. */
+    private final byte[] buffer;
+
+    /** Size of the plaintext. */
+    private final long size;
+    private long position;
+
+    DecryptingSeekableChannel(
+        @NotNull SeekableCipherMode cipherMode,
+        @NotNull Padding padding,
+        @NotNull SeekableByteChannel channel
+    ) throws IOException {
+        this.cipherMode = requireNonNull(cipherMode, "cipher mode");
+        this.channel = requireNonNull(channel, "channel");
+
+        requireNonNull(padding, "padding");
+
+        blockSize = cipherMode.blockSize();
+        buffer = new byte[Math.max(blockSize, BUFFER_SIZE / blockSize * blockSize)];
+
+        long ciphertextSize = channel.size();
+
+        if (ciphertextSize < blockSize || ciphertextSize % blockSize != 0)
+            throw new IOException("Ciphertext not multiple of block size");
+
+        // Decrypt the last block to find out how much of it is padding.
+        long lastBlock = ciphertextSize / blockSize - 1;
+        readBlocks(lastBlock, 1);
+
+        byte[] plainBlock = new byte[blockSize];
+        System.arraycopy(buffer, 0, plainBlock, 0, blockSize);
+
+        size = lastBlock * blockSize + padding.unpad(plainBlock, blockSize).length;
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer dst) throws IOException {
+        requireNonNull(dst, "buffer");
+        if (!isOpen()) throw new ClosedChannelException();
+
+        if (position >= size) return -1;
+        if (!dst.hasRemaining()) return 0;
+
+        long firstBlock = position / blockSize;
+        int skip = (int) (position - firstBlock * blockSize);
+
+        int length = (int) Math.min(
+            Math.min(dst.remaining(), size - position),
+            buffer.length - skip
+        );
+
+        int blocks = Math.ceilDiv(skip + length, blockSize);
+        readBlocks(firstBlock, blocks);
+
+        dst.put(buffer, skip, length);
+        position += length;
+
+        return length;
+    }
+
+    /**
+     * Reads and decrypts <code>blocks</code> blocks starting at
+     * <code>firstBlock</code> into the buffer.
+     */
+    private void readBlocks(long firstBlock, int blocks) throws IOException {
+        int length = blocks * blockSize;
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+
+        channel.position(firstBlock * blockSize);
+
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0)
+                throw new IOException("Unexpected end of ciphertext");
+        }
+
+        try {
+            cipherMode.transformAt(firstBlock, buffer, 0, length, buffer, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cipher operation interrupted", e);
+        }
+    }
+
+    @Override
+    public int write(@NotNull ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        if (!isOpen()) throw new ClosedChannelException();
+        return position;
+    }
+
+    @Override
+    public @NotNull SeekableByteChannel position(long newPosition) throws IOException {
+        if (newPosition < 0) throw new IllegalArgumentException("Negative position");
+        if (!isOpen()) throw new ClosedChannelException();
+
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        if (!isOpen()) throw new ClosedChannelException();
+        return size;
+    }
+
+    @Override
+    public @NotNull SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,210 @@
+package dora.crypto;
+
+import dora.crypto.block.BlockCipher;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Thread-safe cache of initialized block ciphers, so that the key schedule of
+ * a key that is used over and over runs only once.
+ * <p>
+ * Entries are identified by the cipher parameters (any value with meaningful
+ * <code>equals</code> and <code>hashCode</code>, e.g. a parameter record or an
+ * algorithm enum) and the SHA-256 digest of the key. The cache holds at most
+ * <code>capacity</code> entries and evicts the least recently used one.
+ * <p>
+ * Ciphers are handed out as {@link Lease}s. Once an entry is evicted and all
+ * of its leases are closed, its key schedule is wiped with
+ * {@link BlockCipher#destroy()} and its copy of the key is zeroed; ciphers
+ * still in use are never wiped.
+ * <p>
+ * Cached ciphers are shared, so they must not be initialized again by their
+ * users. Use them with {@link SymmetricCipher.Builder#initializedCipher}.
+ */
+public final class KeyScheduleCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final int capacity;
+    private final Map<CacheKey, Entry> entries;
+
+    public KeyScheduleCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive");
+
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, /* access order */ true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+                if (size() <= KeyScheduleCache.this.capacity) return false;
+
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Leases a block cipher for <code>parameters</code> initialized with
+     * <code>key</code>. On a cache miss, the cipher is created by
+     * <code>factory</code> and initialized.
+     * <p>
+     * The cipher may be used until the lease is closed.
+     */
+    public @NotNull Lease lease(
+        @NotNull Object parameters,
+        byte @NotNull [] key,
+        @NotNull Supplier<? extends BlockCipher> factory
+    ) {
+        requireNonNull(parameters, "parameters");
+        requireNonNull(key, "key");
+        requireNonNull(factory, "factory");
+
+        CacheKey cacheKey = new CacheKey(parameters, ByteBuffer.wrap(digest(key)));
+
+        synchronized (entries) {
+            Entry entry = entries.get(cacheKey);
+            if (entry != null && entry.matches(key)) return entry.lease();
+        }
+
+        // Run the key schedule outside the lock; if another thread wins the
+        // race, its cipher is used and this one is dropped.
+        BlockCipher cipher = requireNonNull(factory.get(), "cipher");
+        cipher.init(key);
+
+        Entry created = new Entry(cipher, key.clone());
+
+        synchronized (entries) {
+            Entry existing = entries.get(cacheKey);
+            if (existing != null && existing.matches(key)) {
+                created.evict();
+                return existing.lease();
+            }
+
+            Lease lease = created.lease();
+
+            Entry replaced = entries.put(cacheKey, created);
+            if (replaced != null) replaced.evict();
+
+            return lease;
+        }
+    }
+
+    /**
+     * Returns the number of cached ciphers.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Removes all cached ciphers.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.values().forEach(Entry::evict);
+            entries.clear();
+        }
+    }
+
+    private static byte[] digest(byte[] key) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(key);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private record CacheKey(Object parameters, ByteBuffer keyDigest) {
+    }
+
+    /**
+     * Lease of a cached cipher. Closing it allows the cipher to be wiped once
+     * it is evicted.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Returns the leased cipher.
+         *
+         * @throws IllegalStateException if the lease is closed
+         */
+        public @NotNull BlockCipher cipher() {
+            synchronized (entries) {
+                if (closed) throw new IllegalStateException("Lease is closed");
+                return entry.cipher;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (entries) {
+                if (closed) return;
+
+                closed = true;
+                entry.release();
+            }
+        }
+    }
+
+    /**
+     * Cached cipher. Guarded by the lock of {@link #entries}.
+     */
+    private final class Entry {
+
+        private final BlockCipher cipher;
+        private final byte[] key;
+
+        private int leases;
+        private boolean evicted;
+
+        Entry(BlockCipher cipher, byte[] key) {
+            this.cipher = cipher;
+            this.key = key;
+        }
+
+        /** Whether the entry was created for <code>key</code>, in constant time. */
+        boolean matches(byte[] key) {
+            return MessageDigest.isEqual(this.key, key);
+        }
+
+        Lease lease() {
+            leases++;
+            return new Lease(this);
+        }
+
+        void release() {
+            leases--;
+            if (evicted && leases == 0) destroy();
+        }
+
+        void evict() {
+            evicted = true;
+            if (leases == 0) destroy();
+        }
+
+        private void destroy() {
+            cipher.destroy();
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+}
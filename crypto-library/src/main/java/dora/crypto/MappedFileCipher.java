@@ -0,0 +1,323 @@
+package dora.crypto;
+
+import dora.crypto.PipelinedCipherInputStream.ChunkTransform;
+import dora.crypto.block.padding.Padding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encrypts or decrypts a file by memory-mapping it and processing regions of
+ * every mapping concurrently on a {@link ForkJoinPool}.
+ * <p>
+ * Each region is processed by a single task, which moves it between the
+ * mappings and a buffer of its own, so the copies are spread across the pool
+ * along with the cipher. Only modes whose chunks can be processed
+ * independently (see {@link ChunkTransform}) are supported.
+ */
+final class MappedFileCipher {
+
+    /**
+     * Size of a single file mapping. Mappings are processed one after
+     * another; the regions of each of them in parallel.
+     */
+    private static final int MAPPING_SIZE = 64 * 1024 * 1024;
+
+    private final Padding padding;
+    private final int blockSize;
+    private final ChunkTransform transform;
+    private final ForkJoinPool pool;
+    private final int regionSize;
+
+    /** Region buffers that are not in use, shared by the tasks. */
+    private final ConcurrentLinkedQueue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param regionSize size of a region, rounded down to a multiple of the
+     *                   block size
+     */
+    MappedFileCipher(
+        @NotNull Padding padding,
+        int blockSize,
+        @NotNull ChunkTransform transform,
+        @NotNull ForkJoinPool pool,
+        int regionSize
+    ) {
+        this.padding = requireNonNull(padding, "padding");
+        this.blockSize = blockSize;
+        this.transform = requireNonNull(transform, "transform");
+        this.pool = requireNonNull(pool, "pool");
+
+        if (regionSize < 1)
+            throw new IllegalArgumentException("Invalid region size");
+
+        this.regionSize = Math.max(regionSize / blockSize, 1) * blockSize;
+    }
+
+    /**
+     * Encrypts the contents of <code>input</code> into <code>output</code>,
+     * which must be opened for reading and writing.
+     *
+     * @param iv initial chaining block, if the mode uses one
+     */
+    void encrypt(
+        @NotNull FileChannel input,
+        @NotNull FileChannel output,
+        byte @Nullable [] iv
+    ) throws IOException, InterruptedException {
+        long size = input.size();
+        long fullLength = size - size % blockSize;
+
+        Chain chain = processMapped(input, output, fullLength, iv);
+
+        byte[] lastBlocks = new byte[2 * blockSize];
+        int tailLength = (int) (size - fullLength);
+        readFully(input, ByteBuffer.wrap(lastBlocks, 0, tailLength), fullLength);
+
+        int length = tailLength + padding.pad(
+            ByteBuffer.wrap(lastBlocks, tailLength, lastBlocks.length - tailLength),
+            tailLength,
+            blockSize
+        );
+
+        processLast(chain, lastBlocks, length);
+        writeFully(output, ByteBuffer.wrap(lastBlocks, 0, length), fullLength);
+    }
+
+    /**
+     * Decrypts the contents of <code>input</code> into <code>output</code>,
+     * which must be opened for reading and writing.
+     *
+     * @param iv initial chaining block, if the mode uses one
+     */
+    void decrypt(
+        @NotNull FileChannel input,
+        @NotNull FileChannel output,
+        byte @Nullable [] iv
+    ) throws IOException, InterruptedException {
+        long size = input.size();
+
+        if (size < blockSize || size % blockSize != 0)
+            throw new IllegalArgumentException("Ciphertext not multiple of block size");
+
+        long leadingLength = size - blockSize;
+
+        Chain chain = processMapped(input, output, leadingLength, iv);
+
+        byte[] lastBlock = new byte[blockSize];
+        readFully(input, ByteBuffer.wrap(lastBlock), leadingLength);
+
+        processLast(chain, lastBlock, blockSize);
+
+        ByteBuffer plaintext = ByteBuffer.wrap(lastBlock);
+        padding.unpad(plaintext, blockSize);
+
+        writeFully(output, plaintext, leadingLength);
+    }
+
+    /**
+     * Processes the first <code>length</code> bytes of <code>input</code>,
+     * a multiple of the block size.
+     *
+     * @return chaining state after the processed data
+     */
+    private Chain processMapped(
+        FileChannel input,
+        FileChannel output,
+        long length,
+        byte @Nullable [] iv
+    ) throws IOException, InterruptedException {
+        int mappingSize = MAPPING_SIZE / regionSize * regionSize;
+        Chain chain = new Chain(0, iv != null ? iv.clone() : null, null);
+
+        for (long position = 0; position < length; position += mappingSize) {
+            int size = (int) Math.min(mappingSize, length - position);
+
+            MappedByteBuffer src = input.map(MapMode.READ_ONLY, position, size);
+            MappedByteBuffer dst = output.map(MapMode.READ_WRITE, position, size);
+
+            chain = processMapping(src, dst, size, chain);
+        }
+
+        return chain;
+    }
+
+    private Chain processMapping(
+        ByteBuffer src,
+        ByteBuffer dst,
+        int size,
+        Chain chain
+    ) throws InterruptedException {
+        int regions = Math.ceilDiv(size, regionSize);
+        byte[][] lastOutputs = new byte[regions][];
+
+        List<Future<?>> tasks = new ArrayList<>(regions);
+
+        for (int region = 0; region < regions; region++) {
+            int offset = region * regionSize;
+            int length = Math.min(regionSize, size - offset);
+            long firstBlock = chain.nextBlock + offset / blockSize;
+            byte[] previousBlock = offset == 0 ? chain.previousBlock : block(src, offset - blockSize);
+            int index = region;
+
+            tasks.add(pool.submit(() -> {
+                byte[] data = buffer();
+
+                try {
+                    src.get(offset, data, 0, length);
+                    transform.apply(data, length, firstBlock, previousBlock);
+                    dst.put(offset, data, 0, length);
+
+                    lastOutputs[index] = Arrays.copyOfRange(data, length - blockSize, length);
+                } finally {
+                    freeBuffers.add(data);
+                }
+
+                return null;
+            }));
+        }
+
+        awaitAll(tasks);
+
+        if (transform.completes()) {
+            complete(dst, size, lastOutputs, chain.previousOutput);
+        }
+
+        return new Chain(
+            chain.nextBlock + size / blockSize,
+            block(src, size - blockSize),
+            lastOutputs[regions - 1]
+        );
+    }
+
+    /**
+     * Finishes the processed regions of a mapping. The output of every region
+     * depends on the finished output of the previous one; since that is just
+     * its last block, the regions are still finished in parallel.
+     *
+     * @param lastOutputs last output block of every region; finished in
+     *                    place
+     */
+    private void complete(
+        ByteBuffer dst,
+        int size,
+        byte[][] lastOutputs,
+        byte @Nullable [] previousOutput
+    ) throws InterruptedException {
+        byte[][] previousOutputs = new byte[lastOutputs.length][];
+
+        for (int region = 0; region < lastOutputs.length; region++) {
+            previousOutputs[region] = previousOutput;
+            transform.complete(lastOutputs[region], blockSize, previousOutput);
+            previousOutput = lastOutputs[region];
+        }
+
+        List<Future<?>> tasks = new ArrayList<>(lastOutputs.length);
+
+        for (int region = 0; region < lastOutputs.length; region++) {
+            if (previousOutputs[region] == null) continue;
+
+            int offset = region * regionSize;
+            int length = Math.min(regionSize, size - offset);
+            byte[] regionPreviousOutput = previousOutputs[region];
+
+            tasks.add(pool.submit(() -> {
+                byte[] data = buffer();
+
+                try {
+                    dst.get(offset, data, 0, length);
+                    transform.complete(data, length, regionPreviousOutput);
+                    dst.put(offset, data, 0, length);
+                } finally {
+                    freeBuffers.add(data);
+                }
+
+                return null;
+            }));
+        }
+
+        awaitAll(tasks);
+    }
+
+    /**
+     * Processes the blocks that follow the mapped data on the calling thread.
+     */
+    private void processLast(Chain chain, byte[] data, int length) throws InterruptedException {
+        transform.apply(data, length, chain.nextBlock, chain.previousBlock);
+        transform.complete(data, length, chain.previousOutput);
+    }
+
+    private byte[] buffer() {
+        byte[] buffer = freeBuffers.poll();
+        return buffer != null ? buffer : new byte[regionSize];
+    }
+
+    private byte[] block(ByteBuffer buffer, int offset) {
+        byte[] block = new byte[blockSize];
+        buffer.get(offset, block);
+        return block;
+    }
+
+    private static void awaitAll(List<Future<?>> tasks) throws InterruptedException {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            tasks.forEach((task) -> task.cancel(true));
+            throw e;
+        } catch (ExecutionException e) {
+            tasks.forEach((task) -> task.cancel(true));
+
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            if (e.getCause() instanceof InterruptedException cause) throw cause;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+    throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("Unexpected end of file");
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+    throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Chaining state between mappings.
+     *
+     * @param nextBlock      index of the next block
+     * @param previousBlock  last input block, or the IV
+     * @param previousOutput last finished output block, or <code>null</code>
+     *                       at the start
+     */
+    private record Chain(
+        long nextBlock,
+        byte @Nullable [] previousBlock,
+        byte @Nullable [] previousOutput
+    ) {
+    }
+}
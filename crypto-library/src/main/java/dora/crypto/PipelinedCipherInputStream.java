@@ -0,0 +1,331 @@
+package dora.crypto;
+
+import dora.crypto.block.padding.Padding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Input stream that reads ahead several chunks of the underlying stream and
+ * encrypts or decrypts them concurrently on a {@link ForkJoinPool}, returning
+ * them in order.
+ * <p>
+ * Reading the next chunks overlaps with processing the previous ones. At most
+ * <code>depth</code> chunks are in flight, so memory use is bounded. Only modes
+ * whose chunks can be processed independently (see {@link ChunkTransform})
+ * can be pipelined.
+ */
+final class PipelinedCipherInputStream extends FilterInputStream {
+
+    private final Padding padding;
+    private final int blockSize;
+    private final boolean encrypt;
+    private final ChunkTransform transform;
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+    private final int depth;
+
+    /** Chunks that have been read and submitted, in order. */
+    private final ArrayDeque<Chunk> inFlight = new ArrayDeque<>();
+    /** Buffers of emitted chunks, ready to be reused. */
+    private final ArrayDeque<byte[]> freeBuffers = new ArrayDeque<>();
+
+    /** Index of the first block of the next chunk. */
+    private long nextBlock;
+    /** Last input block of the previous chunk, or the IV. */
+    private byte @Nullable [] previousBlock;
+    /** Last output block of the previously emitted chunk. */
+    private byte @Nullable [] previousOutput;
+
+    /** Chunk that is being returned. */
+    private byte @Nullable [] output;
+    private int position;
+    private int limit;
+
+    /** Whether the underlying stream has been read to the end. */
+    private boolean eof;
+    /** Whether the stream is closed. */
+    private boolean closed;
+
+    /**
+     * @param iv        initial chaining block passed to the first chunk, if the
+     *                  mode uses one
+     * @param chunkSize size of a chunk, rounded down to a multiple of the block
+     *                  size
+     * @param depth     maximum number of chunks in flight, at least 2
+     */
+    PipelinedCipherInputStream(
+        @NotNull InputStream stream,
+        @NotNull Padding padding,
+        int blockSize,
+        boolean encrypt,
+        @NotNull ChunkTransform transform,
+        @NotNull ForkJoinPool pool,
+        byte @Nullable [] iv,
+        int chunkSize,
+        int depth
+    ) {
+        super(stream);
+
+        this.padding = requireNonNull(padding, "padding");
+        this.blockSize = blockSize;
+        this.encrypt = encrypt;
+        this.transform = requireNonNull(transform, "transform");
+        this.pool = requireNonNull(pool, "pool");
+        this.previousBlock = iv != null ? iv.clone() : null;
+
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Invalid buffer size");
+        if (depth < 2)
+            throw new IllegalArgumentException("depth must be at least 2");
+
+        this.chunkSize = Math.max(chunkSize / blockSize, 1) * blockSize;
+        this.depth = depth;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        if (position >= limit && !nextChunk()) return -1;
+
+        return output[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte @NotNull [] buffer, int offset, int length) throws IOException {
+        requireNonNull(buffer, "buffer");
+
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        if (length == 0) return 0;
+        if (closed) throw new IOException("Stream closed");
+
+        int totalRead = 0;
+
+        while (length > 0) {
+            if (position >= limit && !nextChunk()) {
+                // No more data to be read.
+                return totalRead == 0 ? -1 : totalRead;
+            }
+
+            int toCopy = Math.min(length, limit - position);
+            System.arraycopy(output, position, buffer, offset, toCopy);
+
+            position += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+            totalRead += toCopy;
+        }
+
+        return totalRead;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        return limit - position;
+    }
+
+    /**
+     * Writes processed chunks to <code>out</code> straight from their
+     * buffers, while the following chunks are being read and processed.
+     */
+    @Override
+    public long transferTo(@NotNull OutputStream out) throws IOException {
+        requireNonNull(out, "output stream");
+        if (closed) throw new IOException("Stream closed");
+
+        long transferred = 0;
+
+        while (position < limit || nextChunk()) {
+            int length = limit - position;
+            out.write(output, position, length);
+
+            position = limit;
+            transferred += length;
+        }
+
+        return transferred;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+
+            // Tasks still in flight only touch their own buffers.
+            inFlight.clear();
+            in.close();
+        }
+    }
+
+    /**
+     * Waits for the next chunk in order, topping up the read-ahead first.
+     *
+     * @return whether there is more data to be returned
+     */
+    private boolean nextChunk() throws IOException {
+        while (true) {
+            readAhead();
+
+            Chunk chunk = inFlight.poll();
+            if (chunk == null) return false;
+
+            await(chunk);
+            transform.complete(chunk.data, chunk.length, previousOutput);
+
+            if (chunk.length >= blockSize) {
+                previousOutput = Arrays.copyOfRange(chunk.data, chunk.length - blockSize, chunk.length);
+            }
+
+            int length = chunk.length;
+
+            if (!encrypt && chunk.last) {
+                ByteBuffer plaintext = ByteBuffer.wrap(chunk.data, 0, chunk.length);
+                padding.unpad(plaintext, blockSize);
+                length = plaintext.limit();
+            }
+
+            if (output != null) freeBuffers.push(output);
+
+            output = chunk.data;
+            position = 0;
+            limit = length;
+
+            if (limit > 0) return true;
+        }
+    }
+
+    private void readAhead() throws IOException {
+        // Keep at least two chunks queued, so that it's known whether the
+        // head is the last one.
+        while (!eof && inFlight.size() < depth) {
+            readChunk();
+        }
+    }
+
+    private void readChunk() throws IOException {
+        byte[] data = freeBuffers.isEmpty() ? new byte[chunkSize + blockSize] : freeBuffers.pop();
+        int length = in.readNBytes(data, 0, chunkSize);
+
+        eof = length < chunkSize;
+
+        if (encrypt && eof) {
+            length += padding.pad(ByteBuffer.wrap(data, length, data.length - length), length, blockSize);
+        }
+
+        if (!encrypt && eof && length == 0 && !inFlight.isEmpty()) {
+            // The previous chunk ended the ciphertext.
+            inFlight.getLast().last = true;
+            freeBuffers.push(data);
+            return;
+        }
+
+        Chunk chunk = new Chunk(data, length, nextBlock, previousBlock, eof);
+
+        if (length >= blockSize) {
+            previousBlock = Arrays.copyOfRange(data, length - blockSize, length);
+        }
+
+        nextBlock += length / blockSize;
+
+        chunk.task = pool.submit(() -> {
+            transform.apply(chunk.data, chunk.length, chunk.firstBlock, chunk.previousBlock);
+            return null;
+        });
+
+        inFlight.add(chunk);
+    }
+
+    private static void await(Chunk chunk) throws IOException {
+        try {
+            chunk.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cipher operation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            if (e.getCause() instanceof InterruptedException cause)
+                throw new IOException("Cipher operation interrupted", cause);
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static final class Chunk {
+
+        final byte[] data;
+        final int length;
+        final long firstBlock;
+        final byte @Nullable [] previousBlock;
+
+        /** Whether the chunk ends the stream. */
+        boolean last;
+        Future<?> task;
+
+        Chunk(byte[] data, int length, long firstBlock, byte @Nullable [] previousBlock, boolean last) {
+            this.data = data;
+            this.length = length;
+            this.firstBlock = firstBlock;
+            this.previousBlock = previousBlock;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Processes a single chunk independently of the others.
+     */
+    interface ChunkTransform {
+
+        /**
+         * Encrypts or decrypts <code>length</code> bytes of <code>data</code>
+         * in place. Called concurrently for different chunks.
+         *
+         * @param firstBlock    index of the first block of the chunk in the
+         *                      message
+         * @param previousBlock last input block of the previous chunk, or the
+         *                      IV for the first chunk
+         */
+        void apply(
+            byte @NotNull [] data,
+            int length,
+            long firstBlock,
+            byte @Nullable [] previousBlock
+        ) throws InterruptedException;
+
+        /**
+         * Finishes a processed chunk. Called in order, so that state from the
+         * previous chunk can be applied.
+         *
+         * @param previousOutput last output block of the previous chunk, or
+         *                       <code>null</code> for the first chunk
+         */
+        default void complete(byte @NotNull [] data, int length, byte @Nullable [] previousOutput) {
+        }
+
+        /**
+         * Returns whether {@link #complete} changes the data.
+         */
+        default boolean completes() {
+            return false;
+        }
+    }
+}
@@ -8,11 +8,13 @@ import dora.crypto.block.mode.CtrCipherMode;
 import dora.crypto.block.mode.CtrCipherMode.CtrParameters;
 import dora.crypto.block.mode.EcbCipherMode;
 import dora.crypto.block.mode.OfbCipherMode;
+import dora.crypto.block.mode.ParallelTuning;
 import dora.crypto.block.mode.Parameters;
 import dora.crypto.block.mode.Parameters.IvParameters;
 import dora.crypto.block.mode.PcbcCipherMode;
 import dora.crypto.block.mode.RandomDeltaCipherMode;
 import dora.crypto.block.mode.RandomDeltaCipherMode.RandomDeltaParameters;
+import dora.crypto.block.mode.SeekableCipherMode;
 import dora.crypto.block.padding.AnsiX923Padding;
 import dora.crypto.block.padding.Iso10126Padding;
 import dora.crypto.block.padding.Padding;
@@ -24,23 +26,60 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static java.util.Objects.requireNonNull;
 import static java.util.Objects.requireNonNullElse;
 import static java.util.Objects.requireNonNullElseGet;
 
+/**
+ * Symmetric cipher built from a block cipher, a cipher mode and a padding.
+ * <p>
+ * Instances are immutable and thread-safe: the block cipher is keyed once on
+ * construction, and every operation (including every stream or channel)
+ * gets its own {@link SymmetricCipherContext} with a fresh cipher mode that
+ * holds the chaining state. A single instance can therefore be shared across
+ * threads and serve concurrent calls.
+ * <p>
+ * The block cipher passed in is initialized with the key and becomes part of
+ * this cipher. It must not be initialized again or shared with ciphers built
+ * with another key, since they would all use the last key. To share a key
+ * schedule, use {@link #withIv} or {@link Builder#initializedCipher}.
+ */
 public final class SymmetricCipher {
 
-    private final SymmetricCipherContext context;
-    private final byte[] key;
+    /** Number of chained messages a single batch task encrypts block by block. */
+    private static final int INTERLEAVED_CHAINS = 4;
+
+    private final BlockCipher blockCipher;
+    private final CipherModeType cipherModeType;
+    private final PaddingType paddingType;
+    private final ForkJoinPool pool;
+    private final ParallelTuning tuning;
+    private final Padding padding;
+    private final int streamBufferSize;
+    private final List<?> args;
     private final Parameters parameters;
 
     public SymmetricCipher(
@@ -52,39 +91,130 @@ public final class SymmetricCipher {
         @Nullable List<Object> args,
         @Nullable ForkJoinPool pool
     ) {
-        this.context = new SymmetricCipherContext(
-            cipherMode.createMode(
-                requireNonNull(cipher, "cipher"),
-                requireNonNullElseGet(pool, ForkJoinPool::commonPool)
-            ),
-            padding.createPadding()
+        this(cipher, cipherMode, padding, key, iv, args, pool, null);
+    }
+
+    public SymmetricCipher(
+        @NotNull BlockCipher cipher,
+        @NotNull CipherModeType cipherMode,
+        @NotNull PaddingType padding,
+        byte @NotNull [] key,
+        byte @Nullable [] iv,
+        @Nullable List<Object> args,
+        @Nullable ForkJoinPool pool,
+        @Nullable ParallelTuning tuning
+    ) {
+        this(
+            cipherMode,
+            padding,
+            initialize(cipher, key),
+            iv,
+            args,
+            pool,
+            tuning,
+            SymmetricCipherContext.DEFAULT_STREAM_BUFFER_SIZE
         );
-        this.key = requireNonNull(key, "key");
+    }
+
+    /**
+     * Creates a cipher around a block cipher that has already been
+     * initialized. The key schedule is not run again.
+     */
+    private SymmetricCipher(
+        @NotNull CipherModeType cipherMode,
+        @NotNull PaddingType padding,
+        @NotNull BlockCipher initializedCipher,
+        byte @Nullable [] iv,
+        @Nullable List<?> args,
+        @Nullable ForkJoinPool pool,
+        @Nullable ParallelTuning tuning,
+        int streamBufferSize
+    ) {
+        if (streamBufferSize < 1)
+            throw new IllegalArgumentException("Invalid buffer size");
+
+        this.blockCipher = requireNonNull(initializedCipher, "cipher");
+        this.cipherModeType = requireNonNull(cipherMode, "cipher mode");
+        this.paddingType = requireNonNull(padding, "padding");
+        this.pool = requireNonNullElseGet(pool, ForkJoinPool::commonPool);
+        this.tuning = requireNonNullElse(tuning, ParallelTuning.DEFAULT);
+        this.padding = padding.createPadding();
+        this.streamBufferSize = streamBufferSize;
+        this.args = requireNonNullElseGet(args, Collections::emptyList);
         this.parameters = cipherMode.createParameters(
             requireNonNullElse(iv, new byte[0]),
-            requireNonNullElseGet(args, Collections::emptyList)
+            this.args
         );
     }
 
+    private static BlockCipher initialize(BlockCipher cipher, byte[] key) {
+        requireNonNull(cipher, "cipher");
+        cipher.init(requireNonNull(key, "key"));
+        return cipher;
+    }
+
+    /**
+     * Returns a cipher with the same key, mode, padding and arguments but a
+     * different IV (or nonce). The block cipher is shared, so the key schedule
+     * does not run again.
+     */
+    public @NotNull SymmetricCipher withIv(byte @Nullable [] iv) {
+        return new SymmetricCipher(
+            cipherModeType,
+            paddingType,
+            blockCipher,
+            iv,
+            args,
+            pool,
+            tuning,
+            streamBufferSize
+        );
+    }
+
+    /**
+     * Creates the state of a single operation: a cipher mode initialized with
+     * the parameters of this cipher. Contexts are not shared between
+     * operations, so concurrent calls don't interfere.
+     */
+    private SymmetricCipherContext newContext() {
+        CipherMode cipherMode = cipherModeType.createMode(blockCipher, pool, tuning);
+        cipherMode.init(parameters);
+
+        return new SymmetricCipherContext(cipherMode, padding, streamBufferSize);
+    }
+
     public byte[] encrypt(byte @NotNull [] data) throws InterruptedException {
-        context.init(key, parameters);
-        return context.encrypt(data);
+        return newContext().encrypt(data);
+    }
+
+    /**
+     * Encrypts the remaining bytes of <code>src</code> into <code>dst</code>.
+     * Either buffer may be direct.
+     *
+     * @return number of bytes written to <code>dst</code>
+     * @see SymmetricCipherContext#encrypt(ByteBuffer, ByteBuffer)
+     */
+    public int encrypt(@NotNull ByteBuffer src, @NotNull ByteBuffer dst) throws InterruptedException {
+        return newContext().encrypt(src, dst);
     }
 
     public @NotNull InputStream encryptingInputStream(@NotNull InputStream stream) {
-        context.init(key, parameters);
-        return context.encryptingInputStream(stream);
+        return newContext().encryptingInputStream(stream);
     }
 
     public @NotNull OutputStream encryptingOutputStream(@NotNull OutputStream stream) {
-        context.init(key, parameters);
-        return context.encryptingOutputStream(stream);
+        return newContext().encryptingOutputStream(stream);
     }
 
     public void encryptFile(@NotNull Path input, @NotNull Path output) throws IOException {
         requireNonNull(input, "input file");
         requireNonNull(output, "output file");
 
+        if (cipherModeType.parallelEncryption()) {
+            processMapped(input, output, true);
+            return;
+        }
+
         try (var fis = Files.newInputStream(input);
              var fos = encryptingOutputStream(Files.newOutputStream(output))) {
             fis.transferTo(fos);
@@ -92,90 +222,572 @@ public final class SymmetricCipher {
     }
 
     public byte[] decrypt(byte @NotNull [] data) throws InterruptedException {
-        context.init(key, parameters);
-        return context.decrypt(data);
+        return newContext().decrypt(data);
+    }
+
+    /**
+     * Decrypts the remaining bytes of <code>src</code> into <code>dst</code>.
+     * Either buffer may be direct.
+     *
+     * @return number of bytes written to <code>dst</code>
+     * @see SymmetricCipherContext#decrypt(ByteBuffer, ByteBuffer)
+     */
+    public int decrypt(@NotNull ByteBuffer src, @NotNull ByteBuffer dst) throws InterruptedException {
+        return newContext().decrypt(src, dst);
+    }
+
+    /**
+     * Returns the size of the ciphertext for a message of <code>length</code>
+     * bytes.
+     */
+    public int encryptedSize(int length) {
+        return newContext().encryptedSize(length);
     }
 
     public @NotNull InputStream decryptingInputStream(@NotNull InputStream stream) {
-        context.init(key, parameters);
-        return context.decryptingInputStream(stream);
+        return newContext().decryptingInputStream(stream);
+    }
+
+    /**
+     * Returns a read-only channel over the plaintext of <code>channel</code>
+     * that supports positioning, so that any byte range can be decrypted
+     * without processing the rest of the data. Only CTR and RANDOM_DELTA
+     * modes support this.
+     */
+    public @NotNull SeekableByteChannel decryptingChannel(
+        @NotNull SeekableByteChannel channel
+    ) throws IOException {
+        return newContext().decryptingChannel(requireNonNull(channel, "channel"));
     }
 
     public @NotNull OutputStream decryptingOutputStream(@NotNull OutputStream stream) {
-        context.init(key, parameters);
-        return context.decryptingOutputStream(stream);
+        return newContext().decryptingOutputStream(stream);
     }
 
+    //region Channels
+    /**
+     * Returns a channel that encrypts the data read from <code>channel</code>.
+     * Data moves between channels and buffers without a stream in between,
+     * e.g. for {@link FileChannel#transferFrom}.
+     */
+    public @NotNull ReadableByteChannel encryptingReadableChannel(@NotNull ReadableByteChannel channel) {
+        return newContext().encryptingReadableChannel(channel);
+    }
+
+    /**
+     * Returns a channel that decrypts the data read from <code>channel</code>
+     * sequentially. Unlike {@link #decryptingChannel}, this works in every
+     * mode.
+     */
+    public @NotNull ReadableByteChannel decryptingReadableChannel(@NotNull ReadableByteChannel channel) {
+        return newContext().decryptingReadableChannel(channel);
+    }
+
+    /**
+     * Returns a channel that encrypts the data written to it into
+     * <code>channel</code>, e.g. as the target of {@link FileChannel#transferTo}.
+     * Closing it writes the final block.
+     */
+    public @NotNull WritableByteChannel encryptingWritableChannel(@NotNull WritableByteChannel channel) {
+        return newContext().encryptingWritableChannel(channel);
+    }
+
+    /**
+     * Returns a channel that decrypts the data written to it into
+     * <code>channel</code>. Closing it writes the final block.
+     */
+    public @NotNull WritableByteChannel decryptingWritableChannel(@NotNull WritableByteChannel channel) {
+        return newContext().decryptingWritableChannel(channel);
+    }
+
+    /**
+     * Encrypts the contents of <code>input</code> into <code>output</code>
+     * without blocking the caller. The output is truncated to the size of
+     * the ciphertext.
+     *
+     * @return future completed with the size of the ciphertext
+     */
+    public @NotNull CompletableFuture<Long> encryptAsync(
+        @NotNull AsynchronousFileChannel input,
+        @NotNull AsynchronousFileChannel output
+    ) {
+        return newContext().encryptAsync(input, output);
+    }
+
+    /**
+     * Decrypts the contents of <code>input</code> into <code>output</code>
+     * without blocking the caller. The output is truncated to the size of
+     * the plaintext.
+     *
+     * @return future completed with the size of the plaintext
+     */
+    public @NotNull CompletableFuture<Long> decryptAsync(
+        @NotNull AsynchronousFileChannel input,
+        @NotNull AsynchronousFileChannel output
+    ) {
+        return newContext().decryptAsync(input, output);
+    }
+    //endregion
+
+    //region Reactive streams
+    /**
+     * Returns a processor that encrypts the buffers published to it, e.g. to
+     * encrypt an HTTP request body without blocking a thread on a stream.
+     * CTR, ECB and RANDOM_DELTA modes encrypt several buffers concurrently on
+     * the pool. Each processor can be subscribed to once.
+     */
+    public Flow.@NotNull Processor<ByteBuffer, ByteBuffer> encryptingProcessor() {
+        return processor(true);
+    }
+
+    /**
+     * Returns a processor that decrypts the buffers published to it. All modes
+     * but OFB decrypt several buffers concurrently on the pool. Each processor
+     * can be subscribed to once.
+     */
+    public Flow.@NotNull Processor<ByteBuffer, ByteBuffer> decryptingProcessor() {
+        return processor(false);
+    }
+
+    private Flow.Processor<ByteBuffer, ByteBuffer> processor(boolean encrypt) {
+        if (encrypt && !cipherModeType.parallelEncryption()) return newContext().encryptingProcessor();
+        if (!encrypt && !cipherModeType.parallelDecryption()) return newContext().decryptingProcessor();
+
+        byte[] iv = parameters instanceof IvParameters(byte[] ivParam) ? ivParam : null;
+
+        return new CipherProcessor(
+            padding,
+            blockCipher.blockSize(),
+            encrypt,
+            chunkTransform(encrypt),
+            pool,
+            iv,
+            Math.max(2, pool.getParallelism() + 1)
+        );
+    }
+    //endregion
+
     public void decryptFile(@NotNull Path input, @NotNull Path output) throws IOException {
         requireNonNull(input, "input file");
         requireNonNull(output, "output file");
 
+        if (cipherModeType.parallelDecryption()) {
+            processMapped(input, output, false);
+            return;
+        }
+
         try (var fis = decryptingInputStream(Files.newInputStream(input));
              var fos = Files.newOutputStream(output)) {
             fis.transferTo(fos);
         }
     }
 
+    //region Pipelined streams
+    /**
+     * Returns a stream that reads ahead several chunks of <code>stream</code>
+     * and encrypts them concurrently on the pool, so that reading overlaps with
+     * encryption. CTR, ECB and RANDOM_DELTA modes support this; other modes
+     * return a sequential {@link #encryptingInputStream}.
+     */
+    public @NotNull InputStream pipelinedEncryptingInputStream(@NotNull InputStream stream) {
+        return pipelinedInputStream(requireNonNull(stream, "stream"), true);
+    }
+
+    /**
+     * Returns a stream that reads ahead several chunks of <code>stream</code>
+     * and decrypts them concurrently on the pool, so that reading overlaps with
+     * decryption. CBC, CFB, CTR, ECB, PCBC and RANDOM_DELTA modes support this;
+     * OFB returns a sequential {@link #decryptingInputStream}.
+     */
+    public @NotNull InputStream pipelinedDecryptingInputStream(@NotNull InputStream stream) {
+        return pipelinedInputStream(requireNonNull(stream, "stream"), false);
+    }
+
+    private InputStream pipelinedInputStream(InputStream stream, boolean encrypt) {
+        if (encrypt && !cipherModeType.parallelEncryption()) return encryptingInputStream(stream);
+        if (!encrypt && !cipherModeType.parallelDecryption()) return decryptingInputStream(stream);
+
+        byte[] iv = parameters instanceof IvParameters(byte[] ivParam) ? ivParam : null;
+
+        return new PipelinedCipherInputStream(
+            stream,
+            padding,
+            blockCipher.blockSize(),
+            encrypt,
+            chunkTransform(encrypt),
+            pool,
+            iv,
+            streamBufferSize,
+            Math.max(2, pool.getParallelism() + 1)
+        );
+    }
+
+    private PipelinedCipherInputStream.ChunkTransform chunkTransform(boolean encrypt) {
+        return switch (cipherModeType) {
+            case CTR, RANDOM_DELTA -> {
+                // Blocks are located by their index; the mode isn't advanced.
+                var mode = (SeekableCipherMode) cipherModeType.createMode(blockCipher, pool, tuning);
+                mode.init(parameters);
+
+                yield (data, length, firstBlock, previousBlock) ->
+                    mode.transformAt(firstBlock, data, 0, length, data, 0);
+            }
+            case ECB -> {
+                // ECB has no state to share between chunks.
+                var mode = cipherModeType.createMode(blockCipher, pool, tuning);
+                mode.init(parameters);
+
+                yield (data, length, firstBlock, previousBlock) -> {
+                    if (encrypt) {
+                        mode.encrypt(data, 0, length, data, 0);
+                    } else {
+                        mode.decrypt(data, 0, length, data, 0);
+                    }
+                };
+            }
+            case CBC, CFB -> (data, length, firstBlock, previousBlock) -> {
+                // Every chunk is chained to the last ciphertext block of the
+                // previous one.
+                var mode = cipherModeType.createMode(blockCipher, pool, tuning);
+                mode.init(new IvParameters(requireNonNull(previousBlock, "previous block")));
+                mode.decrypt(data, 0, length, data, 0);
+            };
+            case PCBC -> new PipelinedCipherInputStream.ChunkTransform() {
+
+                @Override
+                public void apply(byte[] data, int length, long firstBlock, byte[] previousBlock)
+                throws InterruptedException {
+                    // Assume that the previous plaintext block was zero...
+                    var mode = cipherModeType.createMode(blockCipher, pool, tuning);
+                    mode.init(new IvParameters(requireNonNull(previousBlock, "previous block")));
+                    mode.decrypt(data, 0, length, data, 0);
+                }
+
+                @Override
+                public void complete(byte[] data, int length, byte[] previousOutput) {
+                    if (previousOutput == null) return;
+
+                    // ...and correct the error, which carries over to every block.
+                    for (int i = 0; i < length; i++) {
+                        data[i] ^= previousOutput[i % previousOutput.length];
+                    }
+                }
+
+                @Override
+                public boolean completes() {
+                    return true;
+                }
+            };
+            case OFB -> throw new IllegalStateException("OFB chunks depend on each other");
+        };
+    }
+    //endregion
+
+    //region Batch
+    /**
+     * Encrypts many independent messages, each with its own IV (or nonce),
+     * across the pool. Other arguments are shared by all messages.
+     * <p>
+     * Messages in chained modes (CBC, CFB, OFB, PCBC) can't be split across
+     * threads, so each task encrypts several of them block by block to hide
+     * the latency of the chains.
+     *
+     * @return ciphertexts, in the order of the messages
+     */
+    public @NotNull List<byte[]> encryptBatch(
+        @NotNull List<byte @NotNull []> messages,
+        @NotNull List<byte @NotNull []> ivs
+    ) throws InterruptedException {
+        return processBatch(messages, ivs, true);
+    }
+
+    /**
+     * Decrypts many independent messages, each with its own IV (or nonce),
+     * across the pool. Other arguments are shared by all messages.
+     *
+     * @return plaintexts, in the order of the messages
+     */
+    public @NotNull List<byte[]> decryptBatch(
+        @NotNull List<byte @NotNull []> messages,
+        @NotNull List<byte @NotNull []> ivs
+    ) throws InterruptedException {
+        return processBatch(messages, ivs, false);
+    }
+
+    private List<byte[]> processBatch(
+        List<byte[]> messages,
+        List<byte[]> ivs,
+        boolean encrypt
+    ) throws InterruptedException {
+        requireNonNull(messages, "messages");
+        requireNonNull(ivs, "ivs");
+
+        if (messages.size() != ivs.size())
+            throw new IllegalArgumentException("Expected an IV for every message");
+
+        // Chained encryption is interleaved; everything else is parallel
+        // within a message anyway.
+        int chains = encrypt && !cipherModeType.parallelEncryption() ? INTERLEAVED_CHAINS : 1;
+        int groups = Math.ceilDiv(messages.size(), chains);
+
+        byte[][] results = new byte[messages.size()][];
+
+        Future<?> task = pool.submit(() ->
+            IntStream.range(0, groups).parallel().forEach((group) -> {
+                int from = group * chains;
+                int to = Math.min(from + chains, messages.size());
+
+                try {
+                    processGroup(messages, ivs, results, from, to, encrypt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Batch operation interrupted");
+                }
+            })
+        );
+
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new RuntimeException(e.getCause());
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void processGroup(
+        List<byte[]> messages,
+        List<byte[]> ivs,
+        byte[][] results,
+        int from,
+        int to,
+        boolean encrypt
+    ) throws InterruptedException {
+        int blockSize = blockCipher.blockSize();
+
+        if (!encrypt || cipherModeType.parallelEncryption()) {
+            for (int i = from; i < to; i++) {
+                byte[] message = requireNonNull(messages.get(i), "message");
+                byte[] iv = requireNonNull(ivs.get(i), "iv");
+
+                CipherMode mode = cipherModeType.createMode(blockCipher, pool, tuning);
+                mode.init(cipherModeType.createParameters(iv, args));
+
+                results[i] = encrypt
+                    ? mode.encrypt(padding.pad(message, blockSize))
+                    : padding.unpad(mode.decrypt(message), blockSize);
+            }
+
+            return;
+        }
+
+        int count = to - from;
+        byte[][] data = new byte[count][];
+        byte[][] feedback = new byte[count][];
+        int maxLength = 0;
+
+        for (int i = 0; i < count; i++) {
+            byte[] message = requireNonNull(messages.get(from + i), "message");
+            byte[] iv = requireNonNull(ivs.get(from + i), "iv");
+
+            if (iv.length != blockSize) {
+                throw new IllegalArgumentException(
+                    "expected %d-byte IV".formatted(blockSize));
+            }
+
+            // Padding returns a copy, which is encrypted in place.
+            data[i] = padding.pad(message, blockSize);
+            feedback[i] = iv.clone();
+            maxLength = Math.max(maxLength, data[i].length);
+        }
+
+        // Advance all chains by one block at a time.
+        for (int offset = 0; offset < maxLength; offset += blockSize) {
+            for (int i = 0; i < count; i++) {
+                if (offset < data[i].length) {
+                    encryptChainedBlock(data[i], offset, feedback[i]);
+                }
+            }
+        }
+
+        System.arraycopy(data, 0, results, from, count);
+    }
+
+    /**
+     * Encrypts a block of a chained mode in place.
+     *
+     * @param feedback block carried to the next block; updated
+     */
+    private void encryptChainedBlock(byte[] data, int offset, byte[] feedback) {
+        int blockSize = feedback.length;
+
+        switch (cipherModeType) {
+            case CBC -> {
+                for (int j = 0; j < blockSize; j++) {
+                    feedback[j] ^= data[offset + j];
+                }
+
+                blockCipher.encryptBlock(feedback, 0, feedback, 0);
+                System.arraycopy(feedback, 0, data, offset, blockSize);
+            }
+            case CFB -> {
+                blockCipher.encryptBlock(feedback, 0, feedback, 0);
+
+                for (int j = 0; j < blockSize; j++) {
+                    feedback[j] ^= data[offset + j];
+                }
+
+                System.arraycopy(feedback, 0, data, offset, blockSize);
+            }
+            case OFB -> {
+                blockCipher.encryptBlock(feedback, 0, feedback, 0);
+
+                for (int j = 0; j < blockSize; j++) {
+                    data[offset + j] ^= feedback[j];
+                }
+            }
+            case PCBC -> {
+                for (int j = 0; j < blockSize; j++) {
+                    feedback[j] ^= data[offset + j];
+                }
+
+                blockCipher.encryptBlock(feedback, 0, feedback, 0);
+
+                // The next block is chained to plaintext XOR ciphertext.
+                for (int j = 0; j < blockSize; j++) {
+                    byte ciphertext = feedback[j];
+                    feedback[j] ^= data[offset + j];
+                    data[offset + j] = ciphertext;
+                }
+            }
+            default -> throw new IllegalStateException("Cipher mode is not chained");
+        }
+    }
+    //endregion
+
+    /**
+     * Processes a file by memory-mapping it and splitting every mapping into
+     * regions that are processed in parallel, instead of streaming it.
+     */
+    private void processMapped(Path input, Path output, boolean encrypt) throws IOException {
+        try (var in = FileChannel.open(input, StandardOpenOption.READ);
+             var out = FileChannel.open(
+                 output,
+                 StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING,
+                 StandardOpenOption.READ,
+                 StandardOpenOption.WRITE
+             )) {
+            var mappedCipher = new MappedFileCipher(
+                padding,
+                blockCipher.blockSize(),
+                chunkTransform(encrypt),
+                pool,
+                streamBufferSize
+            );
+
+            byte[] iv = parameters instanceof IvParameters(byte[] ivParam) ? ivParam : null;
+
+            if (encrypt) {
+                mappedCipher.encrypt(in, out, iv);
+            } else {
+                mappedCipher.decrypt(in, out, iv);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cipher operation interrupted", e);
+        }
+    }
+
     public enum CipherModeType {
 
         CBC(
             CbcCipherMode::new,
             ParameterCreator.iv(),
-            InitSizeProvider.blockSize()
+            InitSizeProvider.blockSize(),
+            /* parallel encryption */ false,
+            /* parallel decryption */ true
         ),
 
         CFB(
             CfbCipherMode::new,
             ParameterCreator.iv(),
-            InitSizeProvider.blockSize()
+            InitSizeProvider.blockSize(),
+            /* parallel encryption */ false,
+            /* parallel decryption */ true
         ),
 
         CTR(
             CtrCipherMode::new,
             ParameterCreator.ctr(),
-            (blockSize) -> blockSize / 2
+            InitSizeProvider.halfBlockSize(),
+            /* parallel encryption */ true,
+            /* parallel decryption */ true
         ),
 
         ECB(
             EcbCipherMode::new,
             ParameterCreator.none(),
-            InitSizeProvider.zero()
+            InitSizeProvider.zero(),
+            /* parallel encryption */ true,
+            /* parallel decryption */ true
         ),
 
         OFB(
-            (cipher, pool) -> new OfbCipherMode(cipher),
+            (cipher, pool, tuning) -> new OfbCipherMode(cipher),
             ParameterCreator.iv(),
-            InitSizeProvider.blockSize()
+            InitSizeProvider.blockSize(),
+            /* parallel encryption */ false,
+            /* parallel decryption */ false
         ),
 
         PCBC(
             PcbcCipherMode::new,
             ParameterCreator.iv(),
-            InitSizeProvider.blockSize()
+            InitSizeProvider.blockSize(),
+            /* parallel encryption */ false,
+            /* parallel decryption */ true
         ),
 
         RANDOM_DELTA(
             RandomDeltaCipherMode::new,
             ParameterCreator.randomDelta(),
-            InitSizeProvider.blockSize()
+            InitSizeProvider.halfBlockSize(),
+            /* parallel encryption */ true,
+            /* parallel decryption */ true
         );
 
         private final InstanceCreator instanceCreator;
         private final ParameterCreator parametersCreator;
         private final InitSizeProvider initSizeProvider;
+        private final boolean parallelEncryption;
+        private final boolean parallelDecryption;
 
         CipherModeType(
             InstanceCreator instanceCreator,
             ParameterCreator parametersCreator,
-            InitSizeProvider initSizeProvider
+            InitSizeProvider initSizeProvider,
+            boolean parallelEncryption,
+            boolean parallelDecryption
         ) {
             this.instanceCreator = instanceCreator;
             this.parametersCreator = parametersCreator;
             this.initSizeProvider = initSizeProvider;
+            this.parallelEncryption = parallelEncryption;
+            this.parallelDecryption = parallelDecryption;
         }
 
         public CipherMode createMode(BlockCipher cipher, ForkJoinPool pool) {
-            return instanceCreator.create(cipher, pool);
+            return createMode(cipher, pool, ParallelTuning.DEFAULT);
+        }
+
+        public CipherMode createMode(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning) {
+            return instanceCreator.create(cipher, pool, tuning);
         }
 
         public Parameters createParameters(byte[] iv, List<?> args) {
@@ -186,10 +798,26 @@ public final class SymmetricCipher {
             return initSizeProvider.initSize(blockSize);
         }
 
+        /**
+         * Returns whether the mode encrypts blocks independently of each other,
+         * so that large inputs can be split across a pool.
+         */
+        public boolean parallelEncryption() {
+            return parallelEncryption;
+        }
+
+        /**
+         * Returns whether the mode decrypts blocks independently of each other,
+         * so that large inputs can be split across a pool.
+         */
+        public boolean parallelDecryption() {
+            return parallelDecryption;
+        }
+
         @FunctionalInterface
         private interface InstanceCreator {
 
-            CipherMode create(BlockCipher cipher, ForkJoinPool pool);
+            CipherMode create(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning);
         }
 
         @FunctionalInterface
@@ -207,8 +835,10 @@ public final class SymmetricCipher {
 
             static ParameterCreator ctr() {
                 return (iv, args) -> new CtrParameters(
-                    /* nonce   */ iv,
-                    /* counter */ requireNonNullElse(argumentAt(args, 0), 0)
+                    /* nonce        */ iv,
+                    /* counter      */ requireNonNullElse(argumentAt(args, 0), (Number) 0).longValue(),
+                    /* counter size */ requireNonNullElse(argumentAt(args, 1), CtrParameters.REMAINING),
+                    /* byte order   */ requireNonNullElse(argumentAt(args, 2), ByteOrder.BIG_ENDIAN)
                 );
             }
 
@@ -245,6 +875,11 @@ public final class SymmetricCipher {
             static InitSizeProvider blockSize() {
                 return (blockSize) -> blockSize;
             }
+
+            /** Nonce of the counter modes, followed by the counter. */
+            static InitSizeProvider halfBlockSize() {
+                return (blockSize) -> blockSize / 2;
+            }
         }
     }
 
@@ -274,15 +909,34 @@ public final class SymmetricCipher {
     public static final class Builder {
 
         private BlockCipher blockCipher;
+        private boolean initialized;
         private CipherModeType cipherMode;
         private PaddingType padding;
         private byte[] key;
         private byte[] iv;
         private List<Object> args = new ArrayList<>();
         private ForkJoinPool pool;
-
+        private ParallelTuning tuning;
+        private int streamBufferSize = SymmetricCipherContext.DEFAULT_STREAM_BUFFER_SIZE;
+
+        /**
+         * Uses a block cipher that is initialized with the key on
+         * {@link #build()}. The cipher must not be shared with ciphers built
+         * with another key.
+         */
         public Builder cipher(BlockCipher blockCipher) {
             this.blockCipher = blockCipher;
+            this.initialized = false;
+            return this;
+        }
+
+        /**
+         * Uses a block cipher that has already been initialized, e.g. one
+         * from a {@link KeyScheduleCache}. No key is needed in this case.
+         */
+        public Builder initializedCipher(BlockCipher blockCipher) {
+            this.blockCipher = blockCipher;
+            this.initialized = true;
             return this;
         }
 
@@ -326,15 +980,31 @@ public final class SymmetricCipher {
             return this;
         }
 
+        public Builder tuning(ParallelTuning tuning) {
+            this.tuning = tuning;
+            return this;
+        }
+
+        /**
+         * Sets the size of the buffer used by cipher streams. It is rounded
+         * down to a multiple of the block size. Defaults to
+         * {@link SymmetricCipherContext#DEFAULT_STREAM_BUFFER_SIZE}.
+         */
+        public Builder streamBufferSize(int streamBufferSize) {
+            this.streamBufferSize = streamBufferSize;
+            return this;
+        }
+
         public SymmetricCipher build() {
             return new SymmetricCipher(
-                blockCipher,
                 cipherMode,
                 padding,
-                key,
+                initialized ? blockCipher : initialize(blockCipher, key),
                 iv,
                 args,
-                pool
+                pool,
+                tuning,
+                streamBufferSize
             );
         }
     }
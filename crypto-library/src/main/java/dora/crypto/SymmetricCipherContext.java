@@ -2,25 +2,56 @@ package dora.crypto;
 
 import dora.crypto.block.mode.CipherMode;
 import dora.crypto.block.mode.Parameters;
+import dora.crypto.block.mode.SeekableCipherMode;
 import dora.crypto.block.padding.Padding;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 import static java.util.Objects.requireNonNull;
 
 public final class SymmetricCipherContext {
 
+    /** Default size of the buffer of cipher streams. */
+    public static final int DEFAULT_STREAM_BUFFER_SIZE = 512 * 1024;
+
     private final CipherMode cipherMode;
     private final Padding padding;
+    private final int streamBufferSize;
 
     public SymmetricCipherContext(
         @NotNull CipherMode cipherMode,
         @NotNull Padding padding
+    ) {
+        this(cipherMode, padding, DEFAULT_STREAM_BUFFER_SIZE);
+    }
+
+    /**
+     * @param streamBufferSize size of the buffer of cipher streams, rounded
+     *                         down to a multiple of the block size
+     */
+    public SymmetricCipherContext(
+        @NotNull CipherMode cipherMode,
+        @NotNull Padding padding,
+        int streamBufferSize
     ) {
         this.cipherMode = requireNonNull(cipherMode, "cipher mode");
         this.padding = requireNonNull(padding, "padding");
+
+        if (streamBufferSize < 1)
+            throw new IllegalArgumentException("Invalid buffer size");
+
+        this.streamBufferSize = streamBufferSize;
     }
 
     public void init(byte @NotNull[] key, @NotNull Parameters parameters) {
@@ -30,6 +61,14 @@ public final class SymmetricCipherContext {
         );
     }
 
+    /**
+     * Initializes the cipher mode with new parameters, keeping the key of the
+     * already initialized block cipher.
+     */
+    public void init(@NotNull Parameters parameters) {
+        cipherMode.init(requireNonNull(parameters, "parameters"));
+    }
+
     public byte[] encrypt(byte @NotNull [] data) throws InterruptedException {
         byte[] padded = padding.pad(requireNonNull(data, "data"), cipherMode.blockSize());
         return cipherMode.encrypt(padded);
@@ -40,19 +79,216 @@ public final class SymmetricCipherContext {
         return padding.unpad(decrypted, cipherMode.blockSize());
     }
 
+    /**
+     * Encrypts the remaining bytes of <code>src</code> as a complete message
+     * and writes the padded ciphertext to <code>dst</code>.
+     * <p>
+     * Full blocks are processed directly between the buffers; only the final
+     * block is padded in a scratch buffer. <code>dst</code> must have room for
+     * {@link #encryptedSize(int)} bytes.
+     *
+     * @return number of bytes written to <code>dst</code>
+     */
+    public int encrypt(@NotNull ByteBuffer src, @NotNull ByteBuffer dst) throws InterruptedException {
+        requireNonNull(src, "data");
+        requireNonNull(dst, "output");
+
+        int blockSize = cipherMode.blockSize();
+        int length = src.remaining();
+        int fullLength = length - length % blockSize;
+
+        ByteBuffer lastBlocks = ByteBuffer.allocate(2 * blockSize);
+        lastBlocks.put(src.slice(src.position() + fullLength, length - fullLength));
+        padding.pad(lastBlocks, length, blockSize);
+        lastBlocks.flip();
+
+        if (dst.remaining() < fullLength + lastBlocks.remaining())
+            throw new BufferOverflowException();
+
+        int limit = src.limit();
+
+        cipherMode.encrypt(src.limit(src.position() + fullLength), dst);
+        src.limit(limit).position(limit);
+
+        cipherMode.encrypt(lastBlocks, lastBlocks.duplicate().clear());
+        dst.put(lastBlocks.flip());
+
+        return fullLength + lastBlocks.limit();
+    }
+
+    /**
+     * Decrypts the remaining bytes of <code>src</code> as a complete message
+     * and writes the unpadded plaintext to <code>dst</code>.
+     * <p>
+     * All blocks but the last are processed directly between the buffers.
+     * <code>dst</code> should have room for <code>src.remaining()</code> bytes.
+     *
+     * @return number of bytes written to <code>dst</code>
+     */
+    public int decrypt(@NotNull ByteBuffer src, @NotNull ByteBuffer dst) throws InterruptedException {
+        requireNonNull(src, "data");
+        requireNonNull(dst, "output");
+
+        int blockSize = cipherMode.blockSize();
+        int length = src.remaining();
+
+        if (length < blockSize || length % blockSize != 0)
+            throw new IllegalArgumentException("Ciphertext not multiple of block size");
+
+        int leadingLength = length - blockSize;
+
+        if (dst.remaining() < leadingLength) throw new BufferOverflowException();
+
+        int limit = src.limit();
+
+        cipherMode.decrypt(src.limit(src.position() + leadingLength), dst);
+        src.limit(limit);
+
+        ByteBuffer lastBlock = ByteBuffer.allocate(blockSize);
+        cipherMode.decrypt(src, lastBlock);
+
+        padding.unpad(lastBlock.flip(), blockSize);
+
+        if (dst.remaining() < lastBlock.remaining()) throw new BufferOverflowException();
+
+        int lastLength = lastBlock.remaining();
+        dst.put(lastBlock);
+
+        return leadingLength + lastLength;
+    }
+
+    /**
+     * Returns the size of the ciphertext for a message of <code>length</code>
+     * bytes.
+     */
+    public int encryptedSize(int length) {
+        int blockSize = cipherMode.blockSize();
+        return length - length % blockSize
+            + padding.pad(new byte[length % blockSize], blockSize).length;
+    }
+
     public @NotNull InputStream encryptingInputStream(@NotNull InputStream stream) {
-        return new CipherInputStream(cipherMode, padding, stream, true);
+        return new CipherInputStream(cipherMode, padding, stream, true, streamBufferSize);
     }
 
     public @NotNull InputStream decryptingInputStream(@NotNull InputStream stream) {
-        return new CipherInputStream(cipherMode, padding, stream, false);
+        return new CipherInputStream(cipherMode, padding, stream, false, streamBufferSize);
+    }
+
+    /**
+     * Returns a read-only channel over the plaintext of <code>channel</code>
+     * that supports positioning. Only the blocks covering each read are
+     * decrypted.
+     *
+     * @throws UnsupportedOperationException if the cipher mode cannot decrypt
+     *                                       blocks independently
+     */
+    public @NotNull SeekableByteChannel decryptingChannel(
+        @NotNull SeekableByteChannel channel
+    ) throws IOException {
+        if (!(cipherMode instanceof SeekableCipherMode seekableMode)) {
+            throw new UnsupportedOperationException(
+                "Cipher mode does not support random access");
+        }
+
+        return new DecryptingSeekableChannel(seekableMode, padding, channel);
+    }
+
+    /**
+     * Returns a channel that encrypts the data read from <code>channel</code>.
+     */
+    public @NotNull ReadableByteChannel encryptingReadableChannel(@NotNull ReadableByteChannel channel) {
+        return readableChannel(channel, true);
+    }
+
+    /**
+     * Returns a channel that decrypts the data read from <code>channel</code>
+     * sequentially. See {@link #decryptingChannel(SeekableByteChannel)} for
+     * random access.
+     */
+    public @NotNull ReadableByteChannel decryptingReadableChannel(@NotNull ReadableByteChannel channel) {
+        return readableChannel(channel, false);
+    }
+
+    /**
+     * Returns a channel that encrypts the data written to it into
+     * <code>channel</code>. Closing it writes the final block.
+     */
+    public @NotNull WritableByteChannel encryptingWritableChannel(@NotNull WritableByteChannel channel) {
+        return writableChannel(channel, true);
+    }
+
+    /**
+     * Returns a channel that decrypts the data written to it into
+     * <code>channel</code>. Closing it writes the final block.
+     */
+    public @NotNull WritableByteChannel decryptingWritableChannel(@NotNull WritableByteChannel channel) {
+        return writableChannel(channel, false);
+    }
+
+    private ReadableByteChannel readableChannel(ReadableByteChannel channel, boolean encrypt) {
+        requireNonNull(channel, "channel");
+
+        return new CipherReadableChannel(cipherMode, padding, channel, encrypt, streamBufferSize);
+    }
+
+    private WritableByteChannel writableChannel(WritableByteChannel channel, boolean encrypt) {
+        requireNonNull(channel, "channel");
+
+        return new CipherWritableChannel(cipherMode, padding, channel, encrypt, streamBufferSize);
+    }
+
+    /**
+     * Encrypts the contents of <code>input</code> into <code>output</code>
+     * asynchronously. Reading, encryption and writing of consecutive chunks
+     * overlap. The output is truncated to the size of the ciphertext.
+     *
+     * @return future completed with the size of the ciphertext
+     */
+    public @NotNull CompletableFuture<Long> encryptAsync(
+        @NotNull AsynchronousFileChannel input,
+        @NotNull AsynchronousFileChannel output
+    ) {
+        return new AsyncFileCipher(cipherMode, padding, true, streamBufferSize).process(input, output);
+    }
+
+    /**
+     * Decrypts the contents of <code>input</code> into <code>output</code>
+     * asynchronously. Reading, decryption and writing of consecutive chunks
+     * overlap. The output is truncated to the size of the plaintext.
+     *
+     * @return future completed with the size of the plaintext
+     */
+    public @NotNull CompletableFuture<Long> decryptAsync(
+        @NotNull AsynchronousFileChannel input,
+        @NotNull AsynchronousFileChannel output
+    ) {
+        return new AsyncFileCipher(cipherMode, padding, false, streamBufferSize).process(input, output);
+    }
+
+    /**
+     * Returns a processor that encrypts the buffers published to it. The
+     * processor requests data from its publisher only as fast as its
+     * subscriber consumes the ciphertext.
+     */
+    public Flow.@NotNull Processor<ByteBuffer, ByteBuffer> encryptingProcessor() {
+        return new CipherProcessor(cipherMode, padding, true);
+    }
+
+    /**
+     * Returns a processor that decrypts the buffers published to it. The
+     * processor requests data from its publisher only as fast as its
+     * subscriber consumes the plaintext.
+     */
+    public Flow.@NotNull Processor<ByteBuffer, ByteBuffer> decryptingProcessor() {
+        return new CipherProcessor(cipherMode, padding, false);
     }
 
     public @NotNull OutputStream encryptingOutputStream(@NotNull OutputStream stream) {
-        return new CipherOutputStream(cipherMode, padding, stream, true);
+        return new CipherOutputStream(cipherMode, padding, stream, true, streamBufferSize);
     }
 
     public @NotNull OutputStream decryptingOutputStream(@NotNull OutputStream stream) {
-        return new CipherOutputStream(cipherMode, padding, stream, false);
+        return new CipherOutputStream(cipherMode, padding, stream, false, streamBufferSize);
     }
 }
@@ -2,6 +2,7 @@ package dora.crypto.block;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
 import java.util.Set;
 
 public interface BlockCipher {
@@ -12,7 +13,42 @@ public interface BlockCipher {
 
     void init(byte @NotNull [] key);
 
+    /**
+     * Wipes the key schedule. The cipher must be initialized again before it
+     * is used. The default implementation does nothing.
+     */
+    default void destroy() {
+    }
+
     byte[] encrypt(byte @NotNull [] plaintext);
 
     byte[] decrypt(byte @NotNull [] ciphertext);
+
+    /**
+     * Encrypts a single block starting at <code>inOff</code> and writes the result to
+     * <code>out</code> starting at <code>outOff</code>.
+     * <p>
+     * The input and output may be the same array region (in-place encryption).
+     * Implementations should override this method to avoid allocating intermediate
+     * blocks; the default implementation bridges to {@link #encrypt(byte[])}.
+     */
+    default void encryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        byte[] block = Arrays.copyOfRange(in, inOff, inOff + blockSize());
+        byte[] result = encrypt(block);
+        System.arraycopy(result, 0, out, outOff, result.length);
+    }
+
+    /**
+     * Decrypts a single block starting at <code>inOff</code> and writes the result to
+     * <code>out</code> starting at <code>outOff</code>.
+     * <p>
+     * The input and output may be the same array region (in-place decryption).
+     * Implementations should override this method to avoid allocating intermediate
+     * blocks; the default implementation bridges to {@link #decrypt(byte[])}.
+     */
+    default void decryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        byte[] block = Arrays.copyOfRange(in, inOff, inOff + blockSize());
+        byte[] result = decrypt(block);
+        System.arraycopy(result, 0, out, outOff, result.length);
+    }
 }
@@ -2,7 +2,7 @@ package dora.crypto.block;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
+import java.util.Objects;
 import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
@@ -13,7 +13,8 @@ public class FeistelBlockCipher implements BlockCipher {
     private final RoundFunction roundFunction;
     private final int blockSize;
 
-    private byte[][] roundKeys;
+    /** Round function bound to each round key, in encryption order. */
+    private KeyedRoundFunction[] rounds;
 
     public FeistelBlockCipher(@NotNull KeySchedule keySchedule,
                               @NotNull RoundFunction roundFunction,
@@ -39,78 +40,143 @@ public class FeistelBlockCipher implements BlockCipher {
 
     @Override
     public void init(byte @NotNull [] key) {
-        roundKeys = keySchedule.roundKeys(requireNonNull(key, "key"));
+        byte[][] roundKeys = keySchedule.roundKeys(requireNonNull(key, "key"));
+        KeyedRoundFunction[] keyed = new KeyedRoundFunction[roundKeys.length];
+
+        for (int i = 0; i < roundKeys.length; i++) {
+            keyed[i] = roundFunction.withKey(roundKeys[i]);
+        }
+
+        rounds = keyed;
+    }
+
+    @Override
+    public void destroy() {
+        if (rounds != null) {
+            for (KeyedRoundFunction round : rounds) {
+                round.destroy();
+            }
+
+            rounds = null;
+        }
     }
 
     @Override
     public byte[] encrypt(byte @NotNull [] plaintext) {
         requireNonNull(plaintext, "plaintext");
 
-        if (roundKeys == null)
-            throw new IllegalStateException("Cipher is not initialized");
         if (plaintext.length != blockSize)
             throw new IllegalArgumentException("Invalid block size");
 
-        // (1) Split the block into two equal parts.
-        byte[] l = Arrays.copyOfRange(plaintext, 0, plaintext.length / 2);
-        byte[] r = Arrays.copyOfRange(plaintext, plaintext.length / 2, plaintext.length);
+        byte[] ciphertext = new byte[blockSize];
+        encryptBlock(plaintext, 0, ciphertext, 0);
+
+        return ciphertext;
+    }
+
+    @Override
+    public void encryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        checkBlock(in, inOff, out, outOff);
+
+        int half = blockSize / 2;
+
+        // (1) Split the block into two equal parts. The rounds run in the
+        // output, and the halves trade places by swapping their offsets.
+        System.arraycopy(in, inOff, out, outOff, blockSize);
+
+        int l = outOff;
+        int r = outOff + half;
+        byte[] f = new byte[half];
 
         // (2) For each round compute:
         //   - L_i+1 = R_i
         //   - R_i+1 = L_i xor F(R_i, K_i)
-        for (byte[] roundKey : roundKeys) {
-            byte[] rNew = new byte[r.length];
-            byte[] f = roundFunction.apply(r, roundKey);
+        for (KeyedRoundFunction round : rounds) {
+            round.apply(out, r, half, f, 0);
 
-            for (int k = 0; k < rNew.length; k++) {
-                rNew[k] = (byte) (l[k] ^ f[k]);
+            for (int k = 0; k < half; k++) {
+                out[l + k] ^= f[k];
             }
 
+            int temp = l;
             l = r;
-            r = rNew;
+            r = temp;
         }
 
         // (3) The ciphertext is (R_n+1, L_n+1).
-        byte[] ciphertext = new byte[plaintext.length];
-        System.arraycopy(r, 0, ciphertext, 0, r.length);
-        System.arraycopy(l, 0, ciphertext, r.length, l.length);
-
-        return ciphertext;
+        if (r != outOff) {
+            swapHalves(out, outOff, f);
+        }
     }
 
     @Override
     public byte[] decrypt(byte @NotNull [] ciphertext) {
         requireNonNull(ciphertext, "ciphertext");
 
-        if (roundKeys == null)
-            throw new IllegalStateException("Cipher is not initialized");
         if (ciphertext.length != blockSize)
             throw new IllegalArgumentException("Invalid block size");
 
-        // (1) Split the block into two equal parts.
-        byte[] r = Arrays.copyOfRange(ciphertext, 0, ciphertext.length / 2);
-        byte[] l = Arrays.copyOfRange(ciphertext, ciphertext.length / 2, ciphertext.length);
+        byte[] plaintext = new byte[blockSize];
+        decryptBlock(ciphertext, 0, plaintext, 0);
+
+        return plaintext;
+    }
+
+    @Override
+    public void decryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        checkBlock(in, inOff, out, outOff);
+
+        int half = blockSize / 2;
+
+        // (1) Split the block into two equal parts. The rounds run in the
+        // output, and the halves trade places by swapping their offsets.
+        System.arraycopy(in, inOff, out, outOff, blockSize);
+
+        int r = outOff;
+        int l = outOff + half;
+        byte[] f = new byte[half];
 
         // (2) For each round compute:
         //   - R_i = R_i+1
         //   - L_i = R_i+1 xor F(L_i+1, K_i)
-        for (int i = roundKeys.length - 1; i >= 0; i--) {
-            byte[] lNew = new byte[l.length];
-            byte[] f = roundFunction.apply(l, roundKeys[i]);
+        for (int i = rounds.length - 1; i >= 0; i--) {
+            rounds[i].apply(out, l, half, f, 0);
 
-            for (int k = 0; k < lNew.length; k++) {
-                lNew[k] = (byte) (r[k] ^ f[k]);
+            for (int k = 0; k < half; k++) {
+                out[r + k] ^= f[k];
             }
 
+            int temp = r;
             r = l;
-            l = lNew;
+            l = temp;
         }
 
         // (3) The plaintext is (L_0, R_0).
-        byte[] plaintext = new byte[ciphertext.length];
-        System.arraycopy(l, 0, plaintext, 0, l.length);
-        System.arraycopy(r, 0, plaintext, l.length, r.length);
+        if (l != outOff) {
+            swapHalves(out, outOff, f);
+        }
+    }
 
-        return plaintext;
+    /**
+     * Swaps the halves of the block at <code>offset</code>, using
+     * <code>temp</code> to hold one of them.
+     */
+    private void swapHalves(byte[] block, int offset, byte[] temp) {
+        int half = blockSize / 2;
+
+        System.arraycopy(block, offset, temp, 0, half);
+        System.arraycopy(block, offset + half, block, offset, half);
+        System.arraycopy(temp, 0, block, offset + half, half);
+    }
+
+    private void checkBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        requireNonNull(in, "input");
+        requireNonNull(out, "output");
+
+        if (rounds == null)
+            throw new IllegalStateException("Cipher is not initialized");
+
+        Objects.checkFromIndexSize(inOff, blockSize, in.length);
+        Objects.checkFromIndexSize(outOff, blockSize, out.length);
     }
 }
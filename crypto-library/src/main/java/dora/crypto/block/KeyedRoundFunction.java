@@ -0,0 +1,39 @@
+package dora.crypto.block;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Round function bound to a single round key.
+ * <p>
+ * Instances are created once per round in {@link FeistelBlockCipher#init(byte[])}
+ * and may be used by several threads at once.
+ *
+ * @see RoundFunction#withKey(byte[])
+ */
+@FunctionalInterface
+public interface KeyedRoundFunction {
+
+    byte[] apply(byte @NotNull [] block);
+
+    /**
+     * Applies the round function to <code>length</code> bytes of
+     * <code>in</code> starting at <code>inOff</code> and writes the result to
+     * <code>out</code> starting at <code>outOff</code>. The default
+     * implementation copies the input and calls {@link #apply(byte[])};
+     * implementations that can read and write the arrays directly should
+     * override it.
+     */
+    default void apply(byte @NotNull [] in, int inOff, int length, byte @NotNull [] out, int outOff) {
+        byte[] result = apply(Arrays.copyOfRange(in, inOff, inOff + length));
+        System.arraycopy(result, 0, out, outOff, result.length);
+    }
+
+    /**
+     * Wipes the round key, or the state derived from it. The default
+     * implementation does nothing.
+     */
+    default void destroy() {
+    }
+}
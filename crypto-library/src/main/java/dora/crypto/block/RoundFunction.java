@@ -2,7 +2,35 @@ package dora.crypto.block;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
 public interface RoundFunction {
 
     byte[] apply(byte @NotNull [] block, byte @NotNull [] key);
+
+    /**
+     * Binds the round function to <code>key</code>. Implementations that
+     * derive state from the round key (e.g. a key schedule of their own)
+     * should override this method to compute it once; the default
+     * implementation calls {@link #apply(byte[], byte[])} with a copy of the
+     * key.
+     */
+    default KeyedRoundFunction withKey(byte @NotNull [] key) {
+        byte[] roundKey = requireNonNull(key, "key").clone();
+
+        return new KeyedRoundFunction() {
+
+            @Override
+            public byte[] apply(byte @NotNull [] block) {
+                return RoundFunction.this.apply(block, roundKey);
+            }
+
+            @Override
+            public void destroy() {
+                Arrays.fill(roundKey, (byte) 0);
+            }
+        };
+    }
 }
@@ -22,12 +22,26 @@ public sealed interface Word permits
 
     byte[] toByteArray();
 
+    /**
+     * Writes the word in little-endian order to <code>bytes</code> starting at
+     * <code>offset</code>.
+     */
+    void toByteArray(byte[] bytes, int offset);
+
     //region Factories
     static Word fromByteArray(byte[] bytes) {
-        return switch (bytes.length) {
-            case Short.BYTES -> ShortBacked.fromByteArray(bytes);
-            case Integer.BYTES -> IntBacked.fromByteArray(bytes);
-            case Long.BYTES -> LongBacked.fromByteArray(bytes);
+        return fromByteArray(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads a little-endian word of <code>length</code> bytes from <code>bytes</code>
+     * starting at <code>offset</code>.
+     */
+    static Word fromByteArray(byte[] bytes, int offset, int length) {
+        return switch (length) {
+            case Short.BYTES -> ShortBacked.fromByteArray(bytes, offset);
+            case Integer.BYTES -> IntBacked.fromByteArray(bytes, offset);
+            case Long.BYTES -> LongBacked.fromByteArray(bytes, offset);
             default -> throw new IllegalArgumentException("Unsupported word size");
         };
     }
@@ -50,7 +64,11 @@ public sealed interface Word permits
     record ShortBacked(short value) implements Word {
 
         public static ShortBacked fromByteArray(byte[] bytes) {
-            short result = (short) ((bytes[1] & 0xff) << 8 | (bytes[0] & 0xff));
+            return fromByteArray(bytes, 0);
+        }
+
+        public static ShortBacked fromByteArray(byte[] bytes, int offset) {
+            short result = (short) ((bytes[offset + 1] & 0xff) << 8 | (bytes[offset] & 0xff));
             return new ShortBacked(result);
         }
 
@@ -109,15 +127,25 @@ public sealed interface Word permits
                 .putShort(value)
                 .array();
         }
+
+        @Override
+        public void toByteArray(byte[] bytes, int offset) {
+            bytes[offset] = (byte) value;
+            bytes[offset + 1] = (byte) (value >>> 8);
+        }
     }
 
     record IntBacked(int value) implements Word {
 
         public static IntBacked fromByteArray(byte[] bytes) {
-            int result = (bytes[3] & 0xff) << 24
-                       | (bytes[2] & 0xff) << 16
-                       | (bytes[1] & 0xff) << 8
-                       | (bytes[0] & 0xff);
+            return fromByteArray(bytes, 0);
+        }
+
+        public static IntBacked fromByteArray(byte[] bytes, int offset) {
+            int result = (bytes[offset + 3] & 0xff) << 24
+                       | (bytes[offset + 2] & 0xff) << 16
+                       | (bytes[offset + 1] & 0xff) << 8
+                       | (bytes[offset] & 0xff);
             return new IntBacked(result);
         }
 
@@ -170,19 +198,31 @@ public sealed interface Word permits
                 .putInt(value)
                 .array();
         }
+
+        @Override
+        public void toByteArray(byte[] bytes, int offset) {
+            bytes[offset] = (byte) value;
+            bytes[offset + 1] = (byte) (value >>> 8);
+            bytes[offset + 2] = (byte) (value >>> 16);
+            bytes[offset + 3] = (byte) (value >>> 24);
+        }
     }
 
     record LongBacked(long value) implements Word {
 
         public static LongBacked fromByteArray(byte[] bytes) {
-            long result = (bytes[7] & 0xffL) << 56
-                        | (bytes[6] & 0xffL) << 48
-                        | (bytes[5] & 0xffL) << 40
-                        | (bytes[4] & 0xffL) << 32
-                        | (bytes[3] & 0xffL) << 24
-                        | (bytes[2] & 0xffL) << 16
-                        | (bytes[1] & 0xffL) << 8
-                        | (bytes[0] & 0xffL);
+            return fromByteArray(bytes, 0);
+        }
+
+        public static LongBacked fromByteArray(byte[] bytes, int offset) {
+            long result = (bytes[offset + 7] & 0xffL) << 56
+                        | (bytes[offset + 6] & 0xffL) << 48
+                        | (bytes[offset + 5] & 0xffL) << 40
+                        | (bytes[offset + 4] & 0xffL) << 32
+                        | (bytes[offset + 3] & 0xffL) << 24
+                        | (bytes[offset + 2] & 0xffL) << 16
+                        | (bytes[offset + 1] & 0xffL) << 8
+                        | (bytes[offset] & 0xffL);
             return new LongBacked(result);
         }
 
@@ -237,6 +277,13 @@ public sealed interface Word permits
                 .putLong(value)
                 .array();
         }
+
+        @Override
+        public void toByteArray(byte[] bytes, int offset) {
+            for (int i = 0; i < Long.BYTES; i++) {
+                bytes[offset + i] = (byte) (value >>> (i * Byte.SIZE));
+            }
+        }
     }
     //endregion
 }
@@ -1,7 +1,7 @@
 package dora.crypto.block.deal;
 
 import dora.crypto.block.KeySchedule;
-import dora.crypto.block.des.DesBlockCipher;
+import dora.crypto.block.des.TableDesBlockCipher;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.ByteBuffer;
@@ -16,10 +16,10 @@ import static java.util.Objects.requireNonNull;
  */
 public final class DealKeySchedule implements KeySchedule {
 
-    private final DesBlockCipher des;
+    private final TableDesBlockCipher des;
 
     public DealKeySchedule(byte @NotNull [] desKey) {
-        des = new DesBlockCipher();
+        des = new TableDesBlockCipher();
         des.init(requireNonNull(desKey, "DES key"));
     }
 
@@ -1,18 +1,57 @@
 package dora.crypto.block.deal;
 
+import dora.crypto.block.FeistelBlockCipher;
+import dora.crypto.block.KeyedRoundFunction;
 import dora.crypto.block.RoundFunction;
-import dora.crypto.block.des.DesBlockCipher;
+import dora.crypto.block.des.TableDesBlockCipher;
 import org.jetbrains.annotations.NotNull;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * DEAL uses DES encryption as its round function.
  */
 public final class DealRoundFunction implements RoundFunction {
 
+    /**
+     * Encrypts <code>block</code> with DES under <code>key</code>. This runs
+     * the DES key schedule on every call; {@link FeistelBlockCipher} binds
+     * the round keys with {@link #withKey} instead.
+     */
     @Override
     public byte[] apply(byte @NotNull [] block, byte @NotNull [] key) {
-        DesBlockCipher des = new DesBlockCipher();
-        des.init(key);
-        return des.encrypt(block);
+        return withKey(key).apply(block);
+    }
+
+    /**
+     * Returns a round function backed by a DES instance initialized with
+     * <code>key</code>, so that the DES key schedule runs once per round key
+     * rather than once per block.
+     */
+    @Override
+    public KeyedRoundFunction withKey(byte @NotNull [] key) {
+        TableDesBlockCipher des = new TableDesBlockCipher();
+        des.init(requireNonNull(key, "key"));
+
+        return new KeyedRoundFunction() {
+
+            @Override
+            public byte[] apply(byte @NotNull [] block) {
+                return des.encrypt(block);
+            }
+
+            @Override
+            public void apply(byte @NotNull [] in, int inOff, int length, byte @NotNull [] out, int outOff) {
+                if (length != des.blockSize())
+                    throw new IllegalArgumentException("Invalid round block size");
+
+                des.encryptBlock(in, inOff, out, outOff);
+            }
+
+            @Override
+            public void destroy() {
+                des.destroy();
+            }
+        };
     }
 }
@@ -3,6 +3,9 @@ package dora.crypto.block.des;
 import dora.crypto.block.FeistelBlockCipher;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 import static java.util.Objects.requireNonNull;
 
 public final class DesBlockCipher extends FeistelBlockCipher {
@@ -10,7 +13,7 @@ public final class DesBlockCipher extends FeistelBlockCipher {
     /**
      * Initial Permutation (IP).
      */
-    private static final int[] IP = new int[] {
+    static final int[] IP = new int[] {
         58, 50, 42, 34, 26, 18, 10, 2,
         60, 52, 44, 36, 28, 20, 12, 4,
         62, 54, 46, 38, 30, 22, 14, 6,
@@ -24,7 +27,7 @@ public final class DesBlockCipher extends FeistelBlockCipher {
     /**
      * Final Permutation (IP^-1).
      */
-    private static final int[] FP = new int[] {
+    static final int[] FP = new int[] {
         40, 8, 48, 16, 56, 24, 64, 32,
         39, 7, 47, 15, 55, 23, 63, 31,
         38, 6, 46, 14, 54, 22, 62, 30,
@@ -44,20 +47,30 @@ public final class DesBlockCipher extends FeistelBlockCipher {
     }
 
     @Override
-    public byte[] encrypt(byte @NotNull [] plaintext) {
-        requireNonNull(plaintext, "plaintext");
+    public void encryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        requireNonNull(in, "input");
+        requireNonNull(out, "output");
+        Objects.checkFromIndexSize(inOff, blockSize(), in.length);
+
+        byte[] block = Permutations.permute(
+            Arrays.copyOfRange(in, inOff, inOff + blockSize()), IP, false, true);
+        super.encryptBlock(block, 0, block, 0);
+        byte[] permuted = Permutations.permute(block, FP, false, true);
 
-        byte[] permuted = Permutations.permute(plaintext, IP, false, true);
-        byte[] encrypted = super.encrypt(permuted);
-        return Permutations.permute(encrypted, FP, false, true);
+        System.arraycopy(permuted, 0, out, outOff, permuted.length);
     }
 
     @Override
-    public byte[] decrypt(byte @NotNull [] ciphertext) {
-        requireNonNull(ciphertext, "ciphertext");
+    public void decryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        requireNonNull(in, "input");
+        requireNonNull(out, "output");
+        Objects.checkFromIndexSize(inOff, blockSize(), in.length);
+
+        byte[] block = Permutations.permute(
+            Arrays.copyOfRange(in, inOff, inOff + blockSize()), IP, false, true);
+        super.decryptBlock(block, 0, block, 0);
+        byte[] permuted = Permutations.permute(block, FP, false, true);
 
-        byte[] permuted = Permutations.permute(ciphertext, IP, false, true);
-        byte[] decrypted = super.decrypt(permuted);
-        return Permutations.permute(decrypted, FP, false, true);
+        System.arraycopy(permuted, 0, out, outOff, permuted.length);
     }
 }
@@ -24,7 +24,7 @@ public final class DesRoundFunction implements RoundFunction {
     /**
      * Permutation (P).
      */
-    private static final int[] P = new int[] {
+    static final int[] P = new int[] {
         16, 7, 20, 21, 29, 12, 28, 17,
         1, 15, 23, 26, 5, 18, 31, 10,
         2, 8, 24, 14, 32, 27, 3, 9,
@@ -34,7 +34,7 @@ public final class DesRoundFunction implements RoundFunction {
     /**
      * Substitution (S).
      */
-    private static final int[][][] S = new int[][][] {
+    static final int[][][] S = new int[][][] {
         {
             { 14, 4, 13, 1, 2, 15, 11, 8, 3, 10, 6, 12, 5, 9, 0, 7 },
             { 0, 15, 7, 4, 14, 2, 13, 1, 10, 6, 12, 11, 9, 5, 3, 8 },
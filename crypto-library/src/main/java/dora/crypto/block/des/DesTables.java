@@ -0,0 +1,87 @@
+package dora.crypto.block.des;
+
+/**
+ * Precomputed tables for the table-driven DES implementation, derived from
+ * the permutations and S-boxes of {@link DesBlockCipher} and
+ * {@link DesRoundFunction}.
+ * <p>
+ * <code>SP[i][x]</code> combines S-box <code>i</code> with the P permutation:
+ * it is the permuted round function output when the 6-bit group
+ * <code>i</code> of the expanded block is <code>x</code> and all other groups
+ * produce zeros. <code>IP[i][x]</code> (<code>FP[i][x]</code>) is the initial
+ * (final) permutation of a block whose byte <code>i</code> is <code>x</code>
+ * and all other bytes are zero.
+ */
+final class DesTables {
+
+    static final int[][] SP = new int[8][64];
+
+    static final long[][] IP = new long[8][256];
+    static final long[][] FP = new long[8][256];
+
+    static {
+        for (int i = 0; i < 8; i++) {
+            for (int x = 0; x < 64; x++) {
+                int row = (x & 0b100000) >> 4 | (x & 0b000001);
+                int column = (x & 0b011110) >> 1;
+                int output = DesRoundFunction.S[i][row][column] << ((7 - i) * 4);
+
+                SP[i][x] = toInt(Permutations.permute(toBytes(output), DesRoundFunction.P, false, true));
+            }
+        }
+
+        for (int i = 0; i < 8; i++) {
+            for (int x = 0; x < 256; x++) {
+                byte[] block = new byte[8];
+                block[i] = (byte) x;
+
+                IP[i][x] = toLong(Permutations.permute(block, DesBlockCipher.IP, false, true));
+                FP[i][x] = toLong(Permutations.permute(block, DesBlockCipher.FP, false, true));
+            }
+        }
+    }
+
+    private DesTables() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Applies a byte-indexed permutation table to a 64-bit block.
+     */
+    static long permute(long[][] table, long block) {
+        return table[0][(int) (block >>> 56)]
+            | table[1][(int) (block >>> 48) & 0xff]
+            | table[2][(int) (block >>> 40) & 0xff]
+            | table[3][(int) (block >>> 32) & 0xff]
+            | table[4][(int) (block >>> 24) & 0xff]
+            | table[5][(int) (block >>> 16) & 0xff]
+            | table[6][(int) (block >>> 8) & 0xff]
+            | table[7][(int) block & 0xff];
+    }
+
+    private static byte[] toBytes(int value) {
+        return new byte[] {
+            (byte) (value >>> 24),
+            (byte) (value >>> 16),
+            (byte) (value >>> 8),
+            (byte) value
+        };
+    }
+
+    private static int toInt(byte[] bytes) {
+        return (bytes[0] & 0xff) << 24
+            | (bytes[1] & 0xff) << 16
+            | (bytes[2] & 0xff) << 8
+            | (bytes[3] & 0xff);
+    }
+
+    private static long toLong(byte[] bytes) {
+        long value = 0;
+
+        for (byte b : bytes) {
+            value = value << 8 | (b & 0xff);
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,175 @@
+package dora.crypto.block.des;
+
+import dora.crypto.block.BlockCipher;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Table-driven DES implementation.
+ * <p>
+ * Produces the same output as {@link DesBlockCipher}, but keeps the block in
+ * a 64-bit <code>long</code>, performs IP and FP with eight byte-indexed table
+ * lookups and computes the round function with eight combined SP-box lookups.
+ * The expansion is done with rotations of the right half.
+ */
+public final class TableDesBlockCipher implements BlockCipher {
+
+    private static final int ROUNDS = 16;
+
+    private final DesKeySchedule keySchedule = new DesKeySchedule();
+
+    /** 48-bit round keys, split into eight 6-bit groups. */
+    private byte[] encryptionKeys;
+    private byte[] decryptionKeys;
+
+    @Override
+    public int blockSize() {
+        return 8;
+    }
+
+    @Override
+    public Set<Integer> keySizes() {
+        return keySchedule.keySizes();
+    }
+
+    @Override
+    public void init(byte @NotNull [] key) {
+        byte[][] roundKeys = keySchedule.roundKeys(requireNonNull(key, "key"));
+        byte[] ek = new byte[ROUNDS * 8];
+        byte[] dk = new byte[ROUNDS * 8];
+
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] roundKey = roundKeys[round];
+            long value = 0;
+
+            for (byte b : roundKey) {
+                value = value << 8 | (b & 0xff);
+            }
+
+            for (int group = 0; group < 8; group++) {
+                byte bits = (byte) ((value >>> (42 - group * 6)) & 0b111111);
+
+                ek[round * 8 + group] = bits;
+                dk[(ROUNDS - 1 - round) * 8 + group] = bits;
+            }
+        }
+
+        encryptionKeys = ek;
+        decryptionKeys = dk;
+    }
+
+    @Override
+    public void destroy() {
+        if (encryptionKeys != null) {
+            Arrays.fill(encryptionKeys, (byte) 0);
+            Arrays.fill(decryptionKeys, (byte) 0);
+
+            encryptionKeys = null;
+            decryptionKeys = null;
+        }
+    }
+
+    @Override
+    public byte[] encrypt(byte @NotNull [] plaintext) {
+        requireNonNull(plaintext, "plaintext");
+
+        if (plaintext.length != blockSize())
+            throw new IllegalArgumentException("Invalid block size");
+
+        byte[] ciphertext = new byte[blockSize()];
+        encryptBlock(plaintext, 0, ciphertext, 0);
+
+        return ciphertext;
+    }
+
+    @Override
+    public void encryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        checkBlock(in, inOff, out, outOff);
+        process(encryptionKeys, in, inOff, out, outOff);
+    }
+
+    @Override
+    public byte[] decrypt(byte @NotNull [] ciphertext) {
+        requireNonNull(ciphertext, "ciphertext");
+
+        if (ciphertext.length != blockSize())
+            throw new IllegalArgumentException("Invalid block size");
+
+        byte[] plaintext = new byte[blockSize()];
+        decryptBlock(ciphertext, 0, plaintext, 0);
+
+        return plaintext;
+    }
+
+    @Override
+    public void decryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        checkBlock(in, inOff, out, outOff);
+        process(decryptionKeys, in, inOff, out, outOff);
+    }
+
+    /**
+     * Runs the 16 Feistel rounds with the given round keys. Decryption is
+     * encryption with the round keys in reverse order.
+     */
+    private static void process(byte[] keys, byte[] in, int inOff, byte[] out, int outOff) {
+        long block = 0;
+
+        for (int i = 0; i < 8; i++) {
+            block = block << 8 | (in[inOff + i] & 0xff);
+        }
+
+        block = DesTables.permute(DesTables.IP, block);
+
+        int l = (int) (block >>> 32);
+        int r = (int) block;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int f = f(r, keys, round * 8);
+            int temp = l ^ f;
+            l = r;
+            r = temp;
+        }
+
+        // The halves are not swapped after the last round.
+        block = DesTables.permute(DesTables.FP, (long) r << 32 | (l & 0xffffffffL));
+
+        for (int i = 7; i >= 0; i--) {
+            out[outOff + i] = (byte) block;
+            block >>>= 8;
+        }
+    }
+
+    /**
+     * Computes the round function. 6-bit group <code>i</code> of the expansion
+     * consists of bits <code>4i</code> to <code>4i + 5</code> (one-indexed,
+     * wrapping around) of <code>r</code>.
+     */
+    private static int f(int r, byte[] keys, int keyOffset) {
+        int[][] sp = DesTables.SP;
+
+        return sp[0][(Integer.rotateLeft(r, 5) ^ keys[keyOffset]) & 0x3f]
+            | sp[1][(Integer.rotateLeft(r, 9) ^ keys[keyOffset + 1]) & 0x3f]
+            | sp[2][(Integer.rotateLeft(r, 13) ^ keys[keyOffset + 2]) & 0x3f]
+            | sp[3][(Integer.rotateLeft(r, 17) ^ keys[keyOffset + 3]) & 0x3f]
+            | sp[4][(Integer.rotateLeft(r, 21) ^ keys[keyOffset + 4]) & 0x3f]
+            | sp[5][(Integer.rotateLeft(r, 25) ^ keys[keyOffset + 5]) & 0x3f]
+            | sp[6][(Integer.rotateLeft(r, 29) ^ keys[keyOffset + 6]) & 0x3f]
+            | sp[7][(Integer.rotateLeft(r, 1) ^ keys[keyOffset + 7]) & 0x3f];
+    }
+
+    private void checkBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        requireNonNull(in, "input");
+        requireNonNull(out, "output");
+
+        if (encryptionKeys == null)
+            throw new IllegalStateException("Cipher is not initialized");
+
+        Objects.checkFromIndexSize(inOff, blockSize(), in.length);
+        Objects.checkFromIndexSize(outOff, blockSize(), out.length);
+    }
+}
@@ -3,13 +3,32 @@ package dora.crypto.block.mode;
 import dora.crypto.block.BlockCipher;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
 import static java.util.Objects.requireNonNull;
 
 abstract class AbstractCipherMode implements CipherMode {
 
+    /**
+     * Size of the heap chunk used to process buffers without an accessible
+     * backing array. Large enough for parallel modes to split a chunk across
+     * their pool.
+     */
+    private static final int BUFFER_CHUNK_SIZE = 4 * 1024 * 1024;
+
     protected final BlockCipher cipher;
     protected final int blockSize;
 
+    /**
+     * Heap chunk for direct destinations, allocated on first use and reused
+     * by later calls. Modes carry state between calls, so an instance is
+     * never used by several threads at once.
+     */
+    private byte[] chunk;
+
     public AbstractCipherMode(BlockCipher cipher) {
         this.cipher = cipher;
         this.blockSize = cipher.blockSize();
@@ -26,31 +45,183 @@ abstract class AbstractCipherMode implements CipherMode {
         initMode(parameters);
     }
 
+    @Override
+    public void init(@NotNull Parameters parameters) {
+        initMode(requireNonNull(parameters, "parameters"));
+    }
+
     protected abstract void initMode(Parameters parameters);
 
     @Override
     public byte[] encrypt(byte @NotNull [] plaintext) throws InterruptedException {
         requireNonNull(plaintext, "plaintext");
 
-        if (plaintext.length % blockSize != 0)
+        byte[] ciphertext = new byte[plaintext.length];
+        encrypt(plaintext, 0, plaintext.length, ciphertext, 0);
+
+        return ciphertext;
+    }
+
+    @Override
+    public void encrypt(
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) throws InterruptedException {
+        requireNonNull(input, "plaintext");
+        requireNonNull(output, "output");
+
+        if (length % blockSize != 0)
             throw new IllegalArgumentException("Plaintext not multiple of block size");
 
-        return encryptBlocks(plaintext);
+        Objects.checkFromIndexSize(inputOffset, length, input.length);
+        Objects.checkFromIndexSize(outputOffset, length, output.length);
+
+        encryptBlocks(input, inputOffset, output, outputOffset, length);
     }
 
-    protected abstract byte[] encryptBlocks(byte[] plaintext)
-    throws InterruptedException;
+    protected abstract void encryptBlocks(
+        byte[] input,
+        int inputOffset,
+        byte[] output,
+        int outputOffset,
+        int length
+    ) throws InterruptedException;
 
     @Override
     public byte[] decrypt(byte @NotNull [] ciphertext) throws InterruptedException {
         requireNonNull(ciphertext, "ciphertext");
 
-        if (ciphertext.length % blockSize != 0)
+        byte[] plaintext = new byte[ciphertext.length];
+        decrypt(ciphertext, 0, ciphertext.length, plaintext, 0);
+
+        return plaintext;
+    }
+
+    @Override
+    public void decrypt(
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) throws InterruptedException {
+        requireNonNull(input, "ciphertext");
+        requireNonNull(output, "output");
+
+        if (length % blockSize != 0)
             throw new IllegalArgumentException("Ciphertext not multiple of block size");
 
-        return decryptBlocks(ciphertext);
+        Objects.checkFromIndexSize(inputOffset, length, input.length);
+        Objects.checkFromIndexSize(outputOffset, length, output.length);
+
+        decryptBlocks(input, inputOffset, output, outputOffset, length);
     }
 
-    protected abstract byte[] decryptBlocks(byte[] ciphertext)
-    throws InterruptedException;
+    protected abstract void decryptBlocks(
+        byte[] input,
+        int inputOffset,
+        byte[] output,
+        int outputOffset,
+        int length
+    ) throws InterruptedException;
+
+    @Override
+    public void encrypt(@NotNull ByteBuffer src, @NotNull ByteBuffer dst) throws InterruptedException {
+        requireNonNull(src, "plaintext");
+        requireNonNull(dst, "output");
+
+        if (src.remaining() % blockSize != 0)
+            throw new IllegalArgumentException("Plaintext not multiple of block size");
+
+        processBuffers(src, dst, this::encryptBlocks);
+    }
+
+    @Override
+    public void decrypt(@NotNull ByteBuffer src, @NotNull ByteBuffer dst) throws InterruptedException {
+        requireNonNull(src, "ciphertext");
+        requireNonNull(dst, "output");
+
+        if (src.remaining() % blockSize != 0)
+            throw new IllegalArgumentException("Ciphertext not multiple of block size");
+
+        processBuffers(src, dst, this::decryptBlocks);
+    }
+
+    private void processBuffers(
+        ByteBuffer src,
+        ByteBuffer dst,
+        BlockOperation operation
+    ) throws InterruptedException {
+        int length = src.remaining();
+
+        if (dst.remaining() < length) throw new BufferOverflowException();
+
+        if (dst.hasArray()) {
+            byte[] output = dst.array();
+            int outputOffset = dst.arrayOffset() + dst.position();
+
+            if (src.hasArray()) {
+                operation.apply(
+                    src.array(), src.arrayOffset() + src.position(),
+                    output, outputOffset,
+                    length
+                );
+                src.position(src.limit());
+            } else {
+                // Transfer the input straight into the destination and
+                // process it in place.
+                src.get(output, outputOffset, length);
+                operation.apply(output, outputOffset, output, outputOffset, length);
+            }
+
+            dst.position(dst.position() + length);
+            return;
+        }
+
+        // The destination is direct: stream the data through a bounded heap
+        // chunk. Mode state carries over between chunks.
+        int chunkSize = Math.min(length, Math.max(blockSize, BUFFER_CHUNK_SIZE / blockSize * blockSize));
+
+        if (chunk == null || chunk.length < chunkSize) {
+            chunk = new byte[chunkSize];
+        }
+
+        try {
+            while (src.hasRemaining()) {
+                int n = Math.min(src.remaining(), chunkSize);
+
+                src.get(chunk, 0, n);
+                operation.apply(chunk, 0, chunk, 0, n);
+                dst.put(chunk, 0, n);
+            }
+        } finally {
+            // Don't keep the data around until the next call.
+            Arrays.fill(chunk, 0, chunkSize, (byte) 0);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockOperation {
+
+        void apply(
+            byte[] input,
+            int inputOffset,
+            byte[] output,
+            int outputOffset,
+            int length
+        ) throws InterruptedException;
+    }
+
+    /**
+     * Returns whether two array regions of the same length overlap.
+     * <p>
+     * Modes that read previous input blocks after the corresponding output
+     * block has been written use this to detect in-place operation.
+     */
+    protected static boolean overlaps(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        return a == b && aOffset < bOffset + length && bOffset < aOffset + length;
+    }
 }
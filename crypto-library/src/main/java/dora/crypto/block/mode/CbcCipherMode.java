@@ -4,18 +4,21 @@ import dora.crypto.block.BlockCipher;
 import dora.crypto.block.mode.Parameters.IvParameters;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 
 public final class CbcCipherMode extends AbstractCipherMode {
 
-    private final ForkJoinPool pool;
+    private final ParallelBlockProcessor processor;
 
     private byte[] prevBlock;
 
     public CbcCipherMode(BlockCipher cipher, ForkJoinPool pool) {
+        this(cipher, pool, ParallelTuning.DEFAULT);
+    }
+
+    public CbcCipherMode(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning) {
         super(cipher);
-        this.pool = pool;
+        this.processor = new ParallelBlockProcessor(cipher, pool, tuning);
     }
 
     @Override
@@ -33,51 +36,47 @@ public final class CbcCipherMode extends AbstractCipherMode {
     }
 
     @Override
-    protected byte[] encryptBlocks(byte[] plaintext) {
-        byte[] ciphertext = new byte[plaintext.length];
-
-        for (int i = 0; i < plaintext.length; i += blockSize) {
-            byte[] plainBlock = Arrays.copyOfRange(plaintext, i, i + blockSize);
-
-            for (int j = 0; j < plainBlock.length; j++) {
-                plainBlock[j] ^= prevBlock[j];
+    protected void encryptBlocks(
+        byte[] plaintext,
+        int inputOffset,
+        byte[] ciphertext,
+        int outputOffset,
+        int length
+    ) {
+        for (int i = 0; i < length; i += blockSize) {
+            for (int j = 0; j < blockSize; j++) {
+                prevBlock[j] ^= plaintext[inputOffset + i + j];
             }
 
-            byte[] cipherBlock = cipher.encrypt(plainBlock);
-            System.arraycopy(cipherBlock, 0, ciphertext, i, cipherBlock.length);
-            prevBlock = cipherBlock;
+            cipher.encryptBlock(prevBlock, 0, prevBlock, 0);
+            System.arraycopy(prevBlock, 0, ciphertext, outputOffset + i, blockSize);
         }
-
-        return ciphertext;
     }
 
     @Override
-    protected byte[] decryptBlocks(byte[] ciphertext) throws InterruptedException {
-        List<DecryptResult> results = ParallelBlockProcessor.processBlocks(
-            ciphertext, blockSize, pool, (idx, start, end) -> {
-                byte[] cipherBlock = Arrays.copyOfRange(ciphertext, start, end);
-                byte[] plainBlock = cipher.decrypt(cipherBlock);
-                return new DecryptResult(cipherBlock, plainBlock);
+    protected void decryptBlocks(
+        byte[] ciphertext,
+        int inputOffset,
+        byte[] plaintext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        if (length == 0) return;
+
+        // The output may overwrite the last ciphertext block.
+        byte[] lastBlock = Arrays.copyOfRange(ciphertext, inputOffset + length - blockSize, inputOffset + length);
+
+        processor.processChainedBlocks(
+            ciphertext, inputOffset, plaintext, outputOffset, length, blockSize, prevBlock,
+            (previous, current, output, offset) -> {
+                cipher.decryptBlock(current, 0, output, offset);
+
+                for (int j = 0; j < blockSize; j++) {
+                    output[offset + j] ^= previous[j];
+                }
             }
         );
 
-        byte[] plaintext = new byte[ciphertext.length];
-
-        for (int i = 0; i < results.size(); i++) {
-            DecryptResult result = results.get(i);
-            byte[] cipherBlock = result.cipherBlock();
-            byte[] plainBlock = result.plainBlock();
-
-            for (int j = 0; j < plainBlock.length; j++) {
-                plaintext[i * blockSize + j] = (byte) (plainBlock[j] ^ prevBlock[j]);
-            }
-
-            prevBlock = cipherBlock;
-        }
-
-        return plaintext;
-    }
-
-    private record DecryptResult(byte[] cipherBlock, byte[] plainBlock) {
+        prevBlock = lastBlock;
     }
 }
@@ -4,18 +4,21 @@ import dora.crypto.block.BlockCipher;
 import dora.crypto.block.mode.Parameters.IvParameters;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 
 public final class CfbCipherMode extends AbstractCipherMode {
 
-    private final ForkJoinPool pool;
+    private final ParallelBlockProcessor processor;
 
     private byte[] prevBlock;
 
     public CfbCipherMode(BlockCipher cipher, ForkJoinPool pool) {
+        this(cipher, pool, ParallelTuning.DEFAULT);
+    }
+
+    public CfbCipherMode(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning) {
         super(cipher);
-        this.pool = pool;
+        this.processor = new ParallelBlockProcessor(cipher, pool, tuning);
     }
 
     @Override
@@ -33,61 +36,48 @@ public final class CfbCipherMode extends AbstractCipherMode {
     }
 
     @Override
-    protected byte[] encryptBlocks(byte[] plaintext) {
-        byte[] ciphertext = new byte[plaintext.length];
-
-        for (int i = 0; i < plaintext.length; i += blockSize) {
-            byte[] cipherBlock = cipher.encrypt(prevBlock);
+    protected void encryptBlocks(
+        byte[] plaintext,
+        int inputOffset,
+        byte[] ciphertext,
+        int outputOffset,
+        int length
+    ) {
+        for (int i = 0; i < length; i += blockSize) {
+            cipher.encryptBlock(prevBlock, 0, prevBlock, 0);
 
             for (int j = 0; j < blockSize; j++) {
-                cipherBlock[j] ^= plaintext[i + j];
-                ciphertext[i + j] = cipherBlock[j];
+                prevBlock[j] ^= plaintext[inputOffset + i + j];
             }
 
-            prevBlock = cipherBlock;
+            System.arraycopy(prevBlock, 0, ciphertext, outputOffset + i, blockSize);
         }
-
-        return ciphertext;
     }
 
     @Override
-    protected byte[] decryptBlocks(byte[] ciphertext) throws InterruptedException {
-        List<EncryptResult> results = ParallelBlockProcessor.processBlocks(
-            ciphertext, blockSize, pool, (idx, start, end) -> {
-                byte[] feedbackBlock;
-
-                if (idx == 0) {
-                    feedbackBlock = prevBlock;
-                } else {
-                    int prevOffset = (idx - 1) * blockSize;
-                    feedbackBlock = Arrays.copyOfRange(
-                        ciphertext, prevOffset, prevOffset + blockSize);
+    protected void decryptBlocks(
+        byte[] ciphertext,
+        int inputOffset,
+        byte[] plaintext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        if (length == 0) return;
+
+        // The output may overwrite the last ciphertext block.
+        byte[] lastBlock = Arrays.copyOfRange(ciphertext, inputOffset + length - blockSize, inputOffset + length);
+
+        processor.processChainedBlocks(
+            ciphertext, inputOffset, plaintext, outputOffset, length, blockSize, prevBlock,
+            (previous, current, output, offset) -> {
+                cipher.encryptBlock(previous, 0, output, offset);
+
+                for (int j = 0; j < blockSize; j++) {
+                    output[offset + j] ^= current[j];
                 }
-
-                byte[] encryptedFeedback = cipher.encrypt(feedbackBlock);
-                byte[] cipherBlock = Arrays.copyOfRange(ciphertext, start, end);
-
-                return new EncryptResult(encryptedFeedback, cipherBlock);
             }
         );
 
-        byte[] plaintext = new byte[ciphertext.length];
-
-        for (int i = 0; i < results.size(); i++) {
-            EncryptResult result = results.get(i);
-            byte[] encryptedFeedback = result.encryptedFeedback();
-            byte[] cipherBlock = result.cipherBlock();
-
-            for (int j = 0; j < cipherBlock.length; j++) {
-                plaintext[i * blockSize + j] = (byte) (encryptedFeedback[j] ^ cipherBlock[j]);
-            }
-
-            prevBlock = cipherBlock;
-        }
-
-        return plaintext;
-    }
-
-    private record EncryptResult(byte[] encryptedFeedback, byte[] cipherBlock) {
+        prevBlock = lastBlock;
     }
 }
@@ -3,6 +3,8 @@ package dora.crypto.block.mode;
 import dora.crypto.block.BlockCipher;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.ByteBuffer;
+
 /**
  * Cipher mode wraps a {@link BlockCipher} and operates on padded data to
  * provide encryption and decryption.
@@ -29,6 +31,14 @@ public interface CipherMode {
      */
     void init(byte @NotNull [] key, Parameters parameters);
 
+    /**
+     * Initializes the cipher mode with new parameters, keeping the key of the
+     * underlying block cipher. The block cipher must already be initialized.
+     * <p>
+     * Several modes may share one initialized block cipher this way.
+     */
+    void init(@NotNull Parameters parameters);
+
     /**
      * Encrypts padded data with the provided key.
      */
@@ -38,4 +48,52 @@ public interface CipherMode {
      * Decrypts padded data with the provided key.
      */
     byte[] decrypt(byte @NotNull [] ciphertext) throws InterruptedException;
+
+    /**
+     * Encrypts <code>length</code> bytes of padded data starting at
+     * <code>inputOffset</code> and writes the result to <code>output</code>
+     * starting at <code>outputOffset</code>.
+     * <p>
+     * The output may be the same array region as the input (in-place encryption).
+     */
+    void encrypt(
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) throws InterruptedException;
+
+    /**
+     * Decrypts <code>length</code> bytes of padded data starting at
+     * <code>inputOffset</code> and writes the result to <code>output</code>
+     * starting at <code>outputOffset</code>.
+     * <p>
+     * The output may be the same array region as the input (in-place decryption).
+     */
+    void decrypt(
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) throws InterruptedException;
+
+    /**
+     * Encrypts the remaining bytes of <code>src</code> and writes the result
+     * to <code>dst</code>, advancing the positions of both buffers.
+     * <p>
+     * Either buffer may be direct. The buffers must either not overlap or
+     * refer to the same region (in-place encryption).
+     */
+    void encrypt(@NotNull ByteBuffer src, @NotNull ByteBuffer dst) throws InterruptedException;
+
+    /**
+     * Decrypts the remaining bytes of <code>src</code> and writes the result
+     * to <code>dst</code>, advancing the positions of both buffers.
+     * <p>
+     * Either buffer may be direct. The buffers must either not overlap or
+     * refer to the same region (in-place decryption).
+     */
+    void decrypt(@NotNull ByteBuffer src, @NotNull ByteBuffer dst) throws InterruptedException;
 }
@@ -1,26 +1,53 @@
 package dora.crypto.block.mode;
 
 import dora.crypto.block.BlockCipher;
+import org.jetbrains.annotations.NotNull;
 
+import java.nio.ByteOrder;
+import java.util.Objects;
 import java.util.concurrent.ForkJoinPool;
 
-public final class CtrCipherMode extends AbstractCipherMode {
+import static java.util.Objects.requireNonNull;
 
-    private final ForkJoinPool pool;
+/**
+ * Counter mode.
+ * <p>
+ * Counter blocks consist of the nonce, followed by zeros and the counter in
+ * the last {@link CtrParameters#counterSize()} bytes. The counter wraps around
+ * when it exceeds its width; counters wider than 8 bytes are zero-extended.
+ */
+public final class CtrCipherMode extends AbstractCipherMode implements SeekableCipherMode {
 
-    private byte[] nonce;
-    private int counter;
+    /** Number of counter blocks encrypted at once by a single task. */
+    private static final int KEYSTREAM_BLOCKS = 256;
+
+    private final ParallelBlockProcessor processor;
+
+    /** Counter block with the nonce filled in and a zero counter. */
+    private byte[] template;
+    private int counterSize;
+    private ByteOrder byteOrder;
+    private long counterMask;
+
+    private long initialCounter;
+    private long counter;
 
     public CtrCipherMode(BlockCipher cipher, ForkJoinPool pool) {
+        this(cipher, pool, ParallelTuning.DEFAULT);
+    }
+
+    public CtrCipherMode(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning) {
         super(cipher);
-        this.pool = pool;
+        this.processor = new ParallelBlockProcessor(cipher, pool, tuning);
     }
 
     @Override
     protected void initMode(Parameters parameters) {
         if (!(parameters instanceof CtrParameters(
             byte[] nonceParam,
-            int counterParam
+            long counterParam,
+            int counterSizeParam,
+            ByteOrder byteOrderParam
         ))) {
             throw new IllegalArgumentException("expected CtrParameters");
         }
@@ -29,11 +56,30 @@ public final class CtrCipherMode extends AbstractCipherMode {
             throw new IllegalArgumentException(
                 "expected %d-byte nonce".formatted(nonceSize()));
         }
-        if (counterParam < 0) {
-            throw new IllegalArgumentException("counter must be positive");
+
+        int size = counterSizeParam == CtrParameters.REMAINING
+            ? blockSize - nonceSize()
+            : counterSizeParam;
+
+        if (size < 1 || size > blockSize - nonceSize()) {
+            throw new IllegalArgumentException(
+                "counter size must be between 1 and %d bytes".formatted(blockSize - nonceSize()));
+        }
+
+        long mask = size >= Long.BYTES ? -1L : (1L << (size * Byte.SIZE)) - 1;
+
+        if (counterParam < 0 || (counterParam & ~mask) != 0) {
+            throw new IllegalArgumentException(
+                "counter must be non-negative and fit into %d bytes".formatted(size));
         }
 
-        nonce = nonceParam.clone();
+        template = new byte[blockSize];
+        System.arraycopy(nonceParam, 0, template, 0, nonceParam.length);
+
+        counterSize = size;
+        byteOrder = requireNonNull(byteOrderParam, "byte order");
+        counterMask = mask;
+        initialCounter = counterParam;
         counter = counterParam;
     }
 
@@ -42,48 +88,138 @@ public final class CtrCipherMode extends AbstractCipherMode {
     }
 
     @Override
-    protected byte[] encryptBlocks(byte[] plaintext) throws InterruptedException {
-        return processBlocks(plaintext);
+    protected void encryptBlocks(
+        byte[] plaintext,
+        int inputOffset,
+        byte[] ciphertext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        processBlocks(plaintext, inputOffset, ciphertext, outputOffset, length);
     }
 
     @Override
-    protected byte[] decryptBlocks(byte[] ciphertext) throws InterruptedException {
-        return processBlocks(ciphertext);
+    protected void decryptBlocks(
+        byte[] ciphertext,
+        int inputOffset,
+        byte[] plaintext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        processBlocks(ciphertext, inputOffset, plaintext, outputOffset, length);
     }
 
-    private byte[] processBlocks(byte[] data) throws InterruptedException {
-        byte[] result = new byte[data.length];
+    @Override
+    public void transformAt(
+        long blockIndex,
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) throws InterruptedException {
+        requireNonNull(input, "input");
+        requireNonNull(output, "output");
+
+        if (template == null)
+            throw new IllegalStateException("Cipher mode is not initialized");
+        if (blockIndex < 0)
+            throw new IllegalArgumentException("block index must be non-negative");
+        if (length % blockSize != 0)
+            throw new IllegalArgumentException("Data not multiple of block size");
+
+        Objects.checkFromIndexSize(inputOffset, length, input.length);
+        Objects.checkFromIndexSize(outputOffset, length, output.length);
+
+        applyKeystream(
+            initialCounter + blockIndex,
+            input, inputOffset, output, outputOffset, length
+        );
+    }
 
-        ParallelBlockProcessor.processBlocks(
-            data, blockSize, pool, (idx, start, end) -> {
-                byte[] counterBlock = createCounterBlock(counter + idx);
-                byte[] encryptedCounter = cipher.encrypt(counterBlock);
+    private void processBlocks(
+        byte[] input,
+        int inputOffset,
+        byte[] output,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        applyKeystream(counter, input, inputOffset, output, outputOffset, length);
+        counter = (counter + length / blockSize) & counterMask;
+    }
 
-                for (int j = start; j < end; j++) {
-                    result[j] = (byte) (data[j] ^ encryptedCounter[j - start]);
+    private void applyKeystream(
+        long startCounter,
+        byte[] input,
+        int inputOffset,
+        byte[] output,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        processor.processBlocks(
+            length, blockSize, (startBlock, endBlock) -> {
+                int batchBlocks = Math.min(endBlock - startBlock, KEYSTREAM_BLOCKS);
+                byte[] keystream = new byte[batchBlocks * blockSize];
+
+                for (int batchStart = startBlock; batchStart < endBlock; batchStart += batchBlocks) {
+                    int blocks = Math.min(batchBlocks, endBlock - batchStart);
+                    int batchLength = blocks * blockSize;
+
+                    for (int i = 0; i < blocks; i++) {
+                        writeCounterBlock(keystream, i * blockSize, startCounter + batchStart + i);
+                        cipher.encryptBlock(keystream, i * blockSize, keystream, i * blockSize);
+                    }
+
+                    int offset = batchStart * blockSize;
+
+                    for (int j = 0; j < batchLength; j++) {
+                        output[outputOffset + offset + j] =
+                            (byte) (input[inputOffset + offset + j] ^ keystream[j]);
+                    }
                 }
-
-                return null;
             }
         );
-
-        counter += result.length / blockSize;
-        return result;
     }
 
-    private byte[] createCounterBlock(int counter) {
-        byte[] block = new byte[blockSize];
+    private void writeCounterBlock(byte[] block, int offset, long counter) {
+        System.arraycopy(template, 0, block, offset, blockSize);
+
+        long value = counter & counterMask;
+        int counterOffset = offset + blockSize - counterSize;
+        int bytes = Math.min(counterSize, Long.BYTES);
 
-        System.arraycopy(nonce, 0, block, 0, nonce.length);
+        for (int i = 0; i < bytes; i++) {
+            byte b = (byte) (value >>> (i * Byte.SIZE));
 
-        block[blockSize - 4] = (byte) (counter >>> 24);
-        block[blockSize - 3] = (byte) (counter >>> 16);
-        block[blockSize - 2] = (byte) (counter >>>  8);
-        block[blockSize - 1] = (byte) (counter       );
-        
-        return block;
+            if (byteOrder == ByteOrder.BIG_ENDIAN) {
+                block[offset + blockSize - 1 - i] = b;
+            } else {
+                block[counterOffset + i] = b;
+            }
+        }
     }
 
-    public record CtrParameters(byte[] nonce, int counter) implements Parameters {
+    /**
+     * Parameters of the counter mode.
+     *
+     * @param nonce       nonce of half the block size
+     * @param counter     initial counter value
+     * @param counterSize width of the counter in bytes, or {@link #REMAINING}
+     *                    to use all bytes after the nonce
+     * @param byteOrder   byte order of the counter
+     */
+    public record CtrParameters(
+        byte[] nonce,
+        long counter,
+        int counterSize,
+        ByteOrder byteOrder
+    ) implements Parameters {
+
+        /** Counter size that spans all bytes after the nonce. */
+        public static final int REMAINING = 0;
+
+        public CtrParameters(byte[] nonce, long counter) {
+            this(nonce, counter, REMAINING, ByteOrder.BIG_ENDIAN);
+        }
     }
 }
@@ -3,16 +3,19 @@ package dora.crypto.block.mode;
 import dora.crypto.block.BlockCipher;
 import dora.crypto.block.mode.Parameters.NoParameters;
 
-import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 
 public final class EcbCipherMode extends AbstractCipherMode {
 
-    private final ForkJoinPool pool;
+    private final ParallelBlockProcessor processor;
 
     public EcbCipherMode(BlockCipher cipher, ForkJoinPool pool) {
+        this(cipher, pool, ParallelTuning.DEFAULT);
+    }
+
+    public EcbCipherMode(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning) {
         super(cipher);
-        this.pool = pool;
+        this.processor = new ParallelBlockProcessor(cipher, pool, tuning);
     }
 
     @Override
@@ -23,36 +26,34 @@ public final class EcbCipherMode extends AbstractCipherMode {
     }
 
     @Override
-    protected byte[] encryptBlocks(byte[] plaintext) throws InterruptedException {
-        byte[] ciphertext = new byte[plaintext.length];
-
-        ParallelBlockProcessor.processBlocks(
-            plaintext, blockSize, pool, (idx, start, end) -> {
-                byte[] plainBlock = Arrays.copyOfRange(plaintext, start, end);
-                byte[] cipherBlock = cipher.encrypt(plainBlock);
-                System.arraycopy(cipherBlock, 0, ciphertext, start, end - start);
-
-                return null;
+    protected void encryptBlocks(
+        byte[] plaintext,
+        int inputOffset,
+        byte[] ciphertext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        processor.processBlocks(
+            length, blockSize, (idx, start, end) -> {
+                cipher.encryptBlock(
+                    plaintext, inputOffset + start, ciphertext, outputOffset + start);
             }
         );
-
-        return ciphertext;
     }
 
     @Override
-    protected byte[] decryptBlocks(byte[] ciphertext) throws InterruptedException {
-        byte[] plaintext = new byte[ciphertext.length];
-
-        ParallelBlockProcessor.processBlocks(
-            plaintext, blockSize, pool, (idx, start, end) -> {
-                byte[] cipherBlock = Arrays.copyOfRange(ciphertext, start, end);
-                byte[] plainBlock = cipher.decrypt(cipherBlock);
-                System.arraycopy(plainBlock, 0, plaintext, start, end - start);
-
-                return null;
+    protected void decryptBlocks(
+        byte[] ciphertext,
+        int inputOffset,
+        byte[] plaintext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        processor.processBlocks(
+            length, blockSize, (idx, start, end) -> {
+                cipher.decryptBlock(
+                    ciphertext, inputOffset + start, plaintext, outputOffset + start);
             }
         );
-
-        return plaintext;
     }
 }
@@ -0,0 +1,303 @@
+package dora.crypto.block.mode;
+
+import dora.crypto.block.BlockCipher;
+import org.jetbrains.annotations.NotNull;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Galois/Counter mode (NIST SP 800-38D) for block ciphers with a 128-bit
+ * block.
+ * <p>
+ * Unlike the other modes, GCM authenticates the data: encryption appends a
+ * {@link #TAG_SIZE}-byte tag computed over the ciphertext and the associated
+ * data, and decryption rejects the message if the tag doesn't match. Since
+ * the ciphertext is longer than the plaintext and no padding is used, this
+ * mode doesn't implement {@link CipherMode}.
+ * <p>
+ * Decryption hashes every ciphertext block right before decrypting it, so the
+ * tag is verified in the same pass. The block cipher must be initialized and
+ * is only used for encryption. The mode holds no per-message state and can
+ * be shared across threads.
+ */
+public final class GcmCipherMode {
+
+    /** Size of the block and of the authentication tag. */
+    public static final int TAG_SIZE = 16;
+    /** Size of the nonce. */
+    public static final int NONCE_SIZE = 12;
+
+    /** Reduction of the four bits shifted out of the low end. */
+    private static final long[] REDUCTION = {
+        0x0000, 0x1c20, 0x3840, 0x2460, 0x7080, 0x6ca0, 0x48c0, 0x54e0,
+        0xe100, 0xfd20, 0xd940, 0xc560, 0x9180, 0x8da0, 0xa9c0, 0xb5e0
+    };
+
+    private final BlockCipher cipher;
+
+    /** Products of the hash key and every 4-bit value, high and low halves. */
+    private final long[] tableHigh = new long[16];
+    private final long[] tableLow = new long[16];
+
+    public GcmCipherMode(@NotNull BlockCipher cipher) {
+        this.cipher = requireNonNull(cipher, "cipher");
+
+        if (cipher.blockSize() != TAG_SIZE)
+            throw new IllegalArgumentException("GCM requires a 128-bit block cipher");
+
+        byte[] hashKey = new byte[TAG_SIZE];
+        cipher.encryptBlock(hashKey, 0, hashKey, 0);
+
+        initTables(readLong(hashKey, 0), readLong(hashKey, 8));
+    }
+
+    /**
+     * Returns the underlying block cipher.
+     */
+    public BlockCipher cipher() {
+        return cipher;
+    }
+
+    /**
+     * Encrypts <code>length</code> bytes of <code>input</code> and writes the
+     * ciphertext followed by the tag to <code>output</code>. The output may
+     * be the same array region as the input.
+     *
+     * @return number of bytes written, <code>length + TAG_SIZE</code>
+     */
+    public int encrypt(
+        byte @NotNull [] nonce,
+        byte @NotNull [] associatedData,
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) {
+        checkArguments(nonce, associatedData, input, output);
+        Objects.checkFromIndexSize(inputOffset, length, input.length);
+        Objects.checkFromIndexSize(outputOffset, length + TAG_SIZE, output.length);
+
+        byte[] tag = process(nonce, associatedData, input, inputOffset, length, output, outputOffset, true);
+        System.arraycopy(tag, 0, output, outputOffset + length, TAG_SIZE);
+
+        return length + TAG_SIZE;
+    }
+
+    /**
+     * Decrypts <code>length</code> bytes of <code>input</code> (ciphertext
+     * followed by the tag) and writes the plaintext to <code>output</code>.
+     * The output may be the same array region as the input.
+     *
+     * @return number of bytes written, <code>length - TAG_SIZE</code>
+     * @throws IllegalArgumentException if the tag doesn't match; the output
+     *                                  is zeroed then
+     */
+    public int decrypt(
+        byte @NotNull [] nonce,
+        byte @NotNull [] associatedData,
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) {
+        checkArguments(nonce, associatedData, input, output);
+        Objects.checkFromIndexSize(inputOffset, length, input.length);
+
+        if (length < TAG_SIZE)
+            throw new IllegalArgumentException("Ciphertext too short");
+
+        int dataLength = length - TAG_SIZE;
+        Objects.checkFromIndexSize(outputOffset, dataLength, output.length);
+
+        // The tag may be overwritten by in-place decryption.
+        byte[] expectedTag = Arrays.copyOfRange(input, inputOffset + dataLength, inputOffset + length);
+        byte[] tag = process(nonce, associatedData, input, inputOffset, dataLength, output, outputOffset, false);
+
+        if (!MessageDigest.isEqual(tag, expectedTag)) {
+            Arrays.fill(output, outputOffset, outputOffset + dataLength, (byte) 0);
+            throw new IllegalArgumentException("Authentication tag mismatch");
+        }
+
+        return dataLength;
+    }
+
+    private static void checkArguments(byte[] nonce, byte[] associatedData, byte[] input, byte[] output) {
+        requireNonNull(nonce, "nonce");
+        requireNonNull(associatedData, "associated data");
+        requireNonNull(input, "input");
+        requireNonNull(output, "output");
+
+        if (nonce.length != NONCE_SIZE)
+            throw new IllegalArgumentException("expected %d-byte nonce".formatted(NONCE_SIZE));
+    }
+
+    /**
+     * Applies the keystream to the data and hashes the ciphertext.
+     *
+     * @return tag of the message
+     */
+    private byte[] process(
+        byte[] nonce,
+        byte[] associatedData,
+        byte[] input,
+        int inputOffset,
+        int length,
+        byte[] output,
+        int outputOffset,
+        boolean encrypt
+    ) {
+        // Counter block: the nonce followed by a 32-bit counter starting at 1.
+        byte[] counter = new byte[TAG_SIZE];
+        System.arraycopy(nonce, 0, counter, 0, NONCE_SIZE);
+        counter[TAG_SIZE - 1] = 1;
+
+        byte[] tagMask = new byte[TAG_SIZE];
+        cipher.encryptBlock(counter, 0, tagMask, 0);
+
+        long[] hash = new long[2];
+        hashPadded(hash, associatedData, 0, associatedData.length);
+
+        byte[] keystream = new byte[TAG_SIZE];
+        byte[] block = new byte[TAG_SIZE];
+        int counterValue = 1;
+
+        for (int offset = 0; offset < length; offset += TAG_SIZE) {
+            int blockLength = Math.min(TAG_SIZE, length - offset);
+
+            writeInt(counter, NONCE_SIZE, ++counterValue);
+            cipher.encryptBlock(counter, 0, keystream, 0);
+
+            if (!encrypt) hashPadded(hash, input, inputOffset + offset, blockLength);
+
+            for (int i = 0; i < blockLength; i++) {
+                output[outputOffset + offset + i] = (byte) (input[inputOffset + offset + i] ^ keystream[i]);
+            }
+
+            if (encrypt) hashPadded(hash, output, outputOffset + offset, blockLength);
+        }
+
+        // Lengths of the associated data and the ciphertext in bits.
+        writeLong(block, 0, (long) associatedData.length * Byte.SIZE);
+        writeLong(block, 8, (long) length * Byte.SIZE);
+        hashPadded(hash, block, 0, TAG_SIZE);
+
+        byte[] tag = new byte[TAG_SIZE];
+        writeLong(tag, 0, hash[0]);
+        writeLong(tag, 8, hash[1]);
+
+        for (int i = 0; i < TAG_SIZE; i++) {
+            tag[i] ^= tagMask[i];
+        }
+
+        return tag;
+    }
+
+    /**
+     * Hashes <code>length</code> bytes of <code>data</code>, padding the last
+     * block with zeros.
+     */
+    private void hashPadded(long[] hash, byte[] data, int offset, int length) {
+        for (int end = offset + length; offset < end; offset += TAG_SIZE) {
+            if (end - offset >= TAG_SIZE) {
+                hash[0] ^= readLong(data, offset);
+                hash[1] ^= readLong(data, offset + 8);
+            } else {
+                byte[] block = new byte[TAG_SIZE];
+                System.arraycopy(data, offset, block, 0, end - offset);
+
+                hash[0] ^= readLong(block, 0);
+                hash[1] ^= readLong(block, 8);
+            }
+
+            multiply(hash);
+        }
+    }
+
+    //region GF(2^128) arithmetic
+    private void initTables(long high, long low) {
+        tableHigh[8] = high;
+        tableLow[8] = low;
+
+        // Multiples by x, x^2 and x^3 (bits are reflected).
+        for (int i = 4; i > 0; i >>= 1) {
+            long reduction = (low & 1) * 0xe1000000L;
+
+            low = (high << 63) | (low >>> 1);
+            high = (high >>> 1) ^ (reduction << 32);
+
+            tableHigh[i] = high;
+            tableLow[i] = low;
+        }
+
+        // Remaining values are sums of the powers.
+        for (int i = 2; i <= 8; i *= 2) {
+            for (int j = 1; j < i; j++) {
+                tableHigh[i + j] = tableHigh[i] ^ tableHigh[j];
+                tableLow[i + j] = tableLow[i] ^ tableLow[j];
+            }
+        }
+    }
+
+    /**
+     * Multiplies <code>value</code> by the hash key in place, four bits at a
+     * time.
+     */
+    private void multiply(long[] value) {
+        long high = 0;
+        long low = 0;
+
+        for (int i = 15; i >= 0; i--) {
+            int b = (int) ((i < 8 ? value[0] >>> (56 - 8 * i) : value[1] >>> (56 - 8 * (i - 8))) & 0xff);
+
+            if (i != 15) {
+                int remainder = (int) (low & 0xf);
+                low = (high << 60) | (low >>> 4);
+                high = (high >>> 4) ^ (REDUCTION[remainder] << 48);
+            }
+
+            high ^= tableHigh[b & 0xf];
+            low ^= tableLow[b & 0xf];
+
+            int remainder = (int) (low & 0xf);
+            low = (high << 60) | (low >>> 4);
+            high = (high >>> 4) ^ (REDUCTION[remainder] << 48);
+
+            high ^= tableHigh[b >>> 4];
+            low ^= tableLow[b >>> 4];
+        }
+
+        value[0] = high;
+        value[1] = low;
+    }
+    //endregion
+
+    private static long readLong(byte[] data, int offset) {
+        long value = 0;
+
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+
+        return value;
+    }
+
+    private static void writeLong(byte[] data, int offset, long value) {
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            data[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        for (int i = Integer.BYTES - 1; i >= 0; i--) {
+            data[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
@@ -26,28 +26,41 @@ public final class OfbCipherMode extends AbstractCipherMode {
     }
 
     @Override
-    protected byte[] encryptBlocks(byte[] plaintext) {
-        return processBlocks(plaintext);
+    protected void encryptBlocks(
+        byte[] plaintext,
+        int inputOffset,
+        byte[] ciphertext,
+        int outputOffset,
+        int length
+    ) {
+        processBlocks(plaintext, inputOffset, ciphertext, outputOffset, length);
     }
 
     @Override
-    protected byte[] decryptBlocks(byte[] ciphertext) {
-        return processBlocks(ciphertext);
+    protected void decryptBlocks(
+        byte[] ciphertext,
+        int inputOffset,
+        byte[] plaintext,
+        int outputOffset,
+        int length
+    ) {
+        processBlocks(ciphertext, inputOffset, plaintext, outputOffset, length);
     }
 
-    private byte[] processBlocks(byte[] data) {
-        byte[] result = new byte[data.length];
-
-        for (int i = 0; i < data.length; i += blockSize) {
-            byte[] encrypted = cipher.encrypt(prevBlock);
+    private void processBlocks(
+        byte[] input,
+        int inputOffset,
+        byte[] output,
+        int outputOffset,
+        int length
+    ) {
+        for (int i = 0; i < length; i += blockSize) {
+            cipher.encryptBlock(prevBlock, 0, prevBlock, 0);
 
             for (int j = 0; j < blockSize; j++) {
-                result[i + j] = (byte) (encrypted[j] ^ data[i + j]);
+                output[outputOffset + i + j] =
+                    (byte) (prevBlock[j] ^ input[inputOffset + i + j]);
             }
-
-            prevBlock = encrypted;
         }
-
-        return result;
     }
 }
@@ -1,81 +1,311 @@
 package dora.crypto.block.mode;
 
-import java.util.*;
-import java.util.concurrent.*;
-import java.util.stream.IntStream;
+import dora.crypto.block.BlockCipher;
 
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Processes ranges of blocks in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * The input is split recursively into ranges sized from the pool's
+ * parallelism and the measured per-block cost. Block functions write their
+ * results directly into the output; nothing is collected.
+ * <p>
+ * The cost is measured per block cipher and shared by all processors of the
+ * cipher, so modes created for a single operation don't measure it again.
+ */
 final class ParallelBlockProcessor {
 
-    private static final int BLOCKS_PER_TASK = 4096;
+    /** Number of blocks processed on the calling thread to estimate the cost. */
+    private static final int CALIBRATION_BLOCKS = 16;
+
+    /**
+     * Alignment of the ranges of in-place chained processing. Only the
+     * ciphertext blocks preceding multiples of it are kept, 1/64 of the
+     * input.
+     */
+    private static final int CHAIN_ALIGNMENT = 64;
+
+    /** Cost estimates of block ciphers, dropped along with the ciphers. */
+    private static final Map<BlockCipher, CostEstimate> COST_ESTIMATES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ForkJoinPool pool;
+    private final ParallelTuning tuning;
+    private final CostEstimate cost;
+
+    /**
+     * Creates a processor with a cost estimate of its own.
+     */
+    ParallelBlockProcessor(ForkJoinPool pool, ParallelTuning tuning) {
+        this(pool, tuning, new CostEstimate());
+    }
+
+    /**
+     * Creates a processor that shares the cost estimate of
+     * <code>cipher</code>.
+     */
+    ParallelBlockProcessor(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning) {
+        this(pool, tuning, COST_ESTIMATES.computeIfAbsent(cipher, (key) -> new CostEstimate()));
+    }
 
-    private ParallelBlockProcessor() {
-        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    private ParallelBlockProcessor(ForkJoinPool pool, ParallelTuning tuning, CostEstimate cost) {
+        this.pool = pool;
+        this.tuning = tuning;
+        this.cost = cost;
     }
 
-    public static <T> List<T> processBlocks(
-        byte[] data,
+    public void processBlocks(
+        int length,
         int blockSize,
-        ForkJoinPool pool,
-        BlockSliceFunction<T> function
+        BlockRangeFunction function
     ) throws InterruptedException {
-        int blocks = data.length / blockSize;
-        int tasks = Math.ceilDiv(blocks, BLOCKS_PER_TASK);
-
-        if (tasks == 1) {
-            return function.apply(0, blocks);
-        } else {
-            Future<List<T>> task = pool.submit(() ->
-                IntStream.range(0, tasks)
-                    .parallel()
-                    .mapToObj((taskIdx) -> {
-                        int startBlock = taskIdx * BLOCKS_PER_TASK;
-                        int endBlock = Math.min(startBlock + BLOCKS_PER_TASK, blocks);
-                        return function.apply(startBlock, endBlock);
-                    })
-                    .flatMap(Collection::stream)
-                    .toList()
-            );
+        processBlocks(length, blockSize, 1, function);
+    }
 
-            try {
-                return task.get();
-            } catch (ExecutionException e) {
-                throw new RuntimeException(e);
-            }
+    /**
+     * Processes ranges of blocks; every range starts at a multiple of
+     * <code>alignment</code> blocks.
+     */
+    private void processBlocks(
+        int length,
+        int blockSize,
+        int alignment,
+        BlockRangeFunction function
+    ) throws InterruptedException {
+        int blocks = length / blockSize;
+        int startBlock = 0;
+
+        if (blocks == 0) return;
+
+        if (cost.nanosPerBlock == 0) {
+            startBlock = Math.min(blocks, alignUp(CALIBRATION_BLOCKS, alignment));
+            processRange(function, 0, startBlock);
         }
+
+        int remaining = blocks - startBlock;
+        if (remaining == 0) return;
+
+        double nanosPerBlock = cost.nanosPerBlock;
+        int parallelism = pool.getParallelism();
+
+        if (parallelism == 1 || remaining * nanosPerBlock <= tuning.sequentialThresholdNanos()) {
+            processRange(function, startBlock, blocks);
+            return;
+        }
+
+        int grain = (int) Math.max(
+            Math.ceil(tuning.minTaskNanos() / nanosPerBlock),
+            Math.ceilDiv(remaining, (long) parallelism * tuning.tasksPerThread())
+        );
+
+        invoke(new BlockRangeTask(function, startBlock, blocks, alignUp(Math.max(1, grain), alignment)));
     }
 
-    @FunctionalInterface
-    public interface BlockSliceFunction<T> {
+    /**
+     * Runs <code>action</code> on the pool, so that the parallel streams and
+     * array operations it starts are split across the pool rather than the
+     * common pool.
+     */
+    public void runOnPool(Runnable action) throws InterruptedException {
+        invoke(ForkJoinTask.adapt(action));
+    }
+
+    private void invoke(ForkJoinTask<?> task) throws InterruptedException {
+        if (ForkJoinTask.getPool() == pool) {
+            // Already running on the pool: don't block a worker thread.
+            task.invoke();
+            return;
+        }
 
-        List<T> apply(int startBlock, int endBlock);
+        try {
+            pool.submit(task).get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new RuntimeException(e.getCause());
+        }
     }
 
-    public static <T> List<T> processBlocks(
-        byte[] data,
+    public void processBlocks(
+        int length,
         int blockSize,
-        ForkJoinPool pool,
-        BlockFunction<T> function
+        BlockFunction function
     ) throws InterruptedException {
-        return processBlocks(
-            data,
+        processBlocks(
+            length,
             blockSize,
-            pool,
             (startBlock, endBlock) -> {
-                List<T> results = new ArrayList<>(endBlock - startBlock);
-
                 for (int blockIdx = startBlock; blockIdx < endBlock; blockIdx++) {
                     int offset = blockIdx * blockSize;
-                    results.add(function.apply(blockIdx, offset, offset + blockSize));
+                    function.apply(blockIdx, offset, offset + blockSize);
                 }
-
-                return results;
             }
         );
     }
 
+    /**
+     * Processes blocks that depend on the preceding input block, as in
+     * decryption with CBC and similar modes. The function receives a copy of
+     * the current input block and the preceding one (<code>initial</code>
+     * for the first block), so it may overwrite the input.
+     * <p>
+     * When processing in place, a range overwrites the block the next range
+     * starts from; only these blocks are kept, not the whole input.
+     */
+    public void processChainedBlocks(
+        byte[] input,
+        int inputOffset,
+        byte[] output,
+        int outputOffset,
+        int length,
+        int blockSize,
+        byte[] initial,
+        ChainedBlockFunction function
+    ) throws InterruptedException {
+        if (length == 0) return;
+
+        boolean inPlace = input == output && inputOffset == outputOffset;
+
+        if (!inPlace && AbstractCipherMode.overlaps(input, inputOffset, output, outputOffset, length)) {
+            // Shifted overlap is rare; just work from a copy.
+            input = Arrays.copyOfRange(input, inputOffset, inputOffset + length);
+            inputOffset = 0;
+        }
+
+        byte[] source = input;
+        int sourceOffset = inputOffset;
+
+        int alignment = inPlace ? CHAIN_ALIGNMENT : 1;
+        byte[] boundaries = inPlace ? boundaryBlocks(input, inputOffset, length, blockSize) : null;
+
+        processBlocks(length, blockSize, alignment, (startBlock, endBlock) -> {
+            byte[] previous = new byte[blockSize];
+            byte[] current = new byte[blockSize];
+
+            if (startBlock == 0) {
+                System.arraycopy(initial, 0, previous, 0, blockSize);
+            } else if (boundaries != null) {
+                System.arraycopy(boundaries, (startBlock / alignment - 1) * blockSize, previous, 0, blockSize);
+            } else {
+                System.arraycopy(source, sourceOffset + (startBlock - 1) * blockSize, previous, 0, blockSize);
+            }
+
+            for (int block = startBlock; block < endBlock; block++) {
+                int offset = block * blockSize;
+
+                System.arraycopy(source, sourceOffset + offset, current, 0, blockSize);
+                function.apply(previous, current, output, outputOffset + offset);
+
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+        });
+    }
+
+    /**
+     * Copies the blocks preceding every multiple of {@link #CHAIN_ALIGNMENT}
+     * blocks.
+     */
+    private static byte[] boundaryBlocks(byte[] input, int inputOffset, int length, int blockSize) {
+        int count = (length / blockSize - 1) / CHAIN_ALIGNMENT;
+        byte[] boundaries = new byte[count * blockSize];
+
+        for (int i = 0; i < count; i++) {
+            int block = (i + 1) * CHAIN_ALIGNMENT - 1;
+            System.arraycopy(input, inputOffset + block * blockSize, boundaries, i * blockSize, blockSize);
+        }
+
+        return boundaries;
+    }
+
+    private static int alignUp(int value, int alignment) {
+        return Math.ceilDiv(value, alignment) * alignment;
+    }
+
+    private void processRange(BlockRangeFunction function, int startBlock, int endBlock) {
+        long start = System.nanoTime();
+        function.apply(startBlock, endBlock);
+        long elapsed = System.nanoTime() - start;
+
+        double sample = Math.max(1.0, (double) elapsed / (endBlock - startBlock));
+        double estimate = cost.nanosPerBlock;
+
+        // Racy updates only affect the precision of the estimate.
+        cost.nanosPerBlock = estimate == 0 ? sample : 0.75 * estimate + 0.25 * sample;
+    }
+
+    private static final class CostEstimate {
+
+        /** Estimated processing time of a single block; zero if unknown. */
+        volatile double nanosPerBlock;
+    }
+
+    private final class BlockRangeTask extends RecursiveAction {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient BlockRangeFunction function;
+        private final int startBlock;
+        private final int endBlock;
+        private final int grain;
+
+        BlockRangeTask(BlockRangeFunction function, int startBlock, int endBlock, int grain) {
+            this.function = function;
+            this.startBlock = startBlock;
+            this.endBlock = endBlock;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (endBlock - startBlock <= grain) {
+                processRange(function, startBlock, endBlock);
+                return;
+            }
+
+            // Split at a multiple of the grain to keep ranges aligned.
+            int middleBlock = startBlock + Math.ceilDiv(endBlock - startBlock, grain) / 2 * grain;
+
+            invokeAll(
+                new BlockRangeTask(function, startBlock, middleBlock, grain),
+                new BlockRangeTask(function, middleBlock, endBlock, grain)
+            );
+        }
+    }
+
+    @FunctionalInterface
+    public interface BlockRangeFunction {
+
+        void apply(int startBlock, int endBlock);
+    }
+
+    @FunctionalInterface
+    public interface BlockFunction {
+
+        void apply(int idx, int start, int end);
+    }
+
     @FunctionalInterface
-    public interface BlockFunction<T> {
+    public interface ChainedBlockFunction {
 
-        T apply(int idx, int start, int end);
+        /**
+         * @param previous preceding input block
+         * @param current  current input block
+         */
+        void apply(byte[] previous, byte[] current, byte[] output, int outputOffset);
     }
 }
@@ -0,0 +1,37 @@
+package dora.crypto.block.mode;
+
+/**
+ * Tuning parameters for cipher modes that process blocks in parallel.
+ * <p>
+ * Thresholds are expressed in time rather than bytes: the per-block cost is
+ * measured while processing, so that an expensive cipher (e.g. DEAL) is split
+ * into smaller tasks than a cheap one (e.g. table-driven AES).
+ *
+ * @param sequentialThresholdNanos estimated processing time below which input
+ *                                 is processed on the calling thread
+ * @param minTaskNanos             minimal estimated processing time of a single
+ *                                 task
+ * @param tasksPerThread           number of tasks per pool thread the input is
+ *                                 split into; higher values balance load better
+ */
+public record ParallelTuning(
+    long sequentialThresholdNanos,
+    long minTaskNanos,
+    int tasksPerThread
+) {
+
+    public static final ParallelTuning DEFAULT = new ParallelTuning(
+        /* sequential threshold */ 200_000,
+        /* minimal task         */ 50_000,
+        /* tasks per thread     */ 4
+    );
+
+    public ParallelTuning {
+        if (sequentialThresholdNanos < 0)
+            throw new IllegalArgumentException("sequential threshold must be non-negative");
+        if (minTaskNanos < 0)
+            throw new IllegalArgumentException("minimal task time must be non-negative");
+        if (tasksPerThread < 1)
+            throw new IllegalArgumentException("tasks per thread must be at least 1");
+    }
+}
@@ -4,19 +4,21 @@ import dora.crypto.block.BlockCipher;
 import dora.crypto.block.mode.Parameters.IvParameters;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 
 public final class PcbcCipherMode extends AbstractCipherMode {
 
-    private final ForkJoinPool pool;
+    private final ParallelBlockProcessor processor;
 
     private byte[] prevBlock;
 
     public PcbcCipherMode(BlockCipher cipher, ForkJoinPool pool) {
-        super(cipher);
+        this(cipher, pool, ParallelTuning.DEFAULT);
+    }
 
-        this.pool = pool;
+    public PcbcCipherMode(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning) {
+        super(cipher);
+        this.processor = new ParallelBlockProcessor(cipher, pool, tuning);
     }
 
     @Override
@@ -34,57 +36,65 @@ public final class PcbcCipherMode extends AbstractCipherMode {
     }
 
     @Override
-    protected byte[] encryptBlocks(byte[] plaintext) {
-        byte[] ciphertext = new byte[plaintext.length];
-
-        for (int i = 0; i < plaintext.length; i += blockSize) {
-            byte[] plainBlock = Arrays.copyOfRange(plaintext, i, i + blockSize);
-            byte[] cipherBlock = cipher.encrypt(xor(plainBlock, prevBlock));
+    protected void encryptBlocks(
+        byte[] plaintext,
+        int inputOffset,
+        byte[] ciphertext,
+        int outputOffset,
+        int length
+    ) {
+        byte[] plainBlock = new byte[blockSize];
+
+        for (int i = 0; i < length; i += blockSize) {
+            System.arraycopy(plaintext, inputOffset + i, plainBlock, 0, blockSize);
+
+            for (int j = 0; j < blockSize; j++) {
+                prevBlock[j] ^= plainBlock[j];
+            }
 
-            System.arraycopy(cipherBlock, 0, ciphertext, i, blockSize);
+            cipher.encryptBlock(prevBlock, 0, prevBlock, 0);
+            System.arraycopy(prevBlock, 0, ciphertext, outputOffset + i, blockSize);
 
-            prevBlock = xor(plainBlock, cipherBlock);
+            for (int j = 0; j < blockSize; j++) {
+                prevBlock[j] ^= plainBlock[j];
+            }
         }
-
-        return ciphertext;
     }
 
     @Override
-    protected byte[] decryptBlocks(byte[] ciphertext) throws InterruptedException {
-        byte[] plaintext = new byte[ciphertext.length];
-
-        List<DecryptResult> results = ParallelBlockProcessor.processBlocks(
-            ciphertext, blockSize, pool, (idx, start, end) -> {
-                byte[] cipherBlock = Arrays.copyOfRange(ciphertext, start, end);
-                byte[] decryptedBlock = cipher.decrypt(cipherBlock);
-                return new DecryptResult(cipherBlock, decryptedBlock);
+    protected void decryptBlocks(
+        byte[] ciphertext,
+        int inputOffset,
+        byte[] plaintext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        if (length == 0) return;
+
+        // The output may overwrite the last ciphertext block.
+        byte[] lastBlock = Arrays.copyOfRange(ciphertext, inputOffset + length - blockSize, inputOffset + length);
+
+        // P_i = D(C_i) ^ C_(i-1) ^ P_(i-1): the first two terms are computed
+        // in parallel, as in CBC, then the plaintext is chained.
+        processor.processChainedBlocks(
+            ciphertext, inputOffset, plaintext, outputOffset, length, blockSize, prevBlock,
+            (previous, current, output, offset) -> {
+                cipher.decryptBlock(current, 0, output, offset);
+
+                for (int j = 0; j < blockSize; j++) {
+                    output[offset + j] ^= previous[j];
+                }
             }
         );
 
-        for (int i = 0; i < results.size(); i++) {
-            DecryptResult result = results.get(i);
-            byte[] cipherBlock = result.cipherBlock();
-            byte[] decryptedBlock = result.decryptedBlock();
-
-            byte[] plainBlock = xor(decryptedBlock, prevBlock);
-            System.arraycopy(plainBlock, 0, plaintext, i * blockSize, blockSize);
-
-            prevBlock = xor(cipherBlock, plainBlock);
+        for (int i = blockSize; i < length; i++) {
+            plaintext[outputOffset + i] ^= plaintext[outputOffset + i - blockSize];
         }
 
-        return plaintext;
-    }
-
-    private static byte[] xor(byte[] a, byte[] b) {
-        byte[] result = new byte[a.length];
-
-        for (int i = 0; i < a.length; i++) {
-            result[i] = (byte) (a[i] ^ b[i]);
+        for (int j = 0; j < blockSize; j++) {
+            lastBlock[j] ^= plaintext[outputOffset + length - blockSize + j];
         }
 
-        return result;
-    }
-
-    private record DecryptResult(byte[] cipherBlock, byte[] decryptedBlock) {
+        prevBlock = lastBlock;
     }
 }
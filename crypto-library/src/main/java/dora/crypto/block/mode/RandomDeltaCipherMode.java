@@ -1,27 +1,55 @@
 package dora.crypto.block.mode;
 
 import dora.crypto.block.BlockCipher;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
-import java.util.Random;
+import java.util.Objects;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.IntStream;
 
-public final class RandomDeltaCipherMode extends AbstractCipherMode {
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Counter mode in which the counter is incremented by a pseudo-random delta
+ * after every block.
+ * <p>
+ * The delta of each block is derived from the seed and the block index with
+ * a SplitMix64-style mixing function, so the counter of any block is a prefix
+ * sum over the deltas. This lets blocks be processed in parallel and seeked
+ * to, same as in {@link CtrCipherMode}.
+ */
+public final class RandomDeltaCipherMode extends AbstractCipherMode implements SeekableCipherMode {
 
     private final static int MIN_DELTA = 1;
     private final static int MAX_DELTA = 100;
 
-    private final ForkJoinPool pool;
+    /** Number of blocks between two prefix sums stored in the delta index. */
+    private final static int CHECKPOINT_INTERVAL = 1024;
+
+    /** Number of deltas below which they are summed on the calling thread. */
+    private final static int PARALLEL_DELTAS = 16 * 1024;
+
+    private final ParallelBlockProcessor processor;
 
     private byte[] nonce;
-    private int counter;
-    private Random random;
+    private int initialCounter;
+    private long seed;
+    /** Number of blocks processed since initialization. */
+    private long position;
+    /** Sum of the deltas of processed blocks. */
+    private long offset;
+    private DeltaIndex index;
 
     public RandomDeltaCipherMode(BlockCipher cipher, ForkJoinPool pool) {
+        this(cipher, pool, ParallelTuning.DEFAULT);
+    }
+
+    public RandomDeltaCipherMode(BlockCipher cipher, ForkJoinPool pool, ParallelTuning tuning) {
         super(cipher);
-        this.pool = pool;
+        this.processor = new ParallelBlockProcessor(cipher, pool, tuning);
     }
 
     @Override
@@ -39,16 +67,15 @@ public final class RandomDeltaCipherMode extends AbstractCipherMode {
                 "expected %d-byte nonce".formatted(nonceSize()));
         }
         if (counterParam < 0) {
-            throw new IllegalArgumentException("counter must be positive");
+            throw new IllegalArgumentException("counter must be non-negative");
         }
 
         nonce = nonceParam.clone();
-        counter = counterParam;
-        random = new Random();
-
-        if (seedParam != null) {
-            random.setSeed(seedParam);
-        }
+        initialCounter = counterParam;
+        seed = seedParam != null ? seedParam : ThreadLocalRandom.current().nextLong();
+        position = 0;
+        offset = 0;
+        index = new DeltaIndex(seed, processor);
     }
 
     public int nonceSize() {
@@ -56,51 +83,228 @@ public final class RandomDeltaCipherMode extends AbstractCipherMode {
     }
 
     @Override
-    protected byte[] encryptBlocks(byte[] plaintext) throws InterruptedException {
-        return processBlocks(plaintext);
+    protected void encryptBlocks(
+        byte[] plaintext,
+        int inputOffset,
+        byte[] ciphertext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        processBlocks(plaintext, inputOffset, ciphertext, outputOffset, length);
     }
 
     @Override
-    protected byte[] decryptBlocks(byte[] ciphertext) throws InterruptedException {
-        return processBlocks(ciphertext);
+    protected void decryptBlocks(
+        byte[] ciphertext,
+        int inputOffset,
+        byte[] plaintext,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        processBlocks(ciphertext, inputOffset, plaintext, outputOffset, length);
     }
 
-    private byte[] processBlocks(byte[] data) throws InterruptedException {
-        byte[] result = new byte[data.length];
+    @Override
+    public void transformAt(
+        long blockIndex,
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) throws InterruptedException {
+        requireNonNull(input, "input");
+        requireNonNull(output, "output");
+
+        if (nonce == null)
+            throw new IllegalStateException("Cipher mode is not initialized");
+        if (blockIndex < 0)
+            throw new IllegalArgumentException("block index must be non-negative");
+        if (length % blockSize != 0)
+            throw new IllegalArgumentException("Data not multiple of block size");
 
-        long[] increments = IntStream.range(0, data.length / blockSize)
-            .mapToLong((i) -> random.nextLong(MIN_DELTA, MAX_DELTA))
-            .toArray();
+        Objects.checkFromIndexSize(inputOffset, length, input.length);
+        Objects.checkFromIndexSize(outputOffset, length, output.length);
 
-        ParallelBlockProcessor.processBlocks(
-            data, blockSize, pool, (idx, start, end) -> {
-                long increment = idx == 0 ? 0 : Arrays.stream(increments).limit(idx).sum();
-                byte[] counterBlock = createCounterBlock((int) (counter + increment));
-                byte[] encryptedCounter = cipher.encrypt(counterBlock);
+        long base = index.offset(blockIndex);
+        long[] offsets = relativeOffsets(blockIndex, length / blockSize);
 
-                for (int j = start; j < end; j++) {
-                    result[j] = (byte) (data[j] ^ encryptedCounter[j - start]);
-                }
+        applyKeystream(base, offsets, input, inputOffset, output, outputOffset, length);
+    }
 
-                return null;
-            }
-        );
+    private void processBlocks(
+        byte[] input,
+        int inputOffset,
+        byte[] output,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        int blocks = length / blockSize;
+        if (blocks == 0) return;
+
+        long[] offsets = relativeOffsets(position, blocks);
 
-        counter += (int) Arrays.stream(increments).sum();
-        return result;
+        applyKeystream(offset, offsets, input, inputOffset, output, outputOffset, length);
+
+        offset += offsets[blocks - 1] + delta(seed, position + blocks - 1);
+        position += blocks;
     }
 
-    private byte[] createCounterBlock(int counter) {
-        byte[] block = new byte[blockSize];
+    private void applyKeystream(
+        long base,
+        long[] offsets,
+        byte[] input,
+        int inputOffset,
+        byte[] output,
+        int outputOffset,
+        int length
+    ) throws InterruptedException {
+        processor.processBlocks(
+            length, blockSize, (startBlock, endBlock) -> {
+                byte[] counterBlock = new byte[blockSize];
+                byte[] keystream = new byte[blockSize];
+
+                System.arraycopy(nonce, 0, counterBlock, 0, nonce.length);
 
-        System.arraycopy(nonce, 0, block, 0, nonce.length);
+                for (int block = startBlock; block < endBlock; block++) {
+                    writeCounter(counterBlock, (int) (initialCounter + base + offsets[block]));
+                    cipher.encryptBlock(counterBlock, 0, keystream, 0);
 
+                    int offset = block * blockSize;
+
+                    for (int j = 0; j < blockSize; j++) {
+                        output[outputOffset + offset + j] =
+                            (byte) (input[inputOffset + offset + j] ^ keystream[j]);
+                    }
+                }
+            }
+        );
+    }
+
+    private void writeCounter(byte[] block, int counter) {
         block[blockSize - 4] = (byte) (counter >>> 24);
         block[blockSize - 3] = (byte) (counter >>> 16);
         block[blockSize - 2] = (byte) (counter >>>  8);
         block[blockSize - 1] = (byte) (counter       );
+    }
+
+    /**
+     * Returns the counter delta applied after block <code>blockIndex</code>.
+     */
+    private static long delta(long seed, long blockIndex) {
+        long z = seed + (blockIndex + 1) * 0x9e3779b97f4a7c15L;
+
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z = z ^ (z >>> 31);
+
+        return MIN_DELTA + Math.floorMod(z, MAX_DELTA - MIN_DELTA);
+    }
+
+    /**
+     * Returns the counter offsets of <code>count</code> blocks starting at
+     * <code>firstBlock</code>, relative to the offset of the first block.
+     */
+    private long[] relativeOffsets(long firstBlock, int count) throws InterruptedException {
+        long[] offsets = new long[count];
+
+        if (count < PARALLEL_DELTAS) {
+            for (int i = 1; i < count; i++) {
+                offsets[i] = offsets[i - 1] + delta(seed, firstBlock + i - 1);
+            }
+
+            return offsets;
+        }
+
+        processor.runOnPool(() -> {
+            Arrays.parallelSetAll(offsets, (i) -> i == 0 ? 0 : delta(seed, firstBlock + i - 1));
+            Arrays.parallelPrefix(offsets, Long::sum);
+        });
+
+        return offsets;
+    }
+
+    /**
+     * Prefix-sum index over the delta sequence, used for random access.
+     * <p>
+     * Stores the counter offset of every {@link #CHECKPOINT_INTERVAL}-th
+     * block; offsets in between are summed from the generator.
+     */
+    private static final class DeltaIndex {
+
+        private final long seed;
+        private final ParallelBlockProcessor processor;
+
+        private long[] checkpoints = { 0 };
+        private int checkpointCount = 1;
+
+        DeltaIndex(long seed, ParallelBlockProcessor processor) {
+            this.seed = seed;
+            this.processor = processor;
+        }
+
+        /**
+         * Returns the counter offset of block <code>blockIndex</code>.
+         */
+        synchronized long offset(long blockIndex) throws InterruptedException {
+            long checkpoint = blockIndex / CHECKPOINT_INTERVAL;
+
+            if (checkpoint >= Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("block index is too large");
+
+            extend((int) checkpoint + 1);
 
-        return block;
+            long checkpointBlock = checkpoint * CHECKPOINT_INTERVAL;
+            long value = checkpoints[(int) checkpoint];
+
+            for (long i = checkpointBlock; i < blockIndex; i++) {
+                value += delta(seed, i);
+            }
+
+            return value;
+        }
+
+        private void extend(int count) throws InterruptedException {
+            if (count <= checkpointCount) return;
+
+            if (count > checkpoints.length) {
+                checkpoints = Arrays.copyOf(
+                    checkpoints, Math.max(count, checkpoints.length * 2));
+            }
+
+            // Sum the deltas of every new interval, then accumulate them onto
+            // the last known checkpoint.
+            int first = checkpointCount;
+
+            long[] sums = checkpoints;
+
+            if ((long) (count - first) * CHECKPOINT_INTERVAL < PARALLEL_DELTAS) {
+                for (int i = first; i < count; i++) {
+                    sums[i] = sums[i - 1] + intervalSum(i - 1);
+                }
+            } else {
+                processor.runOnPool(() -> {
+                    IntStream.range(first, count).parallel().forEach((i) -> sums[i] = intervalSum(i - 1));
+                    Arrays.parallelPrefix(sums, first - 1, count, Long::sum);
+                });
+            }
+
+            checkpointCount = count;
+        }
+
+        /**
+         * Returns the sum of the deltas of interval <code>interval</code>.
+         */
+        private long intervalSum(int interval) {
+            long sum = 0;
+            long start = (long) interval * CHECKPOINT_INTERVAL;
+
+            for (long block = start; block < start + CHECKPOINT_INTERVAL; block++) {
+                sum += delta(seed, block);
+            }
+
+            return sum;
+        }
     }
 
     public record RandomDeltaParameters(
@@ -0,0 +1,28 @@
+package dora.crypto.block.mode;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Cipher mode in which every block can be processed independently, given its
+ * index relative to the position the mode was initialized at.
+ * <p>
+ * Encryption and decryption are the same operation in such modes.
+ */
+public interface SeekableCipherMode extends CipherMode {
+
+    /**
+     * Encrypts or decrypts <code>length</code> bytes of data that start at
+     * block <code>blockIndex</code> of the message.
+     * <p>
+     * Unlike {@link #encrypt(byte[])} and {@link #decrypt(byte[])}, this does
+     * not advance the mode's state.
+     */
+    void transformAt(
+        long blockIndex,
+        byte @NotNull [] input,
+        int inputOffset,
+        int length,
+        byte @NotNull [] output,
+        int outputOffset
+    ) throws InterruptedException;
+}
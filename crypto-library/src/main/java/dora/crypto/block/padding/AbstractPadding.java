@@ -2,6 +2,8 @@ package dora.crypto.block.padding;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import static java.util.Objects.requireNonNull;
@@ -26,6 +28,19 @@ public abstract class AbstractPadding implements Padding {
         return padded;
     }
 
+    @Override
+    public int pad(@NotNull ByteBuffer buffer, int length, int blockSize) {
+        requireNonNull(buffer, "buffer");
+
+        int remaining = blockSize - length % blockSize;
+
+        byte[] padding = padding(remaining, blockSize);
+        if (buffer.remaining() < padding.length) throw new BufferOverflowException();
+
+        buffer.put(padding);
+        return padding.length;
+    }
+
     protected abstract byte[] padding(int remaining, int blockSize);
 
     @Override
@@ -42,5 +57,29 @@ public abstract class AbstractPadding implements Padding {
         return Arrays.copyOfRange(data, 0, data.length - paddingSize);
     }
 
+    @Override
+    public int unpad(@NotNull ByteBuffer buffer, int blockSize) {
+        requireNonNull(buffer, "buffer");
+
+        if (buffer.remaining() < blockSize) {
+            throw new IllegalArgumentException(
+                "Data is not properly padded. Such issues can arise if the decryption failed.");
+        }
+
+        // Padding never spans more than the last block.
+        byte[] lastBlock = new byte[blockSize];
+        buffer.get(buffer.limit() - blockSize, lastBlock);
+
+        int paddingSize = paddingSize(lastBlock, blockSize);
+
+        if (paddingSize > blockSize) {
+            throw new IllegalArgumentException(
+                "Data is not properly padded. Such issues can arise if the decryption failed.");
+        }
+
+        buffer.limit(buffer.limit() - paddingSize);
+        return paddingSize;
+    }
+
     protected abstract int paddingSize(byte[] data, int blockSize);
 }
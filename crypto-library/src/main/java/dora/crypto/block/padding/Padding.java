@@ -2,9 +2,64 @@ package dora.crypto.block.padding;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static java.util.Objects.requireNonNull;
+
 public interface Padding {
 
     byte[] pad(byte @NotNull [] data, int blockSize);
 
     byte[] unpad(byte @NotNull [] data, int blockSize);
+
+    /**
+     * Writes the padding for a message of <code>length</code> bytes to
+     * <code>buffer</code> at its current position.
+     * <p>
+     * The default implementation pads the last partial block, taken as zeros,
+     * with {@link #pad(byte[], int)}. Paddings that depend on the content of
+     * the message must override it.
+     *
+     * @return number of padding bytes written
+     */
+    default int pad(@NotNull ByteBuffer buffer, int length, int blockSize) {
+        requireNonNull(buffer, "buffer");
+
+        int partial = length % blockSize;
+        byte[] padded = pad(new byte[partial], blockSize);
+        int paddingLength = padded.length - partial;
+
+        if (buffer.remaining() < paddingLength) throw new BufferOverflowException();
+
+        buffer.put(padded, partial, paddingLength);
+        return paddingLength;
+    }
+
+    /**
+     * Removes the padding from the remaining bytes of <code>buffer</code> by
+     * moving its limit back.
+     * <p>
+     * The default implementation removes the padding from a copy of the last
+     * block with {@link #unpad(byte[], int)}.
+     *
+     * @return number of padding bytes removed
+     */
+    default int unpad(@NotNull ByteBuffer buffer, int blockSize) {
+        requireNonNull(buffer, "buffer");
+
+        if (buffer.remaining() < blockSize) {
+            throw new IllegalArgumentException(
+                "Data is not properly padded. Such issues can arise if the decryption failed.");
+        }
+
+        // Padding never spans more than the last block.
+        byte[] lastBlock = new byte[blockSize];
+        buffer.get(buffer.limit() - blockSize, lastBlock);
+
+        int paddingLength = blockSize - unpad(lastBlock, blockSize).length;
+
+        buffer.limit(buffer.limit() - paddingLength);
+        return paddingLength;
+    }
 }
@@ -0,0 +1,211 @@
+package dora.crypto.block.rc5;
+
+import dora.crypto.block.rc5.Rc5Parameters.WordSize;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * RC5 encryption and decryption specialized for a single word size.
+ * <p>
+ * Engines keep the round keys in primitive arrays and operate on primitive
+ * words, so that no objects are allocated per block. Words are read and
+ * written in little-endian order.
+ */
+sealed interface Rc5Engine permits
+    Rc5Engine.ShortEngine,
+    Rc5Engine.IntEngine,
+    Rc5Engine.LongEngine {
+
+    void encryptBlock(byte[] in, int inOff, byte[] out, int outOff);
+
+    void decryptBlock(byte[] in, int inOff, byte[] out, int outOff);
+
+    /**
+     * Zeroes the round keys. The engine can't be used afterwards.
+     */
+    void destroy();
+
+    /**
+     * Creates an engine for <code>wordSize</code> from the round keys produced
+     * by {@link Rc5KeySchedule}.
+     */
+    static Rc5Engine of(WordSize wordSize, byte[][] roundKeys) {
+        return switch (wordSize) {
+            case WORD_SIZE_16 -> new ShortEngine(roundKeys);
+            case WORD_SIZE_32 -> new IntEngine(roundKeys);
+            case WORD_SIZE_64 -> new LongEngine(roundKeys);
+        };
+    }
+
+    //region Implementation
+    final class ShortEngine implements Rc5Engine {
+
+        private static final VarHandle SHORT =
+            MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private final short[] s;
+        private final int rounds;
+
+        ShortEngine(byte[][] roundKeys) {
+            s = new short[roundKeys.length];
+            rounds = roundKeys.length / 2 - 1;
+
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (short) SHORT.get(roundKeys[i], 0);
+            }
+        }
+
+        @Override
+        public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            // Words are kept in ints; only the low 16 bits are significant.
+            int a = (short) SHORT.get(in, inOff) + s[0];
+            int b = (short) SHORT.get(in, inOff + Short.BYTES) + s[1];
+
+            for (int i = 1; i <= rounds; i++) {
+                a = rotateLeft(a ^ b, b) + s[2 * i];
+                b = rotateLeft(b ^ a, a) + s[2 * i + 1];
+            }
+
+            SHORT.set(out, outOff, (short) a);
+            SHORT.set(out, outOff + Short.BYTES, (short) b);
+        }
+
+        @Override
+        public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            int a = (short) SHORT.get(in, inOff);
+            int b = (short) SHORT.get(in, inOff + Short.BYTES);
+
+            for (int i = rounds; i > 0; i--) {
+                b = rotateRight(b - s[2 * i + 1], a) ^ a;
+                a = rotateRight(a - s[2 * i], b) ^ b;
+            }
+
+            SHORT.set(out, outOff, (short) (a - s[0]));
+            SHORT.set(out, outOff + Short.BYTES, (short) (b - s[1]));
+        }
+
+        private static int rotateLeft(int value, int distance) {
+            int word = value & 0xffff;
+            int bits = distance & 0xf;
+            return (word << bits) | (word >>> (Short.SIZE - bits));
+        }
+
+        private static int rotateRight(int value, int distance) {
+            int word = value & 0xffff;
+            int bits = distance & 0xf;
+            return (word >>> bits) | (word << (Short.SIZE - bits));
+        }
+
+        @Override
+        public void destroy() {
+            Arrays.fill(s, (short) 0);
+        }
+    }
+
+    final class IntEngine implements Rc5Engine {
+
+        private static final VarHandle INT =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private final int[] s;
+        private final int rounds;
+
+        IntEngine(byte[][] roundKeys) {
+            s = new int[roundKeys.length];
+            rounds = roundKeys.length / 2 - 1;
+
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (int) INT.get(roundKeys[i], 0);
+            }
+        }
+
+        @Override
+        public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            int a = (int) INT.get(in, inOff) + s[0];
+            int b = (int) INT.get(in, inOff + Integer.BYTES) + s[1];
+
+            for (int i = 1; i <= rounds; i++) {
+                a = Integer.rotateLeft(a ^ b, b) + s[2 * i];
+                b = Integer.rotateLeft(b ^ a, a) + s[2 * i + 1];
+            }
+
+            INT.set(out, outOff, a);
+            INT.set(out, outOff + Integer.BYTES, b);
+        }
+
+        @Override
+        public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            int a = (int) INT.get(in, inOff);
+            int b = (int) INT.get(in, inOff + Integer.BYTES);
+
+            for (int i = rounds; i > 0; i--) {
+                b = Integer.rotateRight(b - s[2 * i + 1], a) ^ a;
+                a = Integer.rotateRight(a - s[2 * i], b) ^ b;
+            }
+
+            INT.set(out, outOff, a - s[0]);
+            INT.set(out, outOff + Integer.BYTES, b - s[1]);
+        }
+
+        @Override
+        public void destroy() {
+            Arrays.fill(s, 0);
+        }
+    }
+
+    final class LongEngine implements Rc5Engine {
+
+        private static final VarHandle LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private final long[] s;
+        private final int rounds;
+
+        LongEngine(byte[][] roundKeys) {
+            s = new long[roundKeys.length];
+            rounds = roundKeys.length / 2 - 1;
+
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (long) LONG.get(roundKeys[i], 0);
+            }
+        }
+
+        @Override
+        public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            long a = (long) LONG.get(in, inOff) + s[0];
+            long b = (long) LONG.get(in, inOff + Long.BYTES) + s[1];
+
+            // Rotations only use the low 6 bits of the distance.
+            for (int i = 1; i <= rounds; i++) {
+                a = Long.rotateLeft(a ^ b, (int) b) + s[2 * i];
+                b = Long.rotateLeft(b ^ a, (int) a) + s[2 * i + 1];
+            }
+
+            LONG.set(out, outOff, a);
+            LONG.set(out, outOff + Long.BYTES, b);
+        }
+
+        @Override
+        public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            long a = (long) LONG.get(in, inOff);
+            long b = (long) LONG.get(in, inOff + Long.BYTES);
+
+            for (int i = rounds; i > 0; i--) {
+                b = Long.rotateRight(b - s[2 * i + 1], (int) a) ^ a;
+                a = Long.rotateRight(a - s[2 * i], (int) b) ^ b;
+            }
+
+            LONG.set(out, outOff, a - s[0]);
+            LONG.set(out, outOff + Long.BYTES, b - s[1]);
+        }
+
+        @Override
+        public void destroy() {
+            Arrays.fill(s, 0);
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,306 @@
+package dora.crypto.block.rc6;
+
+import dora.crypto.block.rc6.Rc6Parameters.WordSize;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * RC6 encryption and decryption specialized for a single word size.
+ * <p>
+ * Engines keep the round keys in primitive arrays and operate on primitive
+ * words, so that no objects are allocated per block. Words are read and
+ * written in little-endian order.
+ */
+sealed interface Rc6Engine permits
+    Rc6Engine.ShortEngine,
+    Rc6Engine.IntEngine,
+    Rc6Engine.LongEngine {
+
+    void encryptBlock(byte[] in, int inOff, byte[] out, int outOff);
+
+    void decryptBlock(byte[] in, int inOff, byte[] out, int outOff);
+
+    /**
+     * Zeroes the round keys. The engine can't be used afterwards.
+     */
+    void destroy();
+
+    /**
+     * Creates an engine for <code>wordSize</code> from the round keys produced
+     * by {@link Rc6KeySchedule}.
+     */
+    static Rc6Engine of(WordSize wordSize, byte[][] roundKeys) {
+        return switch (wordSize) {
+            case WORD_SIZE_16 -> new ShortEngine(roundKeys);
+            case WORD_SIZE_32 -> new IntEngine(roundKeys);
+            case WORD_SIZE_64 -> new LongEngine(roundKeys);
+        };
+    }
+
+    /* https://en.wikipedia.org/wiki/RC6#Encryption/decryption */
+
+    //region Implementation
+    final class ShortEngine implements Rc6Engine {
+
+        private static final VarHandle SHORT =
+            MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
+        /** lg w */
+        private static final int LG_W = 4;
+
+        private final short[] s;
+        private final int rounds;
+
+        ShortEngine(byte[][] roundKeys) {
+            s = new short[roundKeys.length];
+            rounds = (roundKeys.length - 4) / 2;
+
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (short) SHORT.get(roundKeys[i], 0);
+            }
+        }
+
+        @Override
+        public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            // Words are kept in ints; only the low 16 bits are significant.
+            int a = (short) SHORT.get(in, inOff);
+            int b = (short) SHORT.get(in, inOff + Short.BYTES) + s[0];
+            int c = (short) SHORT.get(in, inOff + 2 * Short.BYTES);
+            int d = (short) SHORT.get(in, inOff + 3 * Short.BYTES) + s[1];
+
+            for (int i = 1; i <= rounds; i++) {
+                int t = rotateLeft(b * (2 * b + 1), LG_W);
+                int u = rotateLeft(d * (2 * d + 1), LG_W);
+
+                a = rotateLeft(a ^ t, u) + s[2 * i];
+                c = rotateLeft(c ^ u, t) + s[2 * i + 1];
+
+                // (A, B, C, D) = (B, C, D, A)
+                int temp = a;
+                a = b;
+                b = c;
+                c = d;
+                d = temp;
+            }
+
+            SHORT.set(out, outOff, (short) (a + s[2 * rounds + 2]));
+            SHORT.set(out, outOff + Short.BYTES, (short) b);
+            SHORT.set(out, outOff + 2 * Short.BYTES, (short) (c + s[2 * rounds + 3]));
+            SHORT.set(out, outOff + 3 * Short.BYTES, (short) d);
+        }
+
+        @Override
+        public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            int a = (short) SHORT.get(in, inOff) - s[2 * rounds + 2];
+            int b = (short) SHORT.get(in, inOff + Short.BYTES);
+            int c = (short) SHORT.get(in, inOff + 2 * Short.BYTES) - s[2 * rounds + 3];
+            int d = (short) SHORT.get(in, inOff + 3 * Short.BYTES);
+
+            for (int i = rounds; i >= 1; i--) {
+                // (A, B, C, D) = (D, A, B, C)
+                int temp = d;
+                d = c;
+                c = b;
+                b = a;
+                a = temp;
+
+                int u = rotateLeft(d * (2 * d + 1), LG_W);
+                int t = rotateLeft(b * (2 * b + 1), LG_W);
+
+                c = rotateRight(c - s[2 * i + 1], t) ^ u;
+                a = rotateRight(a - s[2 * i], u) ^ t;
+            }
+
+            SHORT.set(out, outOff, (short) a);
+            SHORT.set(out, outOff + Short.BYTES, (short) (b - s[0]));
+            SHORT.set(out, outOff + 2 * Short.BYTES, (short) c);
+            SHORT.set(out, outOff + 3 * Short.BYTES, (short) (d - s[1]));
+        }
+
+        private static int rotateLeft(int value, int distance) {
+            int word = value & 0xffff;
+            int bits = distance & 0xf;
+            return (word << bits) | (word >>> (Short.SIZE - bits));
+        }
+
+        private static int rotateRight(int value, int distance) {
+            int word = value & 0xffff;
+            int bits = distance & 0xf;
+            return (word >>> bits) | (word << (Short.SIZE - bits));
+        }
+
+        @Override
+        public void destroy() {
+            Arrays.fill(s, (short) 0);
+        }
+    }
+
+    final class IntEngine implements Rc6Engine {
+
+        private static final VarHandle INT =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+        /** lg w */
+        private static final int LG_W = 5;
+
+        private final int[] s;
+        private final int rounds;
+
+        IntEngine(byte[][] roundKeys) {
+            s = new int[roundKeys.length];
+            rounds = (roundKeys.length - 4) / 2;
+
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (int) INT.get(roundKeys[i], 0);
+            }
+        }
+
+        @Override
+        public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            int a = (int) INT.get(in, inOff);
+            int b = (int) INT.get(in, inOff + Integer.BYTES) + s[0];
+            int c = (int) INT.get(in, inOff + 2 * Integer.BYTES);
+            int d = (int) INT.get(in, inOff + 3 * Integer.BYTES) + s[1];
+
+            for (int i = 1; i <= rounds; i++) {
+                int t = Integer.rotateLeft(b * (2 * b + 1), LG_W);
+                int u = Integer.rotateLeft(d * (2 * d + 1), LG_W);
+
+                a = Integer.rotateLeft(a ^ t, u) + s[2 * i];
+                c = Integer.rotateLeft(c ^ u, t) + s[2 * i + 1];
+
+                // (A, B, C, D) = (B, C, D, A)
+                int temp = a;
+                a = b;
+                b = c;
+                c = d;
+                d = temp;
+            }
+
+            INT.set(out, outOff, a + s[2 * rounds + 2]);
+            INT.set(out, outOff + Integer.BYTES, b);
+            INT.set(out, outOff + 2 * Integer.BYTES, c + s[2 * rounds + 3]);
+            INT.set(out, outOff + 3 * Integer.BYTES, d);
+        }
+
+        @Override
+        public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            int a = (int) INT.get(in, inOff) - s[2 * rounds + 2];
+            int b = (int) INT.get(in, inOff + Integer.BYTES);
+            int c = (int) INT.get(in, inOff + 2 * Integer.BYTES) - s[2 * rounds + 3];
+            int d = (int) INT.get(in, inOff + 3 * Integer.BYTES);
+
+            for (int i = rounds; i >= 1; i--) {
+                // (A, B, C, D) = (D, A, B, C)
+                int temp = d;
+                d = c;
+                c = b;
+                b = a;
+                a = temp;
+
+                int u = Integer.rotateLeft(d * (2 * d + 1), LG_W);
+                int t = Integer.rotateLeft(b * (2 * b + 1), LG_W);
+
+                c = Integer.rotateRight(c - s[2 * i + 1], t) ^ u;
+                a = Integer.rotateRight(a - s[2 * i], u) ^ t;
+            }
+
+            INT.set(out, outOff, a);
+            INT.set(out, outOff + Integer.BYTES, b - s[0]);
+            INT.set(out, outOff + 2 * Integer.BYTES, c);
+            INT.set(out, outOff + 3 * Integer.BYTES, d - s[1]);
+        }
+
+        @Override
+        public void destroy() {
+            Arrays.fill(s, 0);
+        }
+    }
+
+    final class LongEngine implements Rc6Engine {
+
+        private static final VarHandle LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        /** lg w */
+        private static final int LG_W = 6;
+
+        private final long[] s;
+        private final int rounds;
+
+        LongEngine(byte[][] roundKeys) {
+            s = new long[roundKeys.length];
+            rounds = (roundKeys.length - 4) / 2;
+
+            for (int i = 0; i < s.length; i++) {
+                s[i] = (long) LONG.get(roundKeys[i], 0);
+            }
+        }
+
+        @Override
+        public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            long a = (long) LONG.get(in, inOff);
+            long b = (long) LONG.get(in, inOff + Long.BYTES) + s[0];
+            long c = (long) LONG.get(in, inOff + 2 * Long.BYTES);
+            long d = (long) LONG.get(in, inOff + 3 * Long.BYTES) + s[1];
+
+            // Rotations only use the low 6 bits of the distance.
+            for (int i = 1; i <= rounds; i++) {
+                long t = Long.rotateLeft(b * (2 * b + 1), LG_W);
+                long u = Long.rotateLeft(d * (2 * d + 1), LG_W);
+
+                a = Long.rotateLeft(a ^ t, (int) u) + s[2 * i];
+                c = Long.rotateLeft(c ^ u, (int) t) + s[2 * i + 1];
+
+                // (A, B, C, D) = (B, C, D, A)
+                long temp = a;
+                a = b;
+                b = c;
+                c = d;
+                d = temp;
+            }
+
+            LONG.set(out, outOff, a + s[2 * rounds + 2]);
+            LONG.set(out, outOff + Long.BYTES, b);
+            LONG.set(out, outOff + 2 * Long.BYTES, c + s[2 * rounds + 3]);
+            LONG.set(out, outOff + 3 * Long.BYTES, d);
+        }
+
+        @Override
+        public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+            long a = (long) LONG.get(in, inOff) - s[2 * rounds + 2];
+            long b = (long) LONG.get(in, inOff + Long.BYTES);
+            long c = (long) LONG.get(in, inOff + 2 * Long.BYTES) - s[2 * rounds + 3];
+            long d = (long) LONG.get(in, inOff + 3 * Long.BYTES);
+
+            for (int i = rounds; i >= 1; i--) {
+                // (A, B, C, D) = (D, A, B, C)
+                long temp = d;
+                d = c;
+                c = b;
+                b = a;
+                a = temp;
+
+                long u = Long.rotateLeft(d * (2 * d + 1), LG_W);
+                long t = Long.rotateLeft(b * (2 * b + 1), LG_W);
+
+                c = Long.rotateRight(c - s[2 * i + 1], (int) t) ^ u;
+                a = Long.rotateRight(a - s[2 * i], (int) u) ^ t;
+            }
+
+            LONG.set(out, outOff, a);
+            LONG.set(out, outOff + Long.BYTES, b - s[0]);
+            LONG.set(out, outOff + 2 * Long.BYTES, c);
+            LONG.set(out, outOff + 3 * Long.BYTES, d - s[1]);
+        }
+
+        @Override
+        public void destroy() {
+            Arrays.fill(s, 0);
+        }
+    }
+    //endregion
+}
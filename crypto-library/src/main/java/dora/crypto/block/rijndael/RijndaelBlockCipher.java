@@ -3,11 +3,14 @@ package dora.crypto.block.rijndael;
 import dora.crypto.block.BlockCipher;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Set;
 
 public final class RijndaelBlockCipher implements BlockCipher {
 
+    private static final GaloisField FIELD = new GaloisField();
+
     private final RijndaelParameters parameters;
     private final RijndaelKeySchedule keySchedule;
 
@@ -35,82 +38,111 @@ public final class RijndaelBlockCipher implements BlockCipher {
     }
 
     @Override
-    public byte[] encrypt(byte @NotNull [] plaintext) {
-        if (roundKeys == null)
-            throw new IllegalStateException("Cipher is not initialized");
+    public void destroy() {
+        if (roundKeys != null) {
+            for (byte[] roundKey : roundKeys) {
+                Arrays.fill(roundKey, (byte) 0);
+            }
 
+            roundKeys = null;
+        }
+    }
+
+    @Override
+    public byte[] encrypt(byte @NotNull [] plaintext) {
         Objects.requireNonNull(plaintext, "plaintext");
         if (plaintext.length != blockSize())
             throw new IllegalArgumentException("Invalid block size");
 
-        byte[] state = plaintext.clone();
-        state = addRoundKey(state, roundKeys[0]);
+        byte[] ciphertext = new byte[plaintext.length];
+        encryptBlock(plaintext, 0, ciphertext, 0);
+
+        return ciphertext;
+    }
+
+    @Override
+    public void encryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        checkBlock(in, inOff, out, outOff);
+
+        byte[] state = Arrays.copyOfRange(in, inOff, inOff + blockSize());
+        byte[] temp = new byte[state.length];
+
+        addRoundKey(state, roundKeys[0]);
 
         for (int round = 1; round < parameters.rounds(); round++) {
-            state = subBytes(state, false);
-            state = shiftRows(state, false);
-            state = mixColumns(state, false);
-            state = addRoundKey(state, roundKeys[round]);
+            subBytes(state, false);
+            shiftRows(state, temp, false);
+            mixColumns(state, temp, false);
+            addRoundKey(state, roundKeys[round]);
         }
 
-        state = subBytes(state, false);
-        state = shiftRows(state, false);
-        state = addRoundKey(state, roundKeys[parameters.rounds()]);
+        subBytes(state, false);
+        shiftRows(state, temp, false);
+        addRoundKey(state, roundKeys[parameters.rounds()]);
 
-        return state;
+        System.arraycopy(state, 0, out, outOff, state.length);
     }
 
     @Override
     public byte[] decrypt(byte @NotNull [] ciphertext) {
-        if (roundKeys == null)
-            throw new IllegalStateException("Cipher is not initialized");
-
         Objects.requireNonNull(ciphertext, "ciphertext");
         if (ciphertext.length != blockSize())
             throw new IllegalArgumentException("Invalid block size");
 
-        byte[] state = ciphertext.clone();
-        state = addRoundKey(state, roundKeys[parameters.rounds()]);
+        byte[] plaintext = new byte[ciphertext.length];
+        decryptBlock(ciphertext, 0, plaintext, 0);
+
+        return plaintext;
+    }
+
+    @Override
+    public void decryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        checkBlock(in, inOff, out, outOff);
+
+        byte[] state = Arrays.copyOfRange(in, inOff, inOff + blockSize());
+        byte[] temp = new byte[state.length];
+
+        addRoundKey(state, roundKeys[parameters.rounds()]);
 
         for (int round = parameters.rounds() - 1; round >= 1; round--) {
-            state = shiftRows(state, true);
-            state = subBytes(state, true);
-            state = addRoundKey(state, roundKeys[round]);
-            state = mixColumns(state, true);
+            shiftRows(state, temp, true);
+            subBytes(state, true);
+            addRoundKey(state, roundKeys[round]);
+            mixColumns(state, temp, true);
         }
 
-        state = shiftRows(state, true);
-        state = subBytes(state, true);
-        state = addRoundKey(state, roundKeys[0]);
+        shiftRows(state, temp, true);
+        subBytes(state, true);
+        addRoundKey(state, roundKeys[0]);
 
-        return state;
+        System.arraycopy(state, 0, out, outOff, state.length);
     }
 
-    private byte[] addRoundKey(byte[] state, byte[] roundKey) {
-        byte[] result = new byte[state.length];
+    private void checkBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        if (roundKeys == null)
+            throw new IllegalStateException("Cipher is not initialized");
 
+        Objects.requireNonNull(in, "input");
+        Objects.requireNonNull(out, "output");
+        Objects.checkFromIndexSize(inOff, blockSize(), in.length);
+        Objects.checkFromIndexSize(outOff, blockSize(), out.length);
+    }
+
+    private void addRoundKey(byte[] state, byte[] roundKey) {
         for (int i = 0; i < state.length; i++) {
-            result[i] = (byte) (state[i] ^ roundKey[i]);
+            state[i] ^= roundKey[i];
         }
-
-        return result;
     }
 
-    private byte[] subBytes(byte[] state, boolean inverse) {
-        byte[] result = new byte[state.length];
-
+    private void subBytes(byte[] state, boolean inverse) {
         for (int i = 0; i < state.length; i++) {
-            byte substitution = inverse
+            state[i] = inverse
                 ? parameters.inverseSBox().lookup(state[i])
                 : parameters.sBox().lookup(state[i]);
-            result[i] = substitution;
         }
-
-        return result;
     }
 
-    private byte[] shiftRows(byte[] state, boolean inverse) {
-        byte[] result = new byte[state.length];
+    private void shiftRows(byte[] state, byte[] temp, boolean inverse) {
         int blockWords = parameters.blockSize().words();
 
         for (int col = 0; col < blockWords; col++) {
@@ -118,11 +150,11 @@ public final class RijndaelBlockCipher implements BlockCipher {
                 int shiftCol = inverse
                     ? (col + row) % blockWords
                     : (col - row + blockWords) % blockWords;
-                result[shiftCol * 4 + row] = state[col * 4 + row];
+                temp[shiftCol * 4 + row] = state[col * 4 + row];
             }
         }
 
-        return result;
+        System.arraycopy(temp, 0, state, 0, state.length);
     }
 
     private static final byte[] MIX_COLUMNS_TRANSFORMATION = new byte[] {
@@ -139,29 +171,30 @@ public final class RijndaelBlockCipher implements BlockCipher {
         11, 13, 9, 14
     };
 
-    private byte[] mixColumns(byte[] state, boolean inverse) {
-        byte[] result = new byte[state.length];
-        GaloisField field = new GaloisField();
-
+    private void mixColumns(byte[] state, byte[] temp, boolean inverse) {
         byte[] transformation = inverse
             ? MIX_COLUMNS_INVERSE_TRANSFORMATION
             : MIX_COLUMNS_TRANSFORMATION;
 
         for (int col = 0; col < parameters.blockSize().words(); col++) {
             for (int row = 0; row < 4; row++) {
+                byte result = 0;
+
                 for (int k = 0; k < 4; k++) {
-                    result[col * 4 + row] = field.add(
-                        field.mulModUnchecked(
+                    result = FIELD.add(
+                        FIELD.mulModUnchecked(
                             state[col * 4 + k],
                             transformation[row * 4 + k],
                             parameters.modulus()
                         ),
-                        result[col * 4 + row]
+                        result
                     );
                 }
+
+                temp[col * 4 + row] = result;
             }
         }
 
-        return result;
+        System.arraycopy(temp, 0, state, 0, state.length);
     }
 }
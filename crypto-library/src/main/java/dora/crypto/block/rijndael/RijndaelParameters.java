@@ -15,6 +15,7 @@ public final class RijndaelParameters {
     private final RijndaelSBox sBox;
     private final RijndaelInverseSBox inverseSBox;
     private final RijndaelRcon rcon;
+    private final RijndaelTables tables;
 
     public RijndaelParameters(
         @NotNull KeySize keySize,
@@ -31,6 +32,7 @@ public final class RijndaelParameters {
         this.sBox = new RijndaelSBox(modulus);
         this.inverseSBox = new RijndaelInverseSBox(modulus);
         this.rcon = new RijndaelRcon(modulus, keySize.words(), blockSize.words(), rounds());
+        this.tables = new RijndaelTables(modulus, sBox, inverseSBox);
     }
 
     //region Factory methods
@@ -75,6 +77,10 @@ public final class RijndaelParameters {
     public byte[][] rcon() {
         return rcon.value();
     }
+
+    RijndaelTables tables() {
+        return tables;
+    }
     //endregion
 
     public enum KeySize {
@@ -0,0 +1,91 @@
+package dora.crypto.block.rijndael;
+
+/**
+ * Precomputed round tables for the table-driven Rijndael implementation.
+ * <p>
+ * Each encryption table entry combines SubBytes and MixColumns for a single
+ * byte of a column: <code>te0[x] = [2*S(x), S(x), S(x), 3*S(x)]</code>, and
+ * the decryption tables combine InvSubBytes and InvMixColumns in the same
+ * way. <code>te1</code>..<code>te3</code> (<code>td1</code>..<code>td3</code>)
+ * are byte rotations of the first table.
+ */
+final class RijndaelTables {
+
+    final int[] te0 = new int[256];
+    final int[] te1 = new int[256];
+    final int[] te2 = new int[256];
+    final int[] te3 = new int[256];
+
+    final int[] td0 = new int[256];
+    final int[] td1 = new int[256];
+    final int[] td2 = new int[256];
+    final int[] td3 = new int[256];
+
+    final byte[] sBox = new byte[256];
+    final byte[] inverseSBox = new byte[256];
+
+    /**
+     * Initializes the round tables.
+     *
+     * @param modulus     irreducible modulus in GF(2^8)
+     * @param sBox        Rijndael S-Box for the modulus
+     * @param inverseSBox inverse Rijndael S-Box for the modulus
+     */
+    RijndaelTables(short modulus, RijndaelSBox sBox, RijndaelInverseSBox inverseSBox) {
+        int mod = modulus & 0x1ff;
+
+        for (int x = 0; x < 256; x++) {
+            byte s = sBox.lookup((byte) x);
+            byte si = inverseSBox.lookup((byte) x);
+
+            this.sBox[x] = s;
+            this.inverseSBox[x] = si;
+
+            int s1 = s & 0xff;
+            int s2 = xtime(s1, mod);
+            int s3 = s2 ^ s1;
+
+            int e = s2 << 24 | s1 << 16 | s1 << 8 | s3;
+
+            te0[x] = e;
+            te1[x] = Integer.rotateRight(e, 8);
+            te2[x] = Integer.rotateRight(e, 16);
+            te3[x] = Integer.rotateRight(e, 24);
+
+            int i1 = si & 0xff;
+            int i2 = xtime(i1, mod);
+            int i4 = xtime(i2, mod);
+            int i8 = xtime(i4, mod);
+            int i9 = i8 ^ i1;
+            int i11 = i8 ^ i2 ^ i1;
+            int i13 = i8 ^ i4 ^ i1;
+            int i14 = i8 ^ i4 ^ i2;
+
+            int d = i14 << 24 | i9 << 16 | i13 << 8 | i11;
+
+            td0[x] = d;
+            td1[x] = Integer.rotateRight(d, 8);
+            td2[x] = Integer.rotateRight(d, 16);
+            td3[x] = Integer.rotateRight(d, 24);
+        }
+    }
+
+    /**
+     * Applies InvMixColumns to a single column word. Used to transform round
+     * keys for the equivalent inverse cipher.
+     */
+    int inverseMixColumn(int word) {
+        return td0[sBox[word >>> 24] & 0xff]
+             ^ td1[sBox[(word >>> 16) & 0xff] & 0xff]
+             ^ td2[sBox[(word >>> 8) & 0xff] & 0xff]
+             ^ td3[sBox[word & 0xff] & 0xff];
+    }
+
+    /**
+     * Multiplies a polynomial by <code>x</code> modulo <code>mod</code>.
+     */
+    private static int xtime(int b, int mod) {
+        b <<= 1;
+        return (b & 0x100) != 0 ? b ^ mod : b;
+    }
+}
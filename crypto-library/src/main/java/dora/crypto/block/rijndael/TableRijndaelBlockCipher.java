@@ -0,0 +1,325 @@
+package dora.crypto.block.rijndael;
+
+import dora.crypto.block.BlockCipher;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Table-driven Rijndael implementation.
+ * <p>
+ * Produces the same output as {@link RijndaelBlockCipher} for any parameters,
+ * but keeps the state in 32-bit columns and performs SubBytes, ShiftRows and
+ * MixColumns of a round with four table lookups per column. Decryption uses
+ * the equivalent inverse cipher with InvMixColumns applied to the round keys
+ * up front.
+ */
+public final class TableRijndaelBlockCipher implements BlockCipher {
+
+    private final RijndaelParameters parameters;
+    private final RijndaelKeySchedule keySchedule;
+    private final RijndaelTables tables;
+
+    /** Block length in 32-bit columns. */
+    private final int columns;
+    private final int rounds;
+
+    /** Source columns for rows 1-3 of the (inverse) ShiftRows step. */
+    private final int[][] shift;
+    private final int[][] inverseShift;
+
+    private int[] encryptionKeys;
+    private int[] decryptionKeys;
+
+    public TableRijndaelBlockCipher(@NotNull RijndaelParameters parameters) {
+        this.parameters = Objects.requireNonNull(parameters, "parameters");
+        this.keySchedule = new RijndaelKeySchedule(parameters);
+        this.tables = parameters.tables();
+        this.columns = parameters.blockSize().words();
+        this.rounds = parameters.rounds();
+
+        shift = new int[4][columns];
+        inverseShift = new int[4][columns];
+
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < columns; col++) {
+                shift[row][col] = (col + row) % columns;
+                inverseShift[row][col] = (col - row + columns) % columns;
+            }
+        }
+    }
+
+    @Override
+    public int blockSize() {
+        return parameters.blockSize().bytes();
+    }
+
+    @Override
+    public Set<Integer> keySizes() {
+        return keySchedule.keySizes();
+    }
+
+    @Override
+    public void init(byte @NotNull [] key) {
+        Objects.requireNonNull(key, "key");
+
+        byte[][] roundKeys = keySchedule.roundKeys(key);
+        int[] ek = new int[(rounds + 1) * columns];
+        int[] dk = new int[(rounds + 1) * columns];
+
+        for (int round = 0; round <= rounds; round++) {
+            for (int col = 0; col < columns; col++) {
+                int word = getInt(roundKeys[round], col * 4);
+                ek[round * columns + col] = word;
+
+                // The equivalent inverse cipher applies InvMixColumns to the
+                // inner round keys, so that it can be merged into the tables.
+                dk[round * columns + col] = round == 0 || round == rounds
+                    ? word
+                    : tables.inverseMixColumn(word);
+            }
+        }
+
+        encryptionKeys = ek;
+        decryptionKeys = dk;
+    }
+
+    @Override
+    public void destroy() {
+        if (encryptionKeys != null) {
+            Arrays.fill(encryptionKeys, 0);
+            Arrays.fill(decryptionKeys, 0);
+
+            encryptionKeys = null;
+            decryptionKeys = null;
+        }
+    }
+
+    @Override
+    public byte[] encrypt(byte @NotNull [] plaintext) {
+        Objects.requireNonNull(plaintext, "plaintext");
+        if (plaintext.length != blockSize())
+            throw new IllegalArgumentException("Invalid block size");
+
+        byte[] ciphertext = new byte[plaintext.length];
+        encryptBlock(plaintext, 0, ciphertext, 0);
+
+        return ciphertext;
+    }
+
+    @Override
+    public void encryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        int[] ek = encryptionKeys;
+        if (ek == null)
+            throw new IllegalStateException("Cipher is not initialized");
+
+        checkBlock(in, inOff, out, outOff);
+
+        if (columns == 4) {
+            encrypt128(ek, in, inOff, out, outOff);
+        } else {
+            encryptColumns(ek, in, inOff, out, outOff);
+        }
+    }
+
+    @Override
+    public byte[] decrypt(byte @NotNull [] ciphertext) {
+        Objects.requireNonNull(ciphertext, "ciphertext");
+        if (ciphertext.length != blockSize())
+            throw new IllegalArgumentException("Invalid block size");
+
+        byte[] plaintext = new byte[ciphertext.length];
+        decryptBlock(ciphertext, 0, plaintext, 0);
+
+        return plaintext;
+    }
+
+    @Override
+    public void decryptBlock(byte @NotNull [] in, int inOff, byte @NotNull [] out, int outOff) {
+        int[] dk = decryptionKeys;
+        if (dk == null)
+            throw new IllegalStateException("Cipher is not initialized");
+
+        checkBlock(in, inOff, out, outOff);
+
+        if (columns == 4) {
+            decrypt128(dk, in, inOff, out, outOff);
+        } else {
+            decryptColumns(dk, in, inOff, out, outOff);
+        }
+    }
+
+    private void checkBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        Objects.requireNonNull(in, "input");
+        Objects.requireNonNull(out, "output");
+        Objects.checkFromIndexSize(inOff, blockSize(), in.length);
+        Objects.checkFromIndexSize(outOff, blockSize(), out.length);
+    }
+
+    //region 128-bit blocks
+    private void encrypt128(int[] ek, byte[] in, int inOff, byte[] out, int outOff) {
+        int[] te0 = tables.te0, te1 = tables.te1, te2 = tables.te2, te3 = tables.te3;
+
+        int s0 = getInt(in, inOff) ^ ek[0];
+        int s1 = getInt(in, inOff + 4) ^ ek[1];
+        int s2 = getInt(in, inOff + 8) ^ ek[2];
+        int s3 = getInt(in, inOff + 12) ^ ek[3];
+
+        int k = 4;
+
+        for (int round = 1; round < rounds; round++) {
+            int t0 = te0[s0 >>> 24] ^ te1[(s1 >>> 16) & 0xff] ^ te2[(s2 >>> 8) & 0xff] ^ te3[s3 & 0xff] ^ ek[k];
+            int t1 = te0[s1 >>> 24] ^ te1[(s2 >>> 16) & 0xff] ^ te2[(s3 >>> 8) & 0xff] ^ te3[s0 & 0xff] ^ ek[k + 1];
+            int t2 = te0[s2 >>> 24] ^ te1[(s3 >>> 16) & 0xff] ^ te2[(s0 >>> 8) & 0xff] ^ te3[s1 & 0xff] ^ ek[k + 2];
+            int t3 = te0[s3 >>> 24] ^ te1[(s0 >>> 16) & 0xff] ^ te2[(s1 >>> 8) & 0xff] ^ te3[s2 & 0xff] ^ ek[k + 3];
+
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+            k += 4;
+        }
+
+        byte[] sBox = tables.sBox;
+
+        putInt(out, outOff, subColumn(sBox, s0, s1, s2, s3) ^ ek[k]);
+        putInt(out, outOff + 4, subColumn(sBox, s1, s2, s3, s0) ^ ek[k + 1]);
+        putInt(out, outOff + 8, subColumn(sBox, s2, s3, s0, s1) ^ ek[k + 2]);
+        putInt(out, outOff + 12, subColumn(sBox, s3, s0, s1, s2) ^ ek[k + 3]);
+    }
+
+    private void decrypt128(int[] dk, byte[] in, int inOff, byte[] out, int outOff) {
+        int[] td0 = tables.td0, td1 = tables.td1, td2 = tables.td2, td3 = tables.td3;
+
+        int k = rounds * 4;
+
+        int s0 = getInt(in, inOff) ^ dk[k];
+        int s1 = getInt(in, inOff + 4) ^ dk[k + 1];
+        int s2 = getInt(in, inOff + 8) ^ dk[k + 2];
+        int s3 = getInt(in, inOff + 12) ^ dk[k + 3];
+
+        for (int round = rounds - 1; round >= 1; round--) {
+            k -= 4;
+
+            int t0 = td0[s0 >>> 24] ^ td1[(s3 >>> 16) & 0xff] ^ td2[(s2 >>> 8) & 0xff] ^ td3[s1 & 0xff] ^ dk[k];
+            int t1 = td0[s1 >>> 24] ^ td1[(s0 >>> 16) & 0xff] ^ td2[(s3 >>> 8) & 0xff] ^ td3[s2 & 0xff] ^ dk[k + 1];
+            int t2 = td0[s2 >>> 24] ^ td1[(s1 >>> 16) & 0xff] ^ td2[(s0 >>> 8) & 0xff] ^ td3[s3 & 0xff] ^ dk[k + 2];
+            int t3 = td0[s3 >>> 24] ^ td1[(s2 >>> 16) & 0xff] ^ td2[(s1 >>> 8) & 0xff] ^ td3[s0 & 0xff] ^ dk[k + 3];
+
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+        }
+
+        byte[] inverseSBox = tables.inverseSBox;
+
+        putInt(out, outOff, subColumn(inverseSBox, s0, s3, s2, s1) ^ dk[0]);
+        putInt(out, outOff + 4, subColumn(inverseSBox, s1, s0, s3, s2) ^ dk[1]);
+        putInt(out, outOff + 8, subColumn(inverseSBox, s2, s1, s0, s3) ^ dk[2]);
+        putInt(out, outOff + 12, subColumn(inverseSBox, s3, s2, s1, s0) ^ dk[3]);
+    }
+    //endregion
+
+    //region 192-bit and 256-bit blocks
+    private void encryptColumns(int[] ek, byte[] in, int inOff, byte[] out, int outOff) {
+        int[] te0 = tables.te0, te1 = tables.te1, te2 = tables.te2, te3 = tables.te3;
+        int[] shift1 = shift[1], shift2 = shift[2], shift3 = shift[3];
+
+        int[] s = new int[columns];
+        int[] t = new int[columns];
+
+        for (int col = 0; col < columns; col++) {
+            s[col] = getInt(in, inOff + col * 4) ^ ek[col];
+        }
+
+        int k = columns;
+
+        for (int round = 1; round < rounds; round++) {
+            for (int col = 0; col < columns; col++) {
+                t[col] = te0[s[col] >>> 24]
+                       ^ te1[(s[shift1[col]] >>> 16) & 0xff]
+                       ^ te2[(s[shift2[col]] >>> 8) & 0xff]
+                       ^ te3[s[shift3[col]] & 0xff]
+                       ^ ek[k + col];
+            }
+
+            int[] temp = s;
+            s = t;
+            t = temp;
+            k += columns;
+        }
+
+        byte[] sBox = tables.sBox;
+
+        for (int col = 0; col < columns; col++) {
+            int column = subColumn(sBox, s[col], s[shift1[col]], s[shift2[col]], s[shift3[col]]);
+            putInt(out, outOff + col * 4, column ^ ek[k + col]);
+        }
+    }
+
+    private void decryptColumns(int[] dk, byte[] in, int inOff, byte[] out, int outOff) {
+        int[] td0 = tables.td0, td1 = tables.td1, td2 = tables.td2, td3 = tables.td3;
+        int[] shift1 = inverseShift[1], shift2 = inverseShift[2], shift3 = inverseShift[3];
+
+        int[] s = new int[columns];
+        int[] t = new int[columns];
+
+        int k = rounds * columns;
+
+        for (int col = 0; col < columns; col++) {
+            s[col] = getInt(in, inOff + col * 4) ^ dk[k + col];
+        }
+
+        for (int round = rounds - 1; round >= 1; round--) {
+            k -= columns;
+
+            for (int col = 0; col < columns; col++) {
+                t[col] = td0[s[col] >>> 24]
+                       ^ td1[(s[shift1[col]] >>> 16) & 0xff]
+                       ^ td2[(s[shift2[col]] >>> 8) & 0xff]
+                       ^ td3[s[shift3[col]] & 0xff]
+                       ^ dk[k + col];
+            }
+
+            int[] temp = s;
+            s = t;
+            t = temp;
+        }
+
+        byte[] inverseSBox = tables.inverseSBox;
+
+        for (int col = 0; col < columns; col++) {
+            int column = subColumn(inverseSBox, s[col], s[shift1[col]], s[shift2[col]], s[shift3[col]]);
+            putInt(out, outOff + col * 4, column ^ dk[col]);
+        }
+    }
+    //endregion
+
+    /**
+     * Substitutes a column assembled from row <code>i</code> of column
+     * <code>ci</code>. Used in the final round, which has no MixColumns step.
+     */
+    private static int subColumn(byte[] box, int c0, int c1, int c2, int c3) {
+        return (box[c0 >>> 24] & 0xff) << 24
+             | (box[(c1 >>> 16) & 0xff] & 0xff) << 16
+             | (box[(c2 >>> 8) & 0xff] & 0xff) << 8
+             | (box[c3 & 0xff] & 0xff);
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24
+             | (bytes[offset + 1] & 0xff) << 16
+             | (bytes[offset + 2] & 0xff) << 8
+             | (bytes[offset + 3] & 0xff);
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
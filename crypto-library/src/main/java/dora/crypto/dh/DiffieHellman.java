@@ -1,6 +1,7 @@
 package dora.crypto.dh;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
@@ -14,6 +15,9 @@ public final class DiffieHellman {
     private final BigInteger g;
     private final SecureRandom random;
 
+    /** Group of <code>p</code> and <code>g</code>, if the exchange was created from one. */
+    private final @Nullable DiffieHellmanGroup group;
+
     private BigInteger a;
     private BigInteger s;
 
@@ -21,19 +25,33 @@ public final class DiffieHellman {
         @NotNull BigInteger p,
         @NotNull BigInteger g,
         @NotNull SecureRandom random
+    ) {
+        this(p, g, random, null);
+    }
+
+    private DiffieHellman(
+        @NotNull BigInteger p,
+        @NotNull BigInteger g,
+        @NotNull SecureRandom random,
+        @Nullable DiffieHellmanGroup group
     ) {
         this.p = requireNonNull(p, "modulus");
         this.g = requireNonNull(g, "base");
         this.random = requireNonNull(random, "random");
+        this.group = group;
     }
 
     public DiffieHellman(@NotNull BigInteger p, @NotNull BigInteger g) {
         this(p, g, new SecureRandom());
     }
 
+    /**
+     * Creates a key exchange in a group. Public keys in the predefined groups
+     * are computed with the group's fixed-base table.
+     */
     public static DiffieHellman of(@NotNull DiffieHellmanGroup group) {
         requireNonNull(group, "group");
-        return new DiffieHellman(group.modulus(), group.base());
+        return new DiffieHellman(group.modulus(), group.base(), new SecureRandom(), group);
     }
 
     /**
@@ -48,7 +66,8 @@ public final class DiffieHellman {
         } while (a.compareTo(TWO) < 0 || a.compareTo(p.subtract(TWO)) > 0);
 
         // Compute `A = g^a mod p`
-        return g.modPow(a, p);
+        FixedBaseExponentiation fixedBase = group != null ? group.fixedBase() : null;
+        return fixedBase != null ? fixedBase.modPow(a) : g.modPow(a, p);
     }
 
     /**
@@ -1,8 +1,11 @@
 package dora.crypto.dh;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static java.util.Objects.requireNonNull;
 
@@ -16,6 +19,31 @@ public record DiffieHellmanGroup(
         requireNonNull(modulus, "modulus");
     }
 
+    /**
+     * Returns the table of powers of the base for exponents up to the modulus
+     * size, if this is one of the predefined groups. The table is built on
+     * first use and shared across threads. Other groups have no table and
+     * return <code>null</code>.
+     */
+    @Nullable FixedBaseExponentiation fixedBase() {
+        int index = PREDEFINED.indexOf(this);
+        if (index < 0) return null;
+
+        FixedBaseExponentiation fixedBase = FIXED_BASES.get(index);
+
+        if (fixedBase == null) {
+            // Built without holding a lock. If another thread wins the race,
+            // its table is used and this one is dropped.
+            fixedBase = new FixedBaseExponentiation(modulus, base, modulus.bitLength());
+
+            if (!FIXED_BASES.compareAndSet(index, null, fixedBase)) {
+                fixedBase = FIXED_BASES.get(index);
+            }
+        }
+
+        return fixedBase;
+    }
+
     /**
      * Creates a Diffie-Hellman group from a hex-encoded modulus and integer base.
      */
@@ -194,4 +222,13 @@ public record DiffieHellmanGroup(
         """,
         2
     );
+
+    /** Groups whose fixed-base tables are kept. */
+    private static final List<DiffieHellmanGroup> PREDEFINED = List.of(
+        FFDHE2048, FFDHE3072, FFDHE4096, FFDHE6144, FFDHE8192
+    );
+
+    /** Fixed-base tables of the predefined groups, by index in {@link #PREDEFINED}. */
+    private static final AtomicReferenceArray<FixedBaseExponentiation> FIXED_BASES =
+        new AtomicReferenceArray<>(PREDEFINED.size());
 }
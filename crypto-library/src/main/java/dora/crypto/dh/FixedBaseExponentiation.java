@@ -0,0 +1,330 @@
+package dora.crypto.dh;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Modular exponentiation of a fixed base with the Lim-Lee comb method (HAC,
+ * algorithm 14.117).
+ * <p>
+ * The exponent is laid out as {@value #COMB_ROWS} rows of
+ * <code>rowBits</code> bits, and every row is split into
+ * {@value #COMB_BLOCKS} blocks of <code>blockBits</code> bits. A table entry
+ * is the product of the base raised to <code>2^(i * rowBits + s *
+ * blockBits)</code> over the rows <code>i</code> set in its index, so one
+ * multiplication accounts for a whole column of exponent bits. An
+ * exponentiation takes <code>blockBits</code> squarings and up to
+ * {@value #COMB_BLOCKS} * <code>blockBits</code> multiplications, about
+ * a quarter of the general case.
+ * <p>
+ * Numbers are stored in Montgomery form as little-endian arrays of 64-bit
+ * limbs. Multiplication uses the coarsely integrated operand scanning (CIOS)
+ * method, which replaces division by the modulus with shifts by whole limbs.
+ * It's slower than the intrinsified multiplication of
+ * {@link BigInteger#modPow}, but the table saves enough multiplications to
+ * make up for it.
+ * <p>
+ * The table takes {@value #COMB_BLOCKS} * 2^{@value #COMB_ROWS} numbers;
+ * building it costs about one exponentiation. Instances are immutable and can
+ * be shared across threads.
+ */
+final class FixedBaseExponentiation {
+
+    /** Rows of the comb: bits combined into one table index. */
+    private static final int COMB_ROWS = 8;
+    /** Column blocks of the comb, each with its own table. */
+    private static final int COMB_BLOCKS = 2;
+
+    private final BigInteger modulus;
+    private final BigInteger base;
+    private final int exponentBits;
+
+    /** Modulus limbs. */
+    private final long[] n;
+    /** Number of limbs. */
+    private final int size;
+    /** <code>-n^-1 mod 2^64</code>. */
+    private final long nPrime;
+
+    private final int rowBits;
+    private final int blockBits;
+
+    /** Entries <code>[block][index]</code> in Montgomery form; index 0 is unused. */
+    private final long[][][] table;
+
+    /**
+     * Precomputes powers of <code>base</code> modulo an odd
+     * <code>modulus</code> for exponents of up to <code>exponentBits</code>
+     * bits.
+     */
+    FixedBaseExponentiation(@NotNull BigInteger modulus, @NotNull BigInteger base, int exponentBits) {
+        requireNonNull(modulus, "modulus");
+        requireNonNull(base, "base");
+
+        if (modulus.signum() <= 0 || !modulus.testBit(0) || modulus.equals(BigInteger.ONE))
+            throw new ArithmeticException("modulus must be odd and greater than one");
+        if (exponentBits < 1)
+            throw new IllegalArgumentException("exponentBits must be positive");
+
+        this.modulus = modulus;
+        this.base = base;
+        this.exponentBits = exponentBits;
+
+        size = Math.ceilDiv(modulus.bitLength(), Long.SIZE);
+        n = toLimbs(modulus, size);
+        nPrime = -inverse(n[0]);
+
+        rowBits = Math.ceilDiv(exponentBits, COMB_ROWS);
+        blockBits = Math.ceilDiv(rowBits, COMB_BLOCKS);
+
+        long[] scratch = new long[size + 2];
+
+        // R^2 mod n converts the base into Montgomery form.
+        long[] rSquared = toLimbs(BigInteger.ONE.shiftLeft(2 * size * Long.SIZE).mod(modulus), size);
+
+        // Base raised to 2^(i * rowBits + s * blockBits), in the order of squaring.
+        long[][][] powers = new long[COMB_BLOCKS][COMB_ROWS][];
+        long[] power = multiply(toLimbs(base.mod(modulus), size), rSquared, scratch);
+
+        for (int i = 0; i < COMB_ROWS; i++) {
+            for (int s = 0; s < COMB_BLOCKS; s++) {
+                powers[s][i] = power;
+
+                int squarings = s < COMB_BLOCKS - 1 ? blockBits : rowBits - s * blockBits;
+
+                for (int k = 0; k < squarings; k++) {
+                    power = multiply(power, power, scratch);
+                }
+            }
+        }
+
+        table = new long[COMB_BLOCKS][1 << COMB_ROWS][];
+
+        for (int s = 0; s < COMB_BLOCKS; s++) {
+            for (int index = 1; index < 1 << COMB_ROWS; index++) {
+                int row = 31 - Integer.numberOfLeadingZeros(index);
+                int rest = index & ~(1 << row);
+
+                table[s][index] = rest == 0
+                    ? powers[s][row]
+                    : multiply(table[s][rest], powers[s][row], scratch);
+            }
+        }
+    }
+
+    BigInteger modulus() {
+        return modulus;
+    }
+
+    BigInteger base() {
+        return base;
+    }
+
+    /**
+     * Raises the base to the power of <code>exp</code> modulo the modulus.
+     * The exponent may not be negative; exponents longer than the table fall
+     * back to {@link BigInteger#modPow}.
+     */
+    BigInteger modPow(@NotNull BigInteger exp) {
+        requireNonNull(exp, "exponent");
+
+        if (exp.signum() < 0)
+            throw new ArithmeticException("exponent must not be negative");
+        if (exp.signum() == 0)
+            return BigInteger.ONE;
+        if (exp.bitLength() > exponentBits)
+            return base.modPow(exp, modulus);
+
+        long[] exponent = toLimbs(exp, Math.ceilDiv(exponentBits, Long.SIZE));
+        int exponentLength = exp.bitLength();
+
+        long[] scratch = new long[size + 2];
+        long[] result = null;
+        long[] temp = new long[size];
+
+        for (int k = blockBits - 1; k >= 0; k--) {
+            if (result != null) {
+                multiplyInto(result, result, temp, scratch);
+
+                long[] swap = result;
+                result = temp;
+                temp = swap;
+            }
+
+            for (int s = COMB_BLOCKS - 1; s >= 0; s--) {
+                int offset = s * blockBits + k;
+
+                // Only the last block may be shorter.
+                if (offset >= rowBits) continue;
+
+                int index = 0;
+
+                for (int i = COMB_ROWS - 1; i >= 0; i--) {
+                    int bit = i * rowBits + offset;
+                    index = (index << 1) | (bit < exponentLength && testBit(exponent, bit) ? 1 : 0);
+                }
+
+                if (index == 0) continue;
+
+                if (result == null) {
+                    result = table[s][index].clone();
+                } else {
+                    multiplyInto(result, table[s][index], temp, scratch);
+
+                    long[] swap = result;
+                    result = temp;
+                    temp = swap;
+                }
+            }
+        }
+
+        // Convert back from Montgomery form.
+        long[] unit = new long[size];
+        unit[0] = 1;
+
+        return fromLimbs(multiply(result, unit, scratch));
+    }
+
+    //region Montgomery multiplication
+    private long[] multiply(long[] a, long[] b, long[] scratch) {
+        long[] result = new long[size];
+        multiplyInto(a, b, result, scratch);
+        return result;
+    }
+
+    /**
+     * Computes <code>a * b * R^-1 mod n</code> into <code>result</code>,
+     * which must not be <code>a</code> or <code>b</code>. <code>t</code>
+     * holds <code>size + 2</code> limbs of intermediate results.
+     */
+    private void multiplyInto(long[] a, long[] b, long[] result, long[] t) {
+        Arrays.fill(t, 0);
+
+        for (int i = 0; i < size; i++) {
+            long ai = a[i];
+            long carry = 0;
+
+            // t += a[i] * b
+            for (int j = 0; j < size; j++) {
+                long product = ai * b[j];
+                long high = Math.unsignedMultiplyHigh(ai, b[j]);
+
+                long sum = product + t[j];
+                if (Long.compareUnsigned(sum, product) < 0) high++;
+
+                t[j] = sum + carry;
+                if (Long.compareUnsigned(t[j], sum) < 0) high++;
+
+                carry = high;
+            }
+
+            long sum = t[size] + carry;
+            t[size + 1] = Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+            t[size] = sum;
+
+            // t = (t + m * n) / 2^64, where m makes the lowest limb zero.
+            long m = t[0] * nPrime;
+
+            long product = m * n[0];
+            carry = Math.unsignedMultiplyHigh(m, n[0]);
+            if (Long.compareUnsigned(product + t[0], product) < 0) carry++;
+
+            for (int j = 1; j < size; j++) {
+                product = m * n[j];
+                long high = Math.unsignedMultiplyHigh(m, n[j]);
+
+                sum = product + t[j];
+                if (Long.compareUnsigned(sum, product) < 0) high++;
+
+                t[j - 1] = sum + carry;
+                if (Long.compareUnsigned(t[j - 1], sum) < 0) high++;
+
+                carry = high;
+            }
+
+            sum = t[size] + carry;
+            t[size - 1] = sum;
+            t[size] = t[size + 1] + (Long.compareUnsigned(sum, carry) < 0 ? 1 : 0);
+        }
+
+        // The result is less than 2n; subtract n once if needed.
+        if (t[size] != 0 || compare(t, n) >= 0) {
+            long borrow = 0;
+
+            for (int j = 0; j < size; j++) {
+                long difference = t[j] - n[j] - borrow;
+                borrow = Long.compareUnsigned(t[j], n[j]) < 0 || (borrow != 0 && t[j] == n[j]) ? 1 : 0;
+                result[j] = difference;
+            }
+        } else {
+            System.arraycopy(t, 0, result, 0, size);
+        }
+    }
+
+    /**
+     * Compares the lowest <code>size</code> limbs of <code>a</code> with
+     * <code>b</code>.
+     */
+    private int compare(long[] a, long[] b) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (a[i] != b[i]) {
+                return Long.compareUnsigned(a[i], b[i]);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Computes the inverse of an odd number modulo 2^64 with Newton's
+     * iteration; every step doubles the number of correct bits.
+     */
+    private static long inverse(long x) {
+        long inverse = x;
+
+        for (int i = 0; i < 6; i++) {
+            inverse *= 2 - x * inverse;
+        }
+
+        return inverse;
+    }
+    //endregion
+
+    //region Conversion
+    private static long[] toLimbs(BigInteger value, int size) {
+        long[] limbs = new long[size];
+        byte[] bytes = value.toByteArray();
+
+        for (int i = 0; i < bytes.length && i / Long.BYTES < size; i++) {
+            int limb = i / Long.BYTES;
+            int shift = (i % Long.BYTES) * Byte.SIZE;
+
+            limbs[limb] |= (bytes[bytes.length - 1 - i] & 0xffL) << shift;
+        }
+
+        return limbs;
+    }
+
+    private static BigInteger fromLimbs(long[] limbs) {
+        byte[] bytes = new byte[limbs.length * Long.BYTES];
+
+        for (int i = 0; i < limbs.length; i++) {
+            long limb = limbs[limbs.length - 1 - i];
+
+            for (int j = 0; j < Long.BYTES; j++) {
+                bytes[i * Long.BYTES + j] = (byte) (limb >>> (Long.SIZE - Byte.SIZE * (j + 1)));
+            }
+        }
+
+        return new BigInteger(1, bytes);
+    }
+
+    private static boolean testBit(long[] limbs, int bit) {
+        return (limbs[bit >>> 6] & (1L << bit)) != 0;
+    }
+    //endregion
+}
@@ -0,0 +1,91 @@
+package dora.crypto.rsa;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Sieve of Eratosthenes over a window of odd numbers <code>base, base + 2,
+ * base + 4, ...</code>.
+ * <p>
+ * Numbers divisible by a small prime are crossed out up front, which costs a
+ * single-word division per small prime for the whole window. Only the
+ * remaining candidates need a probabilistic test, and most composites never
+ * reach a modular exponentiation.
+ */
+final class PrimeSieve {
+
+    /** Odd primes below 2^13. */
+    private static final int[] SMALL_PRIMES = smallPrimes(1 << 13);
+
+    private final BigInteger base;
+    private final int length;
+
+    /** Indices <code>i</code> of the numbers <code>base + 2i</code> with a small factor. */
+    private final BitSet composite;
+
+    /** Index of the next candidate. */
+    private int next;
+
+    /**
+     * @param base   first number of the window, odd and greater than the
+     *               small primes
+     * @param length number of odd numbers in the window
+     */
+    PrimeSieve(@NotNull BigInteger base, int length) {
+        requireNonNull(base, "base");
+
+        if (!base.testBit(0) || base.bitLength() <= 13)
+            throw new IllegalArgumentException("base must be odd and greater than the small primes");
+        if (length < 1)
+            throw new IllegalArgumentException("length must be positive");
+
+        this.base = base;
+        this.length = length;
+        this.composite = new BitSet(length);
+
+        for (int prime : SMALL_PRIMES) {
+            int remainder = base.mod(BigInteger.valueOf(prime)).intValue();
+
+            // base + 2i = 0 (mod prime) <=> i = -remainder / 2 (mod prime).
+            int start = (prime - remainder) % prime;
+            if ((start & 1) != 0) start += prime;
+
+            for (int i = start / 2; i < length; i += prime) {
+                composite.set(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the next number of the window without small factors, or
+     * <code>null</code> if the window is exhausted.
+     */
+    @Nullable BigInteger nextCandidate() {
+        next = composite.nextClearBit(next);
+        if (next >= length) return null;
+
+        return base.add(BigInteger.valueOf(2L * next++));
+    }
+
+    private static int[] smallPrimes(int bound) {
+        BitSet composite = new BitSet(bound);
+
+        for (int i = 3; i * i < bound; i += 2) {
+            if (!composite.get(i)) {
+                for (int j = i * i; j < bound; j += 2 * i) {
+                    composite.set(j);
+                }
+            }
+        }
+
+        return IntStream.iterate(3, (i) -> i < bound, (i) -> i + 2)
+            .filter((i) -> !composite.get(i))
+            .toArray();
+    }
+}
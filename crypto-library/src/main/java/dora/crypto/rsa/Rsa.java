@@ -1,5 +1,6 @@
 package dora.crypto.rsa;
 
+import dora.crypto.rsa.primality.BailliePswPrimalityTest;
 import dora.crypto.rsa.primality.FermatPrimalityTest;
 import dora.crypto.rsa.primality.MillerRabinPrimalityTest;
 import dora.crypto.rsa.primality.PrimalityTest;
@@ -9,8 +10,16 @@ import org.jetbrains.annotations.Nullable;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static java.math.BigInteger.ONE;
 import static java.math.BigInteger.TWO;
@@ -26,13 +35,29 @@ public final class Rsa {
     /** Private exponent. */
     private final BigInteger d;
 
+    /** CRT form of the private key, if known. */
+    private final @Nullable CrtKey crt;
+
+    private final ForkJoinPool pool;
+
     public Rsa(@NotNull PrimalityTestType primalityTest, double certainty, int primeSize) {
-        var generator = new KeyPairGenerator(primalityTest, certainty, primeSize);
-        var keyPair = generator.generate();
+        this(new KeyPairGenerator(primalityTest, certainty, primeSize).generate(), null);
+    }
+
+    /**
+     * Creates a cipher from a key pair. If the key pair has a CRT key, the
+     * exponentiations modulo every prime of a private operation run in
+     * parallel on <code>pool</code>.
+     */
+    public Rsa(@NotNull KeyPairGenerator.KeyPair keyPair, @Nullable ForkJoinPool pool) {
+        Objects.requireNonNull(keyPair, "key pair");
 
         n = keyPair.n();
         e = keyPair.e();
         d = keyPair.d();
+        crt = keyPair.crt();
+
+        this.pool = Objects.requireNonNullElseGet(pool, ForkJoinPool::commonPool);
     }
 
     public boolean canEncrypt(@NotNull BigInteger plaintext) {
@@ -51,14 +76,75 @@ public final class Rsa {
 
     public BigInteger decrypt(@NotNull BigInteger ciphertext) {
         Objects.requireNonNull(ciphertext, "ciphertext");
-        return math.modPow(ciphertext, d, n);
+
+        if (crt == null) {
+            return math.modPow(ciphertext, d, n);
+        }
+
+        return decryptCrt(ciphertext);
+    }
+
+    /**
+     * Decrypts with the CRT key (RFC 8017, section 5.1.2): exponentiations
+     * modulo the primes are several times cheaper than one modulo
+     * <code>n</code>, and they run in parallel.
+     */
+    private BigInteger decryptCrt(BigInteger ciphertext) {
+        List<BigInteger> primes = crt.primes();
+        List<BigInteger> exponents = crt.exponents();
+        List<BigInteger> coefficients = crt.coefficients();
+
+        // m_i = c^d_i mod r_i; the first one on the calling thread.
+        List<CompletableFuture<BigInteger>> tasks = new ArrayList<>();
+
+        for (int i = 1; i < primes.size(); i++) {
+            int index = i;
+
+            tasks.add(CompletableFuture.supplyAsync(
+                () -> math.modPow(ciphertext, exponents.get(index), primes.get(index)),
+                pool
+            ));
+        }
+
+        BigInteger[] residues = new BigInteger[primes.size()];
+        residues[0] = math.modPow(ciphertext, exponents.get(0), primes.get(0));
+
+        try {
+            for (int i = 1; i < primes.size(); i++) {
+                residues[i] = tasks.get(i - 1).join();
+            }
+        } catch (CompletionException failure) {
+            if (failure.getCause() instanceof RuntimeException cause) throw cause;
+            if (failure.getCause() instanceof Error cause) throw cause;
+            throw failure;
+        }
+
+        BigInteger p = primes.get(0);
+        BigInteger q = primes.get(1);
+
+        // m = m_2 + q * ((m_1 - m_2) * qInv mod p)
+        BigInteger h = residues[0].subtract(residues[1]).multiply(crt.qInv()).mod(p);
+        BigInteger m = residues[1].add(q.multiply(h));
+        BigInteger r = p.multiply(q);
+
+        // m = m + R * ((m_i - m) * t_i mod r_i), R = r_1 * ... * r_(i-1)
+        for (int i = 2; i < primes.size(); i++) {
+            BigInteger prime = primes.get(i);
+
+            h = residues[i].subtract(m).multiply(coefficients.get(i - 1)).mod(prime);
+            m = m.add(r.multiply(h));
+            r = r.multiply(prime);
+        }
+
+        return m;
     }
 
     public enum PrimalityTestType {
 
         FERMAT(FermatPrimalityTest::new),
         MILLER_RABIN(MillerRabinPrimalityTest::new),
-        SOLOVAY_STRASSEN(SolovayStrassenPrimalityTest::new);
+        SOLOVAY_STRASSEN(SolovayStrassenPrimalityTest::new),
+        BAILLIE_PSW(BailliePswPrimalityTest::new);
 
         private final Supplier<PrimalityTest> creator;
 
@@ -75,74 +161,263 @@ public final class Rsa {
 
         private static final BigInteger DEFAULT_EXPONENT = BigInteger.valueOf(65537);
 
+        /** Size of the shortest prime of a multi-prime modulus. */
+        private static final int MIN_PRIME_SIZE = 256;
+
         private final PrimalityTest primalityTest;
         private final double certainty;
-        private final int primeSize;
+        private final int modulusSize;
+        private final int primeCount;
+        /** Size of the shortest prime; the others are at most one bit longer. */
+        private final int minPrimeSize;
+        private final ForkJoinPool pool;
 
         protected final SecureRandom random = new SecureRandom();
         protected final RsaMath math = new RsaMath();
 
+        /**
+         * Creates a generator of two-prime keys.
+         *
+         * @param primeSize size of each of the two primes; the modulus is
+         *                  twice as long
+         * @see #ofPrimeSize
+         */
         public KeyPairGenerator(@NotNull PrimalityTestType primalityTest, double certainty, int primeSize) {
+            this(primalityTest, certainty, primeSize * 2, 2, null);
+        }
+
+        /**
+         * @param modulusSize size of the modulus, split evenly across the
+         *                    primes
+         * @param primeCount  number of primes of the modulus; with more than
+         *                    two primes of a modulus of the same size, private
+         *                    operations are cheaper still (multi-prime RSA)
+         * @param pool        pool that searches for primes in parallel
+         * @see #ofModulusSize
+         */
+        protected KeyPairGenerator(
+            @NotNull PrimalityTestType primalityTest,
+            double certainty,
+            int modulusSize,
+            int primeCount,
+            @Nullable ForkJoinPool pool
+        ) {
             if (!(certainty >= 0.5 && certainty < 1.0))
                 throw new IllegalArgumentException("certainty must be in [0.5; 1)");
-            if (primeSize < 512)
-                throw new IllegalArgumentException("insecure prime size");
+            if (modulusSize < 1024)
+                throw new IllegalArgumentException("insecure modulus size");
+            if (primeCount < 2)
+                throw new IllegalArgumentException("at least two primes are required");
+            if (modulusSize / primeCount < MIN_PRIME_SIZE)
+                throw new IllegalArgumentException("too many primes for the modulus size");
 
             this.primalityTest = Objects.requireNonNull(primalityTest.create(), "primality test");
             this.certainty = certainty;
-            this.primeSize = primeSize;
+            this.modulusSize = modulusSize;
+            this.primeCount = primeCount;
+            this.minPrimeSize = modulusSize / primeCount;
+            this.pool = Objects.requireNonNullElseGet(pool, ForkJoinPool::commonPool);
+        }
+
+        /**
+         * Creates a generator of two-prime keys whose primes are
+         * <code>primeSize</code> bits long.
+         */
+        public static KeyPairGenerator ofPrimeSize(
+            @NotNull PrimalityTestType primalityTest,
+            double certainty,
+            int primeSize
+        ) {
+            return new KeyPairGenerator(primalityTest, certainty, primeSize);
+        }
+
+        /**
+         * Creates a generator of keys whose modulus is
+         * <code>modulusSize</code> bits long and is the product of
+         * <code>primeCount</code> primes.
+         *
+         * @param pool pool that searches for primes in parallel
+         */
+        public static KeyPairGenerator ofModulusSize(
+            @NotNull PrimalityTestType primalityTest,
+            double certainty,
+            int modulusSize,
+            int primeCount,
+            @Nullable ForkJoinPool pool
+        ) {
+            return new KeyPairGenerator(primalityTest, certainty, modulusSize, primeCount, pool);
         }
 
         public KeyPair generate() {
             BigInteger e = DEFAULT_EXPONENT;
 
             // NB: from JCE's RSAKeyPairGenerator.
-            int keySize = primeSize * 2;
-            int pqDiffSize = Math.ceilDiv(keySize, 2) - 100;
+            int pqDiffSize = minPrimeSize - 100;
 
             while (true) {
-                BigInteger p = nextProbablePrime();
-                BigInteger q;
+                List<BigInteger> primes = nextPrimes(TWO.pow(pqDiffSize));
+                BigInteger n = primes.stream().reduce(ONE, BigInteger::multiply);
 
-                // Generate `q` until it's reasonably distant from `p` to prevent Fermat's attack.
-                do {
-                    q = nextProbablePrime();
-                } while (p.subtract(q).abs().compareTo(TWO.pow(pqDiffSize)) <= 0);
+                // Products of three or more primes may fall a bit short.
+                if (n.bitLength() != modulusSize) continue;
 
-                BigInteger n = p.multiply(q);
+                KeyPair keyPair = primeCount == 2
+                    ? createKeyPair(n, e, primes.get(0), primes.get(1))
+                    : createKeyPair(n, e, primes);
 
-                KeyPair keyPair = createKeyPair(n, e, p, q);
-                if (keyPair != null) return keyPair;
+                if (keyPair != null) {
+                    return keyPair.crt() != null
+                        ? keyPair
+                        : keyPair.withCrt(CrtKey.of(keyPair.d(), primes));
+                }
             }
         }
 
         protected @Nullable KeyPair createKeyPair(BigInteger n, BigInteger e, BigInteger p, BigInteger q) {
-            BigInteger phi = p.subtract(ONE).multiply(q.subtract(ONE));
+            return createKeyPair(n, e, List.of(p, q));
+        }
+
+        protected @Nullable KeyPair createKeyPair(BigInteger n, BigInteger e, List<BigInteger> primes) {
+            BigInteger phi = primes.stream()
+                .map((prime) -> prime.subtract(ONE))
+                .reduce(ONE, BigInteger::multiply);
+
             if (!math.gcd(phi, e).equals(ONE))
                 /* `phi` and `e` are not coprime, try again */
                 return null;
 
             BigInteger d = math.modInverse(e, phi);
-            if (d.compareTo(TWO.pow(p.bitLength())) <= 0)
+            if (d.compareTo(TWO.pow(modulusSize / 2)) <= 0)
                 /* prevent Wiener's attack */
                 return null;
 
-            return new KeyPair(n, d, e);
+            return new KeyPair(n, e, d);
         }
 
-        private BigInteger nextProbablePrime() {
-            BigInteger p;
+        /**
+         * Finds {@link #primeCount} primes whose sizes add up to the modulus
+         * size and that differ by more than <code>minDistance</code>
+         * (otherwise Fermat's factorization breaks the key). Every worker of
+         * the pool searches for primes, and the searches stop once enough
+         * primes are found.
+         */
+        private List<BigInteger> nextPrimes(BigInteger minDistance) {
+            List<BigInteger> primes = new ArrayList<>();
+            CompletableFuture<List<BigInteger>> result = new CompletableFuture<>();
+
+            Runnable search = () -> {
+                try {
+                    while (true) {
+                        int size;
+
+                        synchronized (primes) {
+                            if (result.isDone()) return;
+                            size = nextPrimeSize(primes);
+                        }
+
+                        BigInteger prime = nextProbablePrime(size, result::isDone);
+                        if (prime == null) return;
+
+                        synchronized (primes) {
+                            if (result.isDone()) return;
+
+                            if (neededPrimes(primes, size) > 0 && primes.stream().allMatch((other) ->
+                                prime.subtract(other).abs().compareTo(minDistance) > 0)) {
+                                primes.add(prime);
+                            }
+
+                            if (primes.size() == primeCount) {
+                                result.complete(List.copyOf(primes));
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            };
+
+            List<Future<?>> searches = List.of();
+
+            if (pool.getParallelism() == 1) {
+                search.run();
+            } else {
+                searches = IntStream.range(0, pool.getParallelism())
+                    .<Future<?>>mapToObj((i) -> pool.submit(search))
+                    .toList();
+            }
+
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                if (e.getCause() instanceof Error cause) throw cause;
+                throw e;
+            } finally {
+                searches.forEach((task) -> task.cancel(false));
+            }
+        }
 
-            do {
-                p = new BigInteger(primeSize, random)
+        /**
+         * Returns the size of a prime that is still missing from
+         * <code>primes</code>: if the modulus size isn't a multiple of the
+         * prime count, the remainder goes to the first primes, one bit each.
+         */
+        private int nextPrimeSize(List<BigInteger> primes) {
+            return neededPrimes(primes, minPrimeSize + 1) > 0 ? minPrimeSize + 1 : minPrimeSize;
+        }
+
+        /**
+         * Returns how many primes of <code>size</code> bits are missing from
+         * <code>primes</code>.
+         */
+        private long neededPrimes(List<BigInteger> primes, int size) {
+            int longer = modulusSize % primeCount;
+            long required = size == minPrimeSize + 1 ? longer : size == minPrimeSize ? primeCount - longer : 0;
+
+            return required - primes.stream().filter((prime) -> prime.bitLength() == size).count();
+        }
+
+        /**
+         * Searches for a probable prime: sieves a window of odd numbers after
+         * a random starting point, then tests the remaining candidates.
+         *
+         * @return a prime, or <code>null</code> if the search was cancelled
+         */
+        private @Nullable BigInteger nextProbablePrime(int primeSize, BooleanSupplier cancelled) {
+            // NB: window length is from JDK's BigInteger.largePrime.
+            int sieveLength = Math.max(64, primeSize / 20 * 64);
+
+            while (!cancelled.getAsBoolean()) {
+                BigInteger base = new BigInteger(primeSize, random)
                     .setBit(primeSize - 1) /* enforce key length */
+                    .setBit(primeSize - 2) /* keep the product of the primes long enough */
                     .setBit(0) /* odd number (even numbers are obviously not prime) */;
-            } while (!primalityTest.isProbablyPrime(p, certainty));
 
-            return p;
+                PrimeSieve sieve = new PrimeSieve(base, sieveLength);
+                BigInteger candidate;
+
+                while ((candidate = sieve.nextCandidate()) != null && !cancelled.getAsBoolean()) {
+                    if (candidate.bitLength() == primeSize && primalityTest.isProbablyPrime(candidate, certainty)) {
+                        return candidate;
+                    }
+                }
+            }
+
+            return null;
         }
 
-        public record KeyPair(BigInteger n, BigInteger e, BigInteger d) {
+        /**
+         * @param crt CRT form of the private key, or <code>null</code>
+         */
+        public record KeyPair(BigInteger n, BigInteger e, BigInteger d, @Nullable CrtKey crt) {
+
+            public KeyPair(BigInteger n, BigInteger e, BigInteger d) {
+                this(n, e, d, null);
+            }
+
+            public KeyPair withCrt(@Nullable CrtKey crt) {
+                return new KeyPair(n, e, d, crt);
+            }
         }
 
         public PrimalityTest primalityTest() {
@@ -153,8 +428,82 @@ public final class Rsa {
             return certainty;
         }
 
+        /**
+         * Returns the size of the longest prime.
+         */
         public int primeSize() {
-            return primeSize;
+            return modulusSize % primeCount == 0 ? minPrimeSize : minPrimeSize + 1;
+        }
+
+        public int modulusSize() {
+            return modulusSize;
+        }
+
+        public int primeCount() {
+            return primeCount;
+        }
+    }
+
+    /**
+     * Private key in the Chinese remainder theorem form (RFC 8017, section
+     * 3.2).
+     *
+     * @param primes       primes <code>r_1 = p, r_2 = q, r_3, ...</code>
+     * @param exponents    CRT exponents <code>d_i = d mod (r_i - 1)</code>,
+     *                     i.e. <code>dP, dQ, ...</code>
+     * @param coefficients CRT coefficients: <code>qInv = q^-1 mod p</code>,
+     *                     followed by <code>t_i = (r_1 * ... * r_(i-1))^-1
+     *                     mod r_i</code> for the other primes
+     */
+    public record CrtKey(List<BigInteger> primes, List<BigInteger> exponents, List<BigInteger> coefficients) {
+
+        public CrtKey {
+            primes = List.copyOf(primes);
+            exponents = List.copyOf(exponents);
+            coefficients = List.copyOf(coefficients);
+
+            if (primes.size() < 2)
+                throw new IllegalArgumentException("at least two primes are required");
+            if (exponents.size() != primes.size() || coefficients.size() != primes.size() - 1)
+                throw new IllegalArgumentException("expected an exponent for every prime and a coefficient for every prime but one");
+        }
+
+        /**
+         * Computes the CRT key for private exponent <code>d</code>.
+         */
+        public static CrtKey of(@NotNull BigInteger d, @NotNull List<BigInteger> primes) {
+            Objects.requireNonNull(d, "private exponent");
+            Objects.requireNonNull(primes, "primes");
+
+            RsaMath math = new RsaMath();
+
+            List<BigInteger> exponents = primes.stream()
+                .map((prime) -> d.mod(prime.subtract(ONE)))
+                .toList();
+
+            List<BigInteger> coefficients = new ArrayList<>();
+            coefficients.add(math.modInverse(primes.get(1), primes.get(0)));
+
+            BigInteger product = primes.get(0).multiply(primes.get(1));
+
+            for (int i = 2; i < primes.size(); i++) {
+                coefficients.add(math.modInverse(product, primes.get(i)));
+                product = product.multiply(primes.get(i));
+            }
+
+            return new CrtKey(primes, exponents, coefficients);
+        }
+
+        public BigInteger dP() {
+            return exponents.get(0);
+        }
+
+        public BigInteger dQ() {
+            return exponents.get(1);
+        }
+
+        public BigInteger qInv() {
+            return coefficients.get(0);
         }
     }
 }
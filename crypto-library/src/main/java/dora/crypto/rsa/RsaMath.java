@@ -10,7 +10,6 @@ public final class RsaMath {
 
     private static final BigInteger NEGATIVE_ONE = BigInteger.valueOf(-1);
     private static final BigInteger THREE = BigInteger.valueOf(3);
-    private static final BigInteger FOUR = BigInteger.valueOf(4);
     private static final BigInteger FIVE = BigInteger.valueOf(5);
     private static final BigInteger SIX = BigInteger.valueOf(6);
 
@@ -67,33 +66,17 @@ public final class RsaMath {
     /**
      * Raises a {@link BigInteger} to the power of <code>exp</code> modulo <code>mod</code>.
      * <p>
-     * Modulus must be positive.
+     * Modulus must be positive. Non-negative exponents are left to
+     * {@link BigInteger#modPow}, which is faster than any exponentiation
+     * built on top of {@link BigInteger} arithmetic.
      */
     public BigInteger modPow(BigInteger x, BigInteger exp, BigInteger mod) {
-        if (mod.signum() < 0)
+        if (mod.signum() <= 0)
             throw new ArithmeticException("modulus must be positive");
         if (exp.signum() < 0)
             return modPow(modInverse(x, mod), exp.negate(), mod);
 
-        x = x.mod(mod);
-
-        // Negative exponentiation equals 1, except for 0^0 (mod 1).
-        if (exp.equals(ZERO)) {
-            return x.equals(ZERO) && mod.equals(ONE) ? ZERO : ONE;
-        }
-
-        BigInteger result = ONE;
-
-        while (exp.signum() > 0) {
-            if (exp.testBit(0)) {
-                result = result.multiply(x).mod(mod);
-            }
-
-            x = x.multiply(x).mod(mod);
-            exp = exp.shiftRight(1);
-        }
-
-        return result;
+        return x.modPow(exp, mod);
     }
 
     /**
@@ -115,49 +98,62 @@ public final class RsaMath {
 
     /**
      * Computes the Jacobi symbol for integer <code>a</code> and positive odd integer <code>n</code>.
+     * <p>
+     * Uses the binary algorithm: factors of two are shifted out at once and
+     * the residues mod 4 and 8 are read off the lowest bits. Once both numbers
+     * fit in a <code>long</code>, the computation continues on primitives.
      */
     public BigInteger jacobiSymbol(BigInteger a, BigInteger n) {
-        /* https://en.wikipedia.org/wiki/Jacobi_symbol#Implementation_in_C++ */
-
         if (n.signum() <= 0 || !n.testBit(0))
             throw new ArithmeticException("n must be a positive odd integer");
 
-        // Step 1.
         a = a.mod(n);
+        int result = 1;
+
+        while (n.bitLength() >= Long.SIZE - 1) {
+            if (a.signum() == 0)
+                return n.equals(ONE) ? ONE : ZERO;
 
-        // Step 3.
-        BigInteger t = ZERO;
+            int zeros = a.getLowestSetBit();
+            a = a.shiftRight(zeros);
 
-        while (!a.equals(ZERO)) {
-            BigInteger[] divMod;
+            result = jacobiStep(result, zeros, a.intValue(), n.intValue());
 
-            // Step 2.
-            while ((divMod = a.divideAndRemainder(FOUR))[1].equals(ZERO) /* a % 4 == 0 */) {
-                a = divMod[0] /* a /= 4 */;
-            }
+            BigInteger r = n.mod(a);
+            n = a;
+            a = r;
+        }
 
-            divMod = a.divideAndRemainder(TWO);
-            if (divMod[1].equals(ZERO) /* a % 2 == 0 */) {
-                t = t.xor(n);
-                a = divMod[0] /* a /= 2 */;
-            }
+        return BigInteger.valueOf(jacobiSymbol(result, a.longValue(), n.longValue()));
+    }
 
-            // Step 4.
-            t = t.xor(a.and(n).and(TWO));
-            BigInteger r = n.remainder(a);
+    private static long jacobiSymbol(int result, long a, long n) {
+        while (a != 0) {
+            int zeros = Long.numberOfTrailingZeros(a);
+            a >>>= zeros;
+
+            result = jacobiStep(result, zeros, (int) a, (int) n);
+
+            long r = n % a;
             n = a;
             a = r;
         }
 
-        if (!n.equals(ONE))
-            return ZERO;
-// @formatter:off
-        else if (!(t.xor(t.shiftRight(1)).and(TWO)).equals(ZERO))
-                /* ((t ^ (t >> 1)) & 2) != 0 */
-// @formatter:on
-            return NEGATIVE_ONE;
-        else
-            return ONE;
+        return n == 1 ? result : 0;
+    }
+
+    /**
+     * Applies the factors of two and the quadratic reciprocity swap to the
+     * sign of the symbol; only the lowest bits of <code>a</code> (odd) and
+     * <code>n</code> are used.
+     */
+    private static int jacobiStep(int result, int zeros, int a, int n) {
+        // (2/n) = -1 iff n = 3, 5 (mod 8)
+        if ((zeros & 1) != 0 && ((n & 7) == 3 || (n & 7) == 5)) result = -result;
+        // (a/n) = -(n/a) iff a = n = 3 (mod 4)
+        if ((a & 3) == 3 && (n & 3) == 3) result = -result;
+
+        return result;
     }
 
     /**
@@ -1,19 +1,36 @@
 package dora.crypto.rsa.primality;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigInteger;
 import java.util.Objects;
-import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
 
-import static java.math.BigInteger.ONE;
 import static java.math.BigInteger.TWO;
 
-abstract class AbstractPrimalityTest implements PrimalityTest {
+/**
+ * Probabilistic primality test that checks random witnesses.
+ *
+ * @param <C> values derived from a candidate once and shared by the checks
+ *            of all witnesses
+ */
+abstract class AbstractPrimalityTest<C> implements PrimalityTest {
 
     private static final BigInteger THREE = BigInteger.valueOf(3);
 
-    private final Random random = new Random();
+    private final @Nullable ForkJoinPool pool;
+
+    /**
+     * @param pool pool that checks witnesses in parallel, or <code>null</code>
+     *             to check them on the calling thread
+     */
+    protected AbstractPrimalityTest(@Nullable ForkJoinPool pool) {
+        this.pool = pool;
+    }
 
     @Override
     public boolean isProbablyPrime(@NotNull BigInteger n, double certainty) {
@@ -22,24 +39,49 @@ abstract class AbstractPrimalityTest implements PrimalityTest {
         if (!(certainty >= 0.5 && certainty < 1))
             throw new IllegalArgumentException("minProb must be in [0.5; 1)");
 
-        if (n.signum() <= 0 /* n <= 0 */ || n.equals(ONE)) return false;
-        if (n.equals(TWO) || n.equals(THREE)) return true;
-        if (!n.testBit(0) /* n % 2 == 0 */) return false;
+        TrialDivision.Result trialDivision = TrialDivision.test(n);
+        if (trialDivision != TrialDivision.Result.UNKNOWN) return trialDivision == TrialDivision.Result.PRIME;
 
         // Solve 1/(2^k) <= errorProb for k (`iterations`).
         double errorProb = 1.0 - certainty;
         int iterations = (int) Math.ceil(Math.log(1 / errorProb) / Math.log(2));
 
-        for (int i = 0; i < iterations; i++) {
-            // Pick a number in [2; n-2] and test it.
-            BigInteger a = randomBigInteger(n.subtract(THREE)).add(TWO);
-            if (!test(n, a)) return false;
+        C candidate = prepare(n);
+
+        // Most composites fail the first witness; don't involve the pool for them.
+        if (!testRandomWitness(candidate, n)) return false;
+        if (iterations == 1) return true;
+
+        if (pool == null) {
+            for (int i = 1; i < iterations; i++) {
+                if (!testRandomWitness(candidate, n)) return false;
+            }
+
+            return true;
         }
 
-        return true;
+        try {
+            // allMatch() stops the other checks once a witness fails.
+            return pool.submit(() -> IntStream.range(1, iterations)
+                .parallel()
+                .allMatch((i) -> testRandomWitness(candidate, n))
+            ).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private boolean testRandomWitness(C candidate, BigInteger n) {
+        // Pick a number in [2; n-2] and test it.
+        BigInteger a = randomBigInteger(n.subtract(THREE)).add(TWO);
+        return test(candidate, a);
     }
 
     private BigInteger randomBigInteger(BigInteger upperBound) {
+        // Tests may run on several threads at once; don't share a generator.
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         BigInteger result;
 
         do {
@@ -50,11 +92,18 @@ abstract class AbstractPrimalityTest implements PrimalityTest {
     }
 
     /**
-     * Checks whether <code>n</code> is probably prime according to witness <code>a</code>.
+     * Computes the values shared by the checks of every witness.
+     *
+     * @param n number being tested, odd and without small factors
+     */
+    protected abstract C prepare(BigInteger n);
+
+    /**
+     * Checks whether the candidate is probably prime according to witness <code>a</code>.
      *
-     * @param n number being tested
-     * @param a witness
-     * @return <code>true</code>, if <code>n</code> is probably prime
+     * @param candidate values computed by {@link #prepare}
+     * @param a         witness
+     * @return <code>true</code>, if the candidate is probably prime
      */
-    protected abstract boolean test(BigInteger n, BigInteger a);
-}
\ No newline at end of file
+    protected abstract boolean test(C candidate, BigInteger a);
+}
@@ -0,0 +1,108 @@
+package dora.crypto.rsa.primality;
+
+import dora.crypto.rsa.RsaMath;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+import static java.math.BigInteger.ONE;
+
+/**
+ * Baillie-PSW test: a strong probable prime test to base 2 followed by a
+ * strong Lucas probable prime test with Selfridge's parameters.
+ * <p>
+ * The test is deterministic and no composite passing it is known, so the
+ * certainty is only validated. It costs about three modular exponentiations,
+ * the same as a few rounds of Miller-Rabin.
+ */
+public final class BailliePswPrimalityTest implements PrimalityTest {
+
+    private final RsaMath math = new RsaMath();
+
+    @Override
+    public boolean isProbablyPrime(@NotNull BigInteger n, double certainty) {
+        Objects.requireNonNull(n, "number being tested");
+
+        if (!(certainty >= 0.5 && certainty < 1))
+            throw new IllegalArgumentException("minProb must be in [0.5; 1)");
+
+        TrialDivision.Result trialDivision = TrialDivision.test(n);
+        if (trialDivision != TrialDivision.Result.UNKNOWN) return trialDivision == TrialDivision.Result.PRIME;
+
+        if (!MillerRabinPrimalityTest.strongProbablePrimeBase2(n)) return false;
+
+        // Squares have no D with (D/n) = -1.
+        BigInteger root = n.sqrt();
+        if (root.multiply(root).equals(n)) return false;
+
+        return strongLucasProbablePrime(n);
+    }
+
+    /**
+     * Strong Lucas test with <code>P = 1, Q = (1 - D) / 4</code>, where
+     * <code>D</code> is the first of 5, -7, 9, -11, ... with Jacobi symbol
+     * <code>(D/n) = -1</code>.
+     */
+    private boolean strongLucasProbablePrime(BigInteger n) {
+        long d = 5;
+
+        while (true) {
+            int jacobi = math.jacobiSymbol(BigInteger.valueOf(d), n).signum();
+
+            if (jacobi < 0) break;
+            /* D shares a factor with n */
+            if (jacobi == 0 && !n.equals(BigInteger.valueOf(Math.abs(d)))) return false;
+
+            d = d > 0 ? -(d + 2) : -d + 2;
+        }
+
+        BigInteger discriminant = BigInteger.valueOf(d).mod(n);
+        BigInteger q = BigInteger.valueOf((1 - d) / 4).mod(n);
+
+        /* n+1 = 2^s * k */
+        BigInteger nPlusOne = n.add(ONE);
+        int s = nPlusOne.getLowestSetBit();
+        BigInteger k = nPlusOne.shiftRight(s);
+
+        // U_1 = 1, V_1 = P = 1, Q^1; then left-to-right over the bits of k.
+        BigInteger u = ONE;
+        BigInteger v = ONE;
+        BigInteger qk = q;
+
+        for (int i = k.bitLength() - 2; i >= 0; i--) {
+            // U_2j = U_j V_j, V_2j = V_j^2 - 2 Q^j
+            u = u.multiply(v).mod(n);
+            v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+            qk = qk.multiply(qk).mod(n);
+
+            if (k.testBit(i)) {
+                // U_(j+1) = (P U_j + V_j) / 2, V_(j+1) = (D U_j + P V_j) / 2
+                BigInteger nextU = halve(u.add(v), n);
+                v = halve(discriminant.multiply(u).add(v), n);
+                u = nextU;
+                qk = qk.multiply(q).mod(n);
+            }
+        }
+
+        if (u.signum() == 0 || v.signum() == 0) return true;
+
+        // V_(2^r k) = 0 for some 0 < r < s
+        for (int r = 1; r < s; r++) {
+            v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+            if (v.signum() == 0) return true;
+
+            qk = qk.multiply(qk).mod(n);
+        }
+
+        return false;
+    }
+
+    /**
+     * Divides <code>x</code> by two modulo odd <code>n</code>.
+     */
+    private static BigInteger halve(BigInteger x, BigInteger n) {
+        x = x.mod(n);
+        return (x.testBit(0) ? x.add(n) : x).shiftRight(1);
+    }
+}
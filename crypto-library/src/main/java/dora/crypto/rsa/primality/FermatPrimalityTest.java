@@ -1,18 +1,37 @@
 package dora.crypto.rsa.primality;
 
 import dora.crypto.rsa.RsaMath;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.math.BigInteger.ONE;
 
-public final class FermatPrimalityTest extends AbstractPrimalityTest {
+public final class FermatPrimalityTest extends AbstractPrimalityTest<FermatPrimalityTest.Candidate> {
 
     private final RsaMath math = new RsaMath();
 
+    public FermatPrimalityTest() {
+        this(null);
+    }
+
+    public FermatPrimalityTest(@Nullable ForkJoinPool pool) {
+        super(pool);
+    }
+
     @Override
-    protected boolean test(BigInteger n, BigInteger a) {
-        if (!math.gcd(n, a).equals(ONE)) return false;
-        return math.modPow(a, n.subtract(ONE), n).equals(ONE);
+    protected Candidate prepare(BigInteger n) {
+        return new Candidate(n, n.subtract(ONE));
+    }
+
+    @Override
+    protected boolean test(Candidate candidate, BigInteger a) {
+        // Carmichael numbers pass for every coprime witness; only a common factor exposes them.
+        if (!math.gcd(candidate.n(), a).equals(ONE)) return false;
+        return math.modPow(a, candidate.nMinusOne(), candidate.n()).equals(ONE);
+    }
+
+    record Candidate(BigInteger n, BigInteger nMinusOne) {
     }
-}
\ No newline at end of file
+}
@@ -1,45 +1,76 @@
 package dora.crypto.rsa.primality;
 
 import dora.crypto.rsa.RsaMath;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.math.BigInteger.ONE;
-import static java.math.BigInteger.TWO;
 
-public final class MillerRabinPrimalityTest extends AbstractPrimalityTest {
+public final class MillerRabinPrimalityTest extends AbstractPrimalityTest<MillerRabinPrimalityTest.Candidate> {
 
     private final RsaMath math = new RsaMath();
 
+    public MillerRabinPrimalityTest() {
+        this(null);
+    }
+
+    public MillerRabinPrimalityTest(@Nullable ForkJoinPool pool) {
+        super(pool);
+    }
+
     @Override
-    protected boolean test(BigInteger n, BigInteger a) {
-        if (!math.gcd(n, a).equals(ONE)) return false;
+    protected Candidate prepare(BigInteger n) {
+        BigInteger nMinusOne = n.subtract(ONE);
 
         /* n-1 = 2^s * d */
-        int s = 0;
-        BigInteger d = n.subtract(ONE);
-
-        while (!d.testBit(0) /* n % 2 == 0 */) {
-            s++;
-            d = d.shiftRight(1) /* n /= 2 */;
-        }
+        int s = nMinusOne.getLowestSetBit();
+        BigInteger d = nMinusOne.shiftRight(s);
 
         assert s > 0 : "invariant";
         assert d.signum() > 0 : "invariant";
 
-        BigInteger x = math.modPow(a, d, n);
-        BigInteger y = null;
+        return new Candidate(n, nMinusOne, d, s);
+    }
+
+    @Override
+    protected boolean test(Candidate candidate, BigInteger a) {
+        return strongProbablePrime(candidate, math.modPow(a, candidate.d(), candidate.n()));
+    }
+
+    /**
+     * Checks whether <code>n</code> is a strong probable prime to base 2.
+     *
+     * @param n odd number greater than 3
+     */
+    static boolean strongProbablePrimeBase2(BigInteger n) {
+        MillerRabinPrimalityTest test = new MillerRabinPrimalityTest();
+        Candidate candidate = test.prepare(n);
+
+        return test.test(candidate, BigInteger.TWO);
+    }
+
+    /**
+     * Checks the sequence <code>a^d, a^(2d), ..., a^(2^(s-1) d)</code>: it
+     * must start with 1 or reach n-1.
+     */
+    private static boolean strongProbablePrime(Candidate candidate, BigInteger x) {
+        BigInteger n = candidate.n();
 
-        for (int i = 0; i < s; i++) {
-            y = math.modPow(x, TWO, n);
+        if (x.equals(ONE) || x.equals(candidate.nMinusOne())) return true;
 
-            if (y.equals(ONE) && !x.equals(ONE) && !x.equals(n.subtract(ONE))) {
-                return false;
-            }
+        for (int i = 1; i < candidate.s(); i++) {
+            x = x.multiply(x).mod(n);
 
-            x = y;
+            if (x.equals(candidate.nMinusOne())) return true;
+            /* non-trivial square root of 1 */
+            if (x.equals(ONE)) return false;
         }
 
-        return y.equals(ONE);
+        return false;
+    }
+
+    record Candidate(BigInteger n, BigInteger nMinusOne, BigInteger d, int s) {
     }
-}
\ No newline at end of file
+}
@@ -1,23 +1,44 @@
 package dora.crypto.rsa.primality;
 
 import dora.crypto.rsa.RsaMath;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.math.BigInteger.ONE;
-import static java.math.BigInteger.TWO;
 
-public final class SolovayStrassenPrimalityTest extends AbstractPrimalityTest {
+public final class SolovayStrassenPrimalityTest extends AbstractPrimalityTest<SolovayStrassenPrimalityTest.Candidate> {
 
     private final RsaMath math = new RsaMath();
 
+    public SolovayStrassenPrimalityTest() {
+        this(null);
+    }
+
+    public SolovayStrassenPrimalityTest(@Nullable ForkJoinPool pool) {
+        super(pool);
+    }
+
     @Override
-    protected boolean test(BigInteger n, BigInteger a) {
-        if (!math.gcd(a, n).equals(ONE)) return false;
+    protected Candidate prepare(BigInteger n) {
+        return new Candidate(n, n.subtract(ONE), n.shiftRight(1));
+    }
 
-        BigInteger left = math.modPow(a, n.subtract(ONE).divide(TWO), n);
-        BigInteger right = math.jacobiSymbol(a, n).mod(n);
+    @Override
+    protected boolean test(Candidate candidate, BigInteger a) {
+        int jacobi = math.jacobiSymbol(a, candidate.n()).signum();
+
+        /* gcd(a, n) > 1 */
+        if (jacobi == 0) return false;
+
+        BigInteger left = math.modPow(a, candidate.halfNMinusOne(), candidate.n());
+        return left.equals(jacobi > 0 ? ONE : candidate.nMinusOne());
+    }
 
-        return left.equals(right);
+    /**
+     * @param halfNMinusOne <code>(n-1)/2</code>
+     */
+    record Candidate(BigInteger n, BigInteger nMinusOne, BigInteger halfNMinusOne) {
     }
-}
\ No newline at end of file
+}
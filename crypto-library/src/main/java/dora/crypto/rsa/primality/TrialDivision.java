@@ -0,0 +1,46 @@
+package dora.crypto.rsa.primality;
+
+import java.math.BigInteger;
+
+/**
+ * Trial division by the primes below 50, done with a single division of the
+ * candidate by their product. It settles small numbers and most composites
+ * before any modular exponentiation.
+ */
+final class TrialDivision {
+
+    private static final int[] ODD_PRIMES = { 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47 };
+
+    /** Product of {@link #ODD_PRIMES}; fits in a <code>long</code>. */
+    private static final BigInteger ODD_PRIMES_PRODUCT = BigInteger.valueOf(307_444_891_294_245_705L);
+
+    /** Numbers below this bound without small factors are prime. */
+    private static final long PRIME_BOUND = 53 * 53;
+
+    private TrialDivision() {
+    }
+
+    static Result test(BigInteger n) {
+        if (n.compareTo(BigInteger.TWO) < 0) return Result.COMPOSITE;
+        if (n.equals(BigInteger.TWO)) return Result.PRIME;
+        if (!n.testBit(0) /* n % 2 == 0 */) return Result.COMPOSITE;
+
+        long remainder = n.mod(ODD_PRIMES_PRODUCT).longValue();
+
+        for (int prime : ODD_PRIMES) {
+            if (remainder % prime == 0) {
+                return n.equals(BigInteger.valueOf(prime)) ? Result.PRIME : Result.COMPOSITE;
+            }
+        }
+
+        return n.bitLength() < Long.SIZE && n.longValue() < PRIME_BOUND ? Result.PRIME : Result.UNKNOWN;
+    }
+
+    enum Result {
+
+        PRIME,
+        COMPOSITE,
+        /** No small factors; a primality test is needed. */
+        UNKNOWN
+    }
+}
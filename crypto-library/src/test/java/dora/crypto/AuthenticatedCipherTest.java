@@ -0,0 +1,117 @@
+package dora.crypto;
+
+import dora.crypto.block.rijndael.RijndaelParameters;
+import dora.crypto.block.rijndael.TableRijndaelBlockCipher;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.Size;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthenticatedCipherTest {
+
+    @Property(tries = 200)
+    void decrypt_RestoresPlaintext(
+        @ForAll @Size(max = 2048) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 12) byte[] nonce,
+        @ForAll @IntRange(min = 1, max = 300) int chunkSize
+    ) throws InterruptedException {
+        AuthenticatedCipher cipher = cipher(key, nonce, chunkSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        assertThat(encrypted).hasSize((int) cipher.encryptedSize(data.length));
+        assertThat(cipher.decrypt(encrypted)).isEqualTo(data);
+    }
+
+    @Property(tries = 200)
+    void streams_MatchInMemoryEncryption(
+        @ForAll @Size(max = 2048) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 12) byte[] nonce,
+        @ForAll @IntRange(min = 1, max = 300) int chunkSize
+    ) throws IOException, InterruptedException {
+        AuthenticatedCipher cipher = cipher(key, nonce, chunkSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        try (InputStream stream = cipher.encryptingInputStream(new ByteArrayInputStream(data))) {
+            assertThat(stream.readAllBytes()).isEqualTo(encrypted);
+        }
+
+        try (InputStream stream = cipher.decryptingInputStream(new ByteArrayInputStream(encrypted))) {
+            assertThat(stream.readAllBytes()).isEqualTo(data);
+        }
+    }
+
+    @Property(tries = 200)
+    void decrypt_CorruptedByte_Rejected(
+        @ForAll @Size(min = 1, max = 1024) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 12) byte[] nonce,
+        @ForAll int position
+    ) throws InterruptedException {
+        AuthenticatedCipher cipher = cipher(key, nonce, 100);
+        byte[] encrypted = cipher.encrypt(data);
+        encrypted[Math.floorMod(position, encrypted.length)] ^= 1;
+
+        assertThatThrownBy(() -> cipher.decrypt(encrypted))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cipher.decryptingInputStream(new ByteArrayInputStream(encrypted)).readAllBytes())
+            .isInstanceOf(IOException.class);
+    }
+
+    @Example
+    void decrypt_TruncatedAtChunkBoundary_Rejected() throws InterruptedException {
+        AuthenticatedCipher cipher = cipher(new byte[16], new byte[12], 100);
+        byte[] encrypted = cipher.encrypt(new byte[1000]);
+
+        byte[] truncated = Arrays.copyOf(encrypted, 5 * (100 + AuthenticatedCipher.TAG_SIZE));
+
+        assertThatThrownBy(() -> cipher.decrypt(truncated))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Example
+    void decrypt_SwappedChunks_Rejected() throws InterruptedException {
+        AuthenticatedCipher cipher = cipher(new byte[16], new byte[12], 100);
+        byte[] encrypted = cipher.encrypt(new byte[1000]);
+
+        int chunk = 100 + AuthenticatedCipher.TAG_SIZE;
+        byte[] swapped = encrypted.clone();
+        System.arraycopy(encrypted, 0, swapped, chunk, chunk);
+        System.arraycopy(encrypted, chunk, swapped, 0, chunk);
+
+        assertThatThrownBy(() -> cipher.decrypt(swapped))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Example
+    void decryptingInputStream_CorruptedFirstChunk_RejectedEarly() throws InterruptedException {
+        AuthenticatedCipher cipher = cipher(new byte[16], new byte[12], 1000);
+        byte[] encrypted = cipher.encrypt(new byte[100_000]);
+        encrypted[0] ^= 1;
+
+        ByteArrayInputStream source = new ByteArrayInputStream(encrypted);
+        InputStream stream = cipher.decryptingInputStream(source);
+
+        assertThatThrownBy(stream::read).isInstanceOf(IOException.class);
+        // Only the first chunk and the one read ahead have been consumed.
+        assertThat(encrypted.length - source.available()).isEqualTo(2 * (1000 + AuthenticatedCipher.TAG_SIZE));
+    }
+
+    private static AuthenticatedCipher cipher(byte[] key, byte[] nonce, int chunkSize) {
+        return new AuthenticatedCipher(
+            new TableRijndaelBlockCipher(RijndaelParameters.aes128()),
+            key,
+            nonce,
+            chunkSize,
+            null
+        );
+    }
+}
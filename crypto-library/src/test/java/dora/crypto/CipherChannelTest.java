@@ -0,0 +1,245 @@
+package dora.crypto;
+
+import dora.crypto.SymmetricCipher.CipherModeType;
+import dora.crypto.SymmetricCipher.PaddingType;
+import dora.crypto.block.rijndael.RijndaelParameters;
+import dora.crypto.block.rijndael.TableRijndaelBlockCipher;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.Size;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CipherChannelTest {
+
+    @Property(tries = 200)
+    void readableChannel_MatchesInMemoryEncryption(
+        @ForAll @Size(max = 2048) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 16) byte[] iv,
+        @ForAll @IntRange(min = 1, max = 256) int bufferSize,
+        @ForAll boolean direct
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(key, iv, bufferSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        try (ReadableByteChannel channel = cipher.encryptingReadableChannel(channel(data))) {
+            assertThat(readAll(channel, direct)).isEqualTo(encrypted);
+        }
+
+        try (ReadableByteChannel channel = cipher.decryptingReadableChannel(channel(encrypted))) {
+            assertThat(readAll(channel, direct)).isEqualTo(data);
+        }
+    }
+
+    @Property(tries = 100)
+    void readableChannel_SourceReturnsNoData_ReadsZeroBytes(
+        @ForAll @Size(max = 2048) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 16) byte[] iv,
+        @ForAll @IntRange(min = 1, max = 256) int bufferSize,
+        @ForAll @IntRange(min = 1, max = 40) int chunkSize
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(key, iv, bufferSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        try (ReadableByteChannel channel = cipher.encryptingReadableChannel(trickle(data, chunkSize))) {
+            assertThat(readAll(channel, false)).isEqualTo(encrypted);
+        }
+
+        try (ReadableByteChannel channel = cipher.decryptingReadableChannel(trickle(encrypted, chunkSize))) {
+            assertThat(readAll(channel, true)).isEqualTo(data);
+        }
+    }
+
+    @Property(tries = 200)
+    void writableChannel_MatchesInMemoryEncryption(
+        @ForAll @Size(max = 2048) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 16) byte[] iv,
+        @ForAll @IntRange(min = 1, max = 256) int bufferSize,
+        @ForAll @IntRange(min = 1, max = 100) int chunkSize
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(key, iv, bufferSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+
+        try (WritableByteChannel channel = cipher.encryptingWritableChannel(Channels.newChannel(ciphertext))) {
+            writeInChunks(channel, data, chunkSize);
+        }
+
+        assertThat(ciphertext.toByteArray()).isEqualTo(encrypted);
+
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+
+        try (WritableByteChannel channel = cipher.decryptingWritableChannel(Channels.newChannel(plaintext))) {
+            writeInChunks(channel, encrypted, chunkSize);
+        }
+
+        assertThat(plaintext.toByteArray()).isEqualTo(data);
+    }
+
+    @Example
+    void writableChannel_FileChannelTransferTo_EncryptsFile() throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(new byte[16], new byte[16], 4096);
+        byte[] data = resource();
+
+        Path inputFile = Files.createTempFile("input", null);
+
+        try {
+            Files.write(inputFile, data);
+
+            ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+
+            try (FileChannel input = FileChannel.open(inputFile);
+                 WritableByteChannel output = cipher.encryptingWritableChannel(Channels.newChannel(ciphertext))) {
+                long position = 0;
+
+                while (position < input.size()) {
+                    position += input.transferTo(position, input.size() - position, output);
+                }
+            }
+
+            assertThat(ciphertext.toByteArray()).isEqualTo(cipher.encrypt(data));
+        } finally {
+            Files.deleteIfExists(inputFile);
+        }
+    }
+
+    @Property(tries = 50)
+    void encryptAsync_MatchesInMemoryEncryption(
+        @ForAll @Size(max = 4096) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 16) byte[] iv,
+        @ForAll @IntRange(min = 1, max = 1024) int bufferSize
+    ) throws IOException, InterruptedException, ExecutionException {
+        SymmetricCipher cipher = cipher(key, iv, bufferSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        Path inputFile = Files.createTempFile("input", null);
+        Path encryptedFile = Files.createTempFile("encrypted", null);
+        Path decryptedFile = Files.createTempFile("decrypted", null);
+
+        try {
+            Files.write(inputFile, data);
+            // Leftovers of a longer file must not survive.
+            Files.write(decryptedFile, new byte[data.length + 100]);
+
+            try (var input = AsynchronousFileChannel.open(inputFile, StandardOpenOption.READ);
+                 var output = AsynchronousFileChannel.open(encryptedFile, StandardOpenOption.WRITE)) {
+                assertThat(cipher.encryptAsync(input, output).get()).isEqualTo(encrypted.length);
+            }
+
+            assertThat(Files.readAllBytes(encryptedFile)).isEqualTo(encrypted);
+
+            try (var input = AsynchronousFileChannel.open(encryptedFile, StandardOpenOption.READ);
+                 var output = AsynchronousFileChannel.open(decryptedFile, StandardOpenOption.WRITE)) {
+                assertThat(cipher.decryptAsync(input, output).get()).isEqualTo(data.length);
+            }
+
+            assertThat(Files.readAllBytes(decryptedFile)).isEqualTo(data);
+        } finally {
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(encryptedFile);
+            Files.deleteIfExists(decryptedFile);
+        }
+    }
+
+    private SymmetricCipher cipher(byte[] key, byte[] iv, int bufferSize) {
+        return SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+            .mode(CipherModeType.CBC)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(iv)
+            .streamBufferSize(bufferSize)
+            .build();
+    }
+
+    private byte[] resource() throws IOException {
+        try (var stream = getClass().getResourceAsStream("/wireshark.jpg")) {
+            if (stream == null) throw new IOException("Resource not found");
+            return stream.readAllBytes();
+        }
+    }
+
+    private static ReadableByteChannel channel(byte[] data) {
+        return Channels.newChannel(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Returns a channel that, like a non-blocking one, has no data available
+     * on every other read and returns at most <code>chunkSize</code> bytes
+     * otherwise.
+     */
+    private static ReadableByteChannel trickle(byte[] data, int chunkSize) {
+        return new ReadableByteChannel() {
+
+            private int position;
+            private boolean available;
+
+            @Override
+            public int read(ByteBuffer dst) {
+                if (position == data.length) return -1;
+
+                available = !available;
+                if (!available) return 0;
+
+                int length = Math.min(Math.min(chunkSize, dst.remaining()), data.length - position);
+                dst.put(data, position, length);
+                position += length;
+
+                return length;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static byte[] readAll(ReadableByteChannel channel, boolean direct) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(37) : ByteBuffer.allocate(37);
+
+        while (channel.read(buffer.clear()) >= 0) {
+            byte[] bytes = new byte[buffer.flip().remaining()];
+            buffer.get(bytes);
+            output.write(bytes);
+        }
+
+        return output.toByteArray();
+    }
+
+    private static void writeInChunks(WritableByteChannel channel, byte[] data, int chunkSize)
+    throws IOException {
+        for (int offset = 0; offset < data.length; offset += chunkSize) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(Math.min(chunkSize, data.length - offset));
+            chunk.put(data, offset, chunk.capacity()).flip();
+
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        }
+    }
+}
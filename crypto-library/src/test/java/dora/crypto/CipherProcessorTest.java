@@ -0,0 +1,268 @@
+package dora.crypto;
+
+import dora.crypto.SymmetricCipher.CipherModeType;
+import dora.crypto.SymmetricCipher.PaddingType;
+import dora.crypto.block.rijndael.RijndaelParameters;
+import dora.crypto.block.rijndael.TableRijndaelBlockCipher;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.Size;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CipherProcessorTest {
+
+    @Property(tries = 200)
+    void processor_MatchesInMemoryEncryption(
+        @ForAll @Size(max = 2048) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 16) byte[] iv,
+        @ForAll @IntRange(min = 1, max = 100) int chunkSize,
+        @ForAll @IntRange(min = 1, max = 4) int requestSize
+    ) throws Exception {
+        SymmetricCipher cipher = cipher(key, iv);
+        byte[] encrypted = cipher.encrypt(data);
+
+        assertThat(process(cipher.encryptingProcessor(), data, chunkSize, requestSize)).isEqualTo(encrypted);
+        assertThat(process(cipher.decryptingProcessor(), encrypted, chunkSize, requestSize)).isEqualTo(data);
+    }
+
+    @Property(tries = 100)
+    void pipelinedProcessor_MatchesInMemoryEncryption(
+        @ForAll @Size(max = 4096) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 16) byte[] iv,
+        @ForAll CipherModeType mode,
+        @ForAll @IntRange(min = 1, max = 500) int chunkSize,
+        @ForAll @IntRange(min = 1, max = 4) int requestSize
+    ) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            SymmetricCipher cipher = SymmetricCipher.builder()
+                .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+                .mode(mode)
+                .padding(PaddingType.PKCS7)
+                .key(key)
+                .iv(Arrays.copyOf(iv, mode.initSize(16)))
+                .arguments(mode == CipherModeType.RANDOM_DELTA ? List.of(0, 42L) : List.of())
+                .pool(pool)
+                .build();
+            byte[] encrypted = cipher.encrypt(data);
+
+            assertThat(process(cipher.encryptingProcessor(), data, chunkSize, requestSize)).isEqualTo(encrypted);
+            assertThat(process(cipher.decryptingProcessor(), encrypted, chunkSize, requestSize)).isEqualTo(data);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Example
+    void processor_SubmissionPublisher_DecryptsAsynchronously() throws Exception {
+        SymmetricCipher cipher = cipher(new byte[16], new byte[16]);
+        byte[] data = new byte[100_000];
+        byte[] encrypted = cipher.encrypt(data);
+
+        Flow.Processor<ByteBuffer, ByteBuffer> processor = cipher.decryptingProcessor();
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        processor.subscribe(subscriber);
+
+        try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+
+            for (int offset = 0; offset < encrypted.length; offset += 1000) {
+                publisher.submit(ByteBuffer.wrap(encrypted, offset, Math.min(1000, encrypted.length - offset)));
+            }
+        }
+
+        assertThat(subscriber.result.get(10, TimeUnit.SECONDS)).isEqualTo(data);
+    }
+
+    @Example
+    void processor_NoDemand_DoesNotRequestUpstream() {
+        SymmetricCipher cipher = cipher(new byte[16], new byte[16]);
+
+        ChunkPublisher publisher = new ChunkPublisher(new byte[1024], 16);
+        Flow.Processor<ByteBuffer, ByteBuffer> processor = cipher.encryptingProcessor();
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+
+        assertThat(publisher.requested).isZero();
+
+        subscriber.subscription.request(2);
+
+        assertThat(publisher.requested).isEqualTo(2);
+        assertThat(subscriber.output.size()).isEqualTo(32);
+    }
+
+    @Example
+    void processor_InvalidCiphertext_FailsAndCancelsUpstream() {
+        SymmetricCipher cipher = cipher(new byte[16], new byte[16]);
+
+        ChunkPublisher publisher = new ChunkPublisher(new byte[17], 17);
+        Flow.Processor<ByteBuffer, ByteBuffer> processor = cipher.decryptingProcessor();
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+
+        assertThat(subscriber.result).isCompletedExceptionally();
+        assertThatThrownBy(() -> subscriber.result.get()).isInstanceOf(ExecutionException.class);
+    }
+
+    @Example
+    void processor_NonPositiveRequest_FailsAndCancelsUpstream() {
+        SymmetricCipher cipher = cipher(new byte[16], new byte[16]);
+
+        ChunkPublisher publisher = new ChunkPublisher(new byte[1024], 16);
+        Flow.Processor<ByteBuffer, ByteBuffer> processor = cipher.encryptingProcessor();
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+
+        subscriber.subscription.request(0);
+
+        assertThat(publisher.cancelled).isTrue();
+        assertThatThrownBy(() -> subscriber.result.get())
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SymmetricCipher cipher(byte[] key, byte[] iv) {
+        return SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+            .mode(CipherModeType.CBC)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(iv)
+            .build();
+    }
+
+    private static byte[] process(
+        Flow.Processor<ByteBuffer, ByteBuffer> processor,
+        byte[] data,
+        int chunkSize,
+        int requestSize
+    ) throws InterruptedException, ExecutionException, TimeoutException {
+        CollectingSubscriber subscriber = new CollectingSubscriber(requestSize);
+
+        processor.subscribe(subscriber);
+        new ChunkPublisher(data, chunkSize).subscribe(processor);
+
+        return subscriber.result.get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Publishes an array in chunks synchronously, on the requesting thread.
+     */
+    private static final class ChunkPublisher implements Flow.Publisher<ByteBuffer> {
+
+        private final byte[] data;
+        private final int chunkSize;
+
+        private int offset;
+        private boolean done;
+        long requested;
+        boolean cancelled;
+
+        ChunkPublisher(byte[] data, int chunkSize) {
+            this.data = data;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+
+                @Override
+                public void request(long n) {
+                    requested += n;
+
+                    for (long i = 0; i < n && !done; i++) {
+                        if (offset >= data.length) {
+                            done = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+
+                        int length = Math.min(chunkSize, data.length - offset);
+                        subscriber.onNext(ByteBuffer.wrap(data, offset, length));
+                        offset += length;
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    done = true;
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Collects received buffers, requesting <code>requestSize</code> of them
+     * at a time.
+     */
+    private static final class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+        private final long requestSize;
+        private long outstanding;
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        Flow.Subscription subscription;
+
+        CollectingSubscriber(long requestSize) {
+            this.requestSize = requestSize;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+
+            if (requestSize > 0) {
+                outstanding = requestSize;
+                subscription.request(requestSize);
+            }
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            byte[] bytes = new byte[item.remaining()];
+            item.get(bytes);
+            output.writeBytes(bytes);
+
+            if (requestSize > 0 && --outstanding == 0) {
+                outstanding = requestSize;
+                subscription.request(requestSize);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(output.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package dora.crypto;
+
+import dora.crypto.SymmetricCipher.CipherModeType;
+import dora.crypto.SymmetricCipher.PaddingType;
+import dora.crypto.block.des.DesBlockCipher;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.Size;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CipherStreamTest {
+
+    @Property(tries = 200)
+    void encryptingInputStream_MatchesInMemoryEncryption(
+        @ForAll @Size(max = 2048) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] iv,
+        @ForAll @IntRange(min = 1, max = 256) int bufferSize,
+        @ForAll @IntRange(min = 1, max = 100) int chunkSize,
+        @ForAll boolean transfer
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(key, iv, bufferSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        try (InputStream stream = cipher.encryptingInputStream(new TrickleInputStream(data, chunkSize))) {
+            assertThat(readAll(stream, transfer)).isEqualTo(encrypted);
+        }
+
+        try (InputStream stream = cipher.decryptingInputStream(new TrickleInputStream(encrypted, chunkSize))) {
+            assertThat(readAll(stream, transfer)).isEqualTo(data);
+        }
+    }
+
+    @Property(tries = 200)
+    void encryptingOutputStream_MatchesInMemoryEncryption(
+        @ForAll @Size(max = 2048) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] iv,
+        @ForAll @IntRange(min = 1, max = 256) int bufferSize,
+        @ForAll @IntRange(min = 1, max = 100) int chunkSize
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(key, iv, bufferSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+
+        try (OutputStream stream = cipher.encryptingOutputStream(ciphertext)) {
+            writeInChunks(stream, data, chunkSize);
+        }
+
+        assertThat(ciphertext.toByteArray()).isEqualTo(encrypted);
+
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+
+        try (OutputStream stream = cipher.decryptingOutputStream(plaintext)) {
+            writeInChunks(stream, encrypted, chunkSize);
+        }
+
+        assertThat(plaintext.toByteArray()).isEqualTo(data);
+    }
+
+    @Example
+    void encryptingOutputStream_Flush_WritesCompleteBlocks() throws IOException {
+        SymmetricCipher cipher = cipher(new byte[8], new byte[8], 1024);
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+
+        try (OutputStream stream = cipher.encryptingOutputStream(ciphertext)) {
+            stream.write(new byte[20]);
+            assertThat(ciphertext.size()).isZero();
+
+            stream.flush();
+            assertThat(ciphertext.size()).isEqualTo(16);
+        }
+
+        assertThat(ciphertext.size()).isEqualTo(24);
+    }
+
+    private static SymmetricCipher cipher(byte[] key, byte[] iv, int bufferSize) {
+        return SymmetricCipher.builder()
+            .cipher(new DesBlockCipher())
+            .mode(CipherModeType.CBC)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(iv)
+            .streamBufferSize(bufferSize)
+            .build();
+    }
+
+    private static byte[] readAll(InputStream stream, boolean transfer) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        if (transfer) {
+            stream.transferTo(output);
+        } else {
+            // Mix single-byte and bulk reads.
+            int b;
+
+            while ((b = stream.read()) != -1) {
+                output.write(b);
+                output.write(stream.readNBytes(7));
+            }
+        }
+
+        return output.toByteArray();
+    }
+
+    private static void writeInChunks(OutputStream stream, byte[] data, int chunkSize)
+    throws IOException {
+        for (int offset = 0; offset < data.length; offset += chunkSize) {
+            if (chunkSize == 1) {
+                stream.write(data[offset]);
+            } else {
+                stream.write(data, offset, Math.min(chunkSize, data.length - offset));
+            }
+        }
+    }
+
+    /** Returns at most <code>chunkSize</code> bytes per read. */
+    private static final class TrickleInputStream extends ByteArrayInputStream {
+
+        private final int chunkSize;
+
+        TrickleInputStream(byte[] data, int chunkSize) {
+            super(data);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) {
+            return super.read(buffer, offset, Math.min(length, chunkSize));
+        }
+    }
+}
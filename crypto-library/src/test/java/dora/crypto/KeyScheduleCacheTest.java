@@ -0,0 +1,131 @@
+package dora.crypto;
+
+import dora.crypto.block.BlockCipher;
+import dora.crypto.block.des.DesBlockCipher;
+import dora.crypto.block.des.TableDesBlockCipher;
+import dora.crypto.block.rijndael.RijndaelParameters;
+import dora.crypto.block.rijndael.TableRijndaelBlockCipher;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.Size;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyScheduleCacheTest {
+
+    @Property(tries = 100)
+    void lease_SameKey_ReturnsSameCipher(@ForAll @Size(value = 16) byte[] key) {
+        KeyScheduleCache cache = new KeyScheduleCache(4);
+        RijndaelParameters parameters = RijndaelParameters.aes128();
+
+        BlockCipher first = cache.lease(parameters, key, () -> new TableRijndaelBlockCipher(parameters)).cipher();
+        BlockCipher second = cache.lease(parameters, key.clone(), () -> new TableRijndaelBlockCipher(parameters)).cipher();
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Property(tries = 100)
+    void lease_DifferentKey_ReturnsDifferentCipher(
+        @ForAll @Size(value = 16) byte[] firstKey,
+        @ForAll @Size(value = 16) byte[] secondKey
+    ) {
+        Assume.that(!Arrays.equals(firstKey, secondKey));
+
+        KeyScheduleCache cache = new KeyScheduleCache(4);
+        RijndaelParameters parameters = RijndaelParameters.aes128();
+
+        BlockCipher first = cache.lease(parameters, firstKey, () -> new TableRijndaelBlockCipher(parameters)).cipher();
+        BlockCipher second = cache.lease(parameters, secondKey, () -> new TableRijndaelBlockCipher(parameters)).cipher();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Property(tries = 100)
+    void lease_MatchesFreshlyKeyedCipher(
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] block
+    ) {
+        KeyScheduleCache cache = new KeyScheduleCache(1);
+        BlockCipher cached = cache.lease("DES", key, DesBlockCipher::new).cipher();
+
+        DesBlockCipher fresh = new DesBlockCipher();
+        fresh.init(key);
+
+        assertThat(cached.encrypt(block)).isEqualTo(fresh.encrypt(block));
+    }
+
+    @Example
+    void lease_EvictsLeastRecentlyUsed() {
+        KeyScheduleCache cache = new KeyScheduleCache(2);
+
+        byte[] first = {1, 1, 1, 1, 1, 1, 1, 1};
+        byte[] second = {2, 2, 2, 2, 2, 2, 2, 2};
+        byte[] third = {3, 3, 3, 3, 3, 3, 3, 3};
+
+        BlockCipher firstCipher = cache.lease("DES", first, DesBlockCipher::new).cipher();
+        BlockCipher secondCipher = cache.lease("DES", second, DesBlockCipher::new).cipher();
+
+        // Touch the first entry, so that the second one is evicted.
+        cache.lease("DES", first, DesBlockCipher::new);
+        cache.lease("DES", third, DesBlockCipher::new);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.lease("DES", first, DesBlockCipher::new).cipher()).isSameAs(firstCipher);
+        assertThat(cache.lease("DES", second, DesBlockCipher::new).cipher()).isNotSameAs(secondCipher);
+    }
+
+    @Example
+    void lease_DifferentParameters_ReturnsDifferentCipher() {
+        KeyScheduleCache cache = new KeyScheduleCache(4);
+        byte[] key = new byte[8];
+
+        BlockCipher first = cache.lease("first", key, DesBlockCipher::new).cipher();
+        BlockCipher second = cache.lease("second", key, DesBlockCipher::new).cipher();
+
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Example
+    void evictedCipher_IsWipedOnceLeasesAreClosed() {
+        KeyScheduleCache cache = new KeyScheduleCache(1);
+
+        byte[] firstKey = {1, 1, 1, 1, 1, 1, 1, 1};
+        byte[] secondKey = {2, 2, 2, 2, 2, 2, 2, 2};
+        byte[] block = new byte[8];
+
+        KeyScheduleCache.Lease lease = cache.lease("DES", firstKey, TableDesBlockCipher::new);
+        BlockCipher cipher = lease.cipher();
+
+        // Evict the first entry while its cipher is still leased.
+        cache.lease("DES", secondKey, TableDesBlockCipher::new).close();
+        assertThat(cipher.encrypt(block)).hasSize(8);
+
+        lease.close();
+
+        assertThatThrownBy(() -> cipher.encrypt(block)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(lease::cipher).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Example
+    void clear_KeepsLeasedCiphersUntilClosed() {
+        KeyScheduleCache cache = new KeyScheduleCache(4);
+        byte[] block = new byte[8];
+
+        try (KeyScheduleCache.Lease lease = cache.lease("DES", new byte[8], TableDesBlockCipher::new)) {
+            cache.clear();
+
+            assertThat(cache.size()).isZero();
+            assertThat(lease.cipher().encrypt(block)).hasSize(8);
+        }
+    }
+
+    @Example
+    void constructor_NonPositiveCapacity_Throws() {
+        assertThatThrownBy(() -> new KeyScheduleCache(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
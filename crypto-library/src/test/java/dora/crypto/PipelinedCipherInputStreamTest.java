@@ -0,0 +1,134 @@
+package dora.crypto;
+
+import dora.crypto.SymmetricCipher.CipherModeType;
+import dora.crypto.SymmetricCipher.PaddingType;
+import dora.crypto.block.des.DesBlockCipher;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.Size;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelinedCipherInputStreamTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Property(tries = 200)
+    void pipelinedEncryptingInputStream_MatchesInMemoryEncryption(
+        @ForAll @Size(max = 4096) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] iv,
+        @ForAll("encryptionModes") CipherModeType mode,
+        @ForAll @IntRange(min = 1, max = 256) int bufferSize,
+        @ForAll boolean transfer
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(mode, key, iv, bufferSize);
+
+        try (InputStream stream = cipher.pipelinedEncryptingInputStream(new ByteArrayInputStream(data))) {
+            assertThat(readAll(stream, transfer)).isEqualTo(cipher.encrypt(data));
+        }
+    }
+
+    @Property(tries = 200)
+    void pipelinedDecryptingInputStream_MatchesInMemoryDecryption(
+        @ForAll @Size(max = 4096) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] iv,
+        @ForAll("decryptionModes") CipherModeType mode,
+        @ForAll @IntRange(min = 1, max = 256) int bufferSize,
+        @ForAll boolean transfer
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(mode, key, iv, bufferSize);
+        byte[] encrypted = cipher.encrypt(data);
+
+        try (InputStream stream = cipher.pipelinedDecryptingInputStream(new ByteArrayInputStream(encrypted))) {
+            assertThat(readAll(stream, transfer)).isEqualTo(data);
+        }
+    }
+
+    @Property(tries = 50)
+    void pipelinedEncryptingInputStream_ChainedMode_FallsBackToSequentialStream(
+        @ForAll @Size(max = 4096) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] iv,
+        @ForAll("sequentialEncryptionModes") CipherModeType mode
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(mode, key, iv, 64);
+
+        try (InputStream stream = cipher.pipelinedEncryptingInputStream(new ByteArrayInputStream(data))) {
+            assertThat(stream).isNotInstanceOf(PipelinedCipherInputStream.class);
+            assertThat(readAll(stream, true)).isEqualTo(cipher.encrypt(data));
+        }
+    }
+
+    @Property(tries = 50)
+    void pipelinedDecryptingInputStream_OFB_FallsBackToSequentialStream(
+        @ForAll @Size(max = 4096) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] iv
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = cipher(CipherModeType.OFB, key, iv, 64);
+        byte[] encrypted = cipher.encrypt(data);
+
+        try (InputStream stream = cipher.pipelinedDecryptingInputStream(new ByteArrayInputStream(encrypted))) {
+            assertThat(stream).isNotInstanceOf(PipelinedCipherInputStream.class);
+            assertThat(readAll(stream, true)).isEqualTo(data);
+        }
+    }
+
+    @Provide("encryptionModes")
+    Arbitrary<CipherModeType> encryptionModes() {
+        return Arbitraries.of(CipherModeType.values()).filter(CipherModeType::parallelEncryption);
+    }
+
+    @Provide("sequentialEncryptionModes")
+    Arbitrary<CipherModeType> sequentialEncryptionModes() {
+        return Arbitraries.of(CipherModeType.values()).filter((mode) -> !mode.parallelEncryption());
+    }
+
+    @Provide("decryptionModes")
+    Arbitrary<CipherModeType> decryptionModes() {
+        return Arbitraries.of(CipherModeType.values()).filter(CipherModeType::parallelDecryption);
+    }
+
+    private static SymmetricCipher cipher(CipherModeType mode, byte[] key, byte[] iv, int bufferSize) {
+        var builder = SymmetricCipher.builder()
+            .cipher(new DesBlockCipher())
+            .mode(mode)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(Arrays.copyOf(iv, mode.initSize(8)))
+            .pool(POOL)
+            .streamBufferSize(bufferSize);
+
+        if (mode == CipherModeType.RANDOM_DELTA) {
+            builder.arguments(0, 42L);
+        }
+
+        return builder.build();
+    }
+
+    private static byte[] readAll(InputStream stream, boolean transfer) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        if (transfer) {
+            stream.transferTo(output);
+        } else {
+            int b;
+
+            while ((b = stream.read()) != -1) {
+                output.write(b);
+                output.write(stream.readNBytes(13));
+            }
+        }
+
+        return output.toByteArray();
+    }
+}
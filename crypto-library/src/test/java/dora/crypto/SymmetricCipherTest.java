@@ -8,13 +8,24 @@ import dora.crypto.block.rijndael.*;
 import dora.crypto.block.rijndael.RijndaelParameters.BlockSize;
 import dora.crypto.block.rijndael.RijndaelParameters.KeySize;
 import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
 import net.jqwik.api.constraints.Positive;
 import net.jqwik.api.constraints.Size;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -405,6 +416,456 @@ public class SymmetricCipherTest {
     }
     //endregion
 
+    //region Mapped files
+    @Example
+    void encryptFile_CTR_MatchesInMemoryEncryption(
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 8) byte[] nonce
+    ) throws IOException, InterruptedException {
+        SymmetricCipher cipher = SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+            .mode(CipherModeType.CTR)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(nonce)
+            .build();
+
+        Path inputFile = Files.createTempFile("input", null);
+        Path encryptedFile = Files.createTempFile("encrypted", null);
+
+        try (InputStream stream = getClass().getResourceAsStream("/wireshark.jpg")) {
+            if (stream == null) throw new IOException("Resource not found");
+
+            byte[] inputBytes = stream.readAllBytes();
+            Files.write(inputFile, inputBytes);
+
+            cipher.encryptFile(inputFile, encryptedFile);
+
+            assertThat(Files.readAllBytes(encryptedFile)).isEqualTo(cipher.encrypt(inputBytes));
+        } finally {
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(encryptedFile);
+        }
+    }
+
+    @Property(tries = 40)
+    void encryptFile_decryptFile_SplitIntoRegions_MatchInMemoryOperations(
+        @ForAll CipherModeType mode,
+        @ForAll @IntRange(max = 20_000) int length,
+        @ForAll long seed
+    ) throws IOException, InterruptedException {
+        Random random = new Random(seed);
+
+        byte[] key = new byte[16];
+        byte[] iv = new byte[mode.initSize(16)];
+        byte[] inputBytes = new byte[length];
+
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        random.nextBytes(inputBytes);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        SymmetricCipher cipher = SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+            .mode(mode)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(iv)
+            // Random delta needs a fixed seed to be decrypted by another mode.
+            .arguments(mode == CipherModeType.RANDOM_DELTA ? List.of(0, seed) : List.of())
+            .pool(pool)
+            .streamBufferSize(1000)
+            .build();
+
+        Path inputFile = Files.createTempFile("input", null);
+        Path encryptedFile = Files.createTempFile("encrypted", null);
+        Path decryptedFile = Files.createTempFile("decrypted", null);
+
+        try {
+            Files.write(inputFile, inputBytes);
+
+            cipher.encryptFile(inputFile, encryptedFile);
+            assertThat(Files.readAllBytes(encryptedFile)).isEqualTo(cipher.encrypt(inputBytes));
+
+            cipher.decryptFile(encryptedFile, decryptedFile);
+            assertThat(Files.readAllBytes(decryptedFile)).isEqualTo(inputBytes);
+        } finally {
+            pool.shutdown();
+
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(encryptedFile);
+            Files.deleteIfExists(decryptedFile);
+        }
+    }
+    //endregion
+
+    //region Random access
+    @Property(tries = 100)
+    void decryptingChannel_CTR_ReadsRange(
+        @ForAll @Size(max = 4096) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 8) byte[] nonce,
+        @ForAll @Positive int counter,
+        @ForAll int from,
+        @ForAll int to
+    ) throws IOException, InterruptedException {
+        decryptingChannelTest(
+            SymmetricCipher.builder()
+                .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+                .mode(CipherModeType.CTR)
+                .padding(PaddingType.PKCS7)
+                .key(key)
+                .iv(nonce)
+                .argument(counter)
+                .build(),
+            data,
+            from,
+            to
+        );
+    }
+
+    @Property(tries = 100)
+    void decryptingChannel_RandomDelta_ReadsRange(
+        @ForAll @Size(max = 4096) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 4) byte[] nonce,
+        @ForAll @Positive int counter,
+        @ForAll long seed,
+        @ForAll int from,
+        @ForAll int to
+    ) throws IOException, InterruptedException {
+        decryptingChannelTest(
+            SymmetricCipher.builder()
+                .cipher(new DesBlockCipher())
+                .mode(CipherModeType.RANDOM_DELTA)
+                .padding(PaddingType.ANSI_X923)
+                .key(key)
+                .iv(nonce)
+                .arguments(counter, seed)
+                .build(),
+            data,
+            from,
+            to
+        );
+    }
+
+    private void decryptingChannelTest(SymmetricCipher cipher, byte[] data, int from, int to)
+    throws IOException, InterruptedException {
+        int start = Math.floorMod(from, data.length + 1);
+        int end = start + Math.floorMod(to, data.length - start + 1);
+
+        Path encryptedFile = Files.createTempFile("encrypted", null);
+
+        try {
+            Files.write(encryptedFile, cipher.encrypt(data));
+
+            try (var channel = cipher.decryptingChannel(FileChannel.open(encryptedFile))) {
+                assertThat(channel.size()).isEqualTo(data.length);
+
+                ByteBuffer range = ByteBuffer.allocate(end - start);
+                channel.position(start);
+
+                while (range.hasRemaining()) {
+                    assertThat(channel.read(range)).isPositive();
+                }
+
+                assertThat(range.array()).isEqualTo(Arrays.copyOfRange(data, start, end));
+            }
+        } finally {
+            Files.deleteIfExists(encryptedFile);
+        }
+    }
+    //endregion
+
+    //region IV size
+    @Property(tries = 50)
+    void initSize_IsAcceptedByMode(
+        @ForAll CipherModeType mode,
+        @ForAll @Size(max = 100) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll long seed
+    ) throws InterruptedException {
+        byte[] iv = new byte[mode.initSize(16)];
+        new Random(seed).nextBytes(iv);
+
+        SymmetricCipher cipher = SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+            .mode(mode)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(iv)
+            .arguments(mode == CipherModeType.RANDOM_DELTA ? List.of(0, seed) : List.of())
+            .build();
+
+        assertThat(cipher.decrypt(cipher.encrypt(data))).isEqualTo(data);
+    }
+    //endregion
+
+    //region Batch
+    @Property(tries = 50)
+    void encryptBatch_CBC_MatchesIndividualEncryption(
+        @ForAll @Size(max = 20) List<@Size(max = 200) byte[]> messages,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll long ivSeed
+    ) throws InterruptedException {
+        batchTest(CipherModeType.CBC, messages, key, ivSeed);
+    }
+
+    @Property(tries = 50)
+    void encryptBatch_CFB_MatchesIndividualEncryption(
+        @ForAll @Size(max = 20) List<@Size(max = 200) byte[]> messages,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll long ivSeed
+    ) throws InterruptedException {
+        batchTest(CipherModeType.CFB, messages, key, ivSeed);
+    }
+
+    @Property(tries = 50)
+    void encryptBatch_OFB_MatchesIndividualEncryption(
+        @ForAll @Size(max = 20) List<@Size(max = 200) byte[]> messages,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll long ivSeed
+    ) throws InterruptedException {
+        batchTest(CipherModeType.OFB, messages, key, ivSeed);
+    }
+
+    @Property(tries = 50)
+    void encryptBatch_PCBC_MatchesIndividualEncryption(
+        @ForAll @Size(max = 20) List<@Size(max = 200) byte[]> messages,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll long ivSeed
+    ) throws InterruptedException {
+        batchTest(CipherModeType.PCBC, messages, key, ivSeed);
+    }
+
+    @Property(tries = 50)
+    void encryptBatch_CTR_MatchesIndividualEncryption(
+        @ForAll @Size(max = 20) List<@Size(max = 200) byte[]> messages,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll long ivSeed
+    ) throws InterruptedException {
+        batchTest(CipherModeType.CTR, messages, key, ivSeed);
+    }
+
+    private void batchTest(
+        CipherModeType mode,
+        List<byte[]> messages,
+        byte[] key,
+        long ivSeed
+    ) throws InterruptedException {
+        RijndaelParameters parameters = RijndaelParameters.aes128();
+        Random random = new Random(ivSeed);
+
+        List<byte[]> ivs = messages.stream()
+            .map((message) -> {
+                byte[] iv = new byte[mode.initSize(parameters.blockSize().bytes())];
+                random.nextBytes(iv);
+                return iv;
+            })
+            .toList();
+
+        SymmetricCipher cipher = SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(parameters))
+            .mode(mode)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(new byte[mode.initSize(parameters.blockSize().bytes())])
+            .build();
+
+        List<byte[]> encrypted = cipher.encryptBatch(messages, ivs);
+
+        for (int i = 0; i < messages.size(); i++) {
+            SymmetricCipher single = SymmetricCipher.builder()
+                .cipher(new TableRijndaelBlockCipher(parameters))
+                .mode(mode)
+                .padding(PaddingType.PKCS7)
+                .key(key)
+                .iv(ivs.get(i))
+                .build();
+
+            assertThat(encrypted.get(i)).isEqualTo(single.encrypt(messages.get(i)));
+        }
+
+        assertThat(cipher.decryptBatch(encrypted, ivs))
+            .usingElementComparator(Arrays::compare)
+            .containsExactlyElementsOf(messages);
+    }
+    //endregion
+
+    //region Re-keying
+    @Property(tries = 100)
+    void withIv_MatchesFreshlyKeyedCipher(
+        @ForAll @Size(max = 1024) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 16) byte[] firstIv,
+        @ForAll @Size(value = 16) byte[] secondIv
+    ) throws InterruptedException {
+        SymmetricCipher cipher = SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+            .mode(CipherModeType.CBC)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(firstIv)
+            .build();
+
+        SymmetricCipher fresh = SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+            .mode(CipherModeType.CBC)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(secondIv)
+            .build();
+
+        SymmetricCipher rekeyed = cipher.withIv(secondIv);
+
+        assertThat(rekeyed.encrypt(data)).isEqualTo(fresh.encrypt(data));
+        assertThat(cipher.decrypt(cipher.encrypt(data))).isEqualTo(data);
+    }
+
+    @Property(tries = 100)
+    void initializedCipher_MatchesKeyedCipher(
+        @ForAll @Size(max = 1024) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] iv
+    ) throws InterruptedException {
+        DesBlockCipher des = new DesBlockCipher();
+        des.init(key);
+
+        SymmetricCipher initialized = SymmetricCipher.builder()
+            .initializedCipher(des)
+            .mode(CipherModeType.OFB)
+            .padding(PaddingType.PKCS7)
+            .iv(iv)
+            .build();
+
+        SymmetricCipher keyed = SymmetricCipher.builder()
+            .cipher(new DesBlockCipher())
+            .mode(CipherModeType.OFB)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(iv)
+            .build();
+
+        assertThat(initialized.encrypt(data)).isEqualTo(keyed.encrypt(data));
+    }
+    //endregion
+
+    //region Concurrency
+    @Property(tries = 20)
+    void encrypt_SharedCipher_MatchesSequentialEncryption(
+        @ForAll @Size(min = 1, max = 16) List<@Size(max = 4096) byte[]> messages,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 16) byte[] iv,
+        @ForAll("sharedModes") CipherModeType mode
+    ) throws Exception {
+        SymmetricCipher cipher = SymmetricCipher.builder()
+            .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+            .mode(mode)
+            .padding(PaddingType.PKCS7)
+            .key(key)
+            .iv(Arrays.copyOf(iv, mode.initSize(16)))
+            .build();
+
+        List<byte[]> expected = new ArrayList<>();
+
+        for (byte[] message : messages) {
+            expected.add(cipher.encrypt(message));
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<byte[]>> roundTrips = messages.stream()
+                .map((message) -> executor.submit(() -> cipher.decrypt(cipher.encrypt(message))))
+                .toList();
+
+            List<Future<byte[]>> encrypted = messages.stream()
+                .map((message) -> executor.submit(() -> cipher.encrypt(message)))
+                .toList();
+
+            for (int i = 0; i < messages.size(); i++) {
+                assertThat(roundTrips.get(i).get()).isEqualTo(messages.get(i));
+                assertThat(encrypted.get(i).get()).isEqualTo(expected.get(i));
+            }
+        }
+    }
+
+    @Provide("sharedModes")
+    Arbitrary<CipherModeType> sharedModes() {
+        return Arbitraries.of(CipherModeType.CBC, CipherModeType.CTR, CipherModeType.OFB);
+    }
+    //endregion
+
+    //region ByteBuffer
+    @Property(tries = 200)
+    void decryptBuffer_DES_CBC_Pkcs7Padding(
+        @ForAll @Size(max = 1024) byte[] data,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @Size(value = 8) byte[] iv,
+        @ForAll boolean direct
+    ) throws InterruptedException {
+        decryptBufferTest(
+            SymmetricCipher.builder()
+                .cipher(new DesBlockCipher())
+                .mode(CipherModeType.CBC)
+                .padding(PaddingType.PKCS7)
+                .key(key)
+                .iv(iv)
+                .build(),
+            data,
+            direct
+        );
+    }
+
+    @Property(tries = 200)
+    void decryptBuffer_Rijndael_CTR_ZerosPadding(
+        @ForAll @Size(max = 1024) byte[] data,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 8) byte[] nonce,
+        @ForAll boolean direct
+    ) throws InterruptedException {
+        Assume.that(data.length == 0 || data[data.length - 1] != 0);
+
+        decryptBufferTest(
+            SymmetricCipher.builder()
+                .cipher(new TableRijndaelBlockCipher(RijndaelParameters.aes128()))
+                .mode(CipherModeType.CTR)
+                .padding(PaddingType.ZEROS)
+                .key(key)
+                .iv(nonce)
+                .build(),
+            data,
+            direct
+        );
+    }
+
+    private void decryptBufferTest(SymmetricCipher cipher, byte[] data, boolean direct)
+    throws InterruptedException {
+        ByteBuffer src = allocate(data.length, direct).put(data).flip();
+        ByteBuffer encrypted = allocate(cipher.encryptedSize(data.length), direct);
+
+        int encryptedLength = cipher.encrypt(src, encrypted);
+
+        assertThat(src.hasRemaining()).isFalse();
+        assertThat(encryptedLength).isEqualTo(encrypted.capacity());
+        byte[] ciphertext = new byte[encryptedLength];
+        encrypted.flip().duplicate().get(ciphertext);
+
+        assertThat(ciphertext).isEqualTo(cipher.encrypt(data));
+
+        ByteBuffer decrypted = allocate(encryptedLength, !direct);
+        int decryptedLength = cipher.decrypt(encrypted, decrypted);
+
+        byte[] result = new byte[decryptedLength];
+        decrypted.flip().get(result);
+
+        assertThat(result).isEqualTo(data);
+    }
+
+    private static ByteBuffer allocate(int capacity, boolean direct) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+    //endregion
+
     private void decryptFileTests(SymmetricCipher cipher)
     throws IOException, InterruptedException {
         decryptFileTest(cipher, "/allocator_red_black_tree_tests.cpp");
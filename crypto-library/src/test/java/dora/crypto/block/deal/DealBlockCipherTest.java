@@ -2,8 +2,11 @@ package dora.crypto.block.deal;
 
 import dora.crypto.block.BlockCipher;
 import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
 import net.jqwik.api.constraints.Size;
 
+import java.util.Arrays;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class DealBlockCipherTest {
@@ -23,6 +26,26 @@ public class DealBlockCipherTest {
         assertThat(decrypted).isEqualTo(plaintext);
     }
 
+    @Property(tries = 200)
+    void blockOperationsInPlaceMatchCopying(
+        @ForAll @Size(value = 16) byte[] plaintext,
+        @ForAll("dealSizedKeys") byte[] dealKey,
+        @ForAll @Size(value = 8) byte[] desKey,
+        @ForAll @IntRange(max = 16) int offset
+    ) {
+        BlockCipher cipher = new DealBlockCipher(desKey);
+        cipher.init(dealKey);
+
+        byte[] buffer = new byte[offset + 16];
+        System.arraycopy(plaintext, 0, buffer, offset, 16);
+
+        cipher.encryptBlock(buffer, offset, buffer, offset);
+        assertThat(Arrays.copyOfRange(buffer, offset, offset + 16)).isEqualTo(cipher.encrypt(plaintext));
+
+        cipher.decryptBlock(buffer, offset, buffer, offset);
+        assertThat(Arrays.copyOfRange(buffer, offset, offset + 16)).isEqualTo(plaintext);
+    }
+
     @Provide
     Arbitrary<byte[]> dealSizedKeys() {
         return Arbitraries.integers().between(2, 4).flatMap((i) -> {
@@ -0,0 +1,52 @@
+package dora.crypto.block.deal;
+
+import dora.crypto.block.KeyedRoundFunction;
+import dora.crypto.block.des.DesBlockCipher;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.Size;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DealRoundFunctionTest {
+
+    @Property(tries = 200)
+    void keyedFunctionMatchesDesEncryption(
+        @ForAll @Size(value = 8) byte[] first,
+        @ForAll @Size(value = 8) byte[] second,
+        @ForAll @Size(value = 8) byte[] key
+    ) {
+        DesBlockCipher des = new DesBlockCipher();
+        des.init(key);
+
+        DealRoundFunction roundFunction = new DealRoundFunction();
+        KeyedRoundFunction keyed = roundFunction.withKey(key);
+
+        assertThat(keyed.apply(first)).isEqualTo(des.encrypt(first));
+        assertThat(keyed.apply(second)).isEqualTo(des.encrypt(second));
+        assertThat(roundFunction.apply(first, key)).isEqualTo(des.encrypt(first));
+    }
+
+    @Property(tries = 200)
+    void keyedFunctionWritesDesEncryptionAtOffset(
+        @ForAll @Size(value = 8) byte[] block,
+        @ForAll @Size(value = 8) byte[] key,
+        @ForAll @IntRange(max = 8) int inOff,
+        @ForAll @IntRange(max = 8) int outOff
+    ) {
+        DesBlockCipher des = new DesBlockCipher();
+        des.init(key);
+
+        KeyedRoundFunction keyed = new DealRoundFunction().withKey(key);
+
+        byte[] in = new byte[inOff + 8];
+        System.arraycopy(block, 0, in, inOff, 8);
+        byte[] out = new byte[outOff + 8];
+
+        keyed.apply(in, inOff, 8, out, outOff);
+
+        assertThat(Arrays.copyOfRange(out, outOff, outOff + 8)).isEqualTo(des.encrypt(block));
+    }
+}
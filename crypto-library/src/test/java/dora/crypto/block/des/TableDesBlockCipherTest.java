@@ -0,0 +1,52 @@
+package dora.crypto.block.des;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.Size;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TableDesBlockCipherTest {
+
+    @Property(tries = 1000)
+    void encryptionMatchesReference(
+        @ForAll @Size(value = 8) byte[] plaintext,
+        @ForAll @Size(value = 8) byte[] key
+    ) {
+        DesBlockCipher reference = new DesBlockCipher();
+        TableDesBlockCipher blockCipher = new TableDesBlockCipher();
+
+        reference.init(key);
+        blockCipher.init(key);
+
+        byte[] encrypted = blockCipher.encrypt(plaintext);
+
+        assertThat(encrypted).isEqualTo(reference.encrypt(plaintext));
+        assertThat(blockCipher.decrypt(encrypted)).isEqualTo(plaintext);
+    }
+
+    /* https://simewu.com/des/ */
+
+    @Example
+    void encryptionIsCorrect() {
+        byte[] plaintext = new byte[] {
+            (byte) 0x01, (byte) 0x23, (byte) 0x45, (byte) 0x67,
+            (byte) 0x89, (byte) 0xab, (byte) 0xcd, (byte) 0xef
+        };
+
+        byte[] key = new byte[] {
+            (byte) 0x01, (byte) 0x23, (byte) 0x45, (byte) 0x67,
+            (byte) 0x89, (byte) 0xab, (byte) 0xcd, (byte) 0xef
+        };
+
+        byte[] expected = new byte[] {
+            (byte) 0x56, (byte) 0xcc, (byte) 0x09, (byte) 0xe7,
+            (byte) 0xcf, (byte) 0xdc, (byte) 0x4c, (byte) 0xef
+        };
+
+        TableDesBlockCipher blockCipher = new TableDesBlockCipher();
+        blockCipher.init(key);
+
+        assertThat(blockCipher.encrypt(plaintext)).isEqualTo(expected);
+        assertThat(blockCipher.decrypt(expected)).isEqualTo(plaintext);
+    }
+}
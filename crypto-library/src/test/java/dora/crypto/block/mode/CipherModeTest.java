@@ -1,7 +1,9 @@
 package dora.crypto.block.mode;
 
 import net.jqwik.api.*;
+import net.jqwik.api.constraints.Size;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public abstract class CipherModeTest {
@@ -22,6 +24,41 @@ public abstract class CipherModeTest {
             .isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Property(tries = 200)
+    void inPlaceOperationMatchesCopying(
+        @ForAll("multipleOfBlockSize") byte[] plaintext,
+        @ForAll @Size(min = 1) byte[] key,
+        @ForAll("modeParameters") Parameters parameters
+    ) throws InterruptedException {
+        cipherMode.init(key, parameters);
+        byte[] encrypted = cipherMode.encrypt(plaintext);
+
+        byte[] buffer = plaintext.clone();
+
+        cipherMode.init(key, parameters);
+        cipherMode.encrypt(buffer, 0, buffer.length, buffer, 0);
+
+        assertThat(buffer).isEqualTo(encrypted);
+
+        cipherMode.init(key, parameters);
+        cipherMode.decrypt(buffer, 0, buffer.length, buffer, 0);
+
+        assertThat(buffer).isEqualTo(plaintext);
+    }
+
+    /**
+     * Returns the parameters to initialize the mode with. Tests of modes that
+     * take an IV or a nonce override it.
+     */
+    protected Arbitrary<Parameters> parameters() {
+        return Arbitraries.just(Parameters.NO_PARAMETERS);
+    }
+
+    @Provide
+    Arbitrary<Parameters> modeParameters() {
+        return parameters();
+    }
+
     @Provide
     Arbitrary<byte[]> multipleOfBlockSize() {
         return Arbitraries.integers()
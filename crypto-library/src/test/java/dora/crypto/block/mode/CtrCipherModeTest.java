@@ -1,11 +1,18 @@
 package dora.crypto.block.mode;
 
 import dora.crypto.block.mode.CtrCipherMode.CtrParameters;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.Example;
 import net.jqwik.api.ForAll;
 import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
 import net.jqwik.api.constraints.Positive;
 import net.jqwik.api.constraints.Size;
 
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -34,4 +41,86 @@ public class CtrCipherModeTest extends CipherModeTest {
 
         assertThat(decrypted).isEqualTo(plaintext);
     }
+
+    @Property(tries = 500)
+    void transformAtMatchesSequentialEncryption(
+        @ForAll("multipleOfBlockSize") byte[] plaintext,
+        @ForAll @Size(min = 1) byte[] key,
+        @ForAll @Size(value = 8) byte[] nonce,
+        @ForAll @Positive int counter,
+        @ForAll int block
+    ) throws InterruptedException {
+        int blocks = plaintext.length / cipherMode.blockSize();
+        int firstBlock = Math.floorMod(block, blocks + 1);
+        int offset = firstBlock * cipherMode.blockSize();
+
+        cipherMode.init(key, new CtrParameters(nonce, counter));
+        byte[] encrypted = cipherMode.encrypt(plaintext);
+
+        SeekableCipherMode seekableMode = (SeekableCipherMode) cipherMode;
+        byte[] transformed = new byte[plaintext.length - offset];
+        seekableMode.transformAt(
+            firstBlock, plaintext, offset, transformed.length, transformed, 0);
+
+        assertThat(transformed)
+            .isEqualTo(Arrays.copyOfRange(encrypted, offset, encrypted.length));
+    }
+
+    @Property(tries = 200)
+    void counterLayoutVariantsRoundTrip(
+        @ForAll("multipleOfBlockSize") byte[] plaintext,
+        @ForAll @Size(min = 1) byte[] key,
+        @ForAll @Size(value = 8) byte[] nonce,
+        @ForAll @IntRange(min = 1, max = 8) int counterSize,
+        @ForAll boolean bigEndian,
+        @ForAll long counter
+    ) throws InterruptedException {
+        long mask = counterSize == 8 ? Long.MAX_VALUE : (1L << (counterSize * 8)) - 1;
+        ByteOrder byteOrder = bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        CtrParameters parameters = new CtrParameters(nonce, counter & mask, counterSize, byteOrder);
+
+        cipherMode.init(key, parameters);
+        byte[] encrypted = cipherMode.encrypt(plaintext);
+
+        cipherMode.init(key, parameters);
+        byte[] decrypted = cipherMode.decrypt(encrypted);
+
+        assertThat(decrypted).isEqualTo(plaintext);
+    }
+
+    @Example
+    void counterCarriesPastThirtyTwoBits() throws InterruptedException {
+        // The mock cipher XORs with the key, so a zero key and zero plaintext
+        // reveal the counter blocks.
+        byte[] nonce = { 1, 2, 3, 4, 5, 6, 7, 8 };
+
+        cipherMode.init(new byte[16], new CtrParameters(nonce, 0xffffffffL));
+        byte[] keystream = cipherMode.encrypt(new byte[32]);
+
+        assertThat(keystream).isEqualTo(new byte[] {
+            1, 2, 3, 4, 5, 6, 7, 8, 0, 0, 0, 0, -1, -1, -1, -1,
+            1, 2, 3, 4, 5, 6, 7, 8, 0, 0, 0, 1, 0, 0, 0, 0
+        });
+    }
+
+    @Example
+    void littleEndianCounterWrapsAtItsWidth() throws InterruptedException {
+        byte[] nonce = new byte[8];
+
+        cipherMode.init(new byte[16], new CtrParameters(nonce, 0xffff, 2, ByteOrder.LITTLE_ENDIAN));
+        byte[] keystream = cipherMode.encrypt(new byte[32]);
+
+        assertThat(keystream).isEqualTo(new byte[] {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, -1, -1,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0
+        });
+    }
+
+    @Override
+    protected Arbitrary<Parameters> parameters() {
+        return Combinators.combine(
+            Arbitraries.bytes().array(byte[].class).ofSize(8),
+            Arbitraries.longs().greaterOrEqual(0)
+        ).as(CtrParameters::new);
+    }
 }
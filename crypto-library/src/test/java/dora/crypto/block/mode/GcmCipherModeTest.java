@@ -0,0 +1,131 @@
+package dora.crypto.block.mode;
+
+import dora.crypto.block.BlockCipher;
+import dora.crypto.block.rijndael.RijndaelParameters;
+import dora.crypto.block.rijndael.TableRijndaelBlockCipher;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.Size;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GcmCipherModeTest {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // Test vectors are from the GCM specification (test cases 2, 3 and 4).
+
+    @Example
+    void encrypt_ZeroKey_MatchesTestVector() {
+        GcmCipherMode gcm = gcm("00000000000000000000000000000000");
+
+        byte[] output = new byte[32];
+        gcm.encrypt(new byte[12], EMPTY, new byte[16], 0, 16, output, 0);
+
+        assertThat(output).isEqualTo(hex(
+            "0388dace60b6a392f328c2b971b2fe78" +
+            "ab6e47d42cec13bdf53a67b21257bddf"
+        ));
+    }
+
+    @Example
+    void encrypt_MultipleBlocks_MatchesTestVector() {
+        GcmCipherMode gcm = gcm("feffe9928665731c6d6a8f9467308308");
+        byte[] plaintext = hex(
+            "d9313225f88406e5a55909c5aff5269a86a7a9531534f7da2e4c303d8a318a72" +
+            "1c3c0c95956809532fcf0e2449a6b525b16aedf5aa0de657ba637b391aafd255"
+        );
+
+        byte[] output = new byte[plaintext.length + GcmCipherMode.TAG_SIZE];
+        gcm.encrypt(hex("cafebabefacedbaddecaf888"), EMPTY, plaintext, 0, plaintext.length, output, 0);
+
+        assertThat(output).isEqualTo(hex(
+            "42831ec2217774244b7221b784d0d49ce3aa212f2c02a4e035c17e2329aca12e" +
+            "21d514b25466931c7d8f6a5aac84aa051ba30b396a0aac973d58e091473f5985" +
+            "4d5c2af327cd64a62cf35abd2ba6fab4"
+        ));
+    }
+
+    @Example
+    void encrypt_AssociatedDataAndPartialBlock_MatchesTestVector() {
+        GcmCipherMode gcm = gcm("feffe9928665731c6d6a8f9467308308");
+        byte[] plaintext = hex(
+            "d9313225f88406e5a55909c5aff5269a86a7a9531534f7da2e4c303d8a318a72" +
+            "1c3c0c95956809532fcf0e2449a6b525b16aedf5aa0de657ba637b39"
+        );
+
+        byte[] output = new byte[plaintext.length + GcmCipherMode.TAG_SIZE];
+        gcm.encrypt(
+            hex("cafebabefacedbaddecaf888"),
+            hex("feedfacedeadbeeffeedfacedeadbeefabaddad2"),
+            plaintext, 0, plaintext.length, output, 0
+        );
+
+        assertThat(output).isEqualTo(hex(
+            "42831ec2217774244b7221b784d0d49ce3aa212f2c02a4e035c17e2329aca12e" +
+            "21d514b25466931c7d8f6a5aac84aa051ba30b396a0aac973d58e091" +
+            "5bc94fbc3221a5db94fae95ae7121a47"
+        ));
+    }
+
+    @Property(tries = 500)
+    void decrypt_InPlace_RestoresPlaintext(
+        @ForAll byte[] plaintext,
+        @ForAll byte[] associatedData,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 12) byte[] nonce
+    ) {
+        GcmCipherMode gcm = new GcmCipherMode(aes(key));
+
+        byte[] data = Arrays.copyOf(plaintext, plaintext.length + GcmCipherMode.TAG_SIZE);
+        gcm.encrypt(nonce, associatedData, data, 0, plaintext.length, data, 0);
+        int length = gcm.decrypt(nonce, associatedData, data, 0, data.length, data, 0);
+
+        assertThat(Arrays.copyOf(data, length)).isEqualTo(plaintext);
+    }
+
+    @Property(tries = 500)
+    void decrypt_CorruptedByte_Rejected(
+        @ForAll @Size(min = 1) byte[] plaintext,
+        @ForAll @Size(value = 16) byte[] key,
+        @ForAll @Size(value = 12) byte[] nonce,
+        @ForAll int position
+    ) {
+        GcmCipherMode gcm = new GcmCipherMode(aes(key));
+
+        byte[] ciphertext = new byte[plaintext.length + GcmCipherMode.TAG_SIZE];
+        gcm.encrypt(nonce, EMPTY, plaintext, 0, plaintext.length, ciphertext, 0);
+        ciphertext[Math.floorMod(position, ciphertext.length)] ^= 1;
+
+        byte[] output = new byte[plaintext.length];
+
+        assertThatThrownBy(() -> gcm.decrypt(nonce, EMPTY, ciphertext, 0, ciphertext.length, output, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(output).containsOnly(0);
+    }
+
+    @Example
+    void constructor_64BitBlockCipher_Throws() {
+        assertThatThrownBy(() -> new GcmCipherMode(new MockBlockCipher(8)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static GcmCipherMode gcm(String key) {
+        return new GcmCipherMode(aes(hex(key)));
+    }
+
+    private static BlockCipher aes(byte[] key) {
+        BlockCipher cipher = new TableRijndaelBlockCipher(RijndaelParameters.aes128());
+        cipher.init(key);
+        return cipher;
+    }
+
+    private static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+}
@@ -0,0 +1,134 @@
+package dora.crypto.block.mode;
+
+import dora.crypto.block.BlockCipher;
+import dora.crypto.block.des.DesBlockCipher;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ParallelBlockProcessorTest {
+
+    @Property(tries = 200)
+    void everyBlockIsProcessedOnce(
+        @ForAll @IntRange(max = 100_000) int blocks,
+        @ForAll @IntRange(min = 1, max = 32) int blockSize,
+        @ForAll @IntRange(max = 100_000) int minTaskNanos,
+        @ForAll @IntRange(min = 1, max = 8) int tasksPerThread
+    ) throws InterruptedException {
+        ParallelBlockProcessor processor = new ParallelBlockProcessor(
+            ForkJoinPool.commonPool(),
+            new ParallelTuning(0, minTaskNanos, tasksPerThread)
+        );
+
+        AtomicIntegerArray counts = new AtomicIntegerArray(blocks);
+
+        processor.processBlocks(blocks * blockSize, blockSize, (idx, start, end) -> {
+            assertThat(start).isEqualTo(idx * blockSize);
+            assertThat(end).isEqualTo(start + blockSize);
+
+            counts.incrementAndGet(idx);
+        });
+
+        for (int i = 0; i < blocks; i++) {
+            assertThat(counts.get(i)).isEqualTo(1);
+        }
+    }
+
+    @Property(tries = 10)
+    void exceptionsArePropagated(@ForAll @IntRange(min = 0, max = 9_999) int failingBlock) {
+        ParallelBlockProcessor processor = new ParallelBlockProcessor(
+            ForkJoinPool.commonPool(),
+            new ParallelTuning(0, 0, 4)
+        );
+
+        assertThatThrownBy(() ->
+            processor.processBlocks(10_000, 1, (idx, start, end) -> {
+                if (idx == failingBlock) throw new IllegalStateException("failed");
+            })
+        ).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Property(tries = 100)
+    void chainedBlocksSeeOriginalInput(
+        @ForAll @IntRange(min = 1, max = 5_000) int blocks,
+        @ForAll @IntRange(min = 1, max = 16) int blockSize,
+        @ForAll boolean inPlace,
+        @ForAll long seed
+    ) throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            ParallelBlockProcessor processor = new ParallelBlockProcessor(pool, new ParallelTuning(0, 0, 8));
+
+            byte[] initial = new byte[blockSize];
+            byte[] input = new byte[blocks * blockSize];
+
+            Random random = new Random(seed);
+            random.nextBytes(initial);
+            random.nextBytes(input);
+
+            byte[] original = input.clone();
+            byte[] output = inPlace ? input : new byte[input.length];
+
+            // Output block = previous input block XOR current input block.
+            processor.processChainedBlocks(
+                input, 0, output, 0, input.length, blockSize, initial,
+                (previous, current, out, offset) -> {
+                    for (int j = 0; j < blockSize; j++) {
+                        out[offset + j] = (byte) (previous[j] ^ current[j]);
+                    }
+                }
+            );
+
+            for (int block = 0; block < blocks; block++) {
+                int offset = block * blockSize;
+                byte[] previous = block == 0
+                    ? initial
+                    : Arrays.copyOfRange(original, offset - blockSize, offset);
+
+                for (int j = 0; j < blockSize; j++) {
+                    assertThat(output[offset + j]).isEqualTo((byte) (previous[j] ^ original[offset + j]));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Example
+    void processorsOfOneCipherShareTheCostEstimate() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            BlockCipher cipher = new DesBlockCipher();
+            ParallelTuning tuning = new ParallelTuning(0, 0, 8);
+
+            new ParallelBlockProcessor(cipher, pool, tuning)
+                .processBlocks(1_000, 1, (idx, start, end) -> { });
+
+            // Without an estimate, the first blocks would be measured on the
+            // calling thread.
+            Thread caller = Thread.currentThread();
+            AtomicBoolean processedByCaller = new AtomicBoolean();
+
+            new ParallelBlockProcessor(cipher, pool, tuning)
+                .processBlocks(1_000, 1, (idx, start, end) -> {
+                    if (Thread.currentThread() == caller) processedByCaller.set(true);
+                });
+
+            assertThat(processedByCaller).isFalse();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package dora.crypto.block.mode;
 
 import dora.crypto.block.mode.Parameters.IvParameters;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
 import net.jqwik.api.ForAll;
 import net.jqwik.api.Property;
 import net.jqwik.api.constraints.Size;
@@ -32,4 +34,9 @@ public class PcbcCipherModeTest extends CipherModeTest {
 
         assertThat(decrypted).isEqualTo(plaintext);
     }
+
+    @Override
+    protected Arbitrary<Parameters> parameters() {
+        return Arbitraries.bytes().array(byte[].class).ofSize(16).map(IvParameters::new);
+    }
 }
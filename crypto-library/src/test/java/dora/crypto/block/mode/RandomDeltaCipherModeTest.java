@@ -1,11 +1,16 @@
 package dora.crypto.block.mode;
 
 import dora.crypto.block.mode.RandomDeltaCipherMode.RandomDeltaParameters;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
 import net.jqwik.api.ForAll;
 import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
 import net.jqwik.api.constraints.Positive;
 import net.jqwik.api.constraints.Size;
 
+import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,4 +40,101 @@ public class RandomDeltaCipherModeTest extends CipherModeTest {
 
         assertThat(decrypted).isEqualTo(plaintext);
     }
+
+    @Property(tries = 500)
+    void transformAtMatchesSequentialEncryption(
+        @ForAll("multipleOfBlockSize") byte[] plaintext,
+        @ForAll @Size(min = 1) byte[] key,
+        @ForAll @Size(value = 8) byte[] nonce,
+        @ForAll @Positive int counter,
+        @ForAll long seed,
+        @ForAll int block
+    ) throws InterruptedException {
+        int blocks = plaintext.length / cipherMode.blockSize();
+        int firstBlock = Math.floorMod(block, blocks + 1);
+        int offset = firstBlock * cipherMode.blockSize();
+
+        cipherMode.init(key, new RandomDeltaParameters(nonce, counter, seed));
+        byte[] encrypted = cipherMode.encrypt(plaintext);
+
+        SeekableCipherMode seekableMode = (SeekableCipherMode) cipherMode;
+        byte[] transformed = new byte[plaintext.length - offset];
+        seekableMode.transformAt(
+            firstBlock, plaintext, offset, transformed.length, transformed, 0);
+
+        assertThat(transformed)
+            .isEqualTo(Arrays.copyOfRange(encrypted, offset, encrypted.length));
+    }
+
+    @Property(tries = 50)
+    void splitEncryptionMatchesRandomAccess(
+        @ForAll @IntRange(max = 3000) int blocks,
+        @ForAll @Size(min = 1) byte[] key,
+        @ForAll @Size(value = 8) byte[] nonce,
+        @ForAll @Positive int counter,
+        @ForAll long seed,
+        @ForAll int split
+    ) throws InterruptedException {
+        byte[] plaintext = new byte[blocks * cipherMode.blockSize()];
+        int offset = Math.floorMod(split, blocks + 1) * cipherMode.blockSize();
+
+        cipherMode.init(key, new RandomDeltaParameters(nonce, counter, seed));
+        byte[] encrypted = cipherMode.encrypt(plaintext);
+
+        cipherMode.init(key, new RandomDeltaParameters(nonce, counter, seed));
+        byte[] head = cipherMode.encrypt(Arrays.copyOfRange(plaintext, 0, offset));
+        byte[] tail = cipherMode.encrypt(Arrays.copyOfRange(plaintext, offset, plaintext.length));
+
+        byte[] transformed = new byte[plaintext.length - offset];
+        ((SeekableCipherMode) cipherMode).transformAt(
+            offset / cipherMode.blockSize(), plaintext, offset, transformed.length, transformed, 0);
+
+        assertThat(head).isEqualTo(Arrays.copyOfRange(encrypted, 0, offset));
+        assertThat(tail).isEqualTo(Arrays.copyOfRange(encrypted, offset, encrypted.length));
+        assertThat(transformed).isEqualTo(tail);
+    }
+
+    @Property(tries = 5)
+    void longInputMatchesShortChunks(
+        @ForAll @Size(min = 1) byte[] key,
+        @ForAll @Size(value = 8) byte[] nonce,
+        @ForAll long seed,
+        @ForAll @IntRange(max = 39_999) int firstBlock
+    ) throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            // Long inputs sum their deltas on the pool, short ones sequentially.
+            var mode = new RandomDeltaCipherMode(new MockBlockCipher(16), pool);
+            byte[] plaintext = new byte[40_000 * mode.blockSize()];
+            int chunkLength = 1_000 * mode.blockSize();
+
+            mode.init(key, new RandomDeltaParameters(nonce, 0, seed));
+            byte[] encrypted = mode.encrypt(plaintext);
+
+            mode.init(key, new RandomDeltaParameters(nonce, 0, seed));
+
+            for (int offset = 0; offset < plaintext.length; offset += chunkLength) {
+                byte[] chunk = mode.encrypt(Arrays.copyOfRange(plaintext, offset, offset + chunkLength));
+                assertThat(chunk).isEqualTo(Arrays.copyOfRange(encrypted, offset, offset + chunkLength));
+            }
+
+            int offset = firstBlock * mode.blockSize();
+            byte[] transformed = new byte[mode.blockSize()];
+            mode.transformAt(firstBlock, plaintext, offset, transformed.length, transformed, 0);
+
+            assertThat(transformed).isEqualTo(Arrays.copyOfRange(encrypted, offset, offset + mode.blockSize()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    protected Arbitrary<Parameters> parameters() {
+        return Combinators.combine(
+            Arbitraries.bytes().array(byte[].class).ofSize(8),
+            Arbitraries.integers().greaterOrEqual(0),
+            Arbitraries.longs()
+        ).as(RandomDeltaParameters::new);
+    }
 }
@@ -5,6 +5,8 @@ import net.jqwik.api.Property;
 import net.jqwik.api.constraints.IntRange;
 import net.jqwik.api.constraints.Size;
 
+import java.nio.ByteBuffer;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class Pkcs7PaddingTest {
@@ -25,4 +27,53 @@ public class Pkcs7PaddingTest {
 
         assertThat(unpadded).isEqualTo(data);
     }
+
+    @Property(tries = 1000)
+    void unpaddingPaddedBufferEqualsOriginal(
+        @ForAll @Size(min = 1) byte[] data,
+        @ForAll @IntRange(min = 1, max = 255) int blockSize
+    ) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + blockSize);
+        buffer.put(data);
+
+        int paddingSize = padding.pad(buffer, data.length, blockSize);
+        assertThat(buffer.flip().remaining()).isEqualTo(data.length + paddingSize);
+
+        padding.unpad(buffer, blockSize);
+
+        byte[] unpadded = new byte[buffer.remaining()];
+        buffer.get(unpadded);
+
+        assertThat(unpadded).isEqualTo(data);
+    }
+
+    @Property(tries = 1000)
+    void defaultBufferMethodsMatchOverrides(
+        @ForAll @Size(min = 1) byte[] data,
+        @ForAll @IntRange(min = 1, max = 255) int blockSize
+    ) {
+        // Implements the array API only.
+        Padding arrayPadding = new Padding() {
+
+            @Override
+            public byte[] pad(byte[] data, int blockSize) {
+                return padding.pad(data, blockSize);
+            }
+
+            @Override
+            public byte[] unpad(byte[] data, int blockSize) {
+                return padding.unpad(data, blockSize);
+            }
+        };
+
+        ByteBuffer expected = ByteBuffer.allocate(data.length + blockSize).put(data);
+        ByteBuffer actual = ByteBuffer.allocate(data.length + blockSize).put(data);
+
+        assertThat(arrayPadding.pad(actual, data.length, blockSize))
+            .isEqualTo(padding.pad(expected, data.length, blockSize));
+        assertThat(actual.flip()).isEqualTo(expected.flip());
+
+        assertThat(arrayPadding.unpad(actual, blockSize)).isEqualTo(padding.unpad(expected, blockSize));
+        assertThat(actual.limit()).isEqualTo(data.length);
+    }
 }
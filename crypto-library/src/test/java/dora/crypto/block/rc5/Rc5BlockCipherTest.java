@@ -133,6 +133,50 @@ public class Rc5BlockCipherTest {
         assertThat(cipher.decrypt(ciphertext)).isEqualTo(plaintext);
     }
 
+    /* https://datatracker.ietf.org/doc/html/draft-krovetz-rc6-rc5-vectors-00 */
+
+    @Example
+    void testVectorWordSize16() {
+        byte[] plaintext = parseBytes("00010203");
+        byte[] key = parseBytes("0001020304050607");
+        byte[] ciphertext = parseBytes("23A8D72E");
+
+        Rc5Parameters parameters = new Rc5Parameters(WORD_SIZE_16, 16, key.length);
+        Rc5BlockCipher cipher = new Rc5BlockCipher(parameters);
+        cipher.init(key);
+
+        assertThat(cipher.encrypt(plaintext)).isEqualTo(ciphertext);
+        assertThat(cipher.decrypt(ciphertext)).isEqualTo(plaintext);
+    }
+
+    @Example
+    void testVectorWordSize32() {
+        byte[] plaintext = parseBytes("0001020304050607");
+        byte[] key = parseBytes("000102030405060708090A0B0C0D0E0F");
+        byte[] ciphertext = parseBytes("2A0EDC0E9431FF73");
+
+        Rc5Parameters parameters = new Rc5Parameters(WORD_SIZE_32, 20, key.length);
+        Rc5BlockCipher cipher = new Rc5BlockCipher(parameters);
+        cipher.init(key);
+
+        assertThat(cipher.encrypt(plaintext)).isEqualTo(ciphertext);
+        assertThat(cipher.decrypt(ciphertext)).isEqualTo(plaintext);
+    }
+
+    @Example
+    void testVectorWordSize64() {
+        byte[] plaintext = parseBytes("000102030405060708090A0B0C0D0E0F");
+        byte[] key = parseBytes("000102030405060708090A0B0C0D0E0F1011121314151617");
+        byte[] ciphertext = parseBytes("A46772820EDBCE0235ABEA32AE7178DA");
+
+        Rc5Parameters parameters = new Rc5Parameters(WORD_SIZE_64, 24, key.length);
+        Rc5BlockCipher cipher = new Rc5BlockCipher(parameters);
+        cipher.init(key);
+
+        assertThat(cipher.encrypt(plaintext)).isEqualTo(ciphertext);
+        assertThat(cipher.decrypt(ciphertext)).isEqualTo(plaintext);
+    }
+
     private static byte[] parseBytes(String hex) {
         return HexFormat.of().parseHex(hex);
     }
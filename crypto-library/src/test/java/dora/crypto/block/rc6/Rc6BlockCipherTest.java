@@ -147,6 +147,38 @@ public class Rc6BlockCipherTest {
         assertThat(cipher.decrypt(expected)).isEqualTo(plaintext);
     }
 
+    /* https://datatracker.ietf.org/doc/html/draft-krovetz-rc6-rc5-vectors-00 */
+
+    @Example
+    void testVectorWordSize16() {
+        byte[] plaintext = parseHex("0001020304050607");
+        byte[] key = parseHex("0001020304050607");
+        byte[] expected = parseHex("2ff0b68eaeffad5b");
+
+        Rc6Parameters parameters = new Rc6Parameters(WORD_SIZE_16, 16, 8);
+        Rc6BlockCipher cipher = new Rc6BlockCipher(parameters);
+        cipher.init(key);
+
+        assertThat(cipher.encrypt(plaintext)).isEqualTo(expected);
+        assertThat(cipher.decrypt(expected)).isEqualTo(plaintext);
+    }
+
+    @Example
+    void testVectorWordSize64() {
+        byte[] plaintext = parseHex(
+            "000102030405060708090a0b0c0d0e0f101112131415161718191a1b1c1d1e1f");
+        byte[] key = parseHex("000102030405060708090a0b0c0d0e0f1011121314151617");
+        byte[] expected = parseHex(
+            "c002de050bd55e5d36864ab9853338e6dc4a1326c6bdaaeb1bc9e4fd67886617");
+
+        Rc6Parameters parameters = new Rc6Parameters(WORD_SIZE_64, 24, 24);
+        Rc6BlockCipher cipher = new Rc6BlockCipher(parameters);
+        cipher.init(key);
+
+        assertThat(cipher.encrypt(plaintext)).isEqualTo(expected);
+        assertThat(cipher.decrypt(expected)).isEqualTo(plaintext);
+    }
+
     private static byte[] parseHex(String hex) {
         return HexFormat.of().parseHex(hex);
     }
@@ -0,0 +1,84 @@
+package dora.crypto.block.rijndael;
+
+import dora.crypto.block.rijndael.RijndaelParameters.BlockSize;
+import dora.crypto.block.rijndael.RijndaelParameters.KeySize;
+import net.jqwik.api.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TableRijndaelBlockCipherTest {
+
+    @Property(tries = 500)
+    void encryptionMatchesReference(
+        @ForAll KeySize keySize,
+        @ForAll BlockSize blockSize,
+        @ForAll("irreducibleModulus") short modulus,
+        @ForAll("bytes") byte[] plaintext,
+        @ForAll("bytes") byte[] key
+    ) {
+        RijndaelParameters parameters = new RijndaelParameters(keySize, blockSize, modulus);
+
+        byte[] blockPlaintext = resize(plaintext, blockSize.bytes());
+        byte[] cipherKey = resize(key, keySize.bytes());
+
+        RijndaelBlockCipher reference = new RijndaelBlockCipher(parameters);
+        TableRijndaelBlockCipher blockCipher = new TableRijndaelBlockCipher(parameters);
+
+        reference.init(cipherKey);
+        blockCipher.init(cipherKey);
+
+        byte[] encrypted = blockCipher.encrypt(blockPlaintext);
+
+        assertThat(encrypted).isEqualTo(reference.encrypt(blockPlaintext));
+        assertThat(blockCipher.decrypt(encrypted)).isEqualTo(blockPlaintext);
+    }
+
+    @Provide("irreducibleModulus")
+    Arbitrary<Short> irreducibleModulus() {
+        GaloisField field = new GaloisField();
+        return Arbitraries.of(field.irreducibles());
+    }
+
+    @Provide("bytes")
+    Arbitrary<byte[]> bytes() {
+        return Arbitraries.bytes().array(byte[].class).ofSize(32);
+    }
+
+    @Example
+    void encryptionIsCorrect() {
+        TableRijndaelBlockCipher blockCipher = new TableRijndaelBlockCipher(
+            RijndaelParameters.aes128());
+
+        byte[] plaintext = new byte[] {
+            (byte) 0x01, (byte) 0x23, (byte) 0x45, (byte) 0x67, (byte) 0x89,
+            (byte) 0xab, (byte) 0xcd, (byte) 0xef, (byte) 0xfe, (byte) 0xdc,
+            (byte) 0xba, (byte) 0x98, (byte) 0x76, (byte) 0x54, (byte) 0x32,
+            (byte) 0x10
+        };
+
+        byte[] key = new byte[] {
+            (byte) 0x0f, (byte) 0x15, (byte) 0x71, (byte) 0xc9, (byte) 0x47,
+            (byte) 0xd9, (byte) 0xe8, (byte) 0x59, (byte) 0x1c, (byte) 0xb7,
+            (byte) 0xad, (byte) 0xd6, (byte) 0xaf, (byte) 0x7f, (byte) 0x67,
+            (byte) 0x98
+        };
+
+        byte[] expected = new byte[] {
+            (byte) 0x34, (byte) 0xd3, (byte) 0xf0, (byte) 0xee, (byte) 0xcb,
+            (byte) 0x4d, (byte) 0xfa, (byte) 0x16, (byte) 0xcb, (byte) 0x8b,
+            (byte) 0xf0, (byte) 0x7f, (byte) 0x29, (byte) 0xa0, (byte) 0xcb,
+            (byte) 0x79
+        };
+
+        blockCipher.init(key);
+
+        assertThat(blockCipher.encrypt(plaintext)).isEqualTo(expected);
+        assertThat(blockCipher.decrypt(expected)).isEqualTo(plaintext);
+    }
+
+    private static byte[] resize(byte[] bytes, int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(bytes, 0, result, 0, length);
+        return result;
+    }
+}
@@ -21,4 +21,36 @@ public class DiffieHellmanTest {
 
         assertThat(aliceKex.sharedSecret()).isEqualTo(bobKex.sharedSecret());
     }
+
+    @Example
+    void publicKeyIsBasePowerOfPrivateKey() {
+        DiffieHellmanGroup group = DiffieHellmanGroup.FFDHE3072;
+
+        for (int i = 0; i < 5; i++) {
+            DiffieHellman kex = DiffieHellman.of(group);
+            BigInteger publicKey = kex.initiate();
+
+            assertThat(publicKey).isEqualTo(group.base().modPow(kex.privateKey(), group.modulus()));
+        }
+    }
+
+    @Example
+    void fixedBase_IsKeptForPredefinedGroupsOnly() {
+        DiffieHellmanGroup copy = new DiffieHellmanGroup(
+            DiffieHellmanGroup.FFDHE2048.modulus(),
+            DiffieHellmanGroup.FFDHE2048.base()
+        );
+        DiffieHellmanGroup other = new DiffieHellmanGroup(
+            DiffieHellmanGroup.FFDHE2048.modulus(),
+            BigInteger.valueOf(5)
+        );
+
+        assertThat(copy.fixedBase()).isSameAs(DiffieHellmanGroup.FFDHE2048.fixedBase());
+        assertThat(other.fixedBase()).isNull();
+
+        DiffieHellman kex = DiffieHellman.of(other);
+        BigInteger publicKey = kex.initiate();
+
+        assertThat(publicKey).isEqualTo(other.base().modPow(kex.privateKey(), other.modulus()));
+    }
 }
@@ -0,0 +1,60 @@
+package dora.crypto.dh;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.Positive;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixedBaseExponentiationTest {
+
+    @Property(tries = 300)
+    void modPowIsCorrect(
+        @ForAll BigInteger base,
+        @ForAll @Positive BigInteger exp,
+        @ForAll("oddModuli") BigInteger mod,
+        @ForAll @IntRange(min = 1, max = 700) int exponentBits
+    ) {
+        var fixedBase = new FixedBaseExponentiation(mod, base, exponentBits);
+
+        // Exponents longer than the table are computed without it.
+        assertThat(fixedBase.modPow(exp)).isEqualTo(base.modPow(exp, mod));
+        assertThat(fixedBase.modPow(BigInteger.ZERO)).isEqualTo(BigInteger.ONE);
+    }
+
+    @Example
+    void modPow_LargeOperands_IsCorrect() {
+        SecureRandom random = new SecureRandom();
+        BigInteger mod = new BigInteger(3072, random).setBit(3071).setBit(0);
+        BigInteger base = BigInteger.TWO;
+
+        var fixedBase = new FixedBaseExponentiation(mod, base, mod.bitLength());
+
+        for (int i = 0; i < 10; i++) {
+            BigInteger exp = new BigInteger(random.nextInt(1, 3073), random);
+            assertThat(fixedBase.modPow(exp)).isEqualTo(base.modPow(exp, mod));
+        }
+    }
+
+    @Example
+    void constructor_EvenModulus_Throws() {
+        assertThatThrownBy(() -> new FixedBaseExponentiation(BigInteger.valueOf(16), BigInteger.TWO, 8))
+            .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Provide
+    Arbitrary<BigInteger> oddModuli() {
+        return Arbitraries.bigIntegers()
+            .between(BigInteger.valueOf(3), BigInteger.TWO.pow(600))
+            .map((n) -> n.setBit(0));
+    }
+}
@@ -0,0 +1,70 @@
+package dora.crypto.rsa;
+
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.BigRange;
+import net.jqwik.api.constraints.IntRange;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrimeSieveTest {
+
+    @Property(tries = 200)
+    void candidatesAreNumbersWithoutSmallFactors(
+        @ForAll @BigRange(min = "10000", max = "100000000000") BigInteger start,
+        @ForAll @IntRange(min = 1, max = 2000) int length
+    ) {
+        BigInteger base = start.setBit(0);
+
+        List<BigInteger> expected = Stream.iterate(base, (n) -> n.add(BigInteger.TWO))
+            .limit(length)
+            .filter((n) -> !hasSmallFactor(n.longValueExact()))
+            .toList();
+
+        assertThat(candidates(new PrimeSieve(base, length))).isEqualTo(expected);
+    }
+
+    @Example
+    void primesInWindowAreCandidates() {
+        BigInteger base = BigInteger.TWO.pow(512).add(BigInteger.ONE);
+        List<BigInteger> candidates = candidates(new PrimeSieve(base, 5000));
+
+        Stream.iterate(base, (n) -> n.add(BigInteger.TWO))
+            .limit(5000)
+            .filter((n) -> n.isProbablePrime(64))
+            .forEach((prime) -> assertThat(candidates).contains(prime));
+
+        // Roughly 1/7 of the odd numbers have no factor below 2^13.
+        assertThat(candidates).hasSizeLessThan(5000 / 5);
+    }
+
+    @Example
+    void constructor_EvenBase_Throws() {
+        assertThatThrownBy(() -> new PrimeSieve(BigInteger.TWO.pow(100), 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<BigInteger> candidates(PrimeSieve sieve) {
+        List<BigInteger> candidates = new ArrayList<>();
+        BigInteger candidate;
+
+        while ((candidate = sieve.nextCandidate()) != null) {
+            candidates.add(candidate);
+        }
+
+        return candidates;
+    }
+
+    private static boolean hasSmallFactor(long n) {
+        return LongStream.iterate(3, (i) -> i < 1 << 13, (i) -> i + 2)
+            .anyMatch((i) -> n % i == 0);
+    }
+}
@@ -143,6 +143,36 @@ public class RsaMathTest {
 
         return Arbitraries.of(cases);
     }
+
+    @Property
+    public void jacobiOfLargePrimeMatchesEulerCriterion(@ForAll BigInteger a, @ForAll("largePrimes") BigInteger p) {
+        BigInteger euler = a.modPow(p.subtract(BigInteger.ONE).shiftRight(1), p);
+        BigInteger expected = euler.equals(p.subtract(BigInteger.ONE)) ? BigInteger.ONE.negate() : euler;
+
+        assertThat(rsaMath.jacobiSymbol(a, p)).isEqualTo(expected);
+    }
+
+    @Property
+    public void jacobiIsMultiplicativeInModulus(
+        @ForAll BigInteger a,
+        @ForAll("largeOdds") BigInteger m,
+        @ForAll("largeOdds") BigInteger n
+    ) {
+        assertThat(rsaMath.jacobiSymbol(a, m.multiply(n)))
+            .isEqualTo(rsaMath.jacobiSymbol(a, m).multiply(rsaMath.jacobiSymbol(a, n)));
+    }
+
+    @Provide("largePrimes")
+    public Arbitrary<BigInteger> largePrimes() {
+        return Arbitraries.randomValue((random) -> BigInteger.probablePrime(3 + random.nextInt(298), random));
+    }
+
+    @Provide("largeOdds")
+    public Arbitrary<BigInteger> largeOdds() {
+        return Arbitraries.bigIntegers()
+            .between(BigInteger.ONE, BigInteger.TWO.pow(200))
+            .map((n) -> n.setBit(0));
+    }
     //endregion
 
     //region Legendre symbol tests
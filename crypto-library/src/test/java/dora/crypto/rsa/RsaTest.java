@@ -1,14 +1,19 @@
 package dora.crypto.rsa;
 
+import dora.crypto.rsa.Rsa.KeyPairGenerator.KeyPair;
+import dora.crypto.rsa.Rsa.KeyPairGenerator;
 import dora.crypto.rsa.Rsa.PrimalityTestType;
 import net.jqwik.api.Assume;
+import net.jqwik.api.Example;
 import net.jqwik.api.ForAll;
 import net.jqwik.api.Property;
 import net.jqwik.api.constraints.Positive;
 
 import java.math.BigInteger;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
+import static dora.crypto.rsa.Rsa.PrimalityTestType.BAILLIE_PSW;
 import static dora.crypto.rsa.Rsa.PrimalityTestType.FERMAT;
 import static dora.crypto.rsa.Rsa.PrimalityTestType.MILLER_RABIN;
 import static dora.crypto.rsa.Rsa.PrimalityTestType.SOLOVAY_STRASSEN;
@@ -18,15 +23,25 @@ public class RsaTest {
 
     private static final double CERTAINTY = 0.99;
     private static final int PRIME_SIZE = 512;
+    private static final int MODULUS_SIZE = 2 * PRIME_SIZE;
 
     private final Map<PrimalityTestType, Rsa> rsa;
 
+    private final KeyPair multiPrimeKeyPair;
+    private final Rsa multiPrimeRsa;
+    private final Rsa multiPrimeRsaWithoutCrt;
+
     RsaTest() {
         rsa = Map.ofEntries(
             Map.entry(FERMAT, new Rsa(FERMAT, CERTAINTY, PRIME_SIZE)),
             Map.entry(MILLER_RABIN, new Rsa(MILLER_RABIN, CERTAINTY, PRIME_SIZE)),
-            Map.entry(SOLOVAY_STRASSEN, new Rsa(SOLOVAY_STRASSEN, CERTAINTY, PRIME_SIZE))
+            Map.entry(SOLOVAY_STRASSEN, new Rsa(SOLOVAY_STRASSEN, CERTAINTY, PRIME_SIZE)),
+            Map.entry(BAILLIE_PSW, new Rsa(BAILLIE_PSW, CERTAINTY, PRIME_SIZE))
         );
+
+        multiPrimeKeyPair = KeyPairGenerator.ofModulusSize(MILLER_RABIN, CERTAINTY, MODULUS_SIZE, 3, null).generate();
+        multiPrimeRsa = new Rsa(multiPrimeKeyPair, null);
+        multiPrimeRsaWithoutCrt = new Rsa(multiPrimeKeyPair.withCrt(null), null);
     }
 
     @Property
@@ -42,4 +57,57 @@ public class RsaTest {
         assertThat(cipher.decrypt(cipher.encrypt(plaintext)))
             .isEqualTo(plaintext);
     }
+
+    @Property
+    public void multiPrimeCrtDecryptionEqualsPlainDecryption(@ForAll @Positive BigInteger ciphertext) {
+        Assume.that(multiPrimeRsa.canEncrypt(ciphertext));
+
+        assertThat(multiPrimeRsa.decrypt(ciphertext))
+            .isEqualTo(multiPrimeRsaWithoutCrt.decrypt(ciphertext));
+        assertThat(multiPrimeRsa.encrypt(multiPrimeRsa.decrypt(ciphertext)))
+            .isEqualTo(ciphertext);
+    }
+
+    @Example
+    public void keyPairHasConsistentCrtKey() {
+        KeyPair keyPair = KeyPairGenerator.ofPrimeSize(MILLER_RABIN, CERTAINTY, PRIME_SIZE).generate();
+        Rsa.CrtKey crt = keyPair.crt();
+
+        assertThat(crt).isNotNull();
+        assertThat(keyPair.e()).isEqualTo(BigInteger.valueOf(65537));
+
+        BigInteger p = crt.primes().get(0);
+        BigInteger q = crt.primes().get(1);
+
+        assertThat(p.multiply(q)).isEqualTo(keyPair.n());
+        assertThat(crt.dP()).isEqualTo(keyPair.d().mod(p.subtract(BigInteger.ONE)));
+        assertThat(crt.dQ()).isEqualTo(keyPair.d().mod(q.subtract(BigInteger.ONE)));
+        assertThat(crt.qInv().multiply(q).mod(p)).isEqualTo(BigInteger.ONE);
+    }
+
+    @Example
+    public void multiPrimeKeyPairSplitsModulusSize() {
+        var primes = multiPrimeKeyPair.crt().primes();
+
+        assertThat(multiPrimeKeyPair.n().bitLength()).isEqualTo(MODULUS_SIZE);
+        assertThat(primes.stream().mapToInt(BigInteger::bitLength).sorted().toArray())
+            .containsExactly(MODULUS_SIZE / 3, MODULUS_SIZE / 3, MODULUS_SIZE / 3 + 1);
+    }
+
+    @Example
+    public void parallelGenerationFindsDistinctPrimes() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            KeyPair keyPair = KeyPairGenerator.ofModulusSize(MILLER_RABIN, CERTAINTY, MODULUS_SIZE, 4, pool).generate();
+            var primes = keyPair.crt().primes();
+
+            assertThat(primes).hasSize(4).doesNotHaveDuplicates();
+            assertThat(primes).allMatch((prime) -> prime.bitLength() == MODULUS_SIZE / 4 && prime.isProbablePrime(64));
+            assertThat(primes.stream().reduce(BigInteger.ONE, BigInteger::multiply)).isEqualTo(keyPair.n());
+            assertThat(keyPair.n().bitLength()).isEqualTo(MODULUS_SIZE);
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package dora.crypto.rsa.primality;
+
+import net.jqwik.api.Example;
+
+import java.math.BigInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BailliePswTest extends AbstractTest {
+
+    BailliePswTest() {
+        super(new BailliePswPrimalityTest());
+    }
+
+    @Example
+    void pseudoprimesTestNegative() {
+        // Strong pseudoprimes to base 2, strong Lucas pseudoprimes and Carmichael numbers.
+        long[] pseudoprimes = { 2047, 3277, 4033, 3215031751L, 5459, 5777, 10877, 16109, 41041, 825265 };
+
+        for (long n : pseudoprimes) {
+            assertThat(primalityTest.isProbablyPrime(BigInteger.valueOf(n), 0.99))
+                .describedAs("%d is composite", n)
+                .isFalse();
+        }
+    }
+
+    @Example
+    void largeNumbersAreClassified() {
+        BigInteger m61 = BigInteger.TWO.pow(61).subtract(BigInteger.ONE);
+        BigInteger m67 = BigInteger.TWO.pow(67).subtract(BigInteger.ONE);
+        BigInteger m521 = BigInteger.TWO.pow(521).subtract(BigInteger.ONE);
+
+        assertThat(primalityTest.isProbablyPrime(m61, 0.99)).isTrue();
+        assertThat(primalityTest.isProbablyPrime(m67, 0.99)).isFalse();
+        assertThat(primalityTest.isProbablyPrime(m521, 0.99)).isTrue();
+        assertThat(primalityTest.isProbablyPrime(m521.multiply(m61), 0.99)).isFalse();
+        assertThat(primalityTest.isProbablyPrime(m521.multiply(m521), 0.99)).isFalse();
+    }
+}
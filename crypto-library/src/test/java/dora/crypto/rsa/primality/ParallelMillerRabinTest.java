@@ -0,0 +1,10 @@
+package dora.crypto.rsa.primality;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelMillerRabinTest extends AbstractTest {
+
+    ParallelMillerRabinTest() {
+        super(new MillerRabinPrimalityTest(ForkJoinPool.commonPool()));
+    }
+}
@@ -4,9 +4,10 @@ import dora.messenger.protocol.chat.BlobDto;
 import dora.messenger.protocol.chat.file.ChatFileDto;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 public interface ChatFileApi {
 
@@ -18,11 +19,11 @@ public interface ChatFileApi {
     );
 
     /**
-     * @param stream content stream
-     * @param length content length in bytes
-     * @param iv     initialization vector (Base64-encoded)
+     * @param content content publisher; subscribed to once per request
+     * @param length  content length in bytes
+     * @param iv      initialization vector (Base64-encoded)
      */
-    record StreamBlobDto(InputStream stream, long length, String iv) {
+    record StreamBlobDto(Flow.Publisher<ByteBuffer> content, long length, String iv) {
     }
 
     @FunctionalInterface
@@ -37,10 +38,10 @@ public interface ChatFileApi {
     );
 
     /**
-     * @param stream content stream
-     * @param length content length in bytes
+     * @param content content publisher; can be subscribed to once
+     * @param length  content length in bytes
      */
-    record FileDownload(InputStream stream, long length) {
+    record FileDownload(Flow.Publisher<ByteBuffer> content, long length) {
     }
 
     CompletableFuture<Void> deleteFile(@NotNull UUID sessionId, @NotNull UUID fileId);
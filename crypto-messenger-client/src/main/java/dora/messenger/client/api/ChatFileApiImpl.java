@@ -19,6 +19,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
@@ -63,7 +64,7 @@ public class ChatFileApiImpl implements ChatFileApi {
         MultipartBodyPublisher multipartPublisher = new MultipartBodyPublisher()
             .addFile(
                 "file",
-                BodyPublishers.ofInputStream(file::stream),
+                BodyPublishers.fromPublisher(file.content(), file.length()),
                 "file.bin", // File name doesn't matter
                 file.length(),
                 "application/octet-stream"
@@ -113,16 +114,53 @@ public class ChatFileApiImpl implements ChatFileApi {
             (authentication) -> authentication.applyToJava(builder)
         );
 
-        return httpClient.sendAsync(builder.build(), BodyHandlers.ofInputStream())
+        return httpClient.sendAsync(builder.build(), BodyHandlers.ofPublisher())
             .thenApply((response) -> {
                 int length = response.headers()
                     .firstValue("Content-Length")
                     .map(Integer::parseInt)
                     .orElse(-1);
-                return new FileDownload(response.body(), length);
+                return new FileDownload(flatten(response.body()), length);
             });
     }
 
+    /**
+     * Publishes every list of buffers as a single buffer, so that demand is
+     * passed through to the response body as is.
+     */
+    private static Flow.Publisher<ByteBuffer> flatten(Flow.Publisher<List<ByteBuffer>> publisher) {
+        return (subscriber) -> publisher.subscribe(new Flow.Subscriber<>() {
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> item) {
+                if (item.size() == 1) {
+                    subscriber.onNext(item.get(0));
+                    return;
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate(item.stream().mapToInt(ByteBuffer::remaining).sum());
+                item.forEach(buffer::put);
+
+                subscriber.onNext(buffer.flip());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        });
+    }
+
     @Override
     public CompletableFuture<Void> deleteFile(@NotNull UUID sessionId, @NotNull UUID fileId) {
         requireNonNull(sessionId, "session ID");
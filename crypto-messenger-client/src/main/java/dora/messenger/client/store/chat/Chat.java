@@ -82,14 +82,34 @@ public record Chat(
         RC6(() -> new Rc6BlockCipher(new Rc6Parameters(Rc6Parameters.WordSize.WORD_SIZE_32, 20, 16)));
 
         private final Supplier<BlockCipher> cipherCreator;
+        private final int blockSize;
+        private final int keySize;
 
         Algorithm(Supplier<BlockCipher> cipherCreator) {
             this.cipherCreator = cipherCreator;
+
+            BlockCipher cipher = cipherCreator.get();
+
+            this.blockSize = cipher.blockSize();
+            this.keySize = cipher.keySizes().stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Cipher does not advertise key sizes"));
         }
 
         public BlockCipher createCipher() {
             return cipherCreator.get();
         }
+
+        public int blockSize() {
+            return blockSize;
+        }
+
+        /**
+         * Returns the size of the keys derived from the shared secret.
+         */
+        public int keySize() {
+            return keySize;
+        }
     }
 
     //region Mapper
@@ -14,20 +14,23 @@ import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Objects.requireNonNull;
@@ -101,7 +104,7 @@ public class ChatFileStore {
 
         return CompletableFuture.supplyAsync(() -> {
                 try {
-                    return encryptFile(chat, session, filePath, callback);
+                    return encryptFile(chat, session, filePath);
                 } catch (IOException e) {
                     throw new UncheckedIOException("Cannot encrypt file", e);
                 }
@@ -123,25 +126,27 @@ public class ChatFileStore {
             .thenApply((file) -> storeRecord(session, filePath, file));
     }
 
-    private StreamBlobDto encryptFile(
-        Chat chat,
-        ChatSession session,
-        Path filePath,
-        ProgressCallback callback
-    ) throws IOException {
+    private StreamBlobDto encryptFile(Chat chat, ChatSession session, Path filePath) throws IOException {
         byte[] iv = EncryptionSupport.generateIv(chat, random);
 
         SymmetricCipher cipher = EncryptionSupport.createCipher(chat, session, iv);
-        InputStream cipherStream = cipher.encryptingInputStream(Files.newInputStream(filePath));
+        BodyPublisher filePublisher = BodyPublishers.ofFile(filePath);
 
-        long length = paddedLength(chat.algorithm(), Files.size(filePath));
-        InputStream progressStream = new ProgressInputStream(cipherStream, callback, length);
+        // The file is read and encrypted as the request body is sent; modes
+        // that allow it encrypt several buffers at once on the cipher's pool.
+        // Every subscription (e.g. a retried request) gets its own processor.
+        Flow.Publisher<ByteBuffer> content = (subscriber) -> {
+            Flow.Processor<ByteBuffer, ByteBuffer> processor = cipher.encryptingProcessor();
+            processor.subscribe(subscriber);
+            filePublisher.subscribe(processor);
+        };
 
-        return new StreamBlobDto(progressStream, length, Base64.getEncoder().encodeToString(iv));
+        long length = paddedLength(chat.algorithm(), Files.size(filePath));
+        return new StreamBlobDto(content, length, Base64.getEncoder().encodeToString(iv));
     }
 
     private long paddedLength(Chat.Algorithm algorithm, long length) {
-        int blockSize = algorithm.createCipher().blockSize();
+        int blockSize = algorithm.blockSize();
         return length + (blockSize - (length % blockSize));
     }
 
@@ -189,13 +194,7 @@ public class ChatFileStore {
             throw new IllegalArgumentException("File cannot be decrypted by session");
 
         return chatFileApi.downloadFile(session.getSessionId(), file.getId())
-            .thenApply((download) -> {
-                try {
-                    return downloadFile(download, chat, session, file, callback);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            })
+            .thenCompose((download) -> downloadFile(download, chat, session, file, callback))
             .thenCompose((filePath) ->
                 chatFileApi.deleteFile(session.getSessionId(), file.getId())
                     .thenApply((nothing) -> filePath)
@@ -206,24 +205,37 @@ public class ChatFileStore {
             });
     }
 
-    private Path downloadFile(
+    private CompletableFuture<Path> downloadFile(
         FileDownload download,
         Chat chat,
         ChatSession session,
         ChatFile file,
         ProgressCallback callback
-    )
-    throws IOException {
+    ) {
         Path filePath = storageDirectory.resolve(file.getFilename());
+        FileChannel storeChannel;
 
-        try (OutputStream storeStream = Files.newOutputStream(filePath)) {
-            SymmetricCipher cipher = EncryptionSupport.createCipher(chat, session, file.getIv());
-            InputStream decryptStream = cipher.decryptingInputStream(download.stream());
-            InputStream progressStream = new ProgressInputStream(decryptStream, callback, download.length());
-            progressStream.transferTo(storeStream);
+        try {
+            storeChannel = FileChannel.open(
+                filePath,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING
+            );
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
 
-        return filePath;
+        // The response body is decrypted as it arrives, without blocking a
+        // thread on a stream; several buffers at once where the mode allows.
+        SymmetricCipher cipher = EncryptionSupport.createCipher(chat, session, file.getIv());
+        Flow.Processor<ByteBuffer, ByteBuffer> processor = cipher.decryptingProcessor();
+
+        FileSubscriber fileSubscriber = new FileSubscriber(storeChannel, callback, download.length());
+        processor.subscribe(fileSubscriber);
+        download.content().subscribe(processor);
+
+        return fileSubscriber.completion().thenApply((nothing) -> filePath);
     }
     //endregion
 
@@ -233,46 +245,68 @@ public class ChatFileStore {
     }
     //endregion
 
-    private static class ProgressInputStream extends FilterInputStream {
-
-        private long transferredSize;
+    private static class FileSubscriber implements Flow.Subscriber<ByteBuffer> {
 
+        private final FileChannel channel;
         private final ProgressCallback callback;
         private final long totalSize;
 
-        public ProgressInputStream(InputStream stream, ProgressCallback callback, long totalSize) {
-            super(stream);
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        private Flow.Subscription subscription;
+        private long transferredSize;
 
+        public FileSubscriber(FileChannel channel, ProgressCallback callback, long totalSize) {
+            this.channel = channel;
             this.callback = callback;
             this.totalSize = totalSize;
         }
 
+        public CompletableFuture<Void> completion() {
+            return completion;
+        }
+
         @Override
-        public int read() throws IOException {
-            int read = super.read();
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
 
-            if (read != -1) {
-                transferredSize++;
-                onProgress();
+        @Override
+        public void onNext(ByteBuffer item) {
+            try {
+                while (item.hasRemaining()) {
+                    transferredSize += channel.write(item);
+                }
+            } catch (IOException e) {
+                subscription.cancel();
+                onError(e);
+                return;
             }
 
-            return read;
+            callback.onProgress(transferredSize, totalSize);
+            subscription.request(1);
         }
 
         @Override
-        public int read(byte @NotNull [] b, int off, int len) throws IOException {
-            int read = super.read(b, off, len);
-
-            if (read > 0) {
-                transferredSize += read;
-                onProgress();
+        public void onError(Throwable throwable) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throwable.addSuppressed(e);
             }
 
-            return read;
+            completion.completeExceptionally(throwable);
         }
 
-        private void onProgress() {
-            callback.onProgress(transferredSize, totalSize);
+        @Override
+        public void onComplete() {
+            try {
+                channel.close();
+                completion.complete(null);
+            } catch (IOException e) {
+                completion.completeExceptionally(e);
+            }
         }
     }
 }
@@ -1,5 +1,6 @@
 package dora.messenger.client.store.chat;
 
+import dora.crypto.KeyScheduleCache;
 import dora.crypto.SymmetricCipher;
 import dora.crypto.block.BlockCipher;
 import dora.messenger.client.persistence.ChatSession;
@@ -15,6 +16,9 @@ import static java.util.Objects.requireNonNull;
 
 final class EncryptionSupport {
 
+    /** Keyed ciphers of recently used chats, so that messages do not re-run the key schedule. */
+    private static final KeyScheduleCache KEY_SCHEDULES = new KeyScheduleCache(32);
+
     private EncryptionSupport() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
@@ -23,8 +27,7 @@ final class EncryptionSupport {
         requireNonNull(chat, "chat");
         requireNonNull(random, "random");
 
-        var cipher = chat.algorithm().createCipher();
-        var initSize = chat.cipherMode().initSize(cipher.blockSize());
+        var initSize = chat.cipherMode().initSize(chat.algorithm().blockSize());
         var iv = new byte[initSize];
         random.nextBytes(iv);
 
@@ -52,8 +55,11 @@ final class EncryptionSupport {
         requireNonNull(plaintext, "plaintext bytes");
         requireNonNull(iv, "initialization vector");
 
-        SymmetricCipher cipher = createCipher(chat, session, iv);
-        byte[] ciphertext = cipher.encrypt(plaintext);
+        byte[] ciphertext;
+
+        try (KeyScheduleCache.Lease lease = leaseCipher(chat, session)) {
+            ciphertext = buildCipher(chat, lease.cipher(), iv).encrypt(plaintext);
+        }
 
         Base64.Encoder encoder = Base64.getEncoder();
         return new BlobDto(encoder.encodeToString(iv), encoder.encodeToString(ciphertext));
@@ -80,10 +86,15 @@ final class EncryptionSupport {
         byte[] iv = decoder.decode(blob.iv());
         byte[] ciphertext = decoder.decode(blob.ciphertext());
 
-        SymmetricCipher cipher = createCipher(chat, session, iv);
-        return cipher.decrypt(ciphertext);
+        try (KeyScheduleCache.Lease lease = leaseCipher(chat, session)) {
+            return buildCipher(chat, lease.cipher(), iv).decrypt(ciphertext);
+        }
     }
 
+    /**
+     * Creates a cipher for long-running operations, e.g. on files. It is keyed
+     * on its own, so that it outlives the cached key schedules.
+     */
     public static SymmetricCipher createCipher(
         @NotNull Chat chat,
         @NotNull ChatSession session,
@@ -93,20 +104,46 @@ final class EncryptionSupport {
         requireNonNull(session, "chat session");
         requireNonNull(iv, "initialization vector");
 
-        BlockCipher cipher = chat.algorithm().createCipher();
-
-        int keySize = cipher.keySizes().stream()
-            .findFirst()
-            .orElseThrow(() -> new IllegalStateException("Cipher does not advertise key sizes"));
+        byte[] key = deriveKey(chat, session);
+
+        try {
+            return SymmetricCipher.builder()
+                .cipher(chat.algorithm().createCipher())
+                .mode(chat.cipherMode())
+                .padding(chat.padding())
+                .key(key)
+                .iv(iv)
+                .build();
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
 
-        byte[] key = Arrays.copyOf(session.getSharedSecret(), keySize);
+    /**
+     * Leases the cached key schedule of a chat; messages are encrypted while
+     * the lease is held.
+     */
+    private static KeyScheduleCache.Lease leaseCipher(Chat chat, ChatSession session) {
+        Chat.Algorithm algorithm = chat.algorithm();
+        byte[] key = deriveKey(chat, session);
+
+        try {
+            return KEY_SCHEDULES.lease(algorithm, key, algorithm::createCipher);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
 
+    private static SymmetricCipher buildCipher(Chat chat, BlockCipher keyed, byte[] iv) {
         return SymmetricCipher.builder()
-            .cipher(cipher)
+            .initializedCipher(keyed)
             .mode(chat.cipherMode())
             .padding(chat.padding())
-            .key(key)
             .iv(iv)
             .build();
     }
+
+    private static byte[] deriveKey(Chat chat, ChatSession session) {
+        return Arrays.copyOf(session.getSharedSecret(), chat.algorithm().keySize());
+    }
 }